@@ -0,0 +1,110 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.AppMain;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeQueueService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+Boots the real application (beans, H2 schema, application.yml) for the benchmarks that need the database or the
+full pipeline. No web server, and logging at WARN so the per-trade INFO lines do not end up in the measurement.
+
+Everything that would make one run depend on an earlier one, or add disk I/O the benchmark does not measure, is
+off: no warm start (no snapshot restore, no 50k warm-up trades), no duplicate filter, the simulated reference
+source (every id ACTIVE) instead of the account and broker tables. The WAL and the audit journal cannot be turned
+off; they write into a temporary directory that close() deletes, with fsync-policy NEVER and no WAL replay.
+ */
+final class BenchmarkContext {
+
+    private static final String DATA_DIRECTORY = "benchmark.data-directory";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(QueueType queueType) {
+        return start(queueType, true);
+    }
+
+    static ConfigurableApplicationContext start(QueueType queueType, boolean metrics, String... properties) {
+        Path data = temporaryDirectory();
+        return new SpringApplicationBuilder(AppMain.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "logging.level.root=WARN",
+                        "spring.jpa.show-sql=false",
+                        "forex.queue.type=" + queueType.name(),
+                        "forex.metrics.enabled=" + metrics,
+                        "forex.warm-start.enabled=false",
+                        "forex.admission.dedup.enabled=false",
+                        "forex.reference.simulated=true",
+                        "forex.wal.directory=" + data.resolve("wal"),
+                        "forex.wal.fsync-policy=NEVER",
+                        "forex.wal.replay=false",
+                        "forex.journal.directory=" + data.resolve("journal"),
+                        "forex.journal.fsync-policy=NEVER",
+                        DATA_DIRECTORY + "=" + data)
+                .properties(properties)
+                .run();
+    }
+
+    // Closes the context, then deletes its WAL and journal files
+    static void close(ConfigurableApplicationContext context) {
+        String data = context.getEnvironment().getProperty(DATA_DIRECTORY);
+        context.close();
+        try {
+            FileSystemUtils.deleteRecursively(Path.of(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+    Hands the trade to the pipeline. Anything but ACCEPTED fails the invocation: the trade would never come out of
+    the pipeline, and a benchmark waiting for it to would spin forever.
+     */
+    static void addTrade(TradeQueueManager tradeQueueManager, TradeEventPool tradeEventPool, TradeEvent trade) {
+        long tradeId = trade.getTradeId();
+        Admission admission = tradeQueueManager.addTrade(trade);
+        if (!admission.isAccepted()) {
+            tradeEventPool.release(trade);
+            throw new IllegalStateException("Trade " + tradeId + " not admitted: " + admission);
+        }
+    }
+
+    static void startPipeline(TradeQueueService tradeQueueService, PipelineMode mode) {
+        switch (mode) {
+            case CLASSIC_BLOCKING_QUEUE -> tradeQueueService.startClassicBlockingQueuePipeline();
+            case VIRTUAL_THREADS -> tradeQueueService.startVirtualThreadPipeline();
+            case STRUCTURED_CONCURRENCY -> tradeQueueService.startStructuredConcurrencyPipeline();
+        }
+    }
+
+    static void stopPipeline(TradeQueueService tradeQueueService, PipelineMode mode) {
+        switch (mode) {
+            case CLASSIC_BLOCKING_QUEUE -> tradeQueueService.stopClassicBlockingQueuePipeline();
+            case VIRTUAL_THREADS -> tradeQueueService.stopVirtualThreadPipeline();
+            case STRUCTURED_CONCURRENCY -> tradeQueueService.stopStructuredConcurrencyPipeline();
+        }
+    }
+
+    private static Path temporaryDirectory() {
+        try {
+            return Files.createTempDirectory("forex-benchmark-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
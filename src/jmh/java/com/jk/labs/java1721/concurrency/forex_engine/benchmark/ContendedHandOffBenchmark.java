@@ -0,0 +1,73 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueues;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.WaitStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Contended hand-off: one producer and three consumers on one TradeQueue, per queue type and wait strategy (the
+wait strategy only applies to RING_BUFFER). Producer and consumers wait at most WAIT_MICROS per call instead of
+put()/take(), so no thread is left blocked when an iteration ends. handedOff counts the trades the consumers
+received (the hand-off throughput); full and empty count the waits that ran out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ContendedHandOffBenchmark {
+
+    private static final int CAPACITY = 10_000;
+    private static final long WAIT_MICROS = 100;
+
+    @Param({"LINKED_BLOCKING", "RING_BUFFER"})
+    private QueueType queueType;
+
+    @Param({"BUSY_SPIN", "YIELD", "PARK"})
+    private WaitStrategy waitStrategy;
+
+    private TradeQueue<TradeEvent> queue;
+    private TradeEvent trade;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long handedOff;
+        public long full;
+        public long empty;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = TradeQueues.create(queueType, CAPACITY, waitStrategy);
+        trade = new TradeEvent();
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public void produce(Counters counters) throws InterruptedException {
+        if (!queue.offer(trade, WAIT_MICROS, TimeUnit.MICROSECONDS)) {
+            counters.full++;
+        }
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(3)
+    public TradeEvent consume(Counters counters) throws InterruptedException {
+        TradeEvent taken = queue.poll(WAIT_MICROS, TimeUnit.MICROSECONDS);
+        if (taken == null) {
+            counters.empty++;
+        } else {
+            counters.handedOff++;
+        }
+        return taken;
+    }
+}
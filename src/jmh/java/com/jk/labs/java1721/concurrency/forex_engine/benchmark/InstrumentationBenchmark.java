@@ -0,0 +1,69 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.StageMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Hot-path cost of the pipeline metrics per trade, with forex.metrics.enabled on and off.
+
+    stage      what one stage pays per handle() call (sampled timing, busy time, service-time histogram)
+    trade      what one trade pays end to end: four stages plus the completion counters and intake → audit
+               histogram
+
+Compare `trade` with the per-trade time of PipelineThroughputBenchmark (1 / throughput) for the overhead share;
+the pipeline itself is too noisy to resolve a difference of a few percent directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InstrumentationBenchmark {
+
+    @Param({"true", "false"})
+    private boolean metrics;
+
+    // forex.metrics.sample-every; 1 times every call
+    @Param({"16", "1"})
+    private int sampleEvery;
+
+    private StageMetrics[] stages;
+    private PipelineModeStats modeStats;
+
+    @Setup
+    public void setUp() {
+        MetricsProperties metricsProperties = new MetricsProperties();
+        metricsProperties.setEnabled(metrics);
+        metricsProperties.setSampleEvery(sampleEvery);
+        PipelineStatsRegistry registry = new PipelineStatsRegistry(new LatencyRecorder(), metricsProperties);
+        stages = new StageMetrics[PipelineStage.values().length];
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages[stage.ordinal()] = registry.stage(stage);
+        }
+        modeStats = registry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE);
+    }
+
+    @Benchmark
+    public void stage() {
+        StageMetrics validation = stages[0];
+        validation.recordHandled(1, validation.startNanos());
+    }
+
+    @Benchmark
+    public void trade() {
+        long intakeNanos = System.nanoTime();
+        for (StageMetrics stage : stages) {
+            stage.recordHandled(1, stage.startNanos());
+        }
+        modeStats.recordCompleted(intakeNanos);
+    }
+}
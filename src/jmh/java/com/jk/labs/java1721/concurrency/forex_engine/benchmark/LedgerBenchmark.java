@@ -0,0 +1,47 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.load.ZipfSampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+AccountLedger.post() throughput with 4 writer threads (ops/s summed over threads).
+
+    skew 0.0  - accounts spread uniformly: writers almost never meet in the same account
+    skew 1.2  - a few hot accounts take most posts: shows the cost of writers contending on one cache line
+
+Compare with -t 1 to see the uncontended cost of one post (two XADDs on balances, two on the stamp).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LedgerBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    @Param({"0.0", "1.2"})
+    private double skew;
+
+    private AccountLedger ledger;
+    private ZipfSampler accounts;
+
+    @Setup
+    public void setUp() {
+        ledger = new AccountLedger(new LedgerProperties());
+        accounts = new ZipfSampler(ACCOUNTS, skew);
+    }
+
+    @Benchmark
+    public void post() {
+        ledger.post(1 + accounts.sample(ThreadLocalRandom.current()), Currency.USD, 10_000, Currency.EUR, 9_200);
+    }
+}
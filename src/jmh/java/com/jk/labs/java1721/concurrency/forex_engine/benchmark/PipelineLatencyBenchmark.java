@@ -0,0 +1,93 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeQueueService;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.TradeProducerImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+End-to-end latency, the counterpart of PipelineThroughputBenchmark: every invocation sends `burst` trades and ends
+when the last of them has left the pipeline. JMH samples the invocation times, so the p0.99 / p0.999 rows of the
+result are the tail latency of a burst, per mode.
+
+    mode           CLASSIC_BLOCKING_QUEUE, VIRTUAL_THREADS or STRUCTURED_CONCURRENCY
+    burst          1 = a lone trade through an idle pipeline; 64 = the slowest of 64 trades sent at once
+    lookupLatency  forex.reference.simulated-latency: round-trip of an account or a broker lookup. The sequential
+                   modes pay the account and the broker miss one after the other in validation, the structured mode
+                   forks both next to the rate and pays only the slowest lookup
+
+The reference cache runs without preload and with 64 account / 8 broker slots, below the ids the producer draws
+from (forex.load.accounts / brokers), so lookups keep missing and lookupLatency shows in every burst.
+
+The classic numbers include the settlement and audit micro-batch linger (forex.pipeline.settlement.linger,
+audit.linger): a lone trade waits out both. Completion is polled every POLL_NANOS, which bounds the resolution.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineLatencyBenchmark {
+
+    private static final long POLL_NANOS = 10_000;
+
+    @Param({"CLASSIC_BLOCKING_QUEUE", "VIRTUAL_THREADS", "STRUCTURED_CONCURRENCY"})
+    private PipelineMode mode;
+
+    @Param({"1", "64"})
+    private int burst;
+
+    @Param({"0ms", "1ms"})
+    private String lookupLatency;
+
+    private ConfigurableApplicationContext context;
+    private TradeQueueService tradeQueueService;
+    private TradeQueueManager tradeQueueManager;
+    private TradeProducerImpl tradeProducer;
+    private TradeEventPool tradeEventPool;
+    private PipelineModeStats stats;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(QueueType.LINKED_BLOCKING, true,
+                "forex.reference.preload=false",
+                "forex.reference.account-capacity=64",
+                "forex.reference.broker-capacity=8",
+                "forex.reference.simulated-latency=" + lookupLatency);
+        tradeQueueService = context.getBean(TradeQueueService.class);
+        tradeQueueManager = context.getBean(TradeQueueManager.class);
+        tradeProducer = context.getBean(TradeProducerImpl.class);
+        tradeEventPool = context.getBean(TradeEventPool.class);
+        stats = context.getBean(PipelineStatsRegistry.class).stats(mode);
+        BenchmarkContext.startPipeline(tradeQueueService, mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stopPipeline(tradeQueueService, mode);
+        BenchmarkContext.close(context);
+    }
+
+    @Benchmark
+    public long burst() {
+        long target = stats.processed() + burst;
+        for (int i = 0; i < burst; i++) {
+            BenchmarkContext.addTrade(tradeQueueManager, tradeEventPool, tradeProducer.nextTrade());
+        }
+        long processed;
+        while ((processed = stats.processed()) < target) {
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,89 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeQueueService;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.TradeProducerImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+End-to-end throughput: TRADES trades go through addTrade() and the whole pipeline (validate → enrich → settle into
+H2 → audit); an invocation ends when all of them have left the pipeline. Reported as trades/s.
+
+    mode       CLASSIC_BLOCKING_QUEUE (stage pools + queues, batched settlement), VIRTUAL_THREADS (thread per
+               trade; platform threads unless built with -Pjava21 on JDK 21) or STRUCTURED_CONCURRENCY (thread per
+               trade, enrichment lookups forked concurrently)
+    queueType  implementation of the stage queues (forex.queue.type)
+    metrics    forex.metrics.enabled: per-stage timing and latency histograms on (true) or off (false); the
+               throughput difference between the two is the cost of the instrumentation
+
+The pipelines are started through TradeQueueService, as the REST API does, so the scheduled producer is running
+too; at one trade per 10s it does not register in the numbers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineThroughputBenchmark {
+
+    private static final int TRADES = 10_000;
+    private static final long POLL_NANOS = 20_000;
+
+    @Param({"CLASSIC_BLOCKING_QUEUE", "VIRTUAL_THREADS", "STRUCTURED_CONCURRENCY"})
+    private PipelineMode mode;
+
+    @Param({"LINKED_BLOCKING", "RING_BUFFER"})
+    private QueueType queueType;
+
+    @Param({"true", "false"})
+    private boolean metrics;
+
+    private ConfigurableApplicationContext context;
+    private TradeQueueService tradeQueueService;
+    private TradeQueueManager tradeQueueManager;
+    private TradeProducerImpl tradeProducer;
+    private TradeEventPool tradeEventPool;
+    private PipelineModeStats stats;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(queueType, metrics);
+        tradeQueueService = context.getBean(TradeQueueService.class);
+        tradeQueueManager = context.getBean(TradeQueueManager.class);
+        tradeProducer = context.getBean(TradeProducerImpl.class);
+        tradeEventPool = context.getBean(TradeEventPool.class);
+        stats = context.getBean(PipelineStatsRegistry.class).stats(mode);
+
+        BenchmarkContext.startPipeline(tradeQueueService, mode);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.stopPipeline(tradeQueueService, mode);
+        BenchmarkContext.close(context);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRADES)
+    public long pipeline() {
+        long target = stats.processed() + TRADES;
+        for (int i = 0; i < TRADES; i++) {
+            BenchmarkContext.addTrade(tradeQueueManager, tradeEventPool, tradeProducer.nextTrade());
+        }
+        long processed;
+        while ((processed = stats.processed()) < target) {
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Cost of TradeQueueManager.addTrade(): sequence + intake timestamp + put() into the intake queue, paired with the
+take() a validator would do. Single-threaded, so this is the uncontended hand-off cost per queue type; contended
+multi-consumer hand-off is covered by ContendedHandOffBenchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueHandOffBenchmark {
+
+    @Param({"LINKED_BLOCKING", "RING_BUFFER"})
+    private QueueType queueType;
+
+    private TradeQueueManager tradeQueueManager;
+    private TradeEvent trade;
+
+    @Setup
+    public void setUp() {
+        TradeQueueProperties queueProperties = new TradeQueueProperties();
+        queueProperties.setType(queueType);
+        tradeQueueManager = new TradeQueueManager(queueProperties, new PipelineProperties());
+        trade = new TradeEvent();
+    }
+
+    @Benchmark
+    public TradeEvent addTradeThenTake() throws InterruptedException {
+        tradeQueueManager.addTrade(trade);
+        return tradeQueueManager.getTradeQueue().take();
+    }
+}
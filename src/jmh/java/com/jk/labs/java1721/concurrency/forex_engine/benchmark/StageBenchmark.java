@@ -0,0 +1,107 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.TradeProducerImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Per-trade cost of each stage's business method, on the Spring beans the pipeline uses (queues not involved).
+
+    settle       - one INSERT + commit, the virtual-thread pipeline's path
+    settleBatch  - one JDBC batch of SETTLEMENT_BATCH trades, the classic pipeline's micro-batch path;
+                   reported per trade (@OperationsPerInvocation)
+
+Settled rows stay in the in-memory H2 database, so every settled trade needs a fresh id: settle() takes it from
+the producer, settleBatch() from its own range far above it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageBenchmark {
+
+    private static final int SETTLEMENT_BATCH = 500;
+    private static final long BATCH_ID_BASE = 1L << 40;
+
+    private ConfigurableApplicationContext context;
+    private TradeProducerImpl tradeProducer;
+    private TradeValidator tradeValidator;
+    private TradeEnricher tradeEnricher;
+    private TradeSettler tradeSettler;
+    private TradeAuditor tradeAuditor;
+    private TradeBatchRepository tradeBatchRepository;
+    private TradeEventPool tradeEventPool;
+
+    private TradeEvent trade;
+    private long batchIds = BATCH_ID_BASE;
+    private final List<TradeEvent> batch = new ArrayList<>(SETTLEMENT_BATCH);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(QueueType.LINKED_BLOCKING);
+        tradeProducer = context.getBean(TradeProducerImpl.class);
+        tradeValidator = context.getBean(TradeValidator.class);
+        tradeEnricher = context.getBean(TradeEnricher.class);
+        tradeSettler = context.getBean(TradeSettler.class);
+        tradeAuditor = context.getBean(TradeAuditor.class);
+        tradeBatchRepository = context.getBean(TradeBatchRepository.class);
+        tradeEventPool = context.getBean(TradeEventPool.class);
+
+        trade = tradeProducer.nextTrade();
+        for (int i = 0; i < SETTLEMENT_BATCH; i++) {
+            batch.add(tradeProducer.nextTrade());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContext.close(context);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return tradeValidator.validate(trade);
+    }
+
+    @Benchmark
+    public TradeEvent enrich() {
+        tradeEnricher.enrich(trade);
+        return trade;
+    }
+
+    @Benchmark
+    public TradeEvent audit() {
+        tradeAuditor.audit(trade);
+        return trade;
+    }
+
+    @Benchmark
+    public void settle() {
+        TradeEvent next = tradeProducer.nextTrade();
+        tradeSettler.settle(next);
+        tradeEventPool.release(next);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SETTLEMENT_BATCH)
+    public boolean[] settleBatch() {
+        for (TradeEvent event : batch) {
+            event.setTradeId(++batchIds);
+        }
+        return tradeBatchRepository.insertBatch(batch);
+    }
+}
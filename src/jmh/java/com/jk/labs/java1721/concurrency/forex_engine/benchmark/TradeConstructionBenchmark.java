@@ -0,0 +1,39 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.TradeProducerImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// TradeProducerImpl.nextTrade(): pool acquire + random fields; the event goes straight back to the pool
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TradeConstructionBenchmark {
+
+    private TradeProducerImpl tradeProducer;
+    private TradeEventPool tradeEventPool;
+
+    @Setup
+    public void setUp() {
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), new PipelineProperties());
+        tradeEventPool = tradeQueueManager.tradeEventPool();
+        tradeProducer = new TradeProducerImpl(tradeQueueManager, tradeEventPool);
+    }
+
+    @Benchmark
+    public long nextTrade() {
+        TradeEvent trade = tradeProducer.nextTrade();
+        long amount = trade.getAmount();
+        tradeEventPool.release(trade);
+        return amount;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jk.labs.java1721.concurrency.forex_engine.benchmark;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.validation.ValidationEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ValidationEngine.validateBatch() per trade, on the engine's ForkJoinPool vs on the calling thread, for the batch
+sizes forex.validation.parallel-threshold chooses between. The rule set has an allow list of pairs and a block
+list of 1000 accounts, so every rule is exercised; about 1 in 10 trades is rejected.
+
+    parallel false  - one thread runs every check: the cost of the rules themselves
+    parallel true   - the batch is split across the validation pool: wins only once a batch is large enough to repay
+                      the fork/join hand-offs, and only with idle cores
+
+Set parallel-threshold to the smallest batch where `true` beats `false` on the target hardware.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private static final int BLOCKED_ACCOUNTS = 1_000;
+
+    @Param({"256", "4096", "65536"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private ValidationEngine engine;
+    private final List<TradeEvent> batch = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setParallelThreshold(parallel ? 0 : Integer.MAX_VALUE);
+        properties.setSupportedPairs(List.of("EUR/USD", "USD/JPY", "GBP/USD", "USD/CHF", "AUD/USD", "USD/CAD"));
+        properties.setMaxUnits(990);
+        List<Long> blocked = new ArrayList<>();
+        for (long account = 1; account <= BLOCKED_ACCOUNTS; account++) {
+            blocked.add(account * 1_000);
+        }
+        properties.setBlockedAccounts(blocked);
+        engine = new ValidationEngine(properties, null);
+
+        SplittableRandom random = new SplittableRandom(42);
+        int eurUsd = CurrencyPair.code("EUR", "USD");
+        for (int i = 0; i < batchSize; i++) {
+            TradeEvent trade = new TradeEvent();
+            trade.setTradeId(i + 1);
+            trade.setAccountId(1 + random.nextInt(100_000));
+            trade.setBrokerId(1 + random.nextInt(50));
+            trade.setCurrencyPair(eurUsd);
+            trade.setAmount(FixedPoint.toScaled(random.nextDouble(10_000), FixedPoint.AMOUNT_SCALE));
+            trade.setUnits(1 + random.nextInt(1_000));
+            batch.add(trade);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.stop();
+    }
+
+    @Benchmark
+    public List<TradeEvent> validateBatch() {
+        engine.validateBatch(batch);
+        return batch;
+    }
+}
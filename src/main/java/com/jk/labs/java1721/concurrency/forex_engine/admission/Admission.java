@@ -0,0 +1,20 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+/*
+Outcome of TradeQueueManager.addTrade(). Only ACCEPTED hands the event to the pipeline; for every other outcome the
+caller still owns the event and must release it.
+ */
+public enum Admission {
+    ACCEPTED,
+    TIMED_OUT,
+    DEAD_LETTERED,
+    RATE_LIMITED,
+    // The calling thread was interrupted while waiting; its interrupt flag is set again
+    INTERRUPTED,
+    // The trade id was already admitted within forex.admission.dedup.window (TradeDeduplicator)
+    DUPLICATE;
+
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
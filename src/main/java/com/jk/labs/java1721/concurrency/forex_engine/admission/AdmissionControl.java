@@ -0,0 +1,86 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.IntakeStatsDto;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+Admission state of the intake, owned by TradeQueueManager: per-path policy, token bucket and counters, the shared
+adaptive limiter (null when forex.admission.adaptive.enabled is false), the dead-letter store and the duplicate
+trade filter (null when forex.admission.dedup.enabled is false).
+TradeQueueManager.addTrade() applies it; see OverloadPolicy for what each policy does.
+ */
+public class AdmissionControl {
+
+    @Getter
+    public static final class Intake {
+        private final IntakePath path;
+        private final OverloadPolicy policy;
+        private final long offerTimeoutNanos;
+        // RATE_LIMIT only
+        private final TokenBucket tokenBucket;
+        private final IntakeStats stats;
+
+        private Intake(IntakePath path, AdmissionProperties.Intake settings) {
+            this.path = path;
+            this.policy = settings.getPolicy();
+            this.offerTimeoutNanos = settings.getOfferTimeout().toNanos();
+            this.tokenBucket = policy == OverloadPolicy.RATE_LIMIT
+                    ? new TokenBucket(settings.getRate(), settings.getBurst()) : null;
+            this.stats = new IntakeStats(path, policy);
+        }
+    }
+
+    private final Map<IntakePath, Intake> intakes = new EnumMap<>(IntakePath.class);
+    @Getter
+    private final AimdLimiter limiter;
+    @Getter
+    private final DeadLetterStore deadLetters;
+    // Null when forex.admission.dedup.enabled is false
+    @Getter
+    private final TradeDeduplicator deduplicator;
+
+    public AdmissionControl(AdmissionProperties admissionProperties) {
+        for (IntakePath path : IntakePath.values()) {
+            intakes.put(path, new Intake(path, admissionProperties.intake(path)));
+        }
+        this.limiter = admissionProperties.getAdaptive().isEnabled()
+                ? new AimdLimiter(admissionProperties.getAdaptive()) : null;
+        this.deadLetters = new DeadLetterStore(admissionProperties.getDeadLetterCapacity());
+        this.deduplicator = admissionProperties.getDedup().isEnabled()
+                ? new TradeDeduplicator(admissionProperties.getDedup()) : null;
+    }
+
+    public Intake intake(IntakePath path) {
+        return intakes.get(path);
+    }
+
+    public AdmissionStatsDto stats(int intakeQueueDepth, int intakeQueueCapacity) {
+        List<IntakeStatsDto> intakeStats = new ArrayList<>(intakes.size());
+        for (Intake intake : intakes.values()) {
+            intakeStats.add(intake.stats.snapshot());
+        }
+        AdmissionStatsDto.AdmissionStatsDtoBuilder builder = AdmissionStatsDto.builder()
+                .intakeQueueDepth(intakeQueueDepth)
+                .intakeQueueCapacity(intakeQueueCapacity)
+                .adaptive(limiter != null)
+                .deadLetters(deadLetters.total())
+                .intakes(intakeStats)
+                .dedup(deduplicator != null ? deduplicator.stats() : null);
+        if (limiter != null) {
+            builder.limit(limiter.limit())
+                    .inFlight(limiter.inFlight())
+                    .limitIncreases(limiter.increases())
+                    .limitDecreases(limiter.decreases())
+                    .windowLatencyMicros(TimeUnit.NANOSECONDS.toMicros(limiter.lastAvgLatencyNanos()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Adaptive in-flight limit (AIMD: additive increase, multiplicative decrease), driven by the latency trades see from
+admission to their final outcome.
+
+Queue capacities are a fixed guess of how much work the pipeline can hold. When settlement slows down (slow database,
+a hot shard) the queues still fill up to capacity, and every queued trade waits behind all of them: latency grows
+with no gain in throughput. This limiter instead caps the trades in flight and moves the cap with what it observes:
+
+    every `window`, over the trades that finished in it:
+        avg latency > target-latency     →  limit = max(min-limit, limit * backoff-ratio)    back off fast
+        else, peak in-flight >= limit/2  →  limit = min(max-limit, limit + increase)         probe slowly
+        else                             →  unchanged (the limit is not what holds traffic back)
+
+A gradient limiter (limit *= minRtt / rtt) converges faster but needs a stable no-load latency to compare against;
+end-to-end latency here includes batching lingers and queueing, so a fixed target is easier to reason about.
+
+Hot path: tryAcquire() is one CAS on the in-flight counter, release() one decrement and two LongAdder adds. The
+window update runs on whichever releasing thread first sees the window expire (CAS on the window start), so no
+background thread is needed. Samples that land between summing and resetting a window are lost; for an average that
+only steers a limit this is fine.
+ */
+public class AimdLimiter {
+
+    // How often a caller waiting for a permit re-checks
+    private static final long PERMIT_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int increase;
+    private final double backoffRatio;
+    private final long targetLatencyNanos;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowLatencyNanos = new LongAdder();
+    private final LongAccumulator windowPeakInFlight = new LongAccumulator(Math::max, 0L);
+    private volatile long lastAvgLatencyNanos;
+    private final LongAdder increases = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+
+    public AimdLimiter(AdmissionProperties.Adaptive settings) {
+        this.minLimit = Math.max(1, settings.getMinLimit());
+        this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+        this.increase = Math.max(1, settings.getIncrease());
+        this.backoffRatio = settings.getBackoffRatio();
+        this.targetLatencyNanos = settings.getTargetLatency().toNanos();
+        this.windowNanos = settings.getWindow().toNanos();
+        this.limit = Math.min(maxLimit, Math.max(minLimit, settings.getInitialLimit()));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowPeakInFlight.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    // Waits up to timeoutNanos for a permit; a negative timeout waits for as long as it takes
+    public boolean tryAcquire(long timeoutNanos) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!tryAcquire()) {
+            if (timeoutNanos >= 0 && System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(PERMIT_POLL_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    // Ignores the limit: for trades that were accepted before (WAL replay) and cannot be turned away
+    public void acquire() {
+        windowPeakInFlight.accumulate(inFlight.incrementAndGet());
+    }
+
+    // The trade's outcome is final; its admission-to-outcome latency steers the limit
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowSamples.increment();
+        windowLatencyNanos.add(latencyNanos);
+        long now = System.nanoTime();
+        long start = windowStartNanos.get();
+        if (now - start >= windowNanos && windowStartNanos.compareAndSet(start, now)) {
+            adjust();
+        }
+    }
+
+    // The permit was taken but the trade never entered the pipeline: no latency sample
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long lastAvgLatencyNanos() {
+        return lastAvgLatencyNanos;
+    }
+
+    public long increases() {
+        return increases.sum();
+    }
+
+    public long decreases() {
+        return decreases.sum();
+    }
+
+    private void adjust() {
+        long samples = windowSamples.sumThenReset();
+        long latency = windowLatencyNanos.sumThenReset();
+        long peak = windowPeakInFlight.getThenReset();
+        if (samples == 0) {
+            return;
+        }
+        long avg = latency / samples;
+        lastAvgLatencyNanos = avg;
+        int current = limit;
+        if (avg > targetLatencyNanos) {
+            int reduced = Math.max(minLimit, (int) (current * backoffRatio));
+            if (reduced < current) {
+                limit = reduced;
+                decreases.increment();
+            }
+        } else if (peak >= current / 2 && current < maxLimit) {
+            limit = Math.min(maxLimit, current + increase);
+            increases.increment();
+        }
+    }
+}
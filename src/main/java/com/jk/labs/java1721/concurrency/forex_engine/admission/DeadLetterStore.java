@@ -0,0 +1,53 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Trades turned away by a DROP intake, newest `capacity` kept in memory for inspection (/admission/dead-letters).
+Entries are copies - the caller releases the pooled event as usual - preallocated on first use of a slot and
+overwritten once the ring wraps. Only overloaded intakes write here, so a plain lock is cheap enough.
+ */
+public class DeadLetterStore {
+
+    private final TradeEvent[] trades;
+    private final IntakePath[] paths;
+    private long written;
+
+    public DeadLetterStore(int capacity) {
+        this.trades = new TradeEvent[Math.max(1, capacity)];
+        this.paths = new IntakePath[trades.length];
+    }
+
+    public synchronized void add(IntakePath path, TradeEvent trade) {
+        int slot = (int) (written++ % trades.length);
+        if (trades[slot] == null) {
+            trades[slot] = new TradeEvent();
+        }
+        trades[slot].copyFrom(trade);
+        paths[slot] = path;
+    }
+
+    // Newest first; copies, safe to keep
+    public synchronized List<TradeEvent> latest(int limit) {
+        int count = (int) Math.min(Math.min(limit, written), trades.length);
+        List<TradeEvent> latest = new ArrayList<>(count);
+        for (long i = written - 1; i >= written - count; i--) {
+            TradeEvent copy = new TradeEvent();
+            copy.copyFrom(trades[(int) (i % trades.length)]);
+            latest.add(copy);
+        }
+        return latest;
+    }
+
+    // Trades dead-lettered since startup, including those the ring no longer holds
+    public synchronized long total() {
+        return written;
+    }
+
+    public int capacity() {
+        return trades.length;
+    }
+}
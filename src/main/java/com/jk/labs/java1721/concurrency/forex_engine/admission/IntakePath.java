@@ -0,0 +1,9 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+// Where a trade enters the pipeline; each path has its own overload policy (forex.admission.<path>)
+public enum IntakePath {
+    PRODUCER,
+    LOAD_GENERATOR,
+    BULK_INGEST,
+    GATEWAY
+}
@@ -0,0 +1,55 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.IntakeStatsDto;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Admission outcomes and time spent in addTrade() of one intake path
+public class IntakeStats {
+
+    private final IntakePath path;
+    private final OverloadPolicy policy;
+    private final LongAdder[] outcomes = new LongAdder[Admission.values().length];
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+
+    public IntakeStats(IntakePath path, OverloadPolicy policy) {
+        this.path = path;
+        this.policy = policy;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    public void record(Admission admission, long waitedNanos) {
+        outcomes[admission.ordinal()].increment();
+        waitNanos.add(waitedNanos);
+        maxWaitNanos.accumulate(waitedNanos);
+    }
+
+    public IntakeStatsDto snapshot() {
+        long submitted = 0;
+        for (LongAdder outcome : outcomes) {
+            submitted += outcome.sum();
+        }
+        return IntakeStatsDto.builder()
+                .path(path.name())
+                .policy(policy.name())
+                .submitted(submitted)
+                .accepted(count(Admission.ACCEPTED))
+                .timedOut(count(Admission.TIMED_OUT))
+                .deadLettered(count(Admission.DEAD_LETTERED))
+                .rateLimited(count(Admission.RATE_LIMITED))
+                .interrupted(count(Admission.INTERRUPTED))
+                .duplicates(count(Admission.DUPLICATE))
+                .avgWaitMicros(submitted == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / submitted))
+                .maxWaitMicros(TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()))
+                .build();
+    }
+
+    public long count(Admission admission) {
+        return outcomes[admission.ordinal()].sum();
+    }
+}
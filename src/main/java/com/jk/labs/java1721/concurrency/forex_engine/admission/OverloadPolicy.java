@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+/*
+What an intake path does when the pipeline cannot take a trade right now: the intake queue is full or, with
+forex.admission.adaptive enabled, the in-flight limit is reached.
+
+    | Policy     | Caller                                  | Trade when overloaded       | Use for                       |
+    |------------|-----------------------------------------|-----------------------------|-------------------------------|
+    | BLOCK      | waits until there is room               | always accepted (eventually)| closed-loop senders, replay   |
+    | TIMEOUT    | waits at most offer-timeout             | TIMED_OUT                   | callers that must answer      |
+    | DROP       | never waits                             | DEAD_LETTERED (newest)      | fire-and-forget feeds         |
+    | RATE_LIMIT | token bucket first, then waits as BLOCK | RATE_LIMITED above the rate | noisy sources with a contract |
+
+BLOCK is the original put() behavior: backpressure all the way to the sender, nothing is ever lost, and the sender's
+threads are parked for as long as the pipeline is behind.
+ */
+public enum OverloadPolicy {
+    BLOCK,
+    TIMEOUT,
+    DROP,
+    RATE_LIMIT
+}
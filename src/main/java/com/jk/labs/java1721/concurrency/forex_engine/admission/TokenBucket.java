@@ -0,0 +1,42 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Lock-free token bucket, written as GCRA (generic cell rate algorithm): instead of a token count that a timer refills,
+it keeps the theoretical arrival time (TAT) of the next conforming trade.
+
+    tryAcquire():  next = max(TAT, now) + 1/rate
+                   next - now <= burst/rate  →  TAT = next, admitted
+                   otherwise                 →  rejected, TAT unchanged
+
+Same decisions as a bucket of `burst` tokens refilled at `rate` per second, with one CAS and no refill thread.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+
+    public TokenBucket(int ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Token bucket rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1L, 1_000_000_000L / ratePerSecond);
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (true) {
+            long tat = theoreticalArrivalNanos.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+}
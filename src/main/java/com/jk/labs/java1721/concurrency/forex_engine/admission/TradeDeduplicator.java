@@ -0,0 +1,339 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.DedupStatsDto;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/*
+Duplicate trade ids at the intake (forex.admission.dedup). Brokers resend trades after a reconnect; without this a
+resent Trade.id is journaled and settled twice. A set of every id ever seen would grow without bound, so memory is
+fixed up front by two structures:
+
+🧩 Rotating Bloom filters: "seen in the last `window`?"
+    `generations` bit sets, each covering window / generations of intake. New ids set k bits in the current one; a
+    lookup tests all of them. When a generation's time is up the oldest is cleared and becomes the current one,
+    so an id is remembered for between (generations - 1) / generations of the window and the whole window.
+    Sized from expected-trades and false-positive-rate: m = -n ln p / ln²2 bits and k = m / n ln 2 per generation,
+    with p split evenly over the generations because a lookup can hit a false positive in any of them.
+    A fresh id (the common case) is settled by the first clear bit: k reads, no confirmation needed.
+
+🧩 Recent-id table: confirms a Bloom positive
+    A positive is either a resend or a false positive. recent-capacity slots of exact ids, 4-way set-associative
+    (a bucket is 4 adjacent longs, a full bucket overwrites one of them), are searched only for positives:
+        found       → DUPLICATE
+        not found   → a false positive, or an id the table has already evicted: accepted and counted as unconfirmed
+    Sizing the table for the ids of the resend horizon keeps the second case to Bloom false positives.
+
+Hot path: claim() is lock-free: getAndBitwiseOr on the filter words, one slot store or CAS in the table, LongAdder
+counters. Rotation runs on whichever caller first sees the generation expire (CAS on the deadline, as in
+AimdLimiter): one Arrays.fill of the oldest filter, no background thread.
+Two copies of an id that arrive at the same moment can both pass (both see a clear bit before either set it);
+resends come after a reconnect, long after the original was claimed.
+
+An id claimed by a trade the intake then turns away (dead-lettered, timed out) is released() from the table, so
+its resend is accepted; its Bloom bits stay and the resend counts as unconfirmed.
+
+Warm start: writeSnapshot() copies the filters (oldest generation first), the time left in the current generation and
+the recent-id table into the warm-start snapshot; restoreSnapshot() loads them into a fresh deduplicator after a
+restart and then rotates out the generations that expired while the engine was down, so a resend that arrives right
+after a redeploy is still caught. The copy is not atomic with respect to claim(); ids claimed while it is taken may
+or may not be in it.
+ */
+public class TradeDeduplicator {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int WAYS = 4;
+    // Trade id that marks an empty slot and is never deduplicated
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MAX_WORDS = 1 << 26;
+
+    private final long windowNanos;
+    private final long generationNanos;
+    private final long bitsPerGeneration;
+    private final int hashes;
+    private final long[][] filters;
+    private final LongAdder[] insertions;
+    private volatile int current;
+    private final AtomicLong nextRotationNanos;
+
+    private final long[] recent;
+    private final int bucketMask;
+
+    private final LongSupplier clock;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder bloomPositives = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    public TradeDeduplicator(AdmissionProperties.Dedup settings) {
+        this(settings, System::nanoTime);
+    }
+
+    // Tests drive the clock
+    TradeDeduplicator(AdmissionProperties.Dedup settings, LongSupplier clock) {
+        int generationCount = Math.max(2, settings.getGenerations());
+        this.windowNanos = settings.getWindow().toNanos();
+        this.generationNanos = Math.max(1L, windowNanos / generationCount);
+
+        double perGenerationRate = settings.getFalsePositiveRate() / generationCount;
+        long expected = Math.max(1L, settings.getExpectedTrades() / generationCount);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expected * Math.log(perGenerationRate) / (ln2 * ln2));
+        // index() maps 32 hash bits onto the filter, so a generation holds at most 2^32 bits (512 MB)
+        int words = (int) Math.min(MAX_WORDS, Math.max(1L, (bits + 63) >>> 6));
+        this.bitsPerGeneration = (long) words << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bitsPerGeneration / expected * ln2));
+        this.filters = new long[generationCount][words];
+        this.insertions = new LongAdder[generationCount];
+        for (int g = 0; g < generationCount; g++) {
+            insertions[g] = new LongAdder();
+        }
+
+        int buckets = Math.max(1, (settings.getRecentCapacity() + WAYS - 1) / WAYS);
+        buckets = buckets == 1 ? 1 : Integer.highestOneBit(buckets - 1) << 1;
+        this.recent = new long[buckets * WAYS];
+        Arrays.fill(recent, EMPTY);
+        this.bucketMask = buckets - 1;
+
+        this.clock = clock;
+        this.nextRotationNanos = new AtomicLong(clock.getAsLong() + generationNanos);
+    }
+
+    // True if tradeId was claimed within the window (the trade is a duplicate); otherwise claims it
+    public boolean claim(long tradeId) {
+        if (tradeId == EMPTY) {
+            return false;
+        }
+        rotateIfDue();
+        checks.increment();
+        long hash = mix(tradeId);
+        if (mightContain(hash)) {
+            bloomPositives.increment();
+            if (containsRecent(hash, tradeId)) {
+                duplicates.increment();
+                return true;
+            }
+        }
+        remember(hash, tradeId);
+        return false;
+    }
+
+    // Records without checking: WAL replay, where every trade was admitted before the restart
+    public void record(long tradeId) {
+        if (tradeId != EMPTY) {
+            rotateIfDue();
+            remember(mix(tradeId), tradeId);
+        }
+    }
+
+    // The claimed trade was not admitted after all: a resend must not be rejected
+    public void release(long tradeId) {
+        if (tradeId == EMPTY) {
+            return;
+        }
+        int base = bucket(mix(tradeId));
+        for (int i = 0; i < WAYS; i++) {
+            if (LONGS.compareAndSet(recent, base + i, tradeId, EMPTY)) {
+                released.increment();
+                return;
+            }
+        }
+    }
+
+    public void writeSnapshot(DataOutput out) throws IOException {
+        int generation = current;
+        out.writeLong(windowNanos);
+        out.writeInt(filters.length);
+        out.writeLong(bitsPerGeneration);
+        out.writeInt(hashes);
+        out.writeInt(recent.length);
+        out.writeLong(Math.max(0L, nextRotationNanos.get() - clock.getAsLong()));
+        for (int g = 1; g <= filters.length; g++) {
+            int index = (generation + g) % filters.length;
+            out.writeLong(insertions[index].sum());
+            long[] filter = filters[index];
+            for (int word = 0; word < filter.length; word++) {
+                out.writeLong((long) LONGS.getOpaque(filter, word));
+            }
+        }
+        for (int slot = 0; slot < recent.length; slot++) {
+            out.writeLong((long) LONGS.getOpaque(recent, slot));
+        }
+    }
+
+    /*
+    Loads a writeSnapshot() copy taken elapsedNanos ago into this deduplicator, which must not have claimed anything
+    yet. False, changing nothing, if the copy was taken with another window or filter geometry.
+     */
+    public boolean restoreSnapshot(ByteBuffer in, long elapsedNanos) {
+        if (in.getLong() != windowNanos || in.getInt() != filters.length || in.getLong() != bitsPerGeneration
+                || in.getInt() != hashes || in.getInt() != recent.length) {
+            return false;
+        }
+        long untilRotationNanos = in.getLong();
+        // oldest first: the last one read is the current generation
+        for (int g = 0; g < filters.length; g++) {
+            insertions[g].reset();
+            insertions[g].add(in.getLong());
+            in.asLongBuffer().get(filters[g]);
+            in.position(in.position() + filters[g].length * Long.BYTES);
+        }
+        in.asLongBuffer().get(recent);
+        in.position(in.position() + recent.length * Long.BYTES);
+        current = filters.length - 1;
+        nextRotationNanos.set(clock.getAsLong() + untilRotationNanos - Math.max(0L, elapsedNanos));
+        rotateIfDue();
+        return true;
+    }
+
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    // Bloom positives the recent-id table did not confirm: accepted, counted as false positives
+    public long unconfirmed() {
+        return bloomPositives.sum() - duplicates.sum();
+    }
+
+    public long memoryBytes() {
+        return (bitsPerGeneration >>> 3) * filters.length + 8L * recent.length;
+    }
+
+    // Chance that a fresh id hits a positive right now, from the ids inserted into each generation
+    public double estimatedFalsePositiveRate() {
+        double allClear = 1.0;
+        for (LongAdder inserted : insertions) {
+            double bitSet = 1.0 - Math.exp(-(double) hashes * inserted.sum() / bitsPerGeneration);
+            allClear *= 1.0 - Math.pow(bitSet, hashes);
+        }
+        return 1.0 - allClear;
+    }
+
+    public DedupStatsDto stats() {
+        long checked = checks.sum();
+        long positives = bloomPositives.sum();
+        long duplicateCount = duplicates.sum();
+        long fresh = checked - duplicateCount;
+        return DedupStatsDto.builder()
+                .windowMillis(TimeUnit.NANOSECONDS.toMillis(windowNanos))
+                .generations(filters.length)
+                .bitsPerGeneration(bitsPerGeneration)
+                .hashes(hashes)
+                .recentCapacity(recent.length)
+                .memoryBytes(memoryBytes())
+                .checks(checked)
+                .duplicates(duplicateCount)
+                .bloomPositives(positives)
+                .unconfirmed(positives - duplicateCount)
+                .released(released.sum())
+                .rotations(rotations.sum())
+                .observedFalsePositiveRate(fresh == 0 ? 0.0 : (double) (positives - duplicateCount) / fresh)
+                .estimatedFalsePositiveRate(estimatedFalsePositiveRate())
+                .build();
+    }
+
+    private boolean mightContain(long hash) {
+        for (long[] filter : filters) {
+            if (test(filter, hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean test(long[] filter, long hash) {
+        long h1 = hash & 0xFFFF_FFFFL;
+        long h2 = (hash >>> 32) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if (((long) LONGS.getOpaque(filter, (int) (bit >>> 6)) & (1L << bit)) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remember(long hash, long tradeId) {
+        int generation = current;
+        long[] filter = filters[generation];
+        long h1 = hash & 0xFFFF_FFFFL;
+        long h2 = (hash >>> 32) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            LONGS.getAndBitwiseOr(filter, (int) (bit >>> 6), 1L << bit);
+        }
+        insertions[generation].increment();
+
+        int base = bucket(hash);
+        for (int i = 0; i < WAYS; i++) {
+            if (LONGS.compareAndSet(recent, base + i, EMPTY, tradeId)) {
+                return;
+            }
+        }
+        // full bucket: overwrite a slot picked by the id's own hash bits
+        LONGS.setOpaque(recent, base + (int) (hash >>> 62), tradeId);
+    }
+
+    private boolean containsRecent(long hash, long tradeId) {
+        int base = bucket(hash);
+        for (int i = 0; i < WAYS; i++) {
+            if ((long) LONGS.getOpaque(recent, base + i) == tradeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rotateIfDue() {
+        long now = clock.getAsLong();
+        long due = nextRotationNanos.get();
+        if (now - due < 0) {
+            return;
+        }
+        // one generation per elapsed generation time; after a long idle period every filter is cleared once
+        long behind = 1 + (now - due) / generationNanos;
+        long elapsed = Math.min(filters.length, behind);
+        // capped (idle gap, old snapshot): the missed deadlines are gone with the filters, restart from now
+        long nextDue = elapsed < behind ? now + generationNanos : due + elapsed * generationNanos;
+        if (!nextRotationNanos.compareAndSet(due, nextDue)) {
+            return;
+        }
+        for (long r = 0; r < elapsed; r++) {
+            int next = (current + 1) % filters.length;
+            // the oldest generation: nobody inserts into it, lookups racing the clear only miss expiring ids
+            Arrays.fill(filters[next], 0L);
+            insertions[next].reset();
+            current = next;
+            rotations.increment();
+        }
+    }
+
+    // Lemire's multiply-shift reduction of the low 32 bits of h onto [0, bitsPerGeneration)
+    private long index(long h) {
+        return ((h & 0xFFFF_FFFFL) * bitsPerGeneration) >>> 32;
+    }
+
+    private int bucket(long hash) {
+        return ((int) (hash >>> 20) & bucketMask) * WAYS;
+    }
+
+    // SplitMix64 finalizer: sequential ids spread over all 64 bits
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
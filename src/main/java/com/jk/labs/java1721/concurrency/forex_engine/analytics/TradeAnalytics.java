@@ -0,0 +1,190 @@
+package com.jk.labs.java1721.concurrency.forex_engine.analytics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AnalyticsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PairAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WindowAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/*
+Rolling per-pair market activity (forex.analytics): trade count, notional volume and VWAP over sliding windows
+(1s / 1m / 5m by default), fed by the audit stage with every completed trade of every pipeline mode.
+
+Layout - one flat long[] per window, nothing allocated per trade:
+    pair code × bucket × STRIDE longs, a ring of `buckets` time buckets per pair, each window / buckets long:
+
+        | EPOCH | COUNT | BASE | QUOTE |
+    EPOCH   bucket number (time / bucket length) + 1 the bucket currently counts for; 0 = never used
+    BASE    Σ amount          (FixedPoint.AMOUNT_SCALE, base currency)
+    QUOTE   Σ amount * rate   (FixedPoint.AMOUNT_SCALE, quote currency)      VWAP = QUOTE / BASE
+
+Updates (record, O(1) per window):
+    EPOCH current    → getAndAdd COUNT, BASE, QUOTE (VarHandle XADD, no CAS loop)
+    EPOCH older      → the ring has wrapped: CAS EPOCH to -current (resetting), zero the sums, publish EPOCH,
+                       then add; writers that see a negative EPOCH spin for those three stores
+    EPOCH newer      → the writer stalled for a whole window; the trade is dropped
+
+Snapshot reads (snapshot / pairs) never block writers: a bucket counts if its EPOCH is within the last `buckets`
+bucket numbers and reads the same before and after its sums. A concurrent add may be half visible (count without
+its amounts); that is the price of not locking the writers out and is far below the noise of a live window.
+A window therefore covers the last (buckets - 1) full buckets plus the current partial one.
+ */
+@Component
+public class TradeAnalytics {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int EPOCH = 0;
+    private static final int COUNT = 1;
+    private static final int BASE = 2;
+    private static final int QUOTE = 3;
+    private static final int STRIDE = 4;
+
+    private final boolean enabled;
+    private final int buckets;
+    private final long[] windowNanos;
+    private final long[] bucketNanos;
+    private final long[][] cells;
+    private final LongSupplier clock;
+    private final long origin;
+
+    @Autowired
+    public TradeAnalytics(AnalyticsProperties analyticsProperties) {
+        this(analyticsProperties, System::nanoTime);
+    }
+
+    // Tests drive the clock
+    TradeAnalytics(AnalyticsProperties analyticsProperties, LongSupplier clock) {
+        this.enabled = analyticsProperties.isEnabled();
+        this.buckets = Math.max(1, analyticsProperties.getBuckets());
+        List<Duration> windows = analyticsProperties.getWindows();
+        this.windowNanos = new long[windows.size()];
+        this.bucketNanos = new long[windows.size()];
+        this.cells = new long[windows.size()][];
+        for (int w = 0; w < windows.size(); w++) {
+            windowNanos[w] = windows.get(w).toNanos();
+            bucketNanos[w] = Math.max(1L, windowNanos[w] / buckets);
+            cells[w] = new long[enabled ? CurrencyPair.count() * buckets * STRIDE : 0];
+        }
+        this.clock = clock;
+        // bucket numbers start at 0 whatever nanoTime's origin is
+        this.origin = clock.getAsLong();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void record(TradeEvent trade) {
+        int pair = trade.getCurrencyPair();
+        if (!enabled || !CurrencyPair.isValid(pair)) {
+            return;
+        }
+        long amount = trade.getAmount();
+        long quote = FixedPoint.convert(amount, trade.getRate());
+        long now = clock.getAsLong() - origin;
+        for (int w = 0; w < cells.length; w++) {
+            add(cells[w], pair, now / bucketNanos[w] + 1, amount, quote);
+        }
+    }
+
+    // Pairs with at least one trade in any window, in pair-code order
+    public List<PairAnalyticsDto> pairs() {
+        List<PairAnalyticsDto> pairs = new ArrayList<>();
+        if (!enabled) {
+            return pairs;
+        }
+        for (int pair = 0; pair < CurrencyPair.count(); pair++) {
+            PairAnalyticsDto snapshot = snapshot(pair);
+            if (snapshot.getWindows().stream().anyMatch(window -> window.getTrades() > 0)) {
+                pairs.add(snapshot);
+            }
+        }
+        return pairs;
+    }
+
+    public PairAnalyticsDto snapshot(int pair) {
+        long now = clock.getAsLong() - origin;
+        List<WindowAnalyticsDto> windows = new ArrayList<>(cells.length);
+        long[] sums = new long[STRIDE];
+        for (int w = 0; w < cells.length; w++) {
+            sums[COUNT] = sums[BASE] = sums[QUOTE] = 0L;
+            if (enabled) {
+                sum(cells[w], pair, now / bucketNanos[w] + 1, sums);
+            }
+            windows.add(WindowAnalyticsDto.builder()
+                    .windowMillis(Duration.ofNanos(windowNanos[w]).toMillis())
+                    .trades(sums[COUNT])
+                    .volume(FixedPoint.toBigDecimal(sums[BASE], FixedPoint.AMOUNT_DECIMALS))
+                    .quoteVolume(FixedPoint.toBigDecimal(sums[QUOTE], FixedPoint.AMOUNT_DECIMALS))
+                    .vwap(sums[BASE] == 0L ? null : BigDecimal.valueOf(sums[QUOTE])
+                            .divide(BigDecimal.valueOf(sums[BASE]), FixedPoint.RATE_DECIMALS, RoundingMode.HALF_EVEN))
+                    .tradesPerSecond(sums[COUNT] * 1e9 / windowNanos[w])
+                    .build());
+        }
+        return PairAnalyticsDto.builder()
+                .pair(CurrencyPair.symbol(pair))
+                .windows(windows)
+                .build();
+    }
+
+    private void add(long[] cells, int pair, long epoch, long amount, long quote) {
+        int base = (pair * buckets + (int) (epoch % buckets)) * STRIDE;
+        while (true) {
+            long seen = (long) LONGS.getVolatile(cells, base + EPOCH);
+            if (seen == epoch) {
+                break;
+            }
+            if (seen > epoch) {
+                return;
+            }
+            if (seen < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (LONGS.compareAndSet(cells, base + EPOCH, seen, -epoch)) {
+                LONGS.setVolatile(cells, base + COUNT, 0L);
+                LONGS.setVolatile(cells, base + BASE, 0L);
+                LONGS.setVolatile(cells, base + QUOTE, 0L);
+                LONGS.setVolatile(cells, base + EPOCH, epoch);
+                break;
+            }
+        }
+        LONGS.getAndAdd(cells, base + COUNT, 1L);
+        LONGS.getAndAdd(cells, base + BASE, amount);
+        LONGS.getAndAdd(cells, base + QUOTE, quote);
+    }
+
+    private void sum(long[] cells, int pair, long current, long[] sums) {
+        int first = pair * buckets * STRIDE;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int base = first + bucket * STRIDE;
+            long epoch = (long) LONGS.getVolatile(cells, base + EPOCH);
+            if (epoch <= 0L || epoch > current || epoch <= current - buckets) {
+                continue;
+            }
+            long count = (long) LONGS.getVolatile(cells, base + COUNT);
+            long amount = (long) LONGS.getVolatile(cells, base + BASE);
+            long quote = (long) LONGS.getVolatile(cells, base + QUOTE);
+            if ((long) LONGS.getVolatile(cells, base + EPOCH) != epoch) {
+                // reset under us: the bucket now belongs to a later period
+                continue;
+            }
+            sums[COUNT] += count;
+            sums[BASE] += amount;
+            sums[QUOTE] += quote;
+        }
+    }
+}
@@ -1,13 +1,48 @@
 package com.jk.labs.java1721.concurrency.forex_engine.api;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AccountBalancesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AutoscaleStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkIngestResultDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.GatewayStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.JournalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LedgerStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LoadStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NetSettlementDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PairAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RateCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationReportDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.SettlementStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
 import com.jk.labs.java1721.concurrency.forex_engine.core.dto.TradeRespDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WarmStartStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+import com.jk.labs.java1721.concurrency.forex_engine.ingest.IngestOutcome;
+import com.jk.labs.java1721.concurrency.forex_engine.load.LoadProfile;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeQueueService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
 @RestController
 @RequestMapping(value = "/api/concurrency", produces = "application/json")
 @RequiredArgsConstructor
@@ -44,7 +79,316 @@ public class TradeQueueController {
 
         tradeQueueService.startVirtualThreadPipeline();
 
+        tradeRespDto.setResponseMessage("Virtual Threads pipeline started.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Stops the Virtual Threads pipeline after draining in-flight trades
+    @RequestMapping(path = "/virtualThreads/stop", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> virtualThreadsStop() {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.stopVirtualThreadPipeline();
+
         tradeRespDto.setResponseMessage("Virtual Threads pipeline stopped.");
         return ResponseEntity.ok(tradeRespDto);
     }
+
+    // Thread per trade with the enrichment lookups forked in a structured scope under a per-trade deadline
+    @RequestMapping(path = "/structured/start", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> structuredStart() {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.startStructuredConcurrencyPipeline();
+
+        tradeRespDto.setResponseMessage("Structured Concurrency pipeline started.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Stops the Structured Concurrency pipeline after draining in-flight trades
+    @RequestMapping(path = "/structured/stop", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> structuredStop() {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.stopStructuredConcurrencyPipeline();
+
+        tradeRespDto.setResponseMessage("Structured Concurrency pipeline stopped.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Per-mode throughput/latency counters, for comparing the pipelines head-to-head
+    @RequestMapping(path = "/stats", method = RequestMethod.GET)
+    public ResponseEntity<List<PipelineStatsDto>> pipelineStats() {
+        return ResponseEntity.ok(tradeQueueService.pipelineStats());
+    }
+
+    // Settled/failed counts per settlement micro-batch
+    @RequestMapping(path = "/settlement/stats", method = RequestMethod.GET)
+    public ResponseEntity<SettlementStatsDto> settlementStats() {
+        return ResponseEntity.ok(tradeQueueService.settlementStats());
+    }
+
+    // Depth, lag and hottest key per shard of every sharded stage
+    @RequestMapping(path = "/shards/stats", method = RequestMethod.GET)
+    public ResponseEntity<List<ShardStatsDto>> shardStats() {
+        return ResponseEntity.ok(tradeQueueService.shardStats());
+    }
+
+    // Stage worker counts with the lag and utilization behind them, and the autoscaler's last resize decisions
+    @RequestMapping(path = "/autoscale/stats", method = RequestMethod.GET)
+    public ResponseEntity<AutoscaleStatsDto> autoscaleStats() {
+        return ResponseEntity.ok(tradeQueueService.autoscaleStats());
+    }
+
+    // Live and last-checkpointed balances of one account
+    @RequestMapping(path = "/ledger/accounts/{accountId}", method = RequestMethod.GET)
+    public ResponseEntity<AccountBalancesDto> accountBalances(@PathVariable long accountId) {
+        AccountBalancesDto balances = tradeQueueService.accountBalances(accountId);
+        return balances == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(balances);
+    }
+
+    // Ledger size, per-stripe update/contention counters and checkpoint timings
+    @RequestMapping(path = "/ledger/stats", method = RequestMethod.GET)
+    public ResponseEntity<LedgerStatsDto> ledgerStats() {
+        return ResponseEntity.ok(tradeQueueService.ledgerStats());
+    }
+
+    // FX rate cache hit ratio, coalesced lookups and refresh latency
+    @RequestMapping(path = "/rates/stats", method = RequestMethod.GET)
+    public ResponseEntity<RateCacheStatsDto> rateStats() {
+        return ResponseEntity.ok(tradeQueueService.rateStats());
+    }
+
+    // Account/broker cache hit ratio, evictions, invalidations and memory footprint
+    @RequestMapping(path = "/reference/stats", method = RequestMethod.GET)
+    public ResponseEntity<ReferenceCacheStatsDto> referenceStats() {
+        return ResponseEntity.ok(tradeQueueService.referenceStats());
+    }
+
+    // Status of the account changed outside JPA: drop the cached one
+    @RequestMapping(path = "/reference/accounts/{accountId}/invalidate", method = RequestMethod.POST)
+    public ResponseEntity<TradeRespDto> invalidateAccount(@PathVariable long accountId) {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.invalidateAccount(accountId);
+
+        tradeRespDto.setResponseMessage("Account " + accountId + " invalidated.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Status of the broker changed outside JPA: drop the cached one
+    @RequestMapping(path = "/reference/brokers/{brokerId}/invalidate", method = RequestMethod.POST)
+    public ResponseEntity<TradeRespDto> invalidateBroker(@PathVariable long brokerId) {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.invalidateBroker(brokerId);
+
+        tradeRespDto.setResponseMessage("Broker " + brokerId + " invalidated.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Looks a trade up in the audit journal through its sparse trade-id index
+    @RequestMapping(path = "/audit/trades/{tradeId}", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> auditedTrade(@PathVariable long tradeId) {
+        Trade trade = tradeQueueService.auditedTrade(tradeId);
+        if (trade == null) {
+            return ResponseEntity.notFound().build();
+        }
+        TradeRespDto tradeRespDto = new TradeRespDto();
+        tradeRespDto.setTrade(trade);
+        tradeRespDto.setTradeId(Long.toString(tradeId));
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    /*
+    End-of-day reconciliation of the audit journal against the trade table (and the ledger), in the background, e.g.
+        curl -X POST '.../reconciliation/start?from=2026-10-16T00:00:00Z&to=2026-10-17T00:00:00Z'
+    Omitted bounds default to today (UTC) up to now. 409 while a run is going; poll /reconciliation/report.
+     */
+    @RequestMapping(path = "/reconciliation/start", method = RequestMethod.POST)
+    public ResponseEntity<ReconciliationReportDto> startReconciliation(@RequestParam(required = false) Instant from,
+                                                                       @RequestParam(required = false) Instant to) {
+        return ResponseEntity.accepted().body(tradeQueueService.startReconciliation(from, to));
+    }
+
+    // Phase and progress of the running reconciliation, or the breaks found by the last one
+    @RequestMapping(path = "/reconciliation/report", method = RequestMethod.GET)
+    public ResponseEntity<ReconciliationReportDto> reconciliationReport() {
+        ReconciliationReportDto report = tradeQueueService.reconciliationReport();
+        return report == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(report);
+    }
+
+    // Windows closed, trades per instruction (compression ratio) and the open window
+    @RequestMapping(path = "/netting/stats", method = RequestMethod.GET)
+    public ResponseEntity<NettingStatsDto> nettingStats() {
+        return ResponseEntity.ok(tradeQueueService.nettingStats());
+    }
+
+    // A net settlement instruction with the ids of every trade it settled
+    @RequestMapping(path = "/netting/instructions/{instructionId}", method = RequestMethod.GET)
+    public ResponseEntity<NetSettlementDto> netInstruction(@PathVariable long instructionId) {
+        NetSettlementDto instruction = tradeQueueService.netInstruction(instructionId);
+        return instruction == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(instruction);
+    }
+
+    // The instruction a netted trade was settled by
+    @RequestMapping(path = "/netting/trades/{tradeId}", method = RequestMethod.GET)
+    public ResponseEntity<NetSettlementDto> nettedTrade(@PathVariable long tradeId) {
+        NetSettlementDto instruction = tradeQueueService.netInstructionForTrade(tradeId);
+        return instruction == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(instruction);
+    }
+
+    // Rolling trade count, notional volume and VWAP of every pair that traded within the longest window
+    @RequestMapping(path = "/analytics/pairs", method = RequestMethod.GET)
+    public ResponseEntity<List<PairAnalyticsDto>> pairAnalytics() {
+        return ResponseEntity.ok(tradeQueueService.pairAnalytics());
+    }
+
+    // Same for one pair, e.g. /analytics/pairs/USD/EUR
+    @RequestMapping(path = "/analytics/pairs/{base}/{quote}", method = RequestMethod.GET)
+    public ResponseEntity<PairAnalyticsDto> pairAnalytics(@PathVariable String base, @PathVariable String quote) {
+        PairAnalyticsDto analytics = tradeQueueService.pairAnalytics(base, quote);
+        return analytics == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(analytics);
+    }
+
+    // Binary TCP gateway: connections, frames per outcome and how well acks are batched
+    @RequestMapping(path = "/gateway/stats", method = RequestMethod.GET)
+    public ResponseEntity<GatewayStatsDto> gatewayStats() {
+        return ResponseEntity.ok(tradeQueueService.gatewayStats());
+    }
+
+    // Journal segments, record count and fsync timings
+    @RequestMapping(path = "/audit/stats", method = RequestMethod.GET)
+    public ResponseEntity<JournalStatsDto> journalStats() {
+        return ResponseEntity.ok(tradeQueueService.journalStats());
+    }
+
+    // Intake queue depth, adaptive limit and per-path admission outcomes and wait times
+    @RequestMapping(path = "/admission/stats", method = RequestMethod.GET)
+    public ResponseEntity<AdmissionStatsDto> admissionStats() {
+        return ResponseEntity.ok(tradeQueueService.admissionStats());
+    }
+
+    // Newest trades turned away by a DROP intake
+    @RequestMapping(path = "/admission/dead-letters", method = RequestMethod.GET)
+    public ResponseEntity<List<Trade>> deadLetters(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(tradeQueueService.deadLetters(limit));
+    }
+
+    // Validation rule set in force, with its version
+    @RequestMapping(path = "/validation/rules", method = RequestMethod.GET)
+    public ResponseEntity<ValidationRulesDto> validationRules() {
+        return ResponseEntity.ok(tradeQueueService.validationRules());
+    }
+
+    /*
+    Replaces the validation rules without stopping the pipeline; the next micro-batch runs on the new version, e.g.
+        curl -X PUT -H 'Content-Type: application/json' .../validation/rules \
+             -d '{"supportedPairs":["EUR/USD","GBP/USD"],"minUnits":1,"maxUnits":500,"blockedAccounts":[42]}'
+    A rule set that does not compile is refused with 400 and the old one stays in force.
+     */
+    @RequestMapping(path = "/validation/rules", method = RequestMethod.PUT)
+    public ResponseEntity<ValidationRulesDto> updateValidationRules(@RequestBody ValidationRulesDto rules) {
+        return ResponseEntity.ok(tradeQueueService.updateValidationRules(rules));
+    }
+
+    // Validated and rejected counts, rejects per reason code, parallel vs sequential batches
+    @RequestMapping(path = "/validation/stats", method = RequestMethod.GET)
+    public ResponseEntity<ValidationStatsDto> validationStats() {
+        return ResponseEntity.ok(tradeQueueService.validationStats());
+    }
+
+    // Newest rejected trades with their reason codes
+    @RequestMapping(path = "/validation/rejects", method = RequestMethod.GET)
+    public ResponseEntity<List<RejectedTradeDto>> validationRejects(@RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(tradeQueueService.validationRejects(limit));
+    }
+
+    // Write-ahead log: settled watermark, checkpoints, and what the last startup recovered and replayed
+    @RequestMapping(path = "/wal/stats", method = RequestMethod.GET)
+    public ResponseEntity<WalStatsDto> walStats() {
+        return ResponseEntity.ok(tradeQueueService.walStats());
+    }
+
+    // What the last startup restored and warmed up, time to first trade and to steady p99, snapshots written since
+    @RequestMapping(path = "/warm-start/stats", method = RequestMethod.GET)
+    public ResponseEntity<WarmStartStatsDto> warmStartStats() {
+        return ResponseEntity.ok(tradeQueueService.warmStartStats());
+    }
+
+    // Writes a snapshot now, e.g. after draining the pipeline before a deploy, so the ledger in it is exact
+    @RequestMapping(path = "/warm-start/snapshot", method = RequestMethod.POST)
+    public ResponseEntity<WarmStartStatsDto> warmStartSnapshot() {
+        return ResponseEntity.ok(tradeQueueService.warmStartSnapshot());
+    }
+
+    /*
+    Streams real trades into the running pipeline while the body is still arriving, e.g.
+        curl -H 'Content-Type: application/x-ndjson' --data-binary @trades.ndjson .../trades/bulk?batchSize=1000
+    The body is NDJSON (one Trade object per line) or a JSON array of Trade objects. The request is held back while
+    the intake is full. 200 if the whole body was read; 400 for broken JSON and 503 for a stalled pipeline, both
+    with the counts up to that point (those trades stay accepted).
+     */
+    @RequestMapping(path = "/trades/bulk", method = RequestMethod.POST,
+            consumes = {"application/x-ndjson", "application/json"})
+    public ResponseEntity<BulkIngestResultDto> bulkIngest(InputStream body,
+                                                          @RequestParam(defaultValue = "1000") int batchSize) {
+        BulkIngestResultDto result = tradeQueueService.ingestTrades(body, batchSize);
+        return switch (IngestOutcome.valueOf(result.getOutcome())) {
+            case COMPLETE -> ResponseEntity.ok(result);
+            case MALFORMED -> ResponseEntity.badRequest().body(result);
+            case INTAKE_STALLED, INTERRUPTED -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(result);
+        };
+    }
+
+    /*
+    Open-loop load against the running pipeline, e.g.
+        /load/start?profile=RAMP&rate=200000&threads=4&durationSeconds=120
+    Omitted parameters come from forex.load.*; durationSeconds=0 runs until /load/stop.
+     */
+    @RequestMapping(path = "/load/start", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> loadStart(@RequestParam(required = false) Integer rate,
+                                                  @RequestParam(required = false) Integer threads,
+                                                  @RequestParam(required = false) LoadProfile profile,
+                                                  @RequestParam(required = false) Long durationSeconds) {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.startLoad(rate, threads, profile,
+                durationSeconds == null ? null : Duration.ofSeconds(durationSeconds));
+
+        tradeRespDto.setResponseMessage("Load run started.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    @RequestMapping(path = "/load/stop", method = RequestMethod.GET)
+    public ResponseEntity<TradeRespDto> loadStop() {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+
+        tradeQueueService.stopLoad();
+
+        tradeRespDto.setResponseMessage("Load run stopped.");
+        return ResponseEntity.ok(tradeRespDto);
+    }
+
+    // Coordinated-omission-corrected latency percentiles, per-second timeline and the detected saturation rate
+    @RequestMapping(path = "/load/stats", method = RequestMethod.GET)
+    public ResponseEntity<LoadStatsDto> loadStats() {
+        return ResponseEntity.ok(tradeQueueService.loadStats());
+    }
+
+    // Starting a mode while the other one is running
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<TradeRespDto> handleIllegalState(IllegalStateException e) {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+        tradeRespDto.setResponseMessage(e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(tradeRespDto);
+    }
+
+    // Invalid load parameters
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<TradeRespDto> handleIllegalArgument(IllegalArgumentException e) {
+        TradeRespDto tradeRespDto = new TradeRespDto();
+        tradeRespDto.setResponseMessage(e.getMessage());
+        return ResponseEntity.badRequest().body(tradeRespDto);
+    }
 }
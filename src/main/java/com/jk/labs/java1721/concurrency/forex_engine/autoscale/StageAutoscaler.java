@@ -0,0 +1,399 @@
+package com.jk.labs.java1721.concurrency.forex_engine.autoscale;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AutoscaleStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ScalingDecisionDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.StageScalingDto;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.StageMetrics;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.AbstractTradeStage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Self-tuning worker pools for the classic pipeline (forex.pipeline.autoscale). Every interval it samples each stage
+and resizes the ones that are allowed to change size (AbstractTradeStage.isScalable(): unsharded, with
+max-workers > min-workers) through AbstractTradeStage.resize().
+
+🧩 Signals, per stage and interval
+    throughput    trades handled / interval (StageMetrics.processed)
+    arrivals      (handled + change in queue depth) / interval
+    service rate  trades per busy second of one worker (sampled busy time, so forex.metrics.enabled is required)
+    utilization   busy time / (interval × workers)
+    lag           queue depth / throughput: how long the backlog takes to clear at the current pace
+
+🧩 Decisions
+    lagging   lag > scale-up-lag for scale-up-intervals intervals in a row
+              → workers for arrivals plus the backlog within one interval at target-utilization, at most max-step
+                more. Skipped while a later stage is lagging too: this stage's workers are then waiting in put() and
+                more of them would only fill that stage's queue faster
+    idle      lag < scale-down-lag and utilization < scale-down-utilization for scale-down-intervals intervals
+              → down to what arrivals need at target-utilization, at most max-step fewer
+    budget    the autoscaled stages share max-total-workers. A lagging stage that would exceed it takes workers from
+              the stages least busy that are not lagging, down to what those need themselves
+    A resized stage is left alone for `cooldown`; with the consecutive-interval rule this is the hysteresis that
+    keeps one noisy interval from flipping a size back and forth.
+
+Every decision is logged, kept in a ring of the last DECISION_HISTORY (GET /api/concurrency/autoscale/stats) and
+counted per stage and direction (forex_autoscale_decisions_total); lag and arrival rate are gauges. The sampling
+runs on one scheduler thread; stats() may be called from any thread.
+ */
+@Component
+@Slf4j
+public class StageAutoscaler {
+
+    private static final int DECISION_HISTORY = 100;
+
+    private final PipelineProperties.Autoscale settings;
+    private final MetricsProperties metricsProperties;
+    private final List<StageState> states = new ArrayList<>();
+    private final Deque<ScalingDecisionDto> decisions = new ArrayDeque<>();
+    private final int maxTotalWorkers;
+
+    private ScheduledExecutorService scheduler;
+    private long lastTickNanos;
+
+    public StageAutoscaler(PipelineProperties pipelineProperties, MetricsProperties metricsProperties,
+                           PipelineStatsRegistry pipelineStatsRegistry, List<AbstractTradeStage> stages) {
+        this.settings = pipelineProperties.getAutoscale();
+        this.metricsProperties = metricsProperties;
+        this.maxTotalWorkers = settings.getMaxTotalWorkers() > 0
+                ? settings.getMaxTotalWorkers() : 2 * Runtime.getRuntime().availableProcessors();
+        stages.stream()
+                .sorted(Comparator.comparing(AbstractTradeStage::stage))
+                .forEach(stage -> states.add(new StageState(stage, pipelineStatsRegistry.stage(stage.stage()))));
+        this.lastTickNanos = System.nanoTime();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        if (!metricsProperties.isEnabled()) {
+            log.warn("forex.pipeline.autoscale needs forex.metrics.enabled for stage utilization; not started");
+            return;
+        }
+        long intervalMillis = settings.getInterval().toMillis();
+        lastTickNanos = System.nanoTime();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("stage-autoscaler-"));
+        scheduler.scheduleAtFixedRate(this::tickSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Stage autoscaler started: every {}, at most {} workers across the autoscaled stages",
+                settings.getInterval(), maxTotalWorkers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // One sampling interval ending at nowNanos: measures every stage, then resizes (scheduler thread, or tests)
+    void tick(long nowNanos) {
+        double seconds = (nowNanos - lastTickNanos) / 1e9;
+        lastTickNanos = nowNanos;
+        if (seconds <= 0) {
+            return;
+        }
+        List<StageState> scalable = new ArrayList<>();
+        for (StageState state : states) {
+            state.sample(seconds);
+            if (state.stage.isScalable()) {
+                scalable.add(state);
+            }
+        }
+
+        int used = 0;
+        for (StageState state : scalable) {
+            used += state.workers;
+        }
+        // grow: the most lagging stage first
+        scalable.sort(Comparator.comparingDouble((StageState state) -> state.lagSeconds).reversed());
+        for (StageState state : scalable) {
+            if (!state.lagging || state.upStreak < settings.getScaleUpIntervals() || state.coolingDown(nowNanos)) {
+                continue;
+            }
+            if (downstreamLagging(state)) {
+                state.lastReason = "lagging behind a lagging downstream stage";
+                continue;
+            }
+            int wanted = Math.min(state.stage.maxWorkers(),
+                    state.workers + Math.min(settings.getMaxStep(), Math.max(1, state.neededWorkers(seconds) - state.workers)));
+            int extra = wanted - state.workers;
+            if (extra <= 0) {
+                state.lastReason = "lagging at max-workers";
+                continue;
+            }
+            int free = maxTotalWorkers - used;
+            if (free < extra) {
+                int reclaimed = reclaim(scalable, state, extra - free, seconds, nowNanos);
+                used -= reclaimed;
+                free += reclaimed;
+            }
+            extra = Math.min(extra, free);
+            if (extra <= 0) {
+                state.lastReason = "lagging, no worker budget left";
+                continue;
+            }
+            used += apply(state, state.workers + extra, nowNanos, String.format(Locale.ROOT,
+                    "lag %s, %.0f%% busy", formatLag(state.lagSeconds), state.utilization * 100));
+        }
+        // shrink: stages that have been idle for a while
+        for (StageState state : scalable) {
+            if (!state.idle || state.downStreak < settings.getScaleDownIntervals() || state.coolingDown(nowNanos)
+                    || state.workers <= state.stage.minWorkers()) {
+                continue;
+            }
+            int target = Math.max(state.neededWorkers(seconds), state.workers - settings.getMaxStep());
+            if (target < state.workers) {
+                apply(state, target, nowNanos, String.format(Locale.ROOT,
+                        "idle: %.0f%% busy", state.utilization * 100));
+            }
+        }
+    }
+
+    public AutoscaleStatsDto stats() {
+        List<StageScalingDto> stages = new ArrayList<>();
+        int total = 0;
+        for (StageState state : states) {
+            AbstractTradeStage stage = state.stage;
+            boolean scalable = stage.isScalable();
+            int workers = stage.targetWorkers();
+            if (scalable) {
+                total += workers;
+            }
+            stages.add(StageScalingDto.builder()
+                    .stage(stage.stage().name())
+                    .running(stage.isRunning())
+                    .scalable(scalable)
+                    .workers(workers)
+                    .minWorkers(stage.minWorkers())
+                    .maxWorkers(stage.maxWorkers())
+                    .queueDepth(state.depth)
+                    .arrivalRate(state.arrivalRate)
+                    .throughput(state.throughput)
+                    .serviceRatePerWorker(state.serviceRate)
+                    .utilization(state.utilization)
+                    .lagMillis(Double.isInfinite(state.lagSeconds) ? -1.0 : state.lagSeconds * 1000)
+                    .scaleUps(state.scaleUps)
+                    .scaleDowns(state.scaleDowns)
+                    .lastReason(state.lastReason)
+                    .build());
+        }
+        List<ScalingDecisionDto> history;
+        synchronized (decisions) {
+            history = new ArrayList<>(decisions);
+        }
+        return AutoscaleStatsDto.builder()
+                .enabled(scheduler != null)
+                .intervalMillis(settings.getInterval().toMillis())
+                .maxTotalWorkers(maxTotalWorkers)
+                .totalWorkers(total)
+                .stages(stages)
+                .decisions(history)
+                .build();
+    }
+
+    // Gauges and counters for PipelineMetricsExporter, in PipelineStage order
+    public List<StageState> stageStates() {
+        return states;
+    }
+
+    // Takes up to `wanted` workers from stages with spare ones, least busy first; returns how many it took
+    private int reclaim(List<StageState> scalable, StageState taker, int wanted, double seconds, long nowNanos) {
+        List<StageState> donors = new ArrayList<>();
+        for (StageState state : scalable) {
+            if (state != taker && !state.lagging && !state.coolingDown(nowNanos)
+                    && state.utilization < settings.getTargetUtilization()
+                    && state.workers > state.stage.minWorkers()) {
+                donors.add(state);
+            }
+        }
+        donors.sort(Comparator.comparingDouble(state -> state.utilization));
+        int taken = 0;
+        for (StageState donor : donors) {
+            int spare = Math.min(settings.getMaxStep(), donor.workers - Math.max(donor.stage.minWorkers(), donor.neededWorkers(seconds)));
+            spare = Math.min(spare, wanted - taken);
+            if (spare > 0) {
+                taken += -apply(donor, donor.workers - spare, nowNanos, String.format(Locale.ROOT,
+                        "%.0f%% busy, workers moved to %s", donor.utilization * 100, taker.stage.stage()));
+            }
+            if (taken >= wanted) {
+                break;
+            }
+        }
+        return taken;
+    }
+
+    private boolean downstreamLagging(StageState state) {
+        for (StageState other : states) {
+            if (other.stage.stage().compareTo(state.stage.stage()) > 0 && other.stage.isRunning() && other.lagging) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns the change in workers
+    private int apply(StageState state, int target, long nowNanos, String reason) {
+        int from = state.workers;
+        int to = state.stage.resize(target);
+        state.workers = to;
+        if (to == from) {
+            return 0;
+        }
+        state.upStreak = 0;
+        state.downStreak = 0;
+        state.cooldownUntilNanos = nowNanos + settings.getCooldown().toNanos();
+        state.lastReason = reason;
+        if (to > from) {
+            state.scaleUps++;
+        } else {
+            state.scaleDowns++;
+        }
+        ScalingDecisionDto decision = ScalingDecisionDto.builder()
+                .at(Instant.now())
+                .stage(state.stage.stage().name())
+                .fromWorkers(from)
+                .toWorkers(to)
+                .reason(reason)
+                .lagMillis(Double.isInfinite(state.lagSeconds) ? -1.0 : state.lagSeconds * 1000)
+                .utilization(state.utilization)
+                .build();
+        synchronized (decisions) {
+            if (decisions.size() == DECISION_HISTORY) {
+                decisions.removeLast();
+            }
+            decisions.addFirst(decision);
+        }
+        log.info("{} stage resized from {} to {} workers: {}", state.stage.stage(), from, to, reason);
+        return to - from;
+    }
+
+    private void tickSafe() {
+        try {
+            tick(System.nanoTime());
+        } catch (RuntimeException e) {
+            log.error("Stage autoscaler interval failed", e);
+        }
+    }
+
+    private static String formatLag(double seconds) {
+        return Double.isInfinite(seconds) ? "unbounded (nothing went through)"
+                : String.format(Locale.ROOT, "%.0fms", seconds * 1000);
+    }
+
+    // What the autoscaler last measured for one stage; written by the scheduler thread only
+    public final class StageState {
+
+        private final AbstractTradeStage stage;
+        private final StageMetrics metrics;
+
+        private long lastProcessed;
+        private double lastBusySeconds;
+        private int lastDepth;
+
+        private volatile int depth;
+        private volatile double arrivalRate;
+        private volatile double throughput;
+        private volatile double serviceRate;
+        private volatile double utilization;
+        private volatile double lagSeconds;
+        private volatile String lastReason;
+        private volatile long scaleUps;
+        private volatile long scaleDowns;
+
+        private int workers;
+        private boolean lagging;
+        private boolean idle;
+        private int upStreak;
+        private int downStreak;
+        private long cooldownUntilNanos;
+
+        StageState(AbstractTradeStage stage, StageMetrics metrics) {
+            this.stage = stage;
+            this.metrics = metrics;
+            this.lastProcessed = metrics.processed();
+            this.lastBusySeconds = metrics.busySeconds();
+            this.cooldownUntilNanos = System.nanoTime();
+        }
+
+        public String stageName() {
+            return stage.stage().name();
+        }
+
+        // Seconds; infinite when trades are waiting and none went through
+        public double lagSeconds() {
+            return lagSeconds;
+        }
+
+        public double arrivalRate() {
+            return arrivalRate;
+        }
+
+        public long scaleUps() {
+            return scaleUps;
+        }
+
+        public long scaleDowns() {
+            return scaleDowns;
+        }
+
+        void sample(double seconds) {
+            long processed = metrics.processed();
+            double busySeconds = metrics.busySeconds();
+            int currentDepth = stage.queueDepth();
+            long handled = processed - lastProcessed;
+            double busy = busySeconds - lastBusySeconds;
+            lastProcessed = processed;
+            lastBusySeconds = busySeconds;
+
+            workers = stage.targetWorkers();
+            depth = currentDepth;
+            throughput = handled / seconds;
+            arrivalRate = Math.max(0L, handled + currentDepth - lastDepth) / seconds;
+            lastDepth = currentDepth;
+            serviceRate = busy > 0 ? handled / busy : 0.0;
+            utilization = workers == 0 ? 0.0 : Math.min(1.0, busy / (seconds * workers));
+            lagSeconds = currentDepth == 0 ? 0.0 : handled > 0 ? currentDepth / throughput : Double.POSITIVE_INFINITY;
+
+            boolean running = stage.isRunning();
+            lagging = running && lagSeconds > settings.getScaleUpLag().toNanos() / 1e9;
+            idle = running && lagSeconds < settings.getScaleDownLag().toNanos() / 1e9
+                    && utilization < settings.getScaleDownUtilization();
+            upStreak = lagging ? upStreak + 1 : 0;
+            downStreak = idle ? downStreak + 1 : 0;
+        }
+
+        // Workers for the arrivals plus the backlog within one interval, at target utilization
+        int neededWorkers(double seconds) {
+            if (serviceRate <= 0) {
+                // nothing timed: a stage without traffic needs its minimum, otherwise keep the size
+                return throughput == 0.0 && depth == 0 ? stage.minWorkers() : workers;
+            }
+            double demand = arrivalRate + depth / seconds;
+            return Math.max(stage.minWorkers(),
+                    (int) Math.ceil(demand / (serviceRate * settings.getTargetUtilization())));
+        }
+
+        boolean coolingDown(long nowNanos) {
+            return nowNanos - cooldownUntilNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.OverloadPolicy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.admission")
+public class AdmissionProperties {
+
+    // One overload policy per intake path, see OverloadPolicy
+    private Intake producer = new Intake(OverloadPolicy.BLOCK);
+    // BLOCK keeps the load generator's latency honest: a slow intake shows up as send lag and latency, not as drops
+    private Intake loadGenerator = new Intake(OverloadPolicy.BLOCK);
+    // POST /trades/bulk: a long TIMEOUT holds the HTTP request back while the intake is full, but a stopped pipeline
+    // ends the request instead of pinning its thread forever
+    private Intake bulkIngest = new Intake(OverloadPolicy.TIMEOUT, Duration.ofSeconds(10), 10_000, 1_000);
+    // Binary TCP gateway: its selector threads serve many connections and must never park, so it never waits
+    private Intake gateway = new Intake(OverloadPolicy.DROP);
+
+    // DROP intakes: newest rejected trades kept for /admission/dead-letters
+    private int deadLetterCapacity = 10_000;
+
+    private Adaptive adaptive = new Adaptive();
+
+    private Dedup dedup = new Dedup();
+
+    public Intake intake(IntakePath path) {
+        return switch (path) {
+            case PRODUCER -> producer;
+            case LOAD_GENERATOR -> loadGenerator;
+            case BULK_INGEST -> bulkIngest;
+            case GATEWAY -> gateway;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Intake {
+        private OverloadPolicy policy = OverloadPolicy.BLOCK;
+        // TIMEOUT: longest a caller waits for room
+        private Duration offerTimeout = Duration.ofMillis(50);
+        // RATE_LIMIT: sustained trades per second and how many may arrive at once
+        private int rate = 10_000;
+        private int burst = 1_000;
+
+        public Intake(OverloadPolicy policy) {
+            this.policy = policy;
+        }
+    }
+
+    @Data
+    public static class Adaptive {
+        // Caps trades in flight with an AIMD limit driven by admission-to-outcome latency (AimdLimiter)
+        private boolean enabled = false;
+        private int initialLimit = 1_000;
+        private int minLimit = 100;
+        private int maxLimit = 50_000;
+        // Average latency above this shrinks the limit
+        private Duration targetLatency = Duration.ofMillis(100);
+        // Limit adjustment period
+        private Duration window = Duration.ofMillis(100);
+        // Added per window while latency is on target and the limit is in use
+        private int increase = 10;
+        // Multiplied per window while latency is above target
+        private double backoffRatio = 0.9;
+    }
+
+    @Data
+    public static class Dedup {
+        // Rejects a trade id already admitted within `window` as DUPLICATE (TradeDeduplicator)
+        private boolean enabled = true;
+        private Duration window = Duration.ofMinutes(10);
+        // Bloom filters the window is split into; the oldest is cleared every window / generations
+        private int generations = 5;
+        // Trades expected per window and the false-positive rate wanted at that load; they size the filters
+        private long expectedTrades = 5_000_000;
+        private double falsePositiveRate = 0.01;
+        // Exact ids kept to confirm Bloom positives; size it for the ids of the window resends arrive within
+        private int recentCapacity = 1 << 20;
+    }
+}
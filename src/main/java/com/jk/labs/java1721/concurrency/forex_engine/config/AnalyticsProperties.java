@@ -0,0 +1,21 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "forex.analytics")
+public class AnalyticsProperties {
+
+    // Record every audited trade into TradeAnalytics
+    private boolean enabled = true;
+
+    // Sliding windows kept per currency pair (VWAP, trade count, notional volume)
+    private List<Duration> windows = List.of(Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+    // Time buckets per window: a window slides in steps of window / buckets
+    private int buckets = 60;
+}
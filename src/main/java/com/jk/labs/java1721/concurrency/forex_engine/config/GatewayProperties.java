@@ -0,0 +1,25 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "forex.gateway")
+public class GatewayProperties {
+
+    // Listen for binary trade frames (see TradeFrame); overload policy is forex.admission.gateway
+    private boolean enabled = false;
+
+    private String bindAddress = "0.0.0.0";
+
+    // 0 picks a free port (tests)
+    private int port = 9100;
+
+    // Selector threads; connections are spread over them round-robin
+    private int ioThreads = 2;
+
+    // Per connection, direct buffers: frames read per syscall and acks written per syscall
+    private DataSize receiveBuffer = DataSize.ofKilobytes(64);
+    private DataSize sendBuffer = DataSize.ofKilobytes(16);
+}
@@ -0,0 +1,27 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.journal.FsyncPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.journal")
+public class JournalProperties {
+
+    // Segment files live here; created on startup if missing
+    private String directory = "data/journal";
+
+    // Each segment is preallocated and mapped at this size, then the journal rolls to a new one
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.PERIODIC;
+
+    // Only used by PERIODIC
+    private Duration fsyncInterval = Duration.ofSeconds(1);
+
+    // Sparse index granularity: min/max trade id is kept per block of this many records
+    private int indexInterval = 256;
+}
@@ -0,0 +1,20 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.ledger")
+public class LedgerProperties {
+
+    // Accounts the ledger can hold (rounded up to a power of two); slots are preallocated, never resized
+    private int maxAccounts = 65_536;
+
+    // Contention metrics are kept per stripe (power of two); an account belongs to stripe slot % stripes
+    private int stripes = 64;
+
+    // Write-behind: balances changed since the last checkpoint are merged into account_balance this often
+    private Duration checkpointInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,64 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.load.LoadProfile;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Defaults for /api/concurrency/load/start; rate, threads, profile and duration can be overridden per run
+@Data
+@ConfigurationProperties(prefix = "forex.load")
+public class LoadProperties {
+
+    // Target trades/s across all generator threads (the peak rate for RAMP and the base rate for BURST)
+    private int rate = 10_000;
+
+    private int threads = 2;
+
+    private LoadProfile profile = LoadProfile.CONSTANT;
+
+    // Zero runs until /load/stop
+    private Duration duration = Duration.ofSeconds(60);
+
+    private Ramp ramp = new Ramp();
+
+    private Burst burst = new Burst();
+
+    // Zipf exponent for accounts, brokers and currency pairs: 0 is uniform, ~1 is "a few hot keys"
+    private double skew = 1.0;
+
+    private int accounts = 1000;
+
+    private int brokers = 50;
+
+    @Data
+    public static class Ramp {
+        // RAMP climbs linearly from startRate to rate over duration, then holds rate
+        private int startRate = 1000;
+        private Duration duration = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Burst {
+        // BURST runs at rate * multiplier for `length` at the start of every `period`
+        private double multiplier = 5.0;
+        private Duration period = Duration.ofSeconds(10);
+        private Duration length = Duration.ofSeconds(1);
+    }
+
+    // Copy of these settings with the non-null request parameters applied
+    public LoadProperties withOverrides(Integer rate, Integer threads, LoadProfile profile, Duration duration) {
+        LoadProperties copy = new LoadProperties();
+        copy.setRate(rate != null ? rate : this.rate);
+        copy.setThreads(threads != null ? threads : this.threads);
+        copy.setProfile(profile != null ? profile : this.profile);
+        copy.setDuration(duration != null ? duration : this.duration);
+        copy.setRamp(ramp);
+        copy.setBurst(burst);
+        copy.setSkew(skew);
+        copy.setAccounts(accounts);
+        copy.setBrokers(brokers);
+        return copy;
+    }
+}
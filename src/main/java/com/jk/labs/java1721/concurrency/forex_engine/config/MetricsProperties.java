@@ -0,0 +1,23 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.metrics")
+public class MetricsProperties {
+
+    // Per-stage service time, worker utilization and end-to-end latency histograms; counters and gauges stay on
+    private boolean enabled = true;
+
+    // Stage timing is taken on a random 1 in sample-every handle calls, busy time scaled up to match; 1 times every call
+    private int sampleEvery = 16;
+
+    // Histogram percentiles and utilization exported on /actuator/prometheus cover the last full interval
+    private Duration interval = Duration.ofSeconds(10);
+
+    // Logs one summary line per interval in which trades went through the pipeline
+    private boolean logSummary = true;
+}
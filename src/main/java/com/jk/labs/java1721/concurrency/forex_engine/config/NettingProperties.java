@@ -0,0 +1,23 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.netting")
+public class NettingProperties {
+
+    // Route enriched trades through the netting stage (classic pipeline only); stage sizing is forex.pipeline.netting
+    private boolean enabled = false;
+
+    // Tumbling window: closes after `window` or once it holds max-trades trades, whichever comes first
+    private Duration window = Duration.ofMillis(100);
+
+    /*
+    Trades held by one window across all keys. Held trades are pooled events outside any queue, so keep this well
+    within the TradeEventPool margin (a quarter of all queue capacities) or the pool starts allocating.
+     */
+    private int maxTrades = 5_000;
+}
@@ -0,0 +1,12 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({PipelineProperties.class, LoadProperties.class, LedgerProperties.class, RateProperties.class,
+        JournalProperties.class, WalProperties.class, AdmissionProperties.class, MetricsProperties.class,
+        ReferenceProperties.class, ValidationProperties.class, NettingProperties.class, AnalyticsProperties.class,
+        GatewayProperties.class, ReconciliationProperties.class, WarmStartProperties.class})
+public class PipelineConfig {
+}
@@ -0,0 +1,121 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// Unknown keys fail startup: a stage setting indented under the wrong block would otherwise be dropped silently
+@Data
+@ConfigurationProperties(prefix = "forex.pipeline", ignoreUnknownFields = false)
+public class PipelineProperties {
+
+    // How long stop() waits for in-flight trades to finish before interrupting workers
+    private Duration drainTimeout = Duration.ofSeconds(30);
+
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    private Structured structured = new Structured();
+
+    private Autoscale autoscale = new Autoscale();
+
+    // Partitioning key for every sharded stage; must be the same for all of them or per-key order is lost between stages
+    private ShardKey shardKey = ShardKey.ACCOUNT;
+
+    /*
+    Classic pipeline sizing. Size every stage to its own cost instead of over-provisioning all of them:
+    a stage whose inbound queue stays full is the bottleneck and needs workers; one whose queue stays empty does not.
+    validation.queueCapacity is the intake queue the producer writes to.
+     */
+    private Stage validation = new Stage(2, 10000);
+    private Stage enrichment = new Stage(4, 10000);
+    private Stage netting = new Stage(1, 10000);
+    private Stage settlement = new Stage(2, 10000, 500, Duration.ofMillis(5));
+    private Stage audit = new Stage(1, 10000);
+
+    public Stage stage(PipelineStage stage) {
+        return switch (stage) {
+            case VALIDATION -> validation;
+            case ENRICHMENT -> enrichment;
+            case NETTING -> netting;
+            case SETTLEMENT -> settlement;
+            case AUDIT -> audit;
+        };
+    }
+
+    @Data
+    public static class VirtualThreads {
+        // Semaphore permits: maximum trades being processed concurrently
+        private int maxInFlight = 1000;
+    }
+
+    @Data
+    public static class Structured {
+        // Semaphore permits: maximum trades being processed concurrently (each runs up to 3 lookup threads)
+        private int maxInFlight = 1000;
+        // Budget for a trade's account, broker and rate lookups; stragglers are interrupted and the trade fails
+        private Duration deadline = Duration.ofMillis(200);
+    }
+
+    /*
+    StageAutoscaler: every interval, resizes each unsharded stage with max-workers > min-workers from its backlog
+    (queue depth / throughput) and worker utilization. A condition must hold for several intervals in a row, and a
+    resized stage is left alone for `cooldown`, so a noisy interval does not flip the size back and forth.
+     */
+    @Data
+    public static class Autoscale {
+        private boolean enabled = false;
+        private Duration interval = Duration.ofSeconds(1);
+        // Workers of all autoscaled stages together; 0 = twice the available processors. A lagging stage that needs
+        // more takes them from stages with spare workers
+        private int maxTotalWorkers = 0;
+        // Backlog above which a stage is lagging
+        private Duration scaleUpLag = Duration.ofMillis(100);
+        // Backlog and utilization below which a stage has workers to spare
+        private Duration scaleDownLag = Duration.ofMillis(10);
+        private double scaleDownUtilization = 0.3;
+        // Utilization a new worker count is sized for
+        private double targetUtilization = 0.7;
+        // Consecutive intervals a stage must be lagging / idle before it is resized
+        private int scaleUpIntervals = 2;
+        private int scaleDownIntervals = 5;
+        private Duration cooldown = Duration.ofSeconds(3);
+        // Most workers added or removed by one decision
+        private int maxStep = 2;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+        private int workers;
+        private int queueCapacity;
+        // > 1 switches the stage's workers to micro-batches of up to batchSize trades
+        private int batchSize = 1;
+        // Longest a partially filled batch waits for more trades
+        private Duration linger = Duration.ZERO;
+        /*
+        > 1 partitions the stage: `shards` queues of queueCapacity each, one worker per queue (workers is ignored).
+        Trades are routed by shard-key, so all trades of one account go through one single-writer worker, in order.
+         */
+        private int shards = 1;
+        // Bounds for StageAutoscaler; max-workers 0 (or <= workers) keeps the stage at `workers`. Leave a stage
+        // whose single worker keeps trades in order (validation with one worker) at its fixed size
+        private int minWorkers = 1;
+        private int maxWorkers = 0;
+
+        public Stage(int workers, int queueCapacity) {
+            this(workers, queueCapacity, 1, Duration.ZERO);
+        }
+
+        public Stage(int workers, int queueCapacity, int batchSize, Duration linger) {
+            this(workers, queueCapacity, batchSize, linger, 1, 1, 0);
+        }
+
+        public boolean isSharded() {
+            return shards > 1;
+        }
+    }
+}
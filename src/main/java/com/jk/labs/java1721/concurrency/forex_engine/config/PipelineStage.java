@@ -0,0 +1,11 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+// Consuming stages of the classic pipeline, in hand-off order. Each one owns an inbound queue.
+public enum PipelineStage {
+    VALIDATION,
+    ENRICHMENT,
+    // Only used with forex.netting.enabled; enrichment hands straight to SETTLEMENT otherwise
+    NETTING,
+    SETTLEMENT,
+    AUDIT
+}
@@ -0,0 +1,26 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.rates")
+public class RateProperties {
+
+    // A cached rate older than this is refreshed in the background; the trade still gets the cached rate
+    private Duration refreshAfter = Duration.ofSeconds(1);
+
+    // Staleness bound: a rate older than this is never used, the trade waits for a fresh one
+    private Duration maxStaleness = Duration.ofSeconds(5);
+
+    // How long a lookup may take before it counts as failed
+    private Duration loadTimeout = Duration.ofSeconds(2);
+
+    // Threads calling the rate source; lookups are per pair, so more than a handful never helps
+    private int refreshThreads = 2;
+
+    // SimulatedRateSource only: round-trip time of one lookup
+    private Duration simulatedLatency = Duration.ofMillis(5);
+}
@@ -0,0 +1,35 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.reconciliation")
+public class ReconciliationProperties {
+
+    // ForkJoinPool size; 0 = available processors. Keep it within the JDBC pool, every table task holds a connection
+    private int parallelism = 0;
+
+    // Leading trade id digits per partition: 3 gives 901 index ranges of the trade table
+    private int prefixDigits = 3;
+
+    // Audit journal records per leaf task of a journal pass
+    private int chunkRecords = 65_536;
+
+    // JDBC fetch size of the streamed trade table scans
+    private int fetchSize = 1_000;
+
+    // Mismatched partitions whose audit records are held in memory at once while looking for the breaks
+    private int drillDownPartitions = 64;
+
+    // Breaks listed in the report; all of them are counted
+    private int maxBreaks = 1_000;
+
+    // A run still going after this is abandoned and reported TIMED_OUT
+    private Duration timeout = Duration.ofMinutes(15);
+
+    // Also compare AccountLedger balances with the trades audited since startup
+    private boolean positions = true;
+}
@@ -0,0 +1,28 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.reference")
+public class ReferenceProperties {
+
+    // ReferenceDataCache size per entity (rounded up to a power of two); slots are preallocated, never resized
+    private int accountCapacity = 65_536;
+    private int brokerCapacity = 1_024;
+
+    // Load every account and broker the source can list at startup, so trades never wait for a lookup
+    private boolean preload = true;
+
+    // true: SimulatedReferenceDataSource (every id ACTIVE) instead of the account and broker tables
+    private boolean simulated;
+
+    // SimulatedReferenceDataSource only: round-trip time of one account or broker lookup; 0 answers from memory
+    private Duration simulatedLatency = Duration.ZERO;
+
+    // SimulatedReferenceDataSource only: ids 1..N returned by the bulk listings (match forex.load.accounts/brokers)
+    private int simulatedAccounts = 1_000;
+    private int simulatedBrokers = 50;
+}
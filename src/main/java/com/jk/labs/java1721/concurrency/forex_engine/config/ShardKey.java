@@ -0,0 +1,34 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
+// What a sharded stage partitions on: trades with the same key always land on the same shard, in order
+public enum ShardKey {
+
+    ACCOUNT {
+        @Override
+        public long key(TradeEvent trade) {
+            return trade.getAccountId();
+        }
+    },
+
+    CURRENCY_PAIR {
+        @Override
+        public long key(TradeEvent trade) {
+            return trade.getCurrencyPair();
+        }
+    };
+
+    public abstract long key(TradeEvent trade);
+
+    public int shardOf(TradeEvent trade, int shards) {
+        return shardOf(key(trade), shards);
+    }
+
+    // Sequential ids would map to shards round-robin but correlated keys would not: mix the bits first
+    public static int shardOf(long key, int shards) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) Math.floorMod(h, (long) shards);
+    }
+}
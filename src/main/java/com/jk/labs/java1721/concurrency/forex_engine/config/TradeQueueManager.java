@@ -1,17 +1,40 @@
 package com.jk.labs.java1721.concurrency.forex_engine.config;
 
-import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.AdmissionControl;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.AimdLimiter;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.OverloadPolicy;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.TradeDeduplicator;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.ShardStats;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueues;
+import com.jk.labs.java1721.concurrency.forex_engine.wal.SettledWatermark;
+import com.jk.labs.java1721.concurrency.forex_engine.wal.WriteAheadLog;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Configuration
+@EnableConfigurationProperties(TradeQueueProperties.class)
 @Data
+@Slf4j
 public class TradeQueueManager {
 
-    private static final int QUEUE_CAPACITY = 10000;
     /*
     A BlockingQueue is bounded when you specify a capacity:
     That means:
@@ -61,15 +84,283 @@ public class TradeQueueManager {
         Blocks producer if consumers are slower.
         Implements natural flow control (backpressure).
         Prevents memory bloat or overload in high-throughput pipelines.
+
+    🧩 Pluggable implementation (forex.queue.type)
+        LINKED_BLOCKING allocates a node per put() and takes the put lock → GC churn and lock contention under load.
+        RING_BUFFER preallocates every slot and hands off with a single CAS; producers/consumers wait using
+        forex.queue.wait-strategy (BUSY_SPIN, YIELD, PARK) instead of a Condition.
+        Both honour the same put()/offer() backpressure contract described above.
+
+    🧩 One bounded inbound queue per stage
+        producer → [VALIDATION] → validators → [ENRICHMENT] → enrichers → [SETTLEMENT] → settlers → [AUDIT] → auditors
+        tradeQueue is the VALIDATION inbound queue (the intake). Capacities come from forex.pipeline.<stage>.queue-capacity,
+        so a slow stage can be given a deeper buffer without inflating the others.
+
+    🧩 Sharded stages (forex.pipeline.<stage>.shards > 1)
+        enrichers → route(SETTLEMENT, trade) ──hash(accountId) % N──▶ [SETTLEMENT#0] → settler 0
+                                                                    ▶ [SETTLEMENT#1] → settler 1 ...
+        A worker pool on one shared queue reorders trades of the same account (two workers, two trades, either may
+        finish first), and keeping them in order would need a lock per account. With shards every account maps to
+        exactly one queue with exactly one consumer: FIFO per account for free, no locks, and throughput scales
+        with the number of shards as long as the keys spread.
+        The intake (VALIDATION) is shared with the virtual-thread pipeline and is never sharded; for strict
+        per-account order end to end, run validation with a single worker.
+
+    🧩 Write-ahead log
+        addTrade() journals the trade to the WriteAheadLog before put(): the WAL hands out the intake sequence, and
+        a trade is never in a queue without being on disk (within forex.wal.fsync-policy). Stages call
+        markSettled() where a trade's fate is final (settled, rejected, failed); settledWatermark turns those
+        out-of-order marks into the checkpointed "everything up to here is settled" sequence, so a restart replays
+        only the WAL tail after it (see WalRecovery). Without a WAL (tests, benchmarks) sequences are in-memory.
+
+    🧩 Admission (forex.admission)
+        addTrade() applies the overload policy of the caller's IntakePath instead of always calling put():
+            RATE_LIMIT: token bucket ──▶ adaptive permit (optional) ──▶ WAL ──▶ put() / offer(timeout) / offer()
+        Nothing is journaled for a trade turned away before the WAL; one turned away after it (queue still full)
+        is marked settled right away so its record is never replayed. The adaptive permit is returned in
+        markSettled(trade), together with the trade's admission-to-outcome latency that steers the limit.
+        Interruption is an outcome (Admission.INTERRUPTED, interrupt flag restored), not an exception.
+
+    🧩 Duplicates (forex.admission.dedup)
+        Before any of that, a trade id already admitted within the dedup window is turned away as DUPLICATE
+        (TradeDeduplicator): a broker resending after a reconnect must not be journaled and settled twice. The id is
+        claimed on the way in and released again if the policy then turns the trade away, so its resend gets in.
+        WAL replay records the replayed ids, so resends of trades in flight at a crash are caught after a restart.
+     */
+    private final TradeQueue<TradeEvent> tradeQueue;
+
+    // Shard 0 is the stage's only queue when the stage is not sharded
+    private final Map<PipelineStage, List<TradeQueue<TradeEvent>>> inboundQueues = new EnumMap<>(PipelineStage.class);
+
+    private final Map<PipelineStage, List<ShardStats>> shardStats = new EnumMap<>(PipelineStage.class);
+
+    private final ShardKey shardKey;
+
+    /*
+    Poison pill: one is put() into a stage's inbound queue per worker on stop().
+    It queues up behind every trade already accepted, so a worker only sees it once the backlog ahead of it is processed.
+    Compared by identity, never persisted and never returned to the pool.
+     */
+    public static final TradeEvent POISON_PILL = new TradeEvent();
+
+    private final AtomicLong intakeSequence = new AtomicLong();
+    private final int inFlightCapacity;
+    // Null without a WAL
+    private final WriteAheadLog writeAheadLog;
+    private final SettledWatermark settledWatermark;
+    private final AdmissionControl admissionControl;
+
+    public TradeQueueManager(TradeQueueProperties tradeQueueProperties, PipelineProperties pipelineProperties) {
+        this(tradeQueueProperties, pipelineProperties, null, new AdmissionProperties());
+    }
+
+    @Autowired
+    public TradeQueueManager(TradeQueueProperties tradeQueueProperties, PipelineProperties pipelineProperties,
+                             WriteAheadLog writeAheadLog, AdmissionProperties admissionProperties) {
+        if (pipelineProperties.getValidation().isSharded()) {
+            throw new IllegalStateException("forex.pipeline.validation is the intake queue and cannot be sharded");
+        }
+        this.shardKey = pipelineProperties.getShardKey();
+
+        for (PipelineStage stage : PipelineStage.values()) {
+            PipelineProperties.Stage settings = pipelineProperties.stage(stage);
+            int shards = Math.max(1, settings.getShards());
+            List<TradeQueue<TradeEvent>> queues = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                queues.add(TradeQueues.create(tradeQueueProperties.getType(),
+                        settings.getQueueCapacity(), tradeQueueProperties.getWaitStrategy()));
+            }
+            inboundQueues.put(stage, queues);
+            if (settings.isSharded()) {
+                List<ShardStats> stats = new ArrayList<>(shards);
+                for (int shard = 0; shard < shards; shard++) {
+                    stats.add(new ShardStats(stage, shard, queues.get(shard)));
+                }
+                shardStats.put(stage, stats);
+            }
+            log.info("{} inbound queue: type={}, capacity={}, shards={}",
+                    stage, queues.get(0).type(), queues.get(0).capacity(), shards);
+        }
+        this.tradeQueue = inboundQueues.get(PipelineStage.VALIDATION).get(0);
+        this.inFlightCapacity = inboundQueues.values().stream()
+                .flatMap(List::stream)
+                .mapToInt(TradeQueue::capacity)
+                .sum();
+        this.writeAheadLog = writeAheadLog;
+        // unsettled sequences span at most what the queues hold plus what workers and blocked producers have in hand
+        this.settledWatermark = new SettledWatermark(4 * inFlightCapacity);
+        this.admissionControl = new AdmissionControl(admissionProperties);
+    }
+
+    /*
+    Events held by the queues plus a margin for the ones workers are processing. Sized like this, the pool covers
+    everything that can be in flight and acquire() never has to allocate in steady state.
      */
-    private static final BlockingQueue<Trade> tradeQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    @Bean
+    public TradeEventPool tradeEventPool() {
+        return new TradeEventPool(inFlightCapacity + inFlightCapacity / 4);
+    }
+
+    public TradeQueue<TradeEvent> inboundQueue(PipelineStage stage) {
+        return inboundQueues.get(stage).get(0);
+    }
+
+    public TradeQueue<TradeEvent> inboundQueue(PipelineStage stage, int shard) {
+        return inboundQueues.get(stage).get(shard);
+    }
+
+    public int shardCount(PipelineStage stage) {
+        return inboundQueues.get(stage).size();
+    }
+
+    // Null when the stage is not sharded
+    public ShardStats shardStats(PipelineStage stage, int shard) {
+        List<ShardStats> stats = shardStats.get(stage);
+        return stats == null ? null : stats.get(shard);
+    }
+
+    public List<ShardStatsDto> shardStatsSnapshot() {
+        return shardStats.values().stream()
+                .flatMap(List::stream)
+                .map(ShardStats::snapshot)
+                .toList();
+    }
 
-    public static void addTrade(Trade trade) {
+    // Hands a trade to the next stage: its only queue, or the shard its key maps to
+    public void route(PipelineStage stage, TradeEvent trade) throws InterruptedException {
+        List<TradeQueue<TradeEvent>> queues = inboundQueues.get(stage);
+        if (queues.size() == 1) {
+            queues.get(0).put(trade);
+            return;
+        }
+        int shard = shardKey.shardOf(trade, queues.size());
+        queues.get(shard).put(trade);
+        shardStats.get(stage).get(shard).recordEnqueued();
+    }
+
+    public Admission addTrade(TradeEvent trade) {
+        return addTrade(IntakePath.PRODUCER, trade, System.nanoTime());
+    }
+
+    /*
+    intakeNanos is where end-to-end latency is measured from. The load generator passes the time the trade was
+    *scheduled* to be sent rather than the time put() got to run: if the intake is full and put() blocks, that
+    wait is part of the latency the sender saw (no coordinated omission).
+    Only ACCEPTED hands the event over; otherwise the caller still owns it and must release it.
+     */
+    public Admission addTrade(IntakePath path, TradeEvent trade, long intakeNanos) {
+        AdmissionControl.Intake intake = admissionControl.intake(path);
+        long start = System.nanoTime();
+        TradeDeduplicator deduplicator = admissionControl.getDeduplicator();
+        if (deduplicator != null && deduplicator.claim(trade.getTradeId())) {
+            intake.getStats().record(Admission.DUPLICATE, System.nanoTime() - start);
+            return Admission.DUPLICATE;
+        }
+        Admission admission;
         try {
-            tradeQueue.put(trade); // blocks if queue full
+            admission = admit(intake, trade, intakeNanos);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Failed to add trade to the queue", e);
+            admission = Admission.INTERRUPTED;
+        }
+        if (deduplicator != null && !admission.isAccepted()) {
+            deduplicator.release(trade.getTradeId());
+        }
+        if (admission == Admission.DEAD_LETTERED) {
+            admissionControl.getDeadLetters().add(path, trade);
+        }
+        intake.getStats().record(admission, System.nanoTime() - start);
+        return admission;
+    }
+
+    private Admission admit(AdmissionControl.Intake intake, TradeEvent trade, long intakeNanos)
+            throws InterruptedException {
+        OverloadPolicy policy = intake.getPolicy();
+        if (policy == OverloadPolicy.RATE_LIMIT && !intake.getTokenBucket().tryAcquire()) {
+            return Admission.RATE_LIMITED;
+        }
+        // BLOCK and RATE_LIMIT wait as long as it takes, TIMEOUT up to offer-timeout for permit and room together
+        long timeoutNanos = switch (policy) {
+            case BLOCK, RATE_LIMIT -> -1L;
+            case TIMEOUT -> intake.getOfferTimeoutNanos();
+            case DROP -> 0L;
+        };
+        long deadline = System.nanoTime() + timeoutNanos;
+
+        AimdLimiter limiter = admissionControl.getLimiter();
+        if (limiter != null && !limiter.tryAcquire(timeoutNanos)) {
+            return rejected(policy);
+        }
+
+        trade.setSequence(writeAheadLog != null ? writeAheadLog.journal(trade) : intakeSequence.incrementAndGet());
+        trade.setIntakeNanos(intakeNanos);
+        trade.setAdmissionPermitNanos(limiter != null ? System.nanoTime() : 0L);
+        boolean queued = false;
+        try {
+            queued = switch (policy) {
+                case BLOCK, RATE_LIMIT -> {
+                    tradeQueue.put(trade);
+                    yield true;
+                }
+                case TIMEOUT -> tradeQueue.offer(trade, Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                case DROP -> tradeQueue.offer(trade);
+            };
+        } finally {
+            if (!queued) {
+                // never accepted: the WAL record must not be replayed and the permit goes back unused
+                trade.setAdmissionPermitNanos(0L);
+                if (limiter != null) {
+                    limiter.release();
+                }
+                markSettled(trade.getSequence());
+            }
         }
+        return queued ? Admission.ACCEPTED : rejected(policy);
+    }
+
+    private static Admission rejected(OverloadPolicy policy) {
+        return policy == OverloadPolicy.DROP ? Admission.DEAD_LETTERED : Admission.TIMED_OUT;
+    }
+
+    // WAL replay: the trade keeps the sequence it was journaled under and is not journaled again
+    public void replayTrade(TradeEvent trade) throws InterruptedException {
+        trade.setIntakeNanos(System.nanoTime());
+        TradeDeduplicator deduplicator = admissionControl.getDeduplicator();
+        if (deduplicator != null) {
+            deduplicator.record(trade.getTradeId());
+        }
+        AimdLimiter limiter = admissionControl.getLimiter();
+        if (limiter != null) {
+            limiter.acquire();
+            trade.setAdmissionPermitNanos(System.nanoTime());
+        }
+        try {
+            tradeQueue.put(trade);
+        } catch (InterruptedException e) {
+            if (limiter != null) {
+                trade.setAdmissionPermitNanos(0L);
+                limiter.release();
+            }
+            throw e;
+        }
+    }
+
+    // The trade's outcome is final and durable (settled, rejected or failed): no replay needed after a restart
+    public void markSettled(long sequence) {
+        settledWatermark.markSettled(sequence);
+    }
+
+    // Same for a trade that went through the pipeline: also returns its adaptive admission permit, once
+    public void markSettled(TradeEvent trade) {
+        settledWatermark.markSettled(trade.getSequence());
+        long admittedNanos = trade.getAdmissionPermitNanos();
+        if (admittedNanos != 0L) {
+            trade.setAdmissionPermitNanos(0L);
+            admissionControl.getLimiter().release(System.nanoTime() - admittedNanos);
+        }
+    }
+
+    public AdmissionStatsDto admissionStats() {
+        return admissionControl.stats(tradeQueue.size(), tradeQueue.capacity());
     }
 }
@@ -0,0 +1,18 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.WaitStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Applies to every stage queue; capacities are per stage (forex.pipeline.<stage>.queue-capacity)
+@Data
+@ConfigurationProperties(prefix = "forex.queue")
+public class TradeQueueProperties {
+
+    // LINKED_BLOCKING keeps the original behavior; RING_BUFFER switches to the lock-free implementation
+    private QueueType type = QueueType.LINKED_BLOCKING;
+
+    // Only used by RING_BUFFER
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
+}
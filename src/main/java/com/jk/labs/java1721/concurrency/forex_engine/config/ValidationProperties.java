@@ -0,0 +1,42 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "forex.validation")
+public class ValidationProperties {
+
+    // Micro-batches of at least this many trades are checked on the validation ForkJoinPool
+    private int parallelThreshold = 4096;
+    // Validation ForkJoinPool size; 0 = available processors. A reference cache miss blocks one of its threads
+    private int parallelism = 0;
+    // Newest rejected trades kept for /validation/rejects
+    private int rejectQueueCapacity = 10_000;
+
+    // Rule set in force at startup; PUT /validation/rules replaces it at runtime
+    // "EUR/USD" symbols; empty accepts every pair of two different currencies
+    private List<String> supportedPairs = new ArrayList<>();
+    private int minUnits = 1;
+    private int maxUnits = 1_000_000;
+    // null: no limit
+    private BigDecimal maxAmount;
+    private List<Long> blockedAccounts = new ArrayList<>();
+    private List<Long> blockedBrokers = new ArrayList<>();
+
+    public ValidationRulesDto toRules() {
+        return ValidationRulesDto.builder()
+                .supportedPairs(supportedPairs)
+                .minUnits(minUnits)
+                .maxUnits(maxUnits)
+                .maxAmount(maxAmount)
+                .blockedAccounts(blockedAccounts)
+                .blockedBrokers(blockedBrokers)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import com.jk.labs.java1721.concurrency.forex_engine.journal.FsyncPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.wal")
+public class WalProperties {
+
+    // Intake write-ahead log segments and the settled checkpoint live here
+    private String directory = "data/wal";
+
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // BATCH acknowledges no intake append before it is on disk (concurrent appends share one fsync); PERIODIC bounds
+    // the loss window to fsync-interval
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.PERIODIC;
+
+    private Duration fsyncInterval = Duration.ofMillis(200);
+
+    // How often the settled watermark is persisted and fully settled segments are deleted
+    private Duration checkpointInterval = Duration.ofSeconds(1);
+
+    // Replay the unsettled tail into the first pipeline started after a restart
+    private boolean replay = true;
+}
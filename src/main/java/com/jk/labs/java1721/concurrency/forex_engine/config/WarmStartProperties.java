@@ -0,0 +1,36 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "forex.warm-start")
+public class WarmStartProperties {
+
+    // Restore the snapshot and warm the hot path up at startup, and keep writing snapshots while running
+    private boolean enabled = true;
+
+    // Written as <file>.tmp, forced and renamed over the previous one
+    private String file = "data/warm-start.snapshot";
+
+    // How often a snapshot is written; a last one is written at shutdown
+    private Duration interval = Duration.ofSeconds(30);
+
+    // An older snapshot is ignored: rates and statuses that old are not worth serving
+    private Duration maxAge = Duration.ofHours(1);
+
+    // Synthetic trades run through the stages' code before traffic is let in; 0 skips the warm-up
+    private int warmupTrades = 50_000;
+
+    // p99 is steady once steady-windows consecutive windows of this length, each with at least min-window-trades
+    // completed trades, have p99s within steady-tolerance of each other
+    private Duration steadyWindow = Duration.ofSeconds(1);
+    private int steadyWindows = 3;
+    private int minWindowTrades = 100;
+    private double steadyTolerance = 0.25;
+
+    // Measuring stops after this, steady or not
+    private Duration steadyTimeout = Duration.ofMinutes(10);
+}
@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalancesDto {
+
+    private String accountId;
+    // Live ledger balances (consistent snapshot), non-zero currencies only
+    private Map<String, BigDecimal> balances;
+    // As of the last write-behind checkpoint
+    private Map<String, BigDecimal> checkpointed;
+}
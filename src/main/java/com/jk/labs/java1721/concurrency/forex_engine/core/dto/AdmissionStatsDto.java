@@ -0,0 +1,30 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AdmissionStatsDto {
+
+    private int intakeQueueDepth;
+    private int intakeQueueCapacity;
+    // Adaptive limiter; limit and inFlight are 0 when it is disabled
+    private boolean adaptive;
+    private int limit;
+    private int inFlight;
+    private long limitIncreases;
+    private long limitDecreases;
+    // Average admission-to-outcome latency of the last limiter window
+    private long windowLatencyMicros;
+    private long deadLetters;
+    private List<IntakeStatsDto> intakes;
+    // Null when forex.admission.dedup.enabled is false
+    private DedupStatsDto dedup;
+}
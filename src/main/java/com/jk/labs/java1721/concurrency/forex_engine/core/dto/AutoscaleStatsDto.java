@@ -0,0 +1,24 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AutoscaleStatsDto {
+
+    private boolean enabled;
+    private long intervalMillis;
+    // Budget shared by the autoscaled stages, and what they use of it
+    private int maxTotalWorkers;
+    private int totalWorkers;
+    private List<StageScalingDto> stages;
+    // Newest first
+    private List<ScalingDecisionDto> decisions;
+}
@@ -0,0 +1,26 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkBatchDto {
+
+    private int index;
+    // 1-based position of the batch's first record in the body
+    private long firstRecord;
+    private int records;
+    private int accepted;
+    // Turned away by forex.admission.bulk-ingest (TIMEOUT ends the request; DROP / RATE_LIMIT carry on)
+    private int rejected;
+    // Valid JSON but not a usable trade; firstError says why for the first one
+    private int invalid;
+    private String firstError;
+    // Parsing plus intake: grows when the pipeline pushes back
+    private long elapsedMillis;
+}
@@ -0,0 +1,27 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIngestResultDto {
+
+    // IngestOutcome; anything but COMPLETE means the rest of the body was not read
+    private String outcome;
+    private String error;
+    private long records;
+    private long accepted;
+    private long rejected;
+    private long invalid;
+    private long elapsedMillis;
+    private double tradesPerSecond;
+    // In body order, `batchSize` records each
+    private List<BulkBatchDto> batches;
+}
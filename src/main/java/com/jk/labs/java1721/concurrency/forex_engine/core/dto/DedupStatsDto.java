@@ -0,0 +1,33 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DedupStatsDto {
+
+    private long windowMillis;
+    private int generations;
+    private long bitsPerGeneration;
+    private int hashes;
+    private int recentCapacity;
+    // Bloom filters plus the recent-id table; fixed at startup
+    private long memoryBytes;
+    private long checks;
+    private long duplicates;
+    private long bloomPositives;
+    // Bloom positives the recent-id table did not confirm (accepted)
+    private long unconfirmed;
+    // Ids given back because their trade was not admitted
+    private long released;
+    private long rotations;
+    // unconfirmed / ids that were not duplicates
+    private double observedFalsePositiveRate;
+    // From the current fill of the filters
+    private double estimatedFalsePositiveRate;
+}
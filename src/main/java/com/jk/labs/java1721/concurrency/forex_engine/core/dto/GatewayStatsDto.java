@@ -0,0 +1,32 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GatewayStatsDto {
+
+    private boolean enabled;
+    private boolean running;
+    private int port;
+    private int ioThreads;
+    private long openConnections;
+    private long connectionsAccepted;
+    private long frames;
+    private long accepted;
+    // Frames the intake turned away (ack code = Admission ordinal)
+    private long rejected;
+    private long invalid;
+    private long bytesIn;
+    private long bytesOut;
+    private long ackWrites;
+    // Acks per write() call: how well acks are batched
+    private double acksPerWrite;
+    // Times a connection stopped being read because its acks were not drained
+    private long stalls;
+}
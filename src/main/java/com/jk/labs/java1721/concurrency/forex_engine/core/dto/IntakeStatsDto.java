@@ -0,0 +1,26 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IntakeStatsDto {
+
+    private String path;
+    private String policy;
+    private long submitted;
+    private long accepted;
+    private long timedOut;
+    private long deadLettered;
+    private long rateLimited;
+    private long interrupted;
+    private long duplicates;
+    // Time callers spent in addTrade(), waiting for room included
+    private long avgWaitMicros;
+    private long maxWaitMicros;
+}
@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JournalStatsDto {
+
+    private String directory;
+    private String fsyncPolicy;
+    private int segments;
+    private long records;
+    private long mappedBytes;
+    private long fsyncs;
+    private long avgFsyncMicros;
+    private long maxFsyncMicros;
+}
@@ -0,0 +1,25 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerStatsDto {
+
+    private int accounts;
+    private int capacity;
+    private long updates;
+    private long contended;
+    private long snapshotRetries;
+    private long checkpoints;
+    private long lastCheckpointRows;
+    private long lastCheckpointMicros;
+    private List<LedgerStripeDto> stripes;
+}
@@ -0,0 +1,18 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerStripeDto {
+
+    private int stripe;
+    private long updates;
+    private long contended;
+    private long snapshotRetries;
+}
@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One reporting interval (1s) of a load run
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadIntervalDto {
+
+    private long secondsSinceStart;
+    private double targetRate;
+    private double sentRate;
+    private double completedRate;
+    private double p50LatencyMicros;
+    private double p99LatencyMicros;
+    private double maxLatencyMicros;
+}
@@ -0,0 +1,38 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoadStatsDto {
+
+    private boolean running;
+    private String profile;
+    private int threads;
+    private int rate;
+    private long elapsedMillis;
+    private long sent;
+    // Turned away by forex.admission.load-generator (never with the default BLOCK policy)
+    private long rejected;
+    private long completed;
+    private double completedRatePerSecond;
+    // Latency from the scheduled send time to the end of the pipeline
+    private double p50LatencyMicros;
+    private double p90LatencyMicros;
+    private double p99LatencyMicros;
+    private double p999LatencyMicros;
+    private double maxLatencyMicros;
+    // How far the generator fell behind its own schedule (intake full → put() blocked)
+    private double maxSendLagMicros;
+    // Target rate of the first interval that completed less than 95% of its target; 0 if the engine kept up
+    private double saturationTargetRate;
+    // Oldest first
+    private List<LoadIntervalDto> intervals;
+}
@@ -0,0 +1,31 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NetSettlementDto {
+
+    private long instructionId;
+    private long accountId;
+    private String fromCurrency;
+    private String toCurrency;
+    private BigDecimal amount;
+    private BigDecimal quoteAmount;
+    private BigDecimal rate;
+    private long units;
+    private int tradeCount;
+    // Every trade the instruction settled, in netting order
+    private List<Long> tradeIds;
+    private Instant windowOpened;
+    private Instant created;
+}
@@ -0,0 +1,28 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NettingStatsDto {
+
+    private boolean enabled;
+    private long windowMillis;
+    private int maxTrades;
+    private long windowsClosed;
+    // Windows closed by reaching maxTrades rather than by age
+    private long windowsClosedByCount;
+    private long tradesNetted;
+    private long instructionsEmitted;
+    // tradesNetted / instructionsEmitted: settlement rows saved per row written
+    private double compressionRatio;
+    private long failedTrades;
+    // Current window
+    private int openTrades;
+    private int openPositions;
+}
@@ -0,0 +1,19 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PairAnalyticsDto {
+
+    private String pair;
+    // Shortest window first, as configured in forex.analytics.windows
+    private List<WindowAnalyticsDto> windows;
+}
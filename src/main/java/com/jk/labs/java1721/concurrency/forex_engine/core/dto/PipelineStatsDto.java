@@ -0,0 +1,23 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PipelineStatsDto {
+
+    private String mode;
+    private boolean running;
+    private long completed;
+    private long rejected;
+    private long failed;
+    private long elapsedMillis;
+    private double throughputPerSecond;
+    private double avgLatencyMicros;
+    private double maxLatencyMicros;
+}
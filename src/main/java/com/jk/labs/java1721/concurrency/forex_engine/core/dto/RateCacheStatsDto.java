@@ -0,0 +1,28 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RateCacheStatsDto {
+
+    private int pairsCached;
+    private long hits;
+    private long staleHits;
+    private long misses;
+    // (hits + staleHits) / all lookups
+    private double hitRatio;
+    private long coalesced;
+    private long loads;
+    private long loadFailures;
+    private long avgRefreshMicros;
+    private long maxRefreshMicros;
+    private long oldestRateAgeMillis;
+    private long refreshAfterMillis;
+    private long maxStalenessMillis;
+}
@@ -0,0 +1,26 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationBreakDto {
+
+    private String type;
+    // Trade breaks
+    private Long tradeId;
+    private Integer auditRecords;
+    // Position breaks
+    private Long accountId;
+    private String currency;
+    // Audit side and table (or ledger) side; null where that side has nothing
+    private BigDecimal expected;
+    private BigDecimal actual;
+}
@@ -0,0 +1,48 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationReportDto {
+
+    // RUNNING, COMPLETED, TIMED_OUT or FAILED
+    private String status;
+    // AUDIT_SCAN, TABLE_SCAN, DRILL_DOWN, POSITIONS or DONE
+    private String phase;
+    private double progressPercent;
+    // Trades created in [from, to)
+    private Instant from;
+    private Instant to;
+    private Instant startedAt;
+    private long elapsedMillis;
+    private int parallelism;
+    private int partitions;
+
+    private long auditRecords;
+    private long auditRecordsScanned;
+    private long auditedSettled;
+    private long auditedNetted;
+    private int partitionsScanned;
+    private long tradeRows;
+    private int mismatchedPartitions;
+    private int drillDownPartitionsDone;
+
+    private long missingRows;
+    private long unauditedRows;
+    private long duplicateAudits;
+    private long amountMismatches;
+    private long positionMismatches;
+    // The first forex.reconciliation.max-breaks breaks found
+    private List<ReconciliationBreakDto> breaks;
+    private boolean breaksTruncated;
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferenceCacheStatsDto {
+
+    private ReferenceTableStatsDto accounts;
+    private ReferenceTableStatsDto brokers;
+}
@@ -0,0 +1,33 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferenceTableStatsDto {
+
+    private int capacity;
+    private long entries;
+    // Cached unknown ids
+    private long negativeEntries;
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    // Lookups of ids the cache cannot hold (<= 0), always sent to the source
+    private long uncacheable;
+    // (hits + negativeHits) / all cacheable lookups
+    private double hitRatio;
+    private long avgLoadMicros;
+    private long maxLoadMicros;
+    private long evictions;
+    private long invalidations;
+    private long preloaded;
+    private long preloadMillis;
+    // Preallocated slot table, independent of how many entries are in use
+    private long footprintBytes;
+}
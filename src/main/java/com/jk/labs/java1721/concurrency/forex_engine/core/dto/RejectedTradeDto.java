@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RejectedTradeDto {
+
+    private Trade trade;
+    // Every rule the trade broke, in evaluation order; the first one is the reported reason
+    private List<String> reasons;
+    // Version of the rule set that rejected it
+    private long rulesVersion;
+}
@@ -0,0 +1,24 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ScalingDecisionDto {
+
+    private Instant at;
+    private String stage;
+    private int fromWorkers;
+    private int toWorkers;
+    private String reason;
+    // What the stage looked like when it was resized
+    private double lagMillis;
+    private double utilization;
+}
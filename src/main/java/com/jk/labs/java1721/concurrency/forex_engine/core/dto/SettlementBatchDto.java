@@ -0,0 +1,21 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementBatchDto {
+
+    private int size;
+    private int settled;
+    private int failed;
+    private long durationMicros;
+    private Instant completedAt;
+}
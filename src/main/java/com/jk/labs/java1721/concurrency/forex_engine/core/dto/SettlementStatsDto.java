@@ -0,0 +1,23 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementStatsDto {
+
+    private long batches;
+    private long settled;
+    private long failed;
+    private double avgBatchSize;
+    private double avgBatchWriteMicros;
+    // Most recent first
+    private List<SettlementBatchDto> recentBatches;
+}
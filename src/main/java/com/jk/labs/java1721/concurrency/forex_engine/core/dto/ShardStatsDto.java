@@ -0,0 +1,25 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardStatsDto {
+
+    private String stage;
+    private int shard;
+    private int depth;
+    private int capacity;
+    private long enqueued;
+    private long processed;
+    private long lastLagMicros;
+    private long maxLagMicros;
+    // Most frequent shard key (accountId or pair code) in the recent sample, and its share of that sample
+    private long hotKey;
+    private double hotKeyShare;
+}
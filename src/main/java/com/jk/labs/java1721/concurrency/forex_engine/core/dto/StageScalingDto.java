@@ -0,0 +1,33 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StageScalingDto {
+
+    private String stage;
+    private boolean running;
+    // Unsharded with max-workers > min-workers
+    private boolean scalable;
+    private int workers;
+    private int minWorkers;
+    private int maxWorkers;
+    // Last interval
+    private int queueDepth;
+    private double arrivalRate;
+    private double throughput;
+    // Trades per busy second of one worker
+    private double serviceRatePerWorker;
+    private double utilization;
+    // Queue depth / throughput; -1 when trades are waiting and none went through
+    private double lagMillis;
+    private long scaleUps;
+    private long scaleDowns;
+    private String lastReason;
+}
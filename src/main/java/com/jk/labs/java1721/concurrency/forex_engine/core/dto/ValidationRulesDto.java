@@ -0,0 +1,29 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValidationRulesDto {
+
+    // Assigned by the engine; ignored on update
+    private long version;
+    // "EUR/USD" symbols; empty or null accepts every pair of two different currencies
+    private List<String> supportedPairs;
+    // Inclusive units range
+    private int minUnits;
+    private int maxUnits;
+    // Largest accepted amount; null means no limit
+    private BigDecimal maxAmount;
+    // Compliance block lists
+    private List<Long> blockedAccounts;
+    private List<Long> blockedBrokers;
+}
@@ -0,0 +1,28 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ValidationStatsDto {
+
+    private long rulesVersion;
+    private long rulesUpdatedAtMillis;
+    private long validated;
+    private long rejected;
+    // Broken rules per reason code; a trade breaking two rules counts under both
+    private Map<String, Long> rejectsByReason;
+    // Micro-batches validated on the ForkJoin common pool vs on the stage worker
+    private long parallelBatches;
+    private long sequentialBatches;
+    private int parallelThreshold;
+    private long rejectQueueSize;
+    private int rejectQueueCapacity;
+}
@@ -0,0 +1,28 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalStatsDto {
+
+    private JournalStatsDto journal;
+    private long settledWatermark;
+    private long checkpointedSequence;
+    private long checkpoints;
+    private long deletedSegments;
+
+    // Last startup
+    private long recoveredRecords;
+    private long recoveryMillis;
+    private long unsettledTail;
+    private long replayed;
+    private long replaySkippedSettled;
+    private long replayPending;
+    private long replayMillis;
+}
@@ -0,0 +1,50 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WarmStartStatsDto {
+
+    private boolean enabled;
+    private String file;
+
+    // The snapshot read at startup, if there was a usable one
+    private boolean restored;
+    private long restoredSnapshotAgeMillis;
+    private long restoredSnapshotBytes;
+    private long restoreMillis;
+    private int ratesRestored;
+    private int accountsRestored;
+    private int brokersRestored;
+    private int ledgerAccountsRestored;
+    // Why the ledger section was not restored, null if it was or there was none
+    private String ledgerSkipped;
+    private boolean dedupRestored;
+    // Trade ids journaled to the WAL after the snapshot, added to the duplicate filter on top of it
+    private long dedupWalRecords;
+
+    private int warmupTrades;
+    private long warmupMillis;
+
+    // Milliseconds since JVM start: warm start done, first trade out of the pipeline, p99 steady (-1 = not yet)
+    private long readyMillis;
+    private long timeToFirstTradeMillis;
+    private long timeToSteadyP99Millis;
+    // p99 of the first measured window, and of the windows judged steady
+    private long firstWindowP99Micros;
+    private long steadyP99Micros;
+    private boolean measuring;
+
+    private long snapshotsWritten;
+    private long snapshotFailures;
+    private long lastSnapshotBytes;
+    private long lastSnapshotMillis;
+    // The last snapshot was taken with nothing in flight, so its ledger section can be restored
+    private boolean lastSnapshotLedgerExact;
+}
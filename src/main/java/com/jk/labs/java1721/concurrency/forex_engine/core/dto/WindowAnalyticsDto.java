@@ -0,0 +1,25 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WindowAnalyticsDto {
+
+    private long windowMillis;
+    private long trades;
+    // Notional, base currency
+    private BigDecimal volume;
+    // Notional, quote currency (sum of amount * rate)
+    private BigDecimal quoteVolume;
+    // quoteVolume / volume; null without trades
+    private BigDecimal vwap;
+    private double tradesPerSecond;
+}
@@ -0,0 +1,47 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Checkpointed balance of one account in one currency (the live balances are in AccountLedger)
+@SuppressWarnings("JpaDataSourceORMInspection")
+@Entity(name = "account_balance")
+@IdClass(AccountBalance.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalance {
+
+    @Id
+    @Column(name = "account_id", nullable = false, length = 50)
+    private String accountId;
+
+    @Id
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "balance", precision = 19, scale = 4)
+    private BigDecimal balance;
+
+    @Column(name = "updated_dt")
+    private Instant timestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String accountId;
+        private String currency;
+    }
+}
@@ -1,7 +1,9 @@
 package com.jk.labs.java1721.concurrency.forex_engine.core.model;
 
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataInvalidator;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,6 +14,7 @@ import java.time.Instant;
 
 @SuppressWarnings("JpaDataSourceORMInspection")
 @Entity(name = "broker")
+@EntityListeners(ReferenceDataInvalidator.class)
 @Data
 @Builder
 @NoArgsConstructor
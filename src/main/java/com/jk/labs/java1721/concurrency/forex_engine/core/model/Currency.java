@@ -0,0 +1,49 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Currencies the engine trades. The ordinal is the compact code used by CurrencyPair on the hot path.
+public enum Currency {
+    USD,
+    EUR,
+    GBP,
+    JPY,
+    CHF,
+    AUD,
+    CAD,
+    NZD;
+
+    private static final Currency[] VALUES = values();
+    private static final Map<String, Currency> BY_CODE = new HashMap<>();
+
+    static {
+        for (Currency currency : VALUES) {
+            BY_CODE.put(currency.name(), currency);
+        }
+    }
+
+    // Unlike valueOf(), returns null for unknown codes instead of throwing
+    public static Currency lookup(String code) {
+        return code == null ? null : BY_CODE.get(code);
+    }
+
+    // Decodes three ASCII letters without building a String (binary/streaming intake)
+    public static Currency lookup(int c0, int c1, int c2) {
+        for (Currency currency : VALUES) {
+            String name = currency.name();
+            if (name.charAt(0) == c0 && name.charAt(1) == c1 && name.charAt(2) == c2) {
+                return currency;
+            }
+        }
+        return null;
+    }
+
+    public static Currency ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,57 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+/*
+Currency pair packed into a small int: base.ordinal() * Currency.count() + quote.ordinal().
+
+With 8 currencies every code is in [0, 64), so per-pair state (rates, analytics) can live in plain arrays indexed
+by the code instead of a Map<String, ...> keyed by "USD/EUR" strings.
+ */
+public final class CurrencyPair {
+
+    public static final int INVALID = -1;
+
+    private static final int CURRENCIES = Currency.count();
+    private static final String[] SYMBOLS = new String[CURRENCIES * CURRENCIES];
+
+    static {
+        for (int code = 0; code < SYMBOLS.length; code++) {
+            SYMBOLS[code] = base(code).name() + "/" + quote(code).name();
+        }
+    }
+
+    private CurrencyPair() {
+    }
+
+    public static int code(Currency base, Currency quote) {
+        if (base == null || quote == null) {
+            return INVALID;
+        }
+        return base.ordinal() * CURRENCIES + quote.ordinal();
+    }
+
+    public static int code(String base, String quote) {
+        return code(Currency.lookup(base), Currency.lookup(quote));
+    }
+
+    // Number of distinct codes; size of arrays indexed by pair code
+    public static int count() {
+        return SYMBOLS.length;
+    }
+
+    public static boolean isValid(int code) {
+        return code >= 0 && code < SYMBOLS.length;
+    }
+
+    public static Currency base(int code) {
+        return Currency.ofOrdinal(code / CURRENCIES);
+    }
+
+    public static Currency quote(int code) {
+        return Currency.ofOrdinal(code % CURRENCIES);
+    }
+
+    // Cached "USD/EUR" style symbol; no allocation
+    public static String symbol(int code) {
+        return SYMBOLS[code];
+    }
+}
@@ -0,0 +1,47 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+Fixed-point helpers for the hot path: amounts and rates are scaled longs instead of BigDecimal.
+
+    amount 1234.5678 → 12_345_678   (AMOUNT_SCALE = 10^4)
+    rate   1.08765   → 108_765_000  (RATE_SCALE   = 10^8, matches the entity's scale = 8)
+
+Longs add, compare and CAS without allocating; BigDecimal appears only at the persistence boundary.
+ */
+public final class FixedPoint {
+
+    public static final int AMOUNT_DECIMALS = 4;
+    public static final int RATE_DECIMALS = 8;
+    public static final long AMOUNT_SCALE = 10_000L;
+    public static final long RATE_SCALE = 100_000_000L;
+
+    private FixedPoint() {
+    }
+
+    public static long toScaled(BigDecimal value, int decimals) {
+        return value == null ? 0L : value.setScale(decimals, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static long toScaled(double value, long scale) {
+        return Math.round(value * scale);
+    }
+
+    public static BigDecimal toBigDecimal(long scaled, int decimals) {
+        return BigDecimal.valueOf(scaled, decimals);
+    }
+
+    // amount (AMOUNT_SCALE) * rate (RATE_SCALE) → quote-currency amount (AMOUNT_SCALE)
+    public static long convert(long scaledAmount, long scaledRate) {
+        long high = Math.multiplyHigh(scaledAmount, scaledRate);
+        long low = scaledAmount * scaledRate;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low / RATE_SCALE;
+        }
+        // > 64 bits: rare, so the allocating path is acceptable here
+        return BigDecimal.valueOf(scaledAmount).multiply(BigDecimal.valueOf(scaledRate))
+                .divide(BigDecimal.valueOf(RATE_SCALE), RoundingMode.DOWN).longValueExact();
+    }
+}
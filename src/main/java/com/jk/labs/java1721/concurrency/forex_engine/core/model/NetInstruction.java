@@ -0,0 +1,77 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Net settlement instruction: every trade of one account and currency pair within a netting window, folded into a
+single position movement. Travels from the netting stage to settlement through the same queues as a trade, so it
+is a TradeEvent, but never a pooled one: it is allocated once per key per window and dropped after settlement.
+
+    inherited field   meaning here
+    ───────────────────────────────────────────────────────────────────────────
+    tradeId           instruction id, handed out by the netting stage when the window closes: one counter that
+                      resumes above MAX(instruction_id) of net_settlement, so ids stay unique across restarts
+                      (intake sequences start over when the WAL is off)
+    accountId/pair    the key
+    amount            sum of the trades' amounts, base currency (debited)
+    rate              effective rate quoteAmount / amount, informational
+    sequence          0: the instruction itself is not in the WAL; its trades are marked settled one by one
+
+The trades themselves are held until the instruction is written, then go on to audit with status NETTED.
+ */
+@Getter
+public class NetInstruction extends TradeEvent {
+
+    private final List<TradeEvent> trades = new ArrayList<>();
+    // Sum of amount * rate per trade, quote currency (credited), FixedPoint.AMOUNT_SCALE
+    private long quoteAmount;
+    private long totalUnits;
+    private long lastSequence;
+    private long minTradeId = Long.MAX_VALUE;
+    private long maxTradeId;
+    private final long windowOpenedMillis;
+
+    public NetInstruction(long accountId, int currencyPair, long windowOpenedMillis) {
+        setAccountId(accountId);
+        setCurrencyPair(currencyPair);
+        this.windowOpenedMillis = windowOpenedMillis;
+    }
+
+    // Folds one enriched trade in; throws ArithmeticException (and changes nothing) if a sum would overflow
+    public void add(TradeEvent trade) {
+        long amount = Math.addExact(getAmount(), trade.getAmount());
+        long quote = Math.addExact(quoteAmount, FixedPoint.convert(trade.getAmount(), trade.getRate()));
+        setAmount(amount);
+        quoteAmount = quote;
+        totalUnits += trade.getUnits();
+        lastSequence = Math.max(lastSequence, trade.getSequence());
+        minTradeId = Math.min(minTradeId, trade.getTradeId());
+        maxTradeId = Math.max(maxTradeId, trade.getTradeId());
+        if (trade.getIntakeNanos() != 0L && (getIntakeNanos() == 0L || trade.getIntakeNanos() < getIntakeNanos())) {
+            setIntakeNanos(trade.getIntakeNanos());
+        }
+        trades.add(trade);
+    }
+
+    // Window closed: stamps the instruction id and effective rate
+    public void seal(long instructionId, long createdAtMillis) {
+        setTradeId(instructionId);
+        setCreatedAtMillis(createdAtMillis);
+        setStatus(TradeStatus.ENRICHED);
+        if (getAmount() > 0) {
+            setRate(BigDecimal.valueOf(quoteAmount)
+                    .multiply(BigDecimal.valueOf(FixedPoint.RATE_SCALE))
+                    .divide(BigDecimal.valueOf(getAmount()), 0, RoundingMode.HALF_EVEN)
+                    .longValue());
+        }
+    }
+
+    public int tradeCount() {
+        return trades.size();
+    }
+}
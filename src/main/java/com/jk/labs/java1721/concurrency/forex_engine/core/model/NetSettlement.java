@@ -0,0 +1,76 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/*
+One settled net instruction (netting stage): written instead of one `trade` row per trade. trade_ids holds the ids
+of every netted trade as packed 8-byte big-endian longs, so the instruction stays traceable to its trades in a
+single row; min/max trade id and last_sequence narrow the lookups by trade id and by WAL position.
+ */
+@SuppressWarnings("JpaDataSourceORMInspection")
+@Entity(name = "net_settlement")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetSettlement {
+
+    @Id
+    @Column(name = "instruction_id", nullable = false)
+    private Long id;
+
+    @Column(name = "account_id", length = 50)
+    private String accountId;
+
+    @Column(name = "from_currency", length = 50)
+    private String fromCurrency;
+
+    @Column(name = "to_currency", length = 50)
+    private String toCurrency;
+
+    // Debited, base currency
+    @Column(name = "amount", precision = 19, scale = 8)
+    private BigDecimal amount;
+
+    // Credited, quote currency
+    @Column(name = "quote_amount", precision = 19, scale = 8)
+    private BigDecimal quoteAmount;
+
+    @Column(name = "rate", precision = 19, scale = 8)
+    private BigDecimal rate;
+
+    @Column(name = "no_of_units")
+    private Long noOfUnits;
+
+    @Column(name = "trade_count")
+    private Integer tradeCount;
+
+    @Column(name = "min_trade_id")
+    private Long minTradeId;
+
+    @Column(name = "max_trade_id")
+    private Long maxTradeId;
+
+    @Column(name = "last_sequence")
+    private Long lastSequence;
+
+    @Lob
+    @Column(name = "trade_ids")
+    private byte[] tradeIds;
+
+    @Column(name = "window_opened_dt")
+    private Instant windowOpened;
+
+    @Column(name = "created_dt")
+    private Instant timestamp;
+}
@@ -0,0 +1,81 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/*
+Hot-path representation of a trade. What flows through the pipeline queues; Trade (the JPA entity) is only built
+at the persistence/audit boundary, see TradeEvents.
+
+    Trade (entity)                          TradeEvent
+    --------------------------------------  ---------------------------------------------
+    String id / accountId / brokerId (UUID) long tradeId / accountId / brokerId
+    String fromCurrency / toCurrency        int currencyPair (CurrencyPair code)
+    BigDecimal amount / rate                long amount / rate (FixedPoint scaled)
+    Instant timestamp                       long createdAtMillis
+    String status                           TradeStatus status
+
+Every field is a primitive or an enum constant, so a TradeEvent is ~80 bytes flat and filling one allocates
+nothing. Instances are mutable and recycled through TradeEventPool: whoever finishes with an event
+(audit, or the stage that rejects/fails it) must release it and must not touch it afterwards.
+
+No equals/hashCode on purpose: events are pooled identities, not values.
+ */
+@Getter
+@Setter
+@ToString
+public class TradeEvent {
+
+    // Intake order, assigned when the event enters the pipeline
+    private long sequence;
+    private long tradeId;
+    private long accountId;
+    private long brokerId;
+    private int currencyPair = CurrencyPair.INVALID;
+    // FixedPoint.AMOUNT_SCALE
+    private long amount;
+    private int units;
+    // FixedPoint.RATE_SCALE; 0 until enriched
+    private long rate;
+    private long createdAtMillis;
+    private TradeStatus status;
+    // System.nanoTime() at intake; drives end-to-end latency
+    private long intakeNanos;
+    /*
+    System.nanoTime() when the trade took an adaptive admission permit, 0 if it holds none. The permit is returned
+    when the outcome is final (TradeQueueManager.markSettled) and the time since admission steers the limit -
+    measured from admission, not intakeNanos, so a sender's own lag does not count as pipeline latency.
+     */
+    private long admissionPermitNanos;
+
+    public void reset() {
+        sequence = 0L;
+        tradeId = 0L;
+        accountId = 0L;
+        brokerId = 0L;
+        currencyPair = CurrencyPair.INVALID;
+        amount = 0L;
+        units = 0;
+        rate = 0L;
+        createdAtMillis = 0L;
+        status = null;
+        intakeNanos = 0L;
+        admissionPermitNanos = 0L;
+    }
+
+    // Trade data and intake metadata; never the admission permit, which stays with the original event
+    public void copyFrom(TradeEvent other) {
+        sequence = other.sequence;
+        tradeId = other.tradeId;
+        accountId = other.accountId;
+        brokerId = other.brokerId;
+        currencyPair = other.currencyPair;
+        amount = other.amount;
+        units = other.units;
+        rate = other.rate;
+        createdAtMillis = other.createdAtMillis;
+        status = other.status;
+        intakeNanos = other.intakeNanos;
+    }
+}
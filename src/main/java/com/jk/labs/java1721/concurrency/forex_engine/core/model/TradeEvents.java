@@ -0,0 +1,58 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import java.time.Instant;
+
+// Conversions between the hot-path TradeEvent and the JPA Trade entity. Only used at the pipeline boundaries.
+public final class TradeEvents {
+
+    private TradeEvents() {
+    }
+
+    public static Trade toEntity(TradeEvent event) {
+        int pair = event.getCurrencyPair();
+        return Trade.builder()
+                .id(Long.toString(event.getTradeId()))
+                .accountId(Long.toString(event.getAccountId()))
+                .brokerId(Long.toString(event.getBrokerId()))
+                .fromCurrency(CurrencyPair.isValid(pair) ? CurrencyPair.base(pair).name() : null)
+                .toCurrency(CurrencyPair.isValid(pair) ? CurrencyPair.quote(pair).name() : null)
+                .amount(FixedPoint.toBigDecimal(event.getAmount(), FixedPoint.AMOUNT_DECIMALS))
+                .noOfUnits(event.getUnits())
+                .rate(FixedPoint.toBigDecimal(event.getRate(), FixedPoint.RATE_DECIMALS))
+                .timestamp(Instant.ofEpochMilli(event.getCreatedAtMillis()))
+                .status(event.getStatus() != null ? event.getStatus().name() : null)
+                .build();
+    }
+
+    /*
+    Fills `target` from an entity received at the edge (REST). Ids must be numeric; anything that cannot be encoded
+    (non-numeric id, unknown currency) throws IllegalArgumentException so intake can reject the trade.
+     */
+    public static TradeEvent fromEntity(Trade trade, TradeEvent target) {
+        target.setTradeId(parseId(trade.getId(), "id"));
+        target.setAccountId(parseId(trade.getAccountId(), "accountId"));
+        target.setBrokerId(parseId(trade.getBrokerId(), "brokerId"));
+        int pair = CurrencyPair.code(trade.getFromCurrency(), trade.getToCurrency());
+        if (pair == CurrencyPair.INVALID) {
+            throw new IllegalArgumentException("Unsupported currency pair " + trade.getFromCurrency() + "/" + trade.getToCurrency());
+        }
+        target.setCurrencyPair(pair);
+        target.setAmount(FixedPoint.toScaled(trade.getAmount(), FixedPoint.AMOUNT_DECIMALS));
+        target.setUnits(trade.getNoOfUnits() != null ? trade.getNoOfUnits() : 0);
+        target.setRate(FixedPoint.toScaled(trade.getRate(), FixedPoint.RATE_DECIMALS));
+        target.setCreatedAtMillis(trade.getTimestamp() != null ? trade.getTimestamp().toEpochMilli() : System.currentTimeMillis());
+        target.setStatus(TradeStatus.NEW);
+        return target;
+    }
+
+    private static long parseId(String value, String field) {
+        if (value == null) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " must be numeric: " + value);
+        }
+    }
+}
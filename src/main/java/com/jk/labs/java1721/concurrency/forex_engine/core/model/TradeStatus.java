@@ -0,0 +1,13 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+// Values stored in Trade.status as the trade moves through the pipeline
+public enum TradeStatus {
+    NEW,
+    VALIDATED,
+    REJECTED,
+    ENRICHED,
+    SETTLED,
+    FAILED,
+    // Settled as part of a net settlement instruction (netting stage) rather than on its own
+    NETTED
+}
@@ -0,0 +1,22 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Daemon platform threads named <prefix><n>, so stage workers are recognisable in thread dumps and logs
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public NamedThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
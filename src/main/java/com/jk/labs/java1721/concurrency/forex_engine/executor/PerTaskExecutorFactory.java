@@ -0,0 +1,19 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import java.util.concurrent.ExecutorService;
+
+/*
+Creates "one thread per task" executors.
+
+    Java 17 build: PlatformPerTaskExecutorFactory - a cached pool of platform threads.
+    Java 21 build (-Pjava21): VirtualPerTaskExecutorFactory (src/main/java21) is @Primary and hands out
+                              virtual-thread-per-task executors instead.
+
+Callers must bound concurrency themselves (e.g. with a Semaphore): neither executor has a queue or a thread cap.
+ */
+public interface PerTaskExecutorFactory {
+
+    ExecutorService newPerTaskExecutor(String threadNamePrefix);
+
+    boolean isVirtual();
+}
@@ -0,0 +1,20 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+public class PlatformPerTaskExecutorFactory implements PerTaskExecutorFactory {
+
+    @Override
+    public ExecutorService newPerTaskExecutor(String threadNamePrefix) {
+        return Executors.newCachedThreadPool(new NamedThreadFactory(threadNamePrefix));
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return false;
+    }
+}
@@ -0,0 +1,226 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+The part of Java 21's StructuredTaskScope.ShutdownOnFailure the structured pipeline needs, on top of a plain
+ExecutorService. StructuredTaskScope is still a preview API (JDK 21 to 25), so using it would mean compiling and
+running with --enable-preview; this class gives the same contract on Java 17 and, with the executor from
+PerTaskExecutorFactory, runs every fork on its own virtual thread under -Pjava21.
+
+    try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+        Supplier<Long> rate = scope.fork(() -> lookupRate(pair));
+        scope.fork(() -> referenceDataCache.accountStatus(accountId));
+        scope.joinUntil(deadlineNanos);      // every fork done, or the first failure, or the deadline
+        scope.throwIfFailed();
+        trade.setRate(rate.get());
+    }                                        // close(): interrupts what still runs and waits for it to stop
+
+🧩 Why not CompletableFuture.allOf
+    | allOf(...)                                        | ShutdownOnFailureScope                                |
+    |---------------------------------------------------|-------------------------------------------------------|
+    | waits for every task, even after one has failed   | join returns on the first failure                     |
+    | cancel() does not interrupt the running task      | shutdown interrupts the siblings                      |
+    | a timed-out get() leaves the task running         | the deadline shuts the scope down                     |
+    | tasks may outlive the caller                      | close() returns only once every fork has finished     |
+
+    The last row is what makes it safe to hand a pooled TradeEvent back once the scope is closed: no lookup of that
+    trade is still running. Forks should still capture the values they need rather than the event itself.
+
+Owner-confined like StructuredTaskScope: fork, join and close are called by the thread that opened the scope.
+A lookup that ignores interrupts keeps close() waiting until it returns, exactly as it would with the JDK scope.
+ */
+public final class ShutdownOnFailureScope implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final List<Fork<?>> forks = new ArrayList<>(4);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition forkDone = lock.newCondition();
+
+    // Guarded by lock
+    private int running;
+    private Throwable failure;
+    private boolean shutdown;
+
+    public ShutdownOnFailureScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    // Starts `task` in its own thread; the Supplier returns its result once the scope has joined without failure
+    public <T> Supplier<T> fork(Callable<T> task) {
+        Fork<T> fork = new Fork<>(task);
+        lock.lock();
+        try {
+            if (shutdown) {
+                throw new IllegalStateException("Scope is shut down");
+            }
+            running++;
+            forks.add(fork);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            executor.execute(fork);
+        } catch (RejectedExecutionException e) {
+            forkFinished(fork, e);
+            throw e;
+        }
+        return fork;
+    }
+
+    /*
+    Waits until every fork has finished, one has failed, or System.nanoTime() reaches deadlineNanos. A failure or
+    the deadline shuts the scope down: the forks still running are interrupted.
+     */
+    public void joinUntil(long deadlineNanos) throws InterruptedException, TimeoutException {
+        boolean failed;
+        lock.lock();
+        try {
+            long remaining = deadlineNanos - System.nanoTime();
+            while (running > 0 && failure == null) {
+                if (remaining <= 0L) {
+                    shutdown();
+                    throw new TimeoutException("Deadline passed with " + running + " fork(s) still running");
+                }
+                remaining = forkDone.awaitNanos(remaining);
+            }
+            failed = failure != null;
+        } finally {
+            lock.unlock();
+        }
+        if (failed) {
+            shutdown();
+        }
+    }
+
+    // Rethrows the first failure, if any fork failed
+    public void throwIfFailed() throws ExecutionException {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new ExecutionException(failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Interrupts the forks still running and waits for all of them to finish
+    @Override
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            while (running > 0) {
+                try {
+                    forkDone.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void shutdown() {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+            // under the lock, so a runner that has already finished its fork (and may run other tasks now) is left alone
+            for (Fork<?> fork : forks) {
+                if (fork.runner != null && !fork.finished) {
+                    fork.runner.interrupt();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Forks that were not started before the shutdown are skipped; false means do not run
+    private boolean forkStarted(Fork<?> fork) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                return false;
+            }
+            fork.runner = Thread.currentThread();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forkFinished(Fork<?> fork, Throwable error) {
+        lock.lock();
+        try {
+            fork.finished = true;
+            running--;
+            // errors of forks that were interrupted by the shutdown are consequences, not causes
+            if (error != null && failure == null && !shutdown) {
+                failure = error;
+            }
+            forkDone.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private final class Fork<T> implements Runnable, Supplier<T> {
+
+        private final Callable<T> task;
+        private volatile boolean succeeded;
+        private T result;
+        // Guarded by the scope's lock
+        private Thread runner;
+        private boolean finished;
+
+        private Fork(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!forkStarted(this)) {
+                forkFinished(this, null);
+                return;
+            }
+            Throwable error = null;
+            try {
+                result = task.call();
+                succeeded = true;
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                forkFinished(this, error);
+                // a shutdown that raced with the end of the task must not leak into the executor's next task
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public T get() {
+            if (!succeeded) {
+                throw new IllegalStateException("Fork has not completed successfully");
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.jk.labs.java1721.concurrency.forex_engine.gateway;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+
+import java.nio.ByteBuffer;
+
+/*
+Wire format of the binary intake gateway (TradeGateway). Fixed-size records, big-endian (ByteBuffer's default),
+no length prefix: the frame size is the protocol.
+
+🧩 Trade frame, client → gateway (FRAME_SIZE = 56 bytes)
+
+    | offset | size | field                                                         |
+    |--------|------|---------------------------------------------------------------|
+    |      0 |    2 | magic 0x4658 ("FX")                                           |
+    |      2 |    1 | version (1)                                                   |
+    |      3 |    1 | reserved (0)                                                  |
+    |      4 |    8 | tradeId                                                       |
+    |     12 |    8 | accountId                                                     |
+    |     20 |    8 | brokerId                                                      |
+    |     28 |    3 | base currency, ASCII ("USD")                                  |
+    |     31 |    3 | quote currency, ASCII ("EUR")                                 |
+    |     34 |    2 | reserved (0)                                                  |
+    |     36 |    8 | amount, FixedPoint.AMOUNT_SCALE                               |
+    |     44 |    4 | units                                                         |
+    |     48 |    8 | createdAtMillis (0 = time of receipt)                         |
+
+🧩 Ack, gateway → client (ACK_SIZE = 12 bytes), one per frame, in frame order
+
+    | offset | size | field                                                         |
+    |--------|------|---------------------------------------------------------------|
+    |      0 |    8 | tradeId of the frame                                          |
+    |      8 |    4 | code (ackCode(Admission), or INVALID)                         |
+
+    0 ACCEPTED, 1 TIMED_OUT, 2 DEAD_LETTERED, 3 RATE_LIMITED, 4 INTERRUPTED, 5 DUPLICATE (a resend); INVALID (100)
+    for a frame with a bad magic or version, an unknown currency or a non-positive amount. Only ACCEPTED trades are in the pipeline.
+    The codes are part of the protocol and never change; a new Admission outcome gets a new code here.
+
+Decoding reads the fields straight out of the (direct) receive buffer into a pooled TradeEvent: currencies go
+through Currency.lookup(c0, c1, c2), so a frame costs no String, no array and no boxing.
+ */
+public final class TradeFrame {
+
+    public static final int FRAME_SIZE = 56;
+    public static final int ACK_SIZE = 12;
+
+    public static final short MAGIC = 0x4658;
+    public static final byte VERSION = 1;
+
+    // Ack codes
+    public static final int ACCEPTED = 0;
+    public static final int TIMED_OUT = 1;
+    public static final int DEAD_LETTERED = 2;
+    public static final int RATE_LIMITED = 3;
+    public static final int INTERRUPTED = 4;
+    public static final int DUPLICATE = 5;
+    public static final int INVALID = 100;
+
+    private static final int TRADE_ID = 4;
+    private static final int ACCOUNT_ID = 12;
+    private static final int BROKER_ID = 20;
+    private static final int BASE = 28;
+    private static final int QUOTE = 31;
+    private static final int AMOUNT = 36;
+    private static final int UNITS = 44;
+    private static final int CREATED_AT = 48;
+
+    private TradeFrame() {
+    }
+
+    // Absolute reads of the frame at `offset`; false if it is not a valid trade (target is then partly filled)
+    public static boolean decode(ByteBuffer buffer, int offset, TradeEvent target) {
+        target.setTradeId(buffer.getLong(offset + TRADE_ID));
+        if (buffer.getShort(offset) != MAGIC || buffer.get(offset + 2) != VERSION) {
+            return false;
+        }
+        Currency base = Currency.lookup(buffer.get(offset + BASE), buffer.get(offset + BASE + 1), buffer.get(offset + BASE + 2));
+        Currency quote = Currency.lookup(buffer.get(offset + QUOTE), buffer.get(offset + QUOTE + 1), buffer.get(offset + QUOTE + 2));
+        long amount = buffer.getLong(offset + AMOUNT);
+        if (base == null || quote == null || amount <= 0L) {
+            return false;
+        }
+        long createdAt = buffer.getLong(offset + CREATED_AT);
+        target.setAccountId(buffer.getLong(offset + ACCOUNT_ID));
+        target.setBrokerId(buffer.getLong(offset + BROKER_ID));
+        target.setCurrencyPair(CurrencyPair.code(base, quote));
+        target.setAmount(amount);
+        target.setUnits(buffer.getInt(offset + UNITS));
+        target.setCreatedAtMillis(createdAt != 0L ? createdAt : System.currentTimeMillis());
+        target.setStatus(TradeStatus.NEW);
+        return true;
+    }
+
+    // Relative put of one frame (clients)
+    public static void encode(ByteBuffer buffer, long tradeId, long accountId, long brokerId, int currencyPair,
+                              long amount, int units, long createdAtMillis) {
+        buffer.putShort(MAGIC).put(VERSION).put((byte) 0)
+                .putLong(tradeId)
+                .putLong(accountId)
+                .putLong(brokerId);
+        putCurrency(buffer, CurrencyPair.base(currencyPair));
+        putCurrency(buffer, CurrencyPair.quote(currencyPair));
+        buffer.putShort((short) 0)
+                .putLong(amount)
+                .putInt(units)
+                .putLong(createdAtMillis);
+    }
+
+    public static void encodeAck(ByteBuffer buffer, long tradeId, int code) {
+        buffer.putLong(tradeId).putInt(code);
+    }
+
+    public static int ackCode(Admission admission) {
+        return switch (admission) {
+            case ACCEPTED -> ACCEPTED;
+            case TIMED_OUT -> TIMED_OUT;
+            case DEAD_LETTERED -> DEAD_LETTERED;
+            case RATE_LIMITED -> RATE_LIMITED;
+            case INTERRUPTED -> INTERRUPTED;
+            case DUPLICATE -> DUPLICATE;
+        };
+    }
+
+    private static void putCurrency(ByteBuffer buffer, Currency currency) {
+        String name = currency.name();
+        buffer.put((byte) name.charAt(0)).put((byte) name.charAt(1)).put((byte) name.charAt(2));
+    }
+}
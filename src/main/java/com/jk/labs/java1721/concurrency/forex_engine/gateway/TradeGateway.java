@@ -0,0 +1,394 @@
+package com.jk.labs.java1721.concurrency.forex_engine.gateway;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.config.GatewayProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.GatewayStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Binary intake for broker feeds (forex.gateway): non-blocking TCP, fixed-size TradeFrames in, batched acks out,
+next to the REST controller and feeding the same intake queue.
+
+    broker ─┐                ┌─ io thread 0: Selector ── accept ── read ── decode ── addTrade(GATEWAY) ── ack ─┐
+    broker ─┼── TCP ─────────┤                                                                                 ├─▶ intake
+    broker ─┘                └─ io thread N: Selector ── read ── decode ── addTrade(GATEWAY) ── ack ───────────┘
+
+🧩 Threads
+    forex.gateway.io-threads selector threads, each owning its connections outright: a connection's buffers are
+    only ever touched by its thread, so there is no locking on the data path. Thread 0 also accepts and deals new
+    connections out round-robin (a queue + wakeup() hands them to another selector).
+
+🧩 Per read
+    One read() fills the connection's direct receive buffer; every complete frame in it is decoded in place
+    (TradeFrame.decode: absolute reads, no String) into a pooled TradeEvent and offered to the intake. A partial
+    frame stays at the front of the buffer for the next read. The acks for everything decoded go into the direct
+    send buffer and out in one write(): acks are batched per read, not written per trade.
+
+🧩 Backpressure
+    The io thread must never park, so the gateway intake defaults to DROP (forex.admission.gateway): a full intake
+    is answered with DEAD_LETTERED acks rather than by stalling every connection on the selector. If a client does
+    not read its acks and the send buffer fills, that connection stops being read (OP_WRITE only) until the acks
+    drain, and TCP flow control pushes back on that client alone.
+
+🧩 Startup
+    Created after WarmStart (@DependsOn), so the port only opens once the snapshot is restored and the hot path has
+    been warmed up: brokers that reconnect straight after a deploy meet warm caches and compiled code.
+ */
+@Component
+@DependsOn("warmStart")
+@RequiredArgsConstructor
+@Slf4j
+public class TradeGateway {
+
+    private final GatewayProperties gatewayProperties;
+    private final TradeQueueManager tradeQueueManager;
+    private final TradeEventPool tradeEventPool;
+
+    private final LongAdder connectionsAccepted = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder ackWrites = new LongAdder();
+    private final LongAdder stalls = new LongAdder();
+
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    private volatile boolean running;
+    private ServerSocketChannel server;
+    private IoLoop[] loops;
+    private Thread[] threads;
+
+    @PostConstruct
+    public void init() {
+        if (gatewayProperties.isEnabled()) {
+            start();
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        try {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(gatewayProperties.getBindAddress(), gatewayProperties.getPort()));
+            server.configureBlocking(false);
+
+            int ioThreads = Math.max(1, gatewayProperties.getIoThreads());
+            loops = new IoLoop[ioThreads];
+            for (int i = 0; i < ioThreads; i++) {
+                loops[i] = new IoLoop();
+            }
+            server.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException("Trade gateway could not listen on port " + gatewayProperties.getPort(), e);
+        }
+
+        running = true;
+        NamedThreadFactory threadFactory = new NamedThreadFactory("gateway-io-");
+        threads = new Thread[loops.length];
+        for (int i = 0; i < loops.length; i++) {
+            threads[i] = threadFactory.newThread(loops[i]);
+            threads[i].start();
+        }
+        log.info("Trade gateway listening on port {} with {} io threads", port(), loops.length);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (IoLoop loop : loops) {
+            loop.selector.wakeup();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly();
+        log.info("Trade gateway stopped");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // The bound port (forex.gateway.port 0 binds a free one); -1 when not listening
+    public int port() {
+        try {
+            return server != null && server.isOpen() ? ((InetSocketAddress) server.getLocalAddress()).getPort() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public GatewayStatsDto stats() {
+        long writes = ackWrites.sum();
+        long acks = accepted.sum() + rejected.sum() + invalid.sum();
+        return GatewayStatsDto.builder()
+                .enabled(gatewayProperties.isEnabled())
+                .running(running)
+                .port(port())
+                .ioThreads(loops == null ? 0 : loops.length)
+                .openConnections(connectionsAccepted.sum() - connectionsClosed.sum())
+                .connectionsAccepted(connectionsAccepted.sum())
+                .frames(frames.sum())
+                .accepted(accepted.sum())
+                .rejected(rejected.sum())
+                .invalid(invalid.sum())
+                .bytesIn(bytesIn.sum())
+                .bytesOut(bytesOut.sum())
+                .ackWrites(writes)
+                .acksPerWrite(writes == 0 ? 0.0 : (double) acks / writes)
+                .stalls(stalls.sum())
+                .build();
+    }
+
+    private void closeQuietly() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException e) {
+            log.debug("Closing the gateway socket failed", e);
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in;
+        final ByteBuffer out;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = ByteBuffer.allocateDirect(
+                    Math.max(TradeFrame.FRAME_SIZE, (int) gatewayProperties.getReceiveBuffer().toBytes()));
+            this.out = ByteBuffer.allocateDirect(
+                    Math.max(TradeFrame.ACK_SIZE, (int) gatewayProperties.getSendBuffer().toBytes()));
+        }
+    }
+
+    private final class IoLoop implements Runnable {
+
+        final Selector selector;
+        final Queue<SocketChannel> handOver = new ConcurrentLinkedQueue<>();
+
+        IoLoop() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerHandedOver();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isWritable()) {
+                                onWritable(key, connection);
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                onReadable(key, connection);
+                            }
+                        } catch (IOException e) {
+                            log.debug("Gateway connection {} failed: {}", connection.channel, e.getMessage());
+                            close(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Gateway io thread failed", e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid() && key.attachment() != null) {
+                        close(key);
+                    }
+                }
+                SocketChannel channel;
+                while ((channel = handOver.poll()) != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) {
+                        log.debug("Closing a gateway connection failed", e);
+                    }
+                    connectionsClosed.increment();
+                }
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    log.debug("Closing a gateway selector failed", e);
+                }
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connectionsAccepted.increment();
+                IoLoop owner = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+                if (owner == this) {
+                    register(channel);
+                } else {
+                    owner.handOver.add(channel);
+                    owner.selector.wakeup();
+                }
+            }
+        }
+
+        private void registerHandedOver() {
+            SocketChannel channel;
+            while ((channel = handOver.poll()) != null) {
+                register(channel);
+            }
+        }
+
+        private void register(SocketChannel channel) {
+            try {
+                channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+            } catch (ClosedChannelException e) {
+                connectionsClosed.increment();
+            }
+        }
+
+        private void onReadable(SelectionKey key, Connection connection) throws IOException {
+            int read = connection.channel.read(connection.in);
+            if (read < 0) {
+                close(key);
+                return;
+            }
+            bytesIn.add(read);
+            process(key, connection);
+        }
+
+        private void onWritable(SelectionKey key, Connection connection) throws IOException {
+            if (flush(connection)) {
+                // acks drained: decode what was left waiting for room and read again
+                process(key, connection);
+            }
+        }
+
+        // Decodes every complete frame in the receive buffer for which there is room to ack, then writes the acks
+        private void process(SelectionKey key, Connection connection) throws IOException {
+            ByteBuffer in = connection.in;
+            ByteBuffer out = connection.out;
+            in.flip();
+            int position = in.position();
+            boolean stalled = false;
+            while (in.limit() - position >= TradeFrame.FRAME_SIZE) {
+                if (out.remaining() < TradeFrame.ACK_SIZE && !flush(connection)) {
+                    stalled = true;
+                    break;
+                }
+                ack(out, in, position);
+                position += TradeFrame.FRAME_SIZE;
+            }
+            in.position(position);
+            in.compact();
+
+            if (!flush(connection) || stalled) {
+                stalls.increment();
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void ack(ByteBuffer out, ByteBuffer in, int position) {
+            frames.increment();
+            TradeEvent trade = tradeEventPool.acquire();
+            if (!TradeFrame.decode(in, position, trade)) {
+                invalid.increment();
+                TradeFrame.encodeAck(out, trade.getTradeId(), TradeFrame.INVALID);
+                tradeEventPool.release(trade);
+                return;
+            }
+            // read before the hand-off: once accepted the event belongs to the pipeline
+            long tradeId = trade.getTradeId();
+            Admission admission = tradeQueueManager.addTrade(IntakePath.GATEWAY, trade, System.nanoTime());
+            if (admission.isAccepted()) {
+                accepted.increment();
+            } else {
+                rejected.increment();
+                tradeEventPool.release(trade);
+            }
+            TradeFrame.encodeAck(out, tradeId, TradeFrame.ackCode(admission));
+        }
+
+        // True when every pending ack has been written
+        private boolean flush(Connection connection) throws IOException {
+            ByteBuffer out = connection.out;
+            if (out.position() == 0) {
+                return true;
+            }
+            out.flip();
+            int written = connection.channel.write(out);
+            out.compact();
+            if (written > 0) {
+                bytesOut.add(written);
+                ackWrites.increment();
+            }
+            return out.position() == 0;
+        }
+
+        private void close(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                log.debug("Closing a gateway connection failed", e);
+            }
+            connectionsClosed.increment();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ingest;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkBatchDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkIngestResultDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Streams a bulk request body into the pipeline: parse one trade (TradeJsonReader), hand it to the intake, parse the
+next. Nothing is buffered in between, so a 100k-trade body costs one parser buffer and the trades in flight, not a
+List<Trade> of 100k entities.
+
+🧩 Backpressure
+    The request thread itself calls addTrade(BULK_INGEST, ...). While the intake queue is full it waits there, stops
+    reading the socket, and TCP flow control slows the client down: the pipeline's pace is the request's pace.
+    forex.admission.bulk-ingest decides what happens when room does not come:
+        TIMEOUT (default)   TIMED_OUT ends the request as INTAKE_STALLED; everything before it stays accepted
+        DROP, RATE_LIMIT    the trade is counted as rejected and ingestion carries on
+        BLOCK               waits as long as it takes (a stopped pipeline then pins the request thread)
+
+🧩 Response
+    Counts per batch of `batchSize` records in body order, so a client can tell exactly which part of its file made
+    it in: accepted trades belong to the pipeline (and the WAL) the moment they are counted, even if the request
+    ends early on broken JSON.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BulkTradeIngestor {
+
+    private final TradeQueueManager tradeQueueManager;
+    private final TradeEventPool tradeEventPool;
+    private final ObjectMapper objectMapper;
+
+    public BulkIngestResultDto ingest(InputStream body, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        long start = System.nanoTime();
+        List<BulkBatchDto> batches = new ArrayList<>();
+        BulkBatchDto batch = null;
+        long batchStart = start;
+        IngestOutcome outcome = IngestOutcome.COMPLETE;
+        String error = null;
+        TradeEvent trade = null;
+
+        try (TradeJsonReader reader = new TradeJsonReader(objectMapper.getFactory(), body)) {
+            while (true) {
+                trade = tradeEventPool.acquire();
+                if (!reader.next(trade)) {
+                    break;
+                }
+                if (batch == null || batch.getRecords() == batchSize) {
+                    if (batch != null) {
+                        batch.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+                        batchStart = System.nanoTime();
+                    }
+                    batch = BulkBatchDto.builder().index(batches.size()).firstRecord(reader.records()).build();
+                    batches.add(batch);
+                }
+                batch.setRecords(batch.getRecords() + 1);
+
+                if (reader.error() != null) {
+                    batch.setInvalid(batch.getInvalid() + 1);
+                    if (batch.getFirstError() == null) {
+                        batch.setFirstError(reader.error());
+                    }
+                    tradeEventPool.release(trade);
+                    trade = null;
+                    continue;
+                }
+
+                Admission admission = tradeQueueManager.addTrade(IntakePath.BULK_INGEST, trade, System.nanoTime());
+                if (admission.isAccepted()) {
+                    // the pipeline owns the event from here on
+                    trade = null;
+                    batch.setAccepted(batch.getAccepted() + 1);
+                    continue;
+                }
+                tradeEventPool.release(trade);
+                trade = null;
+                batch.setRejected(batch.getRejected() + 1);
+                if (admission == Admission.TIMED_OUT) {
+                    outcome = IngestOutcome.INTAKE_STALLED;
+                    error = "record " + reader.records() + ": intake still full after forex.admission.bulk-ingest.offer-timeout";
+                    break;
+                }
+                if (admission == Admission.INTERRUPTED) {
+                    outcome = IngestOutcome.INTERRUPTED;
+                    error = "record " + reader.records() + ": interrupted";
+                    break;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            outcome = IngestOutcome.MALFORMED;
+            JsonLocation location = e.getLocation();
+            error = location == null ? e.getOriginalMessage()
+                    : e.getOriginalMessage() + " (line " + location.getLineNr() + ", column " + location.getColumnNr() + ")";
+        } catch (IOException e) {
+            // client went away or the body could not be read
+            outcome = IngestOutcome.MALFORMED;
+            error = "Request body could not be read: " + e.getMessage();
+        } finally {
+            if (trade != null) {
+                tradeEventPool.release(trade);
+            }
+        }
+        if (batch != null) {
+            batch.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStart));
+        }
+        return result(outcome, error, batches, System.nanoTime() - start);
+    }
+
+    private static BulkIngestResultDto result(IngestOutcome outcome, String error, List<BulkBatchDto> batches,
+                                              long elapsedNanos) {
+        long records = 0;
+        long accepted = 0;
+        long rejected = 0;
+        long invalid = 0;
+        for (BulkBatchDto batch : batches) {
+            records += batch.getRecords();
+            accepted += batch.getAccepted();
+            rejected += batch.getRejected();
+            invalid += batch.getInvalid();
+        }
+        if (outcome != IngestOutcome.COMPLETE) {
+            log.warn("Bulk ingestion ended {} after {} records ({} accepted): {}", outcome, records, accepted, error);
+        }
+        return BulkIngestResultDto.builder()
+                .outcome(outcome.name())
+                .error(error)
+                .records(records)
+                .accepted(accepted)
+                .rejected(rejected)
+                .invalid(invalid)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .tradesPerSecond(elapsedNanos > 0 ? accepted * 1e9 / elapsedNanos : 0.0)
+                .batches(batches)
+                .build();
+    }
+}
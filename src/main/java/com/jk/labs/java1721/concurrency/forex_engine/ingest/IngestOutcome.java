@@ -0,0 +1,13 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ingest;
+
+// How a bulk ingestion request ended; every trade counted before the end stays accepted
+public enum IngestOutcome {
+    // The whole body was read
+    COMPLETE,
+    // The body is not NDJSON / a JSON array of objects, or could not be read; ingestion stopped at that point
+    MALFORMED,
+    // The intake stayed full for forex.admission.bulk-ingest.offer-timeout: the pipeline has stalled or was stopped
+    INTAKE_STALLED,
+    // The request thread was interrupted (shutdown)
+    INTERRUPTED
+}
@@ -0,0 +1,246 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.Instant;
+
+/*
+Pull parser for bulk trade bodies: reads one trade object at a time with Jackson's streaming JsonParser and writes
+its fields straight into a pooled TradeEvent. No Trade entity, no tree, no List<Trade>: memory stays at the parser's
+input buffer however many trades the body holds.
+
+🧩 Body layouts (told apart by the first token)
+    NDJSON       {"id":1,...}\n{"id":2,...}\n...       root-level objects, any whitespace between them
+    JSON array   [{"id":1,...},{"id":2,...}]
+
+🧩 Fields (the Trade entity's JSON names)
+    | field                     | JSON                                 | TradeEvent                 |
+    |---------------------------|--------------------------------------|----------------------------|
+    | id (or tradeId)           | number or numeric string, required   | tradeId                    |
+    | accountId, brokerId       | number or numeric string, required   | accountId, brokerId        |
+    | fromCurrency, toCurrency  | currency code, required              | currencyPair               |
+    | amount, rate              | number or numeric string             | fixed-point amount, rate   |
+    | noOfUnits                 | integer                              | units                      |
+    | timestamp                 | epoch millis or ISO-8601 instant     | createdAtMillis (or now)   |
+    Anything else (status, unknown fields, nested objects) is skipped; null is the same as absent.
+
+A record that is valid JSON but not a usable trade (missing id, unknown currency, ...) is reported through error()
+and parsing carries on with the next one. Broken JSON throws JsonProcessingException: there is no safe place to
+resume after it. Numeric strings and currency codes are decoded from the parser's character buffer, so the only
+per-trade allocation is the BigDecimal of a decimal amount or rate.
+ */
+public class TradeJsonReader implements Closeable {
+
+    private static final int ID = 1;
+    private static final int ACCOUNT = 1 << 1;
+    private static final int BROKER = 1 << 2;
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean array;
+    private long records;
+    private String error;
+
+    public TradeJsonReader(JsonFactory jsonFactory, InputStream body) throws IOException {
+        this.parser = jsonFactory.createParser(body);
+    }
+
+    /*
+    Reads the next record into `target` (a freshly acquired or reset event). Returns false once the body is
+    exhausted; otherwise error() is null if `target` now holds a trade ready for intake.
+     */
+    public boolean next(TradeEvent target) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                array = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null) {
+            if (array) {
+                throw new JsonParseException(parser, "Unexpected end of body: the JSON array is not closed");
+            }
+            return false;
+        }
+        if (array && token == JsonToken.END_ARRAY) {
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the JSON array");
+            }
+            array = false;
+            return false;
+        }
+
+        records++;
+        error = null;
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            reject("expected a trade object, found " + token);
+            return true;
+        }
+        readTrade(target);
+        return true;
+    }
+
+    // Why the last record is not a trade; null if it is
+    public String error() {
+        return error;
+    }
+
+    // Records read so far, valid or not
+    public long records() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private void readTrade(TradeEvent target) throws IOException {
+        int seen = 0;
+        Currency from = null;
+        Currency to = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            // field names are canonicalized by the parser's symbol table: no String per field
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            try {
+                switch (field) {
+                    case "id", "tradeId" -> {
+                        target.setTradeId(readLong(value));
+                        seen |= ID;
+                    }
+                    case "accountId" -> {
+                        target.setAccountId(readLong(value));
+                        seen |= ACCOUNT;
+                    }
+                    case "brokerId" -> {
+                        target.setBrokerId(readLong(value));
+                        seen |= BROKER;
+                    }
+                    case "fromCurrency" -> from = readCurrency(value);
+                    case "toCurrency" -> to = readCurrency(value);
+                    case "amount" -> target.setAmount(readScaled(value, FixedPoint.AMOUNT_DECIMALS));
+                    case "rate" -> target.setRate(readScaled(value, FixedPoint.RATE_DECIMALS));
+                    case "noOfUnits" -> target.setUnits(Math.toIntExact(readLong(value)));
+                    case "timestamp" -> target.setCreatedAtMillis(readTimestamp(value));
+                    default -> parser.skipChildren();
+                }
+            } catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+                reject(field + ": " + e.getMessage());
+                parser.skipChildren();
+            }
+        }
+
+        if ((seen & ID) == 0) {
+            reject("id is required");
+        } else if ((seen & ACCOUNT) == 0) {
+            reject("accountId is required");
+        } else if ((seen & BROKER) == 0) {
+            reject("brokerId is required");
+        } else if (from == null || to == null) {
+            reject("fromCurrency and toCurrency are required");
+        }
+        target.setCurrencyPair(CurrencyPair.code(from, to));
+        if (target.getCreatedAtMillis() == 0L) {
+            target.setCreatedAtMillis(System.currentTimeMillis());
+        }
+        target.setStatus(TradeStatus.NEW);
+    }
+
+    private long readLong(JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return parseLong(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        throw new IllegalArgumentException("must be a whole number, found " + describe(value));
+    }
+
+    private Currency readCurrency(JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING && parser.getTextLength() == 3) {
+            char[] chars = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            Currency currency = Currency.lookup(chars[offset], chars[offset + 1], chars[offset + 2]);
+            if (currency != null) {
+                return currency;
+            }
+        }
+        throw new IllegalArgumentException("unsupported currency " + describe(value));
+    }
+
+    private long readScaled(JsonToken value, int decimals) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return FixedPoint.toScaled(parser.getDecimalValue(), decimals);
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            // NumberFormatException is an IllegalArgumentException
+            BigDecimal decimal = new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            return FixedPoint.toScaled(decimal, decimals);
+        }
+        throw new IllegalArgumentException("must be a number, found " + describe(value));
+    }
+
+    private long readTimestamp(JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return Instant.parse(parser.getText()).toEpochMilli();
+        }
+        throw new IllegalArgumentException("must be epoch millis or an ISO-8601 instant, found " + describe(value));
+    }
+
+    // Keeps only the first problem of a record
+    private void reject(String reason) {
+        if (error == null) {
+            error = "record " + records + ": " + reason;
+        }
+    }
+
+    // Only called on the error path, so building the text here is fine
+    private String describe(JsonToken value) throws IOException {
+        return value.isScalarValue() ? "'" + parser.getText() + "'" : value.toString();
+    }
+
+    private static long parseLong(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("must be numeric: '" + new String(chars, offset, length) + "'");
+        }
+        long value = 0L;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("must be numeric: '" + new String(chars, offset, length) + "'");
+            }
+            // ArithmeticException on overflow
+            value = Math.addExact(Math.multiplyExact(value, 10L), negative ? -digit : digit);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.JournalProperties;
+import org.springframework.stereotype.Component;
+
+// Journal behind the audit stage (forex.journal): one record per completed trade, looked up by trade id
+@Component
+public class AuditJournal extends MappedTradeJournal {
+
+    public AuditJournal(JournalProperties journalProperties) {
+        super("audit", journalProperties.getDirectory(), journalProperties.getSegmentSize(),
+                journalProperties.getFsyncPolicy(), journalProperties.getFsyncInterval(),
+                journalProperties.getIndexInterval());
+    }
+}
@@ -0,0 +1,152 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+Fixed-layout binary audit record, 64 bytes, little-endian:
+
+    offset  size  field
+    ────────────────────────────────
+     0      8     tradeId
+     8      8     accountId
+    16      8     brokerId
+    24      8     amount          (FixedPoint.AMOUNT_SCALE)
+    32      8     rate            (FixedPoint.RATE_SCALE)
+    40      8     createdAtMillis
+    48      4     currencyPair    (CurrencyPair code)
+    52      4     units
+    56      1     status          (TradeStatus ordinal)
+    57      3     reserved
+    60      4     commit          checksum of the fields, never 0
+
+A record exists only once its commit word is non-zero: writers fill the fields first and publish the commit word
+last with release semantics, readers read it with acquire semantics. Segments are preallocated (zero-filled), so
+the first zero commit word is the end of the journal - also after a crash, where a torn record fails its checksum.
+
+Reading: an AuditRecord is a reusable view (flyweight) over the mapped segment. AuditJournal.scan() moves one
+instance from record to record and each getter reads a single field straight from the mapping - a scan over
+millions of records creates no objects.
+ */
+public final class AuditRecord {
+
+    public static final int SIZE = 64;
+
+    private static final int TRADE_ID = 0;
+    private static final int ACCOUNT_ID = 8;
+    private static final int BROKER_ID = 16;
+    private static final int AMOUNT = 24;
+    private static final int RATE = 32;
+    private static final int CREATED_AT = 40;
+    private static final int CURRENCY_PAIR = 48;
+    private static final int UNITS = 52;
+    private static final int STATUS = 56;
+    private static final int COMMIT = 60;
+
+    private static final TradeStatus[] STATUSES = TradeStatus.values();
+    private static final VarHandle INT_VIEW = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    AuditRecord wrap(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long tradeId() {
+        return buffer.getLong(offset + TRADE_ID);
+    }
+
+    public long accountId() {
+        return buffer.getLong(offset + ACCOUNT_ID);
+    }
+
+    public long brokerId() {
+        return buffer.getLong(offset + BROKER_ID);
+    }
+
+    public long amount() {
+        return buffer.getLong(offset + AMOUNT);
+    }
+
+    public long rate() {
+        return buffer.getLong(offset + RATE);
+    }
+
+    public long createdAtMillis() {
+        return buffer.getLong(offset + CREATED_AT);
+    }
+
+    public int currencyPair() {
+        return buffer.getInt(offset + CURRENCY_PAIR);
+    }
+
+    public int units() {
+        return buffer.getInt(offset + UNITS);
+    }
+
+    public TradeStatus status() {
+        return STATUSES[buffer.get(offset + STATUS)];
+    }
+
+    public void copyTo(TradeEvent target) {
+        target.setTradeId(tradeId());
+        target.setAccountId(accountId());
+        target.setBrokerId(brokerId());
+        target.setAmount(amount());
+        target.setRate(rate());
+        target.setCreatedAtMillis(createdAtMillis());
+        target.setCurrencyPair(currencyPair());
+        target.setUnits(units());
+        target.setStatus(status());
+    }
+
+    static void write(ByteBuffer buffer, int offset, TradeEvent trade) {
+        buffer.putLong(offset + TRADE_ID, trade.getTradeId());
+        buffer.putLong(offset + ACCOUNT_ID, trade.getAccountId());
+        buffer.putLong(offset + BROKER_ID, trade.getBrokerId());
+        buffer.putLong(offset + AMOUNT, trade.getAmount());
+        buffer.putLong(offset + RATE, trade.getRate());
+        buffer.putLong(offset + CREATED_AT, trade.getCreatedAtMillis());
+        buffer.putInt(offset + CURRENCY_PAIR, trade.getCurrencyPair());
+        buffer.putInt(offset + UNITS, trade.getUnits());
+        buffer.put(offset + STATUS, trade.getStatus() == null ? 0 : (byte) trade.getStatus().ordinal());
+    }
+
+    static void commit(ByteBuffer buffer, int offset) {
+        INT_VIEW.setRelease(buffer, offset + COMMIT, checksum(buffer, offset));
+    }
+
+    static boolean isCommitted(ByteBuffer buffer, int offset) {
+        return (int) INT_VIEW.getAcquire(buffer, offset + COMMIT) != 0;
+    }
+
+    // Recovery only
+    static void uncommit(ByteBuffer buffer, int offset) {
+        if (buffer.getInt(offset + COMMIT) != 0) {
+            buffer.putInt(offset + COMMIT, 0);
+        }
+    }
+
+    // Recovery only: a non-zero commit word over fields that do not match it is a torn write
+    static boolean isIntact(ByteBuffer buffer, int offset) {
+        int commit = (int) INT_VIEW.getAcquire(buffer, offset + COMMIT);
+        return commit != 0 && commit == checksum(buffer, offset);
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset) {
+        long hash = 0;
+        for (int field = 0; field < COMMIT; field += Long.BYTES) {
+            long word = field + Long.BYTES <= COMMIT ? buffer.getLong(offset + field) : buffer.getInt(offset + field);
+            hash = (hash ^ word) * 0x9E3779B97F4A7C15L;
+        }
+        return (int) (hash ^ (hash >>> 32)) | 1;
+    }
+}
@@ -0,0 +1,8 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+@FunctionalInterface
+public interface AuditRecordVisitor {
+
+    // The record view is only valid during the call (it is moved to the next record afterwards); false stops the scan
+    boolean visit(long index, AuditRecord record);
+}
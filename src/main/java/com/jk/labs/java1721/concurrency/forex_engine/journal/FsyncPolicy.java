@@ -0,0 +1,11 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+// When mapped journal pages are forced to disk; records are in the page cache (and visible to readers) either way
+public enum FsyncPolicy {
+    // force() at the end of every audit batch: nothing acknowledged is lost on power failure, slowest
+    BATCH,
+    // force() every forex.journal.fsync-interval from a background thread: at most one interval lost
+    PERIODIC,
+    // never force(); the OS writes dirty pages back on its own schedule (survives a JVM crash, not a power cut)
+    NEVER
+}
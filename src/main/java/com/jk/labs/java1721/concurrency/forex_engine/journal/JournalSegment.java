@@ -0,0 +1,109 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+One mapped segment file holding records [firstIndex, endIndex). The file name carries firstIndex, its size the
+record count, so segments written with a different forex.journal.segment-size are still read correctly.
+
+Sparse index: min and max trade id per block of forex.journal.index-interval records. Trade ids reach the audit
+stage almost in order (several workers, shards), so blocks cover narrow, barely overlapping id ranges and a lookup
+scans only the one or two blocks whose range contains the id.
+ */
+final class JournalSegment {
+
+    final Path path;
+    final long firstIndex;
+    final long endIndex;
+    final MappedByteBuffer buffer;
+
+    private final FileChannel channel;
+    private final int indexInterval;
+    private final AtomicLongArray blockMin;
+    private final AtomicLongArray blockMax;
+    // set by the first commit after a force(), so the flusher skips segments nobody wrote to
+    private volatile boolean dirty;
+
+    JournalSegment(Path path, long firstIndex, long records, int indexInterval) throws IOException {
+        this.path = path;
+        this.firstIndex = firstIndex;
+        this.endIndex = firstIndex + records;
+        this.indexInterval = indexInterval;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, records * AuditRecord.SIZE);
+        this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int blocks = (int) ((records + indexInterval - 1) / indexInterval);
+        this.blockMin = new AtomicLongArray(blocks);
+        this.blockMax = new AtomicLongArray(blocks);
+        for (int block = 0; block < blocks; block++) {
+            blockMin.set(block, Long.MAX_VALUE);
+            blockMax.set(block, Long.MIN_VALUE);
+        }
+    }
+
+    int offset(long index) {
+        return (int) (index - firstIndex) * AuditRecord.SIZE;
+    }
+
+    boolean contains(long index) {
+        return index >= firstIndex && index < endIndex;
+    }
+
+    void indexTradeId(long index, long tradeId) {
+        int block = (int) ((index - firstIndex) / indexInterval);
+        if (tradeId < blockMin.get(block)) {
+            blockMin.accumulateAndGet(block, tradeId, Math::min);
+        }
+        if (tradeId > blockMax.get(block)) {
+            blockMax.accumulateAndGet(block, tradeId, Math::max);
+        }
+    }
+
+    // Called after the record is committed, so a force() that clears the flag always covers the commit word
+    void markDirty() {
+        if (!dirty) {
+            dirty = true;
+        }
+    }
+
+    int blocks() {
+        return blockMin.length();
+    }
+
+    boolean blockMayContain(int block, long tradeId) {
+        return tradeId >= blockMin.get(block) && tradeId <= blockMax.get(block);
+    }
+
+    long blockFirstIndex(int block) {
+        return firstIndex + (long) block * indexInterval;
+    }
+
+    long blockEndIndex(int block) {
+        return Math.min(endIndex, blockFirstIndex(block) + indexInterval);
+    }
+
+    void force() {
+        dirty = false;
+        buffer.force();
+    }
+
+    // Returns true if there was something to force
+    boolean forceIfDirty() {
+        if (!dirty) {
+            return false;
+        }
+        force();
+        return true;
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,449 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.JournalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/*
+Append-only trade journal on memory-mapped segment files. Two of them: AuditJournal (forex.journal) behind the
+audit stage and WriteAheadLog (forex.wal) at the intake.
+
+    data/journal/audit-00000000000000000000.journal    records 0 .. N-1
+    data/journal/audit-00000000000001048576.journal    records N .. 2N-1      N = segment-size / 64
+
+🧩 Append (stage workers, virtual threads, producers - any number of concurrent writers)
+    1. claim the next record index: one getAndIncrement, no lock
+    2. write the 64-byte AuditRecord straight into the mapped segment (no syscall, no copy, no serialization object)
+    3. widen the sparse index block of that record, then publish the commit word (release)
+    Only rolling to a new segment takes a lock, once per segment-size.
+
+🧩 Durability (fsync-policy)
+    | Policy   | force() of the mapped pages                   | Lost on power failure       |
+    |----------|-----------------------------------------------|-----------------------------|
+    | BATCH    | at every commitBatch() / commitThrough()      | nothing acknowledged        |
+    | PERIODIC | every fsync-interval, background thread       | up to one interval          |
+    | NEVER    | left to the OS                                | whatever the OS had not written |
+    A JVM crash loses nothing under any policy: the pages belong to the OS page cache, not the heap.
+    Group commit (commitThrough, one caller per record, e.g. the WAL's intake appends): the first caller to get the
+    force lock forces every record committed so far, and everyone whose record that covered returns without an
+    fsync of its own; those who arrived during the force share the next one. Only the contiguous committed frontier
+    counts as forced - a record still being written by another thread ends it, even if later ones are committed.
+
+🧩 Read
+    scan(from, visitor)  sequential replay from a record index, one reusable AuditRecord view, no objects per record;
+                         stops at the first record that is not committed (end of journal or a write in flight).
+                         Before openIndex() an uncommitted record is a hole left by a crash and is skipped instead.
+    find(tradeId, ...)   sparse index: only blocks whose [min, max] trade id range contains the id are scanned.
+
+🧩 Recovery
+    On startup every segment is scanned once to rebuild the sparse index; the journal continues after the last
+    intact record. Writers commit their claimed slots in any order, so a crash can leave a torn or never-written
+    record (a hole) below records that were committed, and forced, after it: only the holes are uncommitted, every
+    intact record is kept. A hole's slot is never reused; its writer had not returned, so nothing was acknowledged
+    for it.
+ */
+@Slf4j
+public class MappedTradeJournal {
+
+    private static final String FILE_SUFFIX = ".journal";
+
+    private final String name;
+    private final String filePrefix;
+    private final String directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final Duration fsyncInterval;
+    private final int indexInterval;
+    private final long recordsPerSegment;
+
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextIndex = new AtomicLong();
+    private volatile JournalSegment current;
+    // Group commit: records [0, forcedTo) are on disk; the lock holder forces for everyone waiting
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private volatile long forcedTo;
+
+    private final LongAdder fsyncs = new LongAdder();
+    private final LongAdder fsyncNanos = new LongAdder();
+    private final LongAccumulator maxFsyncNanos = new LongAccumulator(Math::max, 0L);
+
+    private ScheduledExecutorService flusher;
+    private volatile long openMillis;
+    private volatile long openIndex;
+    private long recoveredHoles;
+
+    protected MappedTradeJournal(String name, String directory, DataSize segmentSize,
+                                 FsyncPolicy fsyncPolicy, Duration fsyncInterval, int indexInterval) {
+        this.name = name;
+        this.filePrefix = name + "-";
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncInterval = fsyncInterval;
+        this.indexInterval = indexInterval;
+        this.recordsPerSegment = segmentSize.toBytes() / AuditRecord.SIZE;
+        if (recordsPerSegment < indexInterval || recordsPerSegment * AuditRecord.SIZE > Integer.MAX_VALUE) {
+            throw new IllegalStateException(name + " journal segment-size must hold at least one index block and stay below 2GB");
+        }
+    }
+
+    @PostConstruct
+    public void open() {
+        long start = System.nanoTime();
+        try {
+            Path path = Paths.get(directory);
+            Files.createDirectories(path);
+            for (Path file : segmentFiles(path)) {
+                long records = Files.size(file) / AuditRecord.SIZE;
+                JournalSegment segment = new JournalSegment(file, firstIndexOf(file), records, indexInterval);
+                segments.add(segment);
+                nextIndex.set(segment.firstIndex + recover(segment));
+            }
+            if (segments.isEmpty()) {
+                segments.add(newSegment(path, 0L));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open " + name + " journal in " + directory, e);
+        }
+        current = segments.get(segments.size() - 1);
+        openIndex = nextIndex.get();
+        forcedTo = openIndex;
+
+        if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+            long intervalMillis = fsyncInterval.toMillis();
+            flusher = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(name + "-fsync-"));
+            flusher.scheduleWithFixedDelay(this::forceSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        openMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("{} journal opened in {}: {} segments, {} records, fsync={}, {} ms",
+                name, directory, segments.size(), nextIndex.get(), fsyncPolicy, openMillis);
+        if (recoveredHoles > 0) {
+            log.warn("{} journal: {} records torn or unwritten at the last crash were dropped, the ones after them kept",
+                    name, recoveredHoles);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        // a clean shutdown always leaves the journal on disk, whatever the policy
+        forceSafe();
+        for (JournalSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close journal segment {}", segment.path, e);
+            }
+        }
+    }
+
+    // Returns the record index
+    public long append(TradeEvent trade) {
+        long index = nextIndex.getAndIncrement();
+        JournalSegment segment = segmentFor(index);
+        int offset = segment.offset(index);
+        AuditRecord.write(segment.buffer, offset, trade);
+        segment.indexTradeId(index, trade.getTradeId());
+        AuditRecord.commit(segment.buffer, offset);
+        segment.markDirty();
+        return index;
+    }
+
+    // End of an audit batch: under FsyncPolicy.BATCH, returns once everything appended so far is on disk
+    public void commitBatch() {
+        if (fsyncPolicy == FsyncPolicy.BATCH) {
+            force(true);
+        }
+    }
+
+    /*
+    One record's commit under FsyncPolicy.BATCH: returns once record `index` (appended and committed by this caller)
+    is on disk, forcing at most once for all the callers waiting at the same time. A no-op under the other policies.
+     */
+    public void commitThrough(long index) {
+        if (fsyncPolicy != FsyncPolicy.BATCH) {
+            return;
+        }
+        while (forcedTo <= index) {
+            forceLock.lock();
+            try {
+                if (forcedTo > index) {
+                    return;
+                }
+                long frontier = committedFrontier(Math.max(forcedTo, firstIndex()), nextIndex.get());
+                if (frontier > forcedTo) {
+                    force(true);
+                    forcedTo = frontier;
+                }
+                if (frontier > index) {
+                    return;
+                }
+            } finally {
+                forceLock.unlock();
+            }
+            // an earlier record is still being written: its writer is about to commit it
+            Thread.onSpinWait();
+        }
+    }
+
+    // Replays committed records from `fromIndex` in journal order; returns the number of records visited
+    public long scan(long fromIndex, AuditRecordVisitor visitor) {
+        AuditRecord view = new AuditRecord();
+        long end = nextIndex.get();
+        long visited = 0;
+        for (JournalSegment segment : segments) {
+            if (segment.endIndex <= fromIndex) {
+                continue;
+            }
+            long last = Math.min(end, segment.endIndex);
+            for (long index = Math.max(fromIndex, segment.firstIndex); index < last; index++) {
+                int offset = segment.offset(index);
+                if (!AuditRecord.isCommitted(segment.buffer, offset)) {
+                    if (index < openIndex) {
+                        // hole left by a crash, recovered records follow
+                        continue;
+                    }
+                    return visited;
+                }
+                visited++;
+                if (!visitor.visit(index, view.wrap(segment.buffer, offset))) {
+                    return visited;
+                }
+            }
+        }
+        return visited;
+    }
+
+    // Copies the audited trade into `target`; newest segments first, since lookups are mostly for recent trades
+    public boolean find(long tradeId, TradeEvent target) {
+        AuditRecord view = new AuditRecord();
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            JournalSegment segment = segments.get(s);
+            for (int block = segment.blocks() - 1; block >= 0; block--) {
+                if (!segment.blockMayContain(block, tradeId)) {
+                    continue;
+                }
+                for (long index = segment.blockFirstIndex(block); index < segment.blockEndIndex(block); index++) {
+                    int offset = segment.offset(index);
+                    if (AuditRecord.isCommitted(segment.buffer, offset)
+                            && view.wrap(segment.buffer, offset).tradeId() == tradeId) {
+                        view.copyTo(target);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Index of the next record to be appended: records appended so far, including any still being written
+    public long size() {
+        return nextIndex.get();
+    }
+
+    // Time open() took to map the segments and rebuild the sparse index
+    public long openMillis() {
+        return openMillis;
+    }
+
+    // First record appended by this process: everything before it was recovered from disk at open()
+    public long openIndex() {
+        return openIndex;
+    }
+
+    // Oldest record still on disk
+    public long firstIndex() {
+        return segments.get(0).firstIndex;
+    }
+
+    /*
+    Retention: deletes the segments whose records all lie before `index`; the current segment is always kept.
+    Returns the number of segments deleted.
+     */
+    public synchronized int deleteSegmentsBefore(long index) {
+        int deleted = 0;
+        while (segments.size() > 1 && segments.get(0).endIndex <= index) {
+            JournalSegment segment = segments.remove(0);
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.path);
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Failed to delete {} journal segment {}", name, segment.path, e);
+            }
+        }
+        return deleted;
+    }
+
+    public JournalStatsDto stats() {
+        long count = fsyncs.sum();
+        long mapped = 0;
+        for (JournalSegment segment : segments) {
+            mapped += segment.buffer.capacity();
+        }
+        return JournalStatsDto.builder()
+                .directory(directory)
+                .fsyncPolicy(fsyncPolicy.name())
+                .segments(segments.size())
+                .records(nextIndex.get())
+                .mappedBytes(mapped)
+                .fsyncs(count)
+                .avgFsyncMicros(count == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(fsyncNanos.sum() / count))
+                .maxFsyncMicros(TimeUnit.NANOSECONDS.toMicros(maxFsyncNanos.get()))
+                .build();
+    }
+
+    // First index from `from` on whose record is not committed yet (or `end`)
+    private long committedFrontier(long from, long end) {
+        long index = from;
+        JournalSegment segment = null;
+        while (index < end) {
+            if (segment == null || !segment.contains(index)) {
+                segment = segmentContaining(index);
+                if (segment == null) {
+                    break;
+                }
+            }
+            if (!AuditRecord.isCommitted(segment.buffer, segment.offset(index))) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    // Read-only lookup: null if no segment holds the index (not rolled to yet)
+    private JournalSegment segmentContaining(long index) {
+        JournalSegment segment = current;
+        if (segment.contains(index)) {
+            return segment;
+        }
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (segments.get(s).contains(index)) {
+                return segments.get(s);
+            }
+        }
+        return null;
+    }
+
+    private JournalSegment segmentFor(long index) {
+        JournalSegment segment = current;
+        return segment.contains(index) ? segment : rollTo(index);
+    }
+
+    // Slow path: the index lies beyond the current segment (roll) or, for a writer that stalled, behind it
+    private synchronized JournalSegment rollTo(long index) {
+        try {
+            while (index >= current.endIndex) {
+                JournalSegment next = newSegment(current.path.getParent(), current.endIndex);
+                segments.add(next);
+                current = next;
+                log.info("{} journal rolled to {}", name, next.path.getFileName());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot roll " + name + " journal", e);
+        }
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (segments.get(s).contains(index)) {
+                return segments.get(s);
+            }
+        }
+        throw new IllegalStateException("No journal segment for record " + index);
+    }
+
+    private JournalSegment newSegment(Path directory, long firstIndex) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", filePrefix, firstIndex, FILE_SUFFIX));
+        return new JournalSegment(path, firstIndex, recordsPerSegment, indexInterval);
+    }
+
+    /*
+    Rebuilds the sparse index of a segment; returns the number of records up to and including its last intact one.
+    Every record that is not intact is uncommitted, so no reader ever sees a stale commit word over half-written
+    fields; those below the last intact record are holes, the ones after it are free slots the journal continues in.
+     */
+    private long recover(JournalSegment segment) {
+        AuditRecord view = new AuditRecord();
+        long end = 0;
+        long notIntact = 0;
+        for (long index = segment.firstIndex; index < segment.endIndex; index++) {
+            int offset = segment.offset(index);
+            if (AuditRecord.isIntact(segment.buffer, offset)) {
+                segment.indexTradeId(index, view.wrap(segment.buffer, offset).tradeId());
+                recoveredHoles += notIntact;
+                notIntact = 0;
+                end = index - segment.firstIndex + 1;
+            } else {
+                AuditRecord.uncommit(segment.buffer, offset);
+                notIntact++;
+            }
+        }
+        return end;
+    }
+
+    private void force(boolean currentAlways) {
+        long start = System.nanoTime();
+        boolean forced = false;
+        for (JournalSegment segment : segments) {
+            if (currentAlways && segment == current) {
+                segment.force();
+                forced = true;
+            } else {
+                forced |= segment.forceIfDirty();
+            }
+        }
+        if (forced) {
+            long elapsed = System.nanoTime() - start;
+            fsyncs.increment();
+            fsyncNanos.add(elapsed);
+            maxFsyncNanos.accumulate(elapsed);
+        }
+    }
+
+    private void forceSafe() {
+        try {
+            force(false);
+        } catch (RuntimeException e) {
+            log.error("{} journal fsync failed", name, e);
+        }
+    }
+
+    private List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> paths = new ArrayList<>(files
+                    .filter(path -> {
+                        String fileName = path.getFileName().toString();
+                        return fileName.startsWith(filePrefix) && fileName.endsWith(FILE_SUFFIX);
+                    })
+                    .toList());
+            paths.sort((a, b) -> Long.compare(firstIndexOf(a), firstIndexOf(b)));
+            return paths;
+        }
+    }
+
+    private long firstIndexOf(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(filePrefix.length(), fileName.length() - FILE_SUFFIX.length()));
+    }
+}
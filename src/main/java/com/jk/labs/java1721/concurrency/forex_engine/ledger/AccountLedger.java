@@ -0,0 +1,344 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ledger;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LedgerStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LedgerStripeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+In-memory account ledger: per-currency balances as fixed-point longs (FixedPoint.AMOUNT_SCALE), updated without locks.
+
+Layout - two flat long[] arrays, nothing allocated per update:
+    keys   open-addressing table accountId → slot (0 = free); a new account claims its slot with one CAS
+    cells  STRIDE longs per slot:
+
+        | USD | EUR | GBP | JPY | CHF | AUD | CAD | NZD | STAMP | DIRTY | padding ... |   (16 longs = 2 cache lines)
+
+    An account's balances share a cache line with each other and with nobody else's, so updates to different
+    accounts never false-share.
+
+Updates (post / adjust):
+    STAMP += 1                      low 32 bits: writers inside this account right now
+    balance[c] getAndAdd(delta)     VarHandle XADD per leg: atomic, no CAS retry loop, no lock
+    STAMP += 2^32 - 1               one writer fewer, one more committed update (high 32 bits)
+    DIRTY |= currency bits          only written when a bit is missing, so steady updates do not write it
+
+Snapshot reads (optimistic, like StampedLock.tryOptimisticRead):
+    read STAMP (no writer inside) → read the balances → STAMP unchanged ⇒ both legs of every trade are visible,
+    or neither. Otherwise retry; readers never block writers.
+
+Contention metrics per stripe (slot % stripes):
+    updates          - posts and adjustments
+    contended        - updates that found another writer inside the same account (STAMP writers > 0)
+    snapshotRetries  - optimistic reads that had to retry because a writer was inside
+ */
+@Component
+public class AccountLedger {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final int CURRENCIES = Currency.count();
+    private static final int STAMP = CURRENCIES;
+    private static final int DIRTY = CURRENCIES + 1;
+    private static final int STRIDE = 16;
+    private static final long WRITER = 1L;
+    private static final long COMMIT = 1L << 32;
+    private static final long WRITERS_MASK = COMMIT - 1;
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    static {
+        if (DIRTY >= STRIDE) {
+            throw new ExceptionInInitializerError("Ledger stride too small for " + CURRENCIES + " currencies");
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] keys;
+    private final long[] cells;
+    private final AtomicInteger accounts = new AtomicInteger();
+    // What restore() started accounts from: the opening position reconciliation adds audited movements to
+    private final Map<Long, long[]> openingBalances = new ConcurrentHashMap<>();
+
+    private final int stripeMask;
+    private final LongAdder[] updates;
+    private final LongAdder[] contended;
+    private final LongAdder[] snapshotRetries;
+
+    public AccountLedger(LedgerProperties ledgerProperties) {
+        this.capacity = powerOfTwo(ledgerProperties.getMaxAccounts());
+        this.mask = capacity - 1;
+        this.keys = new long[capacity];
+        this.cells = new long[capacity * STRIDE];
+
+        int stripes = powerOfTwo(ledgerProperties.getStripes());
+        this.stripeMask = stripes - 1;
+        this.updates = adders(stripes);
+        this.contended = adders(stripes);
+        this.snapshotRetries = adders(stripes);
+    }
+
+    /*
+    Applies both legs of a trade to one account atomically with respect to snapshot(): e.g. a USD/EUR trade
+    debits USD by the amount and credits EUR by amount * rate.
+     */
+    public void post(long accountId, Currency debitCurrency, long debit, Currency creditCurrency, long credit) {
+        int slot = slotOf(accountId, true);
+        int base = slot * STRIDE;
+        int stripe = slot & stripeMask;
+
+        enter(base, stripe);
+        LONGS.getAndAdd(cells, base + debitCurrency.ordinal(), -debit);
+        LONGS.getAndAdd(cells, base + creditCurrency.ordinal(), credit);
+        exit(base);
+        markDirty(base, (1L << debitCurrency.ordinal()) | (1L << creditCurrency.ordinal()));
+        updates[stripe].increment();
+    }
+
+    // Single-currency movement (deposit, withdrawal, correction)
+    public void adjust(long accountId, Currency currency, long delta) {
+        int slot = slotOf(accountId, true);
+        int base = slot * STRIDE;
+        int stripe = slot & stripeMask;
+
+        enter(base, stripe);
+        LONGS.getAndAdd(cells, base + currency.ordinal(), delta);
+        exit(base);
+        markDirty(base, 1L << currency.ordinal());
+        updates[stripe].increment();
+    }
+
+    public long balance(long accountId, Currency currency) {
+        int slot = slotOf(accountId, false);
+        return slot < 0 ? 0L : (long) LONGS.getVolatile(cells, slot * STRIDE + currency.ordinal());
+    }
+
+    // Consistent copy of all balances of an account (indexed by Currency ordinal); null for an unknown account
+    public long[] snapshot(long accountId) {
+        int slot = slotOf(accountId, false);
+        if (slot < 0) {
+            return null;
+        }
+        long[] balances = new long[CURRENCIES];
+        readConsistent(slot, balances);
+        return balances;
+    }
+
+    /*
+    Write-behind support: hands every account changed since the last call to the consumer, with a consistent copy of
+    its balances and the bit set (1 << Currency ordinal) of currencies that changed. The dirty bits are cleared before
+    the balances are read, so an update racing with the checkpoint marks the account again for the next one.
+     */
+    public int drainDirty(DirtyAccountConsumer consumer) {
+        long[] balances = new long[CURRENCIES];
+        int drained = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            long accountId = (long) LONGS.getAcquire(keys, slot);
+            if (accountId == 0L) {
+                continue;
+            }
+            int base = slot * STRIDE;
+            if ((long) LONGS.getOpaque(cells, base + DIRTY) == 0L) {
+                continue;
+            }
+            long changed = (long) LONGS.getAndSet(cells, base + DIRTY, 0L);
+            readConsistent(slot, balances);
+            consumer.accept(accountId, changed, balances);
+            drained++;
+        }
+        return drained;
+    }
+
+    // Every account with a consistent copy of its balances (reconciliation)
+    public void forEachAccount(AccountConsumer consumer) {
+        long[] balances = new long[CURRENCIES];
+        for (int slot = 0; slot < capacity; slot++) {
+            long accountId = (long) LONGS.getAcquire(keys, slot);
+            if (accountId != 0L) {
+                readConsistent(slot, balances);
+                consumer.accept(accountId, balances);
+            }
+        }
+    }
+
+    /*
+    Warm start: loads an account's balances (indexed by Currency ordinal) into the ledger before any trade is posted.
+    Returns false, changing nothing, if the account already has balances here. The restored currencies are marked
+    dirty, so the next checkpoint writes them to account_balance even if the one before the restart did not.
+     */
+    public boolean restore(long accountId, long[] balances) {
+        if (slotOf(accountId, false) >= 0) {
+            return false;
+        }
+        int slot = slotOf(accountId, true);
+        int base = slot * STRIDE;
+        long currencies = 0L;
+        enter(base, slot & stripeMask);
+        for (int c = 0; c < CURRENCIES; c++) {
+            if (balances[c] != 0L) {
+                LONGS.getAndAdd(cells, base + c, balances[c]);
+                currencies |= 1L << c;
+            }
+        }
+        exit(base);
+        markDirty(base, currencies);
+        openingBalances.put(accountId, balances.clone());
+        return true;
+    }
+
+    // Balances the account was restored with, indexed by Currency ordinal (do not modify); null if it started at zero
+    public long[] openingBalances(long accountId) {
+        return openingBalances.get(accountId);
+    }
+
+    // Puts dirty bits back, e.g. when a checkpoint could not be written
+    public void markDirty(long accountId, long currencies) {
+        int slot = slotOf(accountId, false);
+        if (slot >= 0) {
+            LONGS.getAndBitwiseOr(cells, slot * STRIDE + DIRTY, currencies);
+        }
+    }
+
+    public int accounts() {
+        return accounts.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public LedgerStatsDto stats() {
+        List<LedgerStripeDto> stripes = new ArrayList<>(updates.length);
+        long totalUpdates = 0L;
+        long totalContended = 0L;
+        long totalRetries = 0L;
+        for (int stripe = 0; stripe < updates.length; stripe++) {
+            long stripeUpdates = updates[stripe].sum();
+            long stripeContended = contended[stripe].sum();
+            long stripeRetries = snapshotRetries[stripe].sum();
+            totalUpdates += stripeUpdates;
+            totalContended += stripeContended;
+            totalRetries += stripeRetries;
+            stripes.add(LedgerStripeDto.builder()
+                    .stripe(stripe)
+                    .updates(stripeUpdates)
+                    .contended(stripeContended)
+                    .snapshotRetries(stripeRetries)
+                    .build());
+        }
+        return LedgerStatsDto.builder()
+                .accounts(accounts.get())
+                .capacity(capacity)
+                .updates(totalUpdates)
+                .contended(totalContended)
+                .snapshotRetries(totalRetries)
+                .stripes(stripes)
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface DirtyAccountConsumer {
+        // balances is reused between calls: copy what you keep
+        void accept(long accountId, long changedCurrencies, long[] balances);
+    }
+
+    @FunctionalInterface
+    public interface AccountConsumer {
+        // balances is reused between calls: copy what you keep
+        void accept(long accountId, long[] balances);
+    }
+
+    private void enter(int base, int stripe) {
+        long before = (long) LONGS.getAndAdd(cells, base + STAMP, WRITER);
+        if ((before & WRITERS_MASK) != 0L) {
+            contended[stripe].increment();
+        }
+    }
+
+    private void exit(int base) {
+        LONGS.getAndAdd(cells, base + STAMP, COMMIT - WRITER);
+    }
+
+    private void markDirty(int base, long currencies) {
+        long dirty = (long) LONGS.getOpaque(cells, base + DIRTY);
+        if ((dirty & currencies) != currencies) {
+            LONGS.getAndBitwiseOr(cells, base + DIRTY, currencies);
+        }
+    }
+
+    private void readConsistent(int slot, long[] balances) {
+        int base = slot * STRIDE;
+        for (int spins = 0; ; spins++) {
+            long stamp = (long) LONGS.getAcquire(cells, base + STAMP);
+            if ((stamp & WRITERS_MASK) == 0L) {
+                for (int c = 0; c < CURRENCIES; c++) {
+                    balances[c] = (long) LONGS.getAcquire(cells, base + c);
+                }
+                VarHandle.acquireFence();
+                if ((long) LONGS.getVolatile(cells, base + STAMP) == stamp) {
+                    return;
+                }
+            }
+            snapshotRetries[slot & stripeMask].increment();
+            if (spins < SPINS_BEFORE_YIELD) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    // Linear probing over keys; claims a free slot with a CAS when create is set, returns -1 for unknown accounts
+    private int slotOf(long accountId, boolean create) {
+        if (accountId <= 0L) {
+            throw new IllegalArgumentException("Account ids must be positive: " + accountId);
+        }
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        for (int probes = 0; probes < capacity; probes++) {
+            long key = (long) LONGS.getAcquire(keys, slot);
+            if (key == accountId) {
+                return slot;
+            }
+            if (key == 0L) {
+                if (!create) {
+                    return -1;
+                }
+                if (LONGS.compareAndSet(keys, slot, 0L, accountId)) {
+                    accounts.incrementAndGet();
+                    return slot;
+                }
+                if ((long) LONGS.getAcquire(keys, slot) == accountId) {
+                    return slot;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return -1;
+        }
+        throw new IllegalStateException("Ledger is full (" + capacity + " accounts); raise forex.ledger.max-accounts");
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,119 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ledger;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.AccountBalance;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.AccountBalanceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Write-behind for AccountLedger: every forex.ledger.checkpoint-interval, the balances that changed since the previous
+checkpoint are merged into account_balance in one batch. Settlement never waits on it; if the application dies,
+at most one interval of balance changes is lost from the table (the trades themselves are in the trade table).
+A failed checkpoint puts its dirty bits back so the next one retries those balances.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerCheckpointer {
+
+    private final AccountLedger accountLedger;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final LedgerProperties ledgerProperties;
+
+    private ScheduledExecutorService scheduler;
+    private volatile long checkpoints;
+    private volatile long lastCheckpointRows;
+    private volatile long lastCheckpointMicros;
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = ledgerProperties.getCheckpointInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ledger-checkpoint-"));
+        scheduler.scheduleWithFixedDelay(this::checkpointSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // last one, so a clean shutdown loses nothing
+        checkpointSafe();
+    }
+
+    // Returns the number of balance rows written
+    public synchronized int checkpoint() {
+        long start = System.nanoTime();
+        Instant now = Instant.now();
+        List<AccountBalance> rows = new ArrayList<>();
+        List<long[]> drained = new ArrayList<>();
+        accountLedger.drainDirty((accountId, changed, balances) -> {
+            drained.add(new long[]{accountId, changed});
+            for (Currency currency : Currency.values()) {
+                if ((changed & (1L << currency.ordinal())) != 0L) {
+                    rows.add(AccountBalance.builder()
+                            .accountId(Long.toString(accountId))
+                            .currency(currency.name())
+                            .balance(FixedPoint.toBigDecimal(balances[currency.ordinal()], FixedPoint.AMOUNT_DECIMALS))
+                            .timestamp(now)
+                            .build());
+                }
+            }
+        });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            accountBalanceRepository.upsertBatch(rows);
+        } catch (DataAccessException e) {
+            for (long[] account : drained) {
+                accountLedger.markDirty(account[0], account[1]);
+            }
+            throw e;
+        }
+        checkpoints++;
+        lastCheckpointRows = rows.size();
+        lastCheckpointMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        log.debug("Ledger checkpoint: {} balances from {} accounts in {}us", rows.size(), drained.size(), lastCheckpointMicros);
+        return rows.size();
+    }
+
+    public long checkpoints() {
+        return checkpoints;
+    }
+
+    public long lastCheckpointRows() {
+        return lastCheckpointRows;
+    }
+
+    public long lastCheckpointMicros() {
+        return lastCheckpointMicros;
+    }
+
+    private void checkpointSafe() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.warn("Ledger checkpoint failed, will retry: {}", e.getMessage());
+        }
+    }
+}
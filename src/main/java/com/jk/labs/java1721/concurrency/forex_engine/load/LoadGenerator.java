@@ -0,0 +1,329 @@
+package com.jk.labs.java1721.concurrency.forex_engine.load;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LoadProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LoadIntervalDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LoadStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeProducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Open-loop load generator: N threads send trades into the intake queue on a fixed schedule derived from the target
+rate and the load profile, independently of how fast the engine drains them.
+
+    thread k:  intended = start + k/rate ──park until intended──▶ addTrade(trade, intended) ──▶ intended += N/rate(t)
+
+Coordinated omission:
+    A closed-loop sender ("send, wait for put() to return, send the next one") slows down exactly when the engine
+    does, so the stall is recorded as one slow trade instead of all the trades that should have been sent during it.
+    Here every trade carries its *intended* send time as intakeNanos, and the schedule never slips: when put()
+    blocks, the trades that fell due meanwhile go out back-to-back afterwards, each one charged with the time it
+    waited. That is the latency a client sending at this rate would see.
+
+Skew:
+    Accounts, brokers and currency pairs are drawn from a Zipf distribution (forex.load.skew), pairs ordered by
+    market volume, so the hot keys are as hot as in real order flow.
+
+Reporting:
+    Every second the reporter thread swaps out the interval latency histogram (LatencyRecorder) and appends an
+    interval: target rate, sent rate, completed rate, p50/p99/max. The first sustained interval in which the engine
+    completes less than 95% of the target rate is reported as the saturation point - with the RAMP profile that
+    finds the engine's capacity in one run.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoadGenerator {
+
+    // Roughly in order of FX market turnover: EUR/USD is the hottest pair
+    private static final int[] PAIRS_BY_VOLUME = {
+            CurrencyPair.code(Currency.EUR, Currency.USD),
+            CurrencyPair.code(Currency.USD, Currency.JPY),
+            CurrencyPair.code(Currency.GBP, Currency.USD),
+            CurrencyPair.code(Currency.AUD, Currency.USD),
+            CurrencyPair.code(Currency.USD, Currency.CAD),
+            CurrencyPair.code(Currency.USD, Currency.CHF),
+            CurrencyPair.code(Currency.NZD, Currency.USD),
+            CurrencyPair.code(Currency.EUR, Currency.JPY),
+            CurrencyPair.code(Currency.EUR, Currency.GBP),
+            CurrencyPair.code(Currency.GBP, Currency.JPY),
+            CurrencyPair.code(Currency.EUR, Currency.CHF),
+            CurrencyPair.code(Currency.AUD, Currency.JPY)
+    };
+
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+    private static final int MAX_INTERVALS = 600;
+    private static final double SATURATION_RATIO = 0.95;
+    private static final int SATURATION_INTERVALS = 2;
+
+    private final TradeQueueManager tradeQueueManager;
+    private final TradeProducer tradeProducer;
+    private final TradeEventPool tradeEventPool;
+    private final LatencyRecorder latencyRecorder;
+
+    private volatile boolean running;
+    private Run run;
+    private ExecutorService generators;
+    private ScheduledExecutorService reporter;
+
+    public synchronized void start(LoadProperties settings) {
+        if (run != null && !run.finished) {
+            throw new IllegalStateException("A load run is already in progress; stop it first");
+        }
+        if (settings.getRate() <= 0 || settings.getThreads() <= 0) {
+            throw new IllegalArgumentException("rate and threads must be positive");
+        }
+
+        Run next = new Run(settings);
+        latencyRecorder.enable();
+        run = next;
+        running = true;
+
+        generators = Executors.newFixedThreadPool(settings.getThreads(), new NamedThreadFactory("load-generator-"));
+        for (int i = 0; i < settings.getThreads(); i++) {
+            int index = i;
+            generators.execute(() -> generate(next, index));
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("load-reporter-"));
+        reporter.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+
+        log.info("Load run started: profile={}, rate={}/s, threads={}, duration={}",
+                settings.getProfile(), settings.getRate(), settings.getThreads(), settings.getDuration());
+    }
+
+    public synchronized void stop() {
+        if (run == null || run.finished) {
+            return;
+        }
+
+        log.info("STARTED Load run stopping");
+        running = false;
+        generators.shutdownNow();
+        try {
+            generators.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        tick();
+        if (!run.finished) {
+            finish(run);
+        }
+        log.info("COMPLETED Load run stopped");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized LoadStatsDto snapshot() {
+        Run current = run;
+        if (current == null) {
+            return LoadStatsDto.builder().intervals(new ArrayList<>()).build();
+        }
+
+        Histogram total = current.total;
+        long end = current.finished ? current.endNanos : System.nanoTime();
+        long elapsedNanos = end - current.startNanos;
+        LoadProperties settings = current.settings;
+        return LoadStatsDto.builder()
+                .running(!current.finished)
+                .profile(settings.getProfile().name())
+                .threads(settings.getThreads())
+                .rate(settings.getRate())
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .sent(current.sent.sum())
+                .rejected(current.rejected.sum())
+                .completed(total.getTotalCount())
+                .completedRatePerSecond(elapsedNanos == 0L ? 0.0 : total.getTotalCount() * 1e9 / elapsedNanos)
+                .p50LatencyMicros(total.getValueAtPercentile(50.0))
+                .p90LatencyMicros(total.getValueAtPercentile(90.0))
+                .p99LatencyMicros(total.getValueAtPercentile(99.0))
+                .p999LatencyMicros(total.getValueAtPercentile(99.9))
+                .maxLatencyMicros(total.getMaxValue())
+                .maxSendLagMicros(current.maxSendLagNanos.get() / 1e3)
+                .saturationTargetRate(current.saturationTargetRate)
+                .intervals(new ArrayList<>(current.intervals))
+                .build();
+    }
+
+    private void generate(Run current, int index) {
+        LoadProperties settings = current.settings;
+        LoadProfile profile = settings.getProfile();
+        int threads = settings.getThreads();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        // Staggered so the threads do not all send at the same instant
+        long intended = current.startNanos + (long) (index * 1e9 / Math.max(profile.rateAt(settings, 0L), 1.0));
+        try {
+            while (running && intended < current.deadlineNanos) {
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    if (wait > SPIN_THRESHOLD_NANOS) {
+                        LockSupport.parkNanos(wait - SPIN_THRESHOLD_NANOS);
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                    if (!running) {
+                        return;
+                    }
+                }
+
+                TradeEvent trade = tradeProducer.nextTrade();
+                trade.setAccountId(1 + current.accounts.sample(random));
+                trade.setBrokerId(1 + current.brokers.sample(random));
+                trade.setCurrencyPair(PAIRS_BY_VOLUME[current.pairs.sample(random)]);
+
+                current.maxSendLagNanos.accumulate(System.nanoTime() - intended);
+                Admission admission = tradeQueueManager.addTrade(IntakePath.LOAD_GENERATOR, trade, intended);
+                if (admission.isAccepted()) {
+                    current.sent.increment();
+                } else {
+                    // the trade never made it into the queue; interrupted means stop() while the intake was full
+                    tradeEventPool.release(trade);
+                    if (admission == Admission.INTERRUPTED) {
+                        return;
+                    }
+                    current.rejected.increment();
+                }
+
+                double rate = profile.rateAt(settings, intended - current.startNanos);
+                intended += (long) (1e9 * threads / Math.max(rate, 1.0));
+            }
+        } finally {
+            current.generatorsDone.countDown();
+        }
+    }
+
+    private synchronized void tick() {
+        Run current = run;
+        if (current == null || current.finished) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        current.interval = latencyRecorder.intervalHistogram(current.interval);
+        Histogram interval = current.interval;
+        current.total.add(interval);
+
+        long sent = current.sent.sum();
+        double seconds = (now - current.lastTickNanos) / 1e9;
+        double targetRate = averageTargetRate(current, current.lastTickNanos, now);
+        double completedRate = interval.getTotalCount() / seconds;
+        boolean generating = current.generatorsDone.getCount() > 0;
+
+        if (current.intervals.size() == MAX_INTERVALS) {
+            current.intervals.removeFirst();
+        }
+        current.intervals.addLast(LoadIntervalDto.builder()
+                .secondsSinceStart(TimeUnit.NANOSECONDS.toSeconds(now - current.startNanos))
+                .targetRate(generating ? targetRate : 0.0)
+                .sentRate((sent - current.lastSent) / seconds)
+                .completedRate(completedRate)
+                .p50LatencyMicros(interval.getValueAtPercentile(50.0))
+                .p99LatencyMicros(interval.getValueAtPercentile(99.0))
+                .maxLatencyMicros(interval.getMaxValue())
+                .build());
+
+        if (generating && current.saturationTargetRate == 0.0) {
+            if (completedRate < targetRate * SATURATION_RATIO) {
+                if (current.belowTarget++ == 0) {
+                    current.firstBelowTargetRate = targetRate;
+                }
+                if (current.belowTarget >= SATURATION_INTERVALS) {
+                    current.saturationTargetRate = current.firstBelowTargetRate;
+                    log.warn("Load run: engine saturated at a target rate of {}/s", Math.round(current.firstBelowTargetRate));
+                }
+            } else {
+                current.belowTarget = 0;
+            }
+        }
+
+        current.lastTickNanos = now;
+        current.lastSent = sent;
+
+        // The run is over once the generators are done and the pipeline has stopped completing their trades
+        if (!generating && interval.getTotalCount() == 0) {
+            finish(current);
+        }
+    }
+
+    private static double averageTargetRate(Run current, long from, long to) {
+        int samples = 10;
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            long at = from + (to - from) * i / samples - current.startNanos;
+            sum += current.settings.getProfile().rateAt(current.settings, Math.max(at, 0L));
+        }
+        return sum / samples;
+    }
+
+    private void finish(Run current) {
+        current.finished = true;
+        current.endNanos = System.nanoTime();
+        running = false;
+        latencyRecorder.disable();
+        reporter.shutdown();
+        generators.shutdown();
+        log.info("Load run finished: sent={}, completed={}, p99={}us",
+                current.sent.sum(), current.total.getTotalCount(), current.total.getValueAtPercentile(99.0));
+    }
+
+    // State of one load run; the histograms are only touched by tick()/snapshot() under the generator's lock
+    private static final class Run {
+        private final LoadProperties settings;
+        private final ZipfSampler accounts;
+        private final ZipfSampler brokers;
+        private final ZipfSampler pairs;
+        private final long startNanos = System.nanoTime();
+        private final long deadlineNanos;
+        private final CountDownLatch generatorsDone;
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAccumulator maxSendLagNanos = new LongAccumulator(Long::max, 0L);
+        private final Histogram total = new Histogram(3);
+        private final Deque<LoadIntervalDto> intervals = new ArrayDeque<>();
+
+        private Histogram interval;
+        private long lastTickNanos = startNanos;
+        private long lastSent;
+        private int belowTarget;
+        private double firstBelowTargetRate;
+        private double saturationTargetRate;
+        private volatile boolean finished;
+        private long endNanos;
+
+        private Run(LoadProperties settings) {
+            this.settings = settings;
+            this.accounts = new ZipfSampler(settings.getAccounts(), settings.getSkew());
+            this.brokers = new ZipfSampler(settings.getBrokers(), settings.getSkew());
+            this.pairs = new ZipfSampler(PAIRS_BY_VOLUME.length, settings.getSkew());
+            long durationNanos = settings.getDuration().toNanos();
+            this.deadlineNanos = durationNanos > 0 ? startNanos + durationNanos : Long.MAX_VALUE;
+            this.generatorsDone = new CountDownLatch(settings.getThreads());
+        }
+    }
+}
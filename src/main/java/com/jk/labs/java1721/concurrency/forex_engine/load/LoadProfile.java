@@ -0,0 +1,40 @@
+package com.jk.labs.java1721.concurrency.forex_engine.load;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LoadProperties;
+
+// Target rate (trades/s, all generator threads together) as a function of time since the run started
+public enum LoadProfile {
+
+    CONSTANT {
+        @Override
+        public double rateAt(LoadProperties settings, long elapsedNanos) {
+            return settings.getRate();
+        }
+    },
+
+    // Linear climb from ramp.start-rate to rate, then flat: the rate at which latency takes off is the saturation point
+    RAMP {
+        @Override
+        public double rateAt(LoadProperties settings, long elapsedNanos) {
+            long rampNanos = settings.getRamp().getDuration().toNanos();
+            if (rampNanos <= 0 || elapsedNanos >= rampNanos) {
+                return settings.getRate();
+            }
+            double start = settings.getRamp().getStartRate();
+            return start + (settings.getRate() - start) * elapsedNanos / rampNanos;
+        }
+    },
+
+    // rate, with a spike of rate * burst.multiplier for burst.length at the start of every burst.period
+    BURST {
+        @Override
+        public double rateAt(LoadProperties settings, long elapsedNanos) {
+            LoadProperties.Burst burst = settings.getBurst();
+            long periodNanos = burst.getPeriod().toNanos();
+            boolean inBurst = periodNanos > 0 && elapsedNanos % periodNanos < burst.getLength().toNanos();
+            return inBurst ? settings.getRate() * burst.getMultiplier() : settings.getRate();
+        }
+    };
+
+    public abstract double rateAt(LoadProperties settings, long elapsedNanos);
+}
@@ -0,0 +1,41 @@
+package com.jk.labs.java1721.concurrency.forex_engine.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Draws ranks 0..n-1 with P(k) ~ 1 / (k + 1)^exponent: rank 0 is the hottest key.
+Real order flow is skewed (a handful of accounts, brokers and the major pairs carry most of the volume), and
+skew is what exposes hot locks and hot cache lines that a uniform generator never touches.
+
+The CDF is precomputed once; a sample is one random double and a binary search, no allocation.
+ */
+public class ZipfSampler {
+
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        cdf = new double[n];
+        double sum = 0.0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    public int sample(ThreadLocalRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+}
@@ -0,0 +1,66 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+Latency histogram in nanoseconds that is recorded continuously and read once per interval.
+
+record() goes into an HdrHistogram Recorder: wait-free for any number of writer threads, no allocation, a few ns.
+roll() (one thread, every forex.metrics.interval) swaps the interval histogram out and keeps its percentiles, so
+gauges read a fixed snapshot of the last full interval instead of walking a live histogram on every scrape.
+
+2 significant digits (1% resolution): enough for percentiles, and small enough (tens of KB over a ns..minutes
+range) to keep one per stage and per pipeline mode.
+ */
+public class IntervalHistogram {
+
+    // Values above this (a minute) are recorded as this
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    // Fixed range: an AtomicHistogram underneath, one atomic add per value instead of an auto-resizing histogram
+    private final Recorder recorder = new Recorder(HIGHEST_NANOS, 2);
+    // Only touched by roll()
+    private Histogram interval;
+    private volatile Snapshot last = Snapshot.EMPTY;
+
+    public void record(long nanos) {
+        recorder.recordValue(Math.min(HIGHEST_NANOS, Math.max(0L, nanos)));
+    }
+
+    // Closes the current interval; called by a single thread
+    public Snapshot roll() {
+        interval = recorder.getIntervalHistogram(interval);
+        Snapshot snapshot = interval.getTotalCount() == 0 ? Snapshot.EMPTY : new Snapshot(
+                interval.getTotalCount(),
+                interval.getValueAtPercentile(50),
+                interval.getValueAtPercentile(90),
+                interval.getValueAtPercentile(99),
+                interval.getValueAtPercentile(99.9),
+                interval.getMaxValue());
+        last = snapshot;
+        return snapshot;
+    }
+
+    // The last full interval
+    public Snapshot last() {
+        return last;
+    }
+
+    public record Snapshot(long count, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+
+        static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+
+        public long percentileNanos(double quantile) {
+            if (quantile <= 0.5) {
+                return p50Nanos;
+            }
+            if (quantile <= 0.9) {
+                return p90Nanos;
+            }
+            return quantile <= 0.99 ? p99Nanos : p999Nanos;
+        }
+    }
+}
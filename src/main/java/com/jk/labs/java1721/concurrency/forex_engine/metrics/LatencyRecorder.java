@@ -0,0 +1,40 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+/*
+End-to-end latency histogram (microseconds, 3 significant digits) fed by every pipeline exit point.
+
+Recorder lets worker threads record wait-free while one reader swaps out interval histograms, so a report
+never stops the pipeline. Recording is off unless a load run enabled it: outside a run nobody reads the
+histogram and the pipeline does not pay for it.
+ */
+@Component
+public class LatencyRecorder {
+
+    private final Recorder recorder = new Recorder(3);
+    private volatile boolean enabled;
+
+    public void record(long latencyNanos) {
+        if (enabled) {
+            recorder.recordValue(Math.max(0L, latencyNanos / 1_000));
+        }
+    }
+
+    // Discards whatever was recorded so far and starts recording
+    public void enable() {
+        recorder.reset();
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+    }
+
+    // Everything recorded since the previous call; `recycle` may be the histogram returned last time
+    public Histogram intervalHistogram(Histogram recycle) {
+        return recorder.getIntervalHistogram(recycle);
+    }
+}
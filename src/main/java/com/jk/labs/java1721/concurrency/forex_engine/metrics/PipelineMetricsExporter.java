@@ -0,0 +1,251 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.AdmissionControl;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.AimdLimiter;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.TradeDeduplicator;
+import com.jk.labs.java1721.concurrency.forex_engine.autoscale.StageAutoscaler;
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Publishes the pipeline's own counters to Micrometer, and so on /actuator/prometheus.
+
+Nothing here runs on the hot path. Workers only bump LongAdders and record into HdrHistogram Recorders
+(StageMetrics, PipelineModeStats, IntakeStats); every meter below is a FunctionCounter or Gauge that reads those
+when Prometheus scrapes. A Micrometer Timer per stage would instead pay its own bookkeeping (count, total, decaying
+max, histogram buckets) on every record() call.
+
+🧩 Meters (Prometheus names)
+    | meter                                         | tags                 | source                               |
+    |-----------------------------------------------|----------------------|--------------------------------------|
+    | forex_stage_trades_total                      | stage                | trades handled by the stage          |
+    | forex_stage_failed_total                      | stage                | trades that failed in the stage      |
+    | forex_stage_busy_seconds_total                | stage                | time spent in handle()               |
+    | forex_stage_service_time_seconds              | stage, quantile      | handle() time, last interval         |
+    | forex_stage_service_time_max_seconds          | stage                |                                      |
+    | forex_stage_utilization                       | stage                | busy / (interval × workers)          |
+    | forex_stage_workers                           | stage                |                                      |
+    | forex_stage_lag_seconds                       | stage                | queue depth / throughput (autoscaler)|
+    | forex_stage_arrival_rate                      | stage                | trades/s into the stage (autoscaler) |
+    | forex_autoscale_decisions_total               | stage, direction     | StageAutoscaler resizes              |
+    | forex_queue_depth, forex_queue_remaining      | stage, shard         | inbound queue of each stage / shard  |
+    | forex_pipeline_trades_total                   | mode, outcome        | completed / rejected / failed        |
+    | forex_pipeline_latency_seconds                | mode, quantile       | intake → audit, last interval        |
+    | forex_pipeline_latency_max_seconds            | mode                 |                                      |
+    | forex_intake_admissions_total                 | path, outcome        | TradeQueueManager.addTrade()         |
+    | forex_admission_limit, _in_flight             |                      | adaptive limiter, if enabled         |
+    | forex_event_pool_available, _allocations_total|                      | TradeEventPool                       |
+
+Histograms are interval snapshots: every forex.metrics.interval this class rolls them (and the utilization) over,
+so a scrape reads the percentiles of the last full interval. With forex.metrics.log-summary the same numbers are
+logged once per interval that saw traffic.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PipelineMetricsExporter implements MeterBinder {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final PipelineStatsRegistry pipelineStatsRegistry;
+    private final TradeQueueManager tradeQueueManager;
+    private final TradeEventPool tradeEventPool;
+    private final MetricsProperties metricsProperties;
+    private final StageAutoscaler stageAutoscaler;
+
+    private ScheduledExecutorService scheduler;
+    private long lastRollNanos;
+
+    @PostConstruct
+    public void start() {
+        lastRollNanos = System.nanoTime();
+        long intervalMillis = metricsProperties.getInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("metrics-interval-"));
+        scheduler.scheduleAtFixedRate(this::rollSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (StageMetrics stage : pipelineStatsRegistry.stages()) {
+            String name = stage.stage().name();
+            FunctionCounter.builder("forex.stage.trades", stage, StageMetrics::processed)
+                    .tag("stage", name).description("Trades handled by the stage").register(registry);
+            FunctionCounter.builder("forex.stage.failed", stage, StageMetrics::failed)
+                    .tag("stage", name).description("Trades that failed in the stage").register(registry);
+            FunctionCounter.builder("forex.stage.busy", stage, StageMetrics::busySeconds)
+                    .tag("stage", name).baseUnit("seconds").description("Time workers spent handling trades")
+                    .register(registry);
+            for (double quantile : QUANTILES) {
+                Gauge.builder("forex.stage.service.time", stage, s -> seconds(s.serviceTime().percentileNanos(quantile)))
+                        .tags("stage", name, "quantile", Double.toString(quantile)).baseUnit("seconds")
+                        .description("Time per handle call (per micro-batch for batching stages), last interval")
+                        .register(registry);
+            }
+            Gauge.builder("forex.stage.service.time.max", stage, s -> seconds(s.serviceTime().maxNanos()))
+                    .tag("stage", name).baseUnit("seconds").register(registry);
+            Gauge.builder("forex.stage.utilization", stage, StageMetrics::utilization)
+                    .tag("stage", name).description("Busy share of the stage's workers, last interval")
+                    .register(registry);
+            Gauge.builder("forex.stage.workers", stage, StageMetrics::workers)
+                    .tag("stage", name).register(registry);
+        }
+
+        for (StageAutoscaler.StageState state : stageAutoscaler.stageStates()) {
+            String name = state.stageName();
+            Gauge.builder("forex.stage.lag", state, s -> Double.isInfinite(s.lagSeconds()) ? Double.NaN : s.lagSeconds())
+                    .tag("stage", name).baseUnit("seconds").description("Backlog / throughput at the last autoscaler sample")
+                    .register(registry);
+            Gauge.builder("forex.stage.arrival.rate", state, StageAutoscaler.StageState::arrivalRate)
+                    .tag("stage", name).description("Trades per second into the stage at the last autoscaler sample")
+                    .register(registry);
+            FunctionCounter.builder("forex.autoscale.decisions", state, StageAutoscaler.StageState::scaleUps)
+                    .tags("stage", name, "direction", "up").register(registry);
+            FunctionCounter.builder("forex.autoscale.decisions", state, StageAutoscaler.StageState::scaleDowns)
+                    .tags("stage", name, "direction", "down").register(registry);
+        }
+
+        for (PipelineStage stage : PipelineStage.values()) {
+            for (int shard = 0; shard < tradeQueueManager.shardCount(stage); shard++) {
+                TradeQueue<?> queue = tradeQueueManager.inboundQueue(stage, shard);
+                String shardTag = Integer.toString(shard);
+                Gauge.builder("forex.queue.depth", queue, TradeQueue::size)
+                        .tags("stage", stage.name(), "shard", shardTag).description("Trades waiting in the queue")
+                        .register(registry);
+                Gauge.builder("forex.queue.remaining", queue, TradeQueue::remainingCapacity)
+                        .tags("stage", stage.name(), "shard", shardTag).description("Free slots in the queue")
+                        .register(registry);
+            }
+        }
+
+        for (PipelineModeStats mode : pipelineStatsRegistry.modes()) {
+            String name = mode.mode().name();
+            FunctionCounter.builder("forex.pipeline.trades", mode, PipelineModeStats::completed)
+                    .tags("mode", name, "outcome", "completed").register(registry);
+            FunctionCounter.builder("forex.pipeline.trades", mode, PipelineModeStats::rejected)
+                    .tags("mode", name, "outcome", "rejected").register(registry);
+            FunctionCounter.builder("forex.pipeline.trades", mode, PipelineModeStats::failed)
+                    .tags("mode", name, "outcome", "failed").register(registry);
+            for (double quantile : QUANTILES) {
+                Gauge.builder("forex.pipeline.latency", mode,
+                                m -> seconds(m.endToEnd().last().percentileNanos(quantile)))
+                        .tags("mode", name, "quantile", Double.toString(quantile)).baseUnit("seconds")
+                        .description("Intake to end of the pipeline, last interval").register(registry);
+            }
+            Gauge.builder("forex.pipeline.latency.max", mode, m -> seconds(m.endToEnd().last().maxNanos()))
+                    .tag("mode", name).baseUnit("seconds").register(registry);
+        }
+
+        AdmissionControl admissionControl = tradeQueueManager.getAdmissionControl();
+        for (IntakePath path : IntakePath.values()) {
+            IntakeStats stats = admissionControl.intake(path).getStats();
+            for (Admission admission : Admission.values()) {
+                FunctionCounter.builder("forex.intake.admissions", stats, s -> s.count(admission))
+                        .tags("path", path.name(), "outcome", admission.name()).register(registry);
+            }
+        }
+        AimdLimiter limiter = admissionControl.getLimiter();
+        if (limiter != null) {
+            Gauge.builder("forex.admission.limit", limiter, AimdLimiter::limit).register(registry);
+            Gauge.builder("forex.admission.in.flight", limiter, AimdLimiter::inFlight).register(registry);
+        }
+        TradeDeduplicator deduplicator = admissionControl.getDeduplicator();
+        if (deduplicator != null) {
+            FunctionCounter.builder("forex.intake.dedup.unconfirmed", deduplicator, TradeDeduplicator::unconfirmed)
+                    .description("Bloom positives not confirmed by the recent-id table").register(registry);
+            Gauge.builder("forex.intake.dedup.false.positive.rate", deduplicator,
+                    TradeDeduplicator::estimatedFalsePositiveRate).register(registry);
+            Gauge.builder("forex.intake.dedup.memory", deduplicator, TradeDeduplicator::memoryBytes)
+                    .baseUnit("bytes").register(registry);
+        }
+
+        Gauge.builder("forex.event.pool.available", tradeEventPool, TradeEventPool::available).register(registry);
+        FunctionCounter.builder("forex.event.pool.allocations", tradeEventPool, TradeEventPool::allocations)
+                .description("Events allocated because the pool was empty").register(registry);
+    }
+
+    // Closes the current metrics interval; runs on the scheduler thread only
+    public void roll() {
+        long now = System.nanoTime();
+        long intervalNanos = now - lastRollNanos;
+        lastRollNanos = now;
+        for (StageMetrics stage : pipelineStatsRegistry.stages()) {
+            stage.roll(intervalNanos);
+        }
+        for (PipelineModeStats mode : pipelineStatsRegistry.modes()) {
+            mode.endToEnd().roll();
+        }
+        if (metricsProperties.isLogSummary()) {
+            logSummary(intervalNanos);
+        }
+    }
+
+    private void rollSafe() {
+        try {
+            roll();
+        } catch (RuntimeException e) {
+            log.error("Metrics interval roll failed", e);
+        }
+    }
+
+    private void logSummary(long intervalNanos) {
+        StringBuilder line = new StringBuilder();
+        for (PipelineModeStats mode : pipelineStatsRegistry.modes()) {
+            IntervalHistogram.Snapshot latency = mode.endToEnd().last();
+            if (latency.count() > 0) {
+                line.append(String.format(Locale.ROOT, " | %s %d trades (%.0f/s), latency p50 %s p99 %s max %s",
+                        mode.mode(), latency.count(), latency.count() * 1e9 / intervalNanos,
+                        format(latency.p50Nanos()), format(latency.p99Nanos()), format(latency.maxNanos())));
+            }
+        }
+        for (StageMetrics stage : pipelineStatsRegistry.stages()) {
+            IntervalHistogram.Snapshot serviceTime = stage.serviceTime();
+            if (serviceTime.count() > 0) {
+                line.append(String.format(Locale.ROOT, " | %s p99 %s, %.0f%% busy",
+                        stage.stage(), format(serviceTime.p99Nanos()), stage.utilization() * 100));
+            }
+        }
+        if (!line.isEmpty()) {
+            log.info("Last {}{}", format(intervalNanos), line);
+        }
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String format(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.1fs", nanos / 1e9);
+        }
+        if (nanos >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+    }
+}
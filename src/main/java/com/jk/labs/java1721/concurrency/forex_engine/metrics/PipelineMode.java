@@ -0,0 +1,10 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+public enum PipelineMode {
+    // Producer → BlockingQueue → stage worker pools
+    CLASSIC_BLOCKING_QUEUE,
+    // One virtual thread per trade running validate → enrich → settle → audit
+    VIRTUAL_THREADS,
+    // As VIRTUAL_THREADS, with the enrichment lookups forked concurrently in a scope per trade
+    STRUCTURED_CONCURRENCY
+}
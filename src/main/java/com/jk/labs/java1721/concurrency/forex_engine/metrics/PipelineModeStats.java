@@ -0,0 +1,134 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Throughput/latency counters for one pipeline mode.
+
+LongAdder instead of AtomicLong: every worker thread bumps these once per trade, and an AtomicLong
+would make all of them CAS the same cache line. LongAdder stripes the count per contending thread
+and only sums the cells when a snapshot is taken.
+
+endToEnd is the always-on intake-to-exit histogram exported to Prometheus (forex.metrics.enabled); the
+LatencyRecorder only records during load runs and belongs to the load generator.
+ */
+public class PipelineModeStats {
+
+    private final PipelineMode mode;
+    private final LatencyRecorder latencyRecorder;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0L);
+    private final IntervalHistogram endToEnd = new IntervalHistogram();
+    private final boolean histogramEnabled;
+    // Set while WarmStart measures the first trades after a start
+    private volatile StartupLatencyProbe startupProbe;
+
+    private volatile long startedAtNanos;
+    private volatile long stoppedAtNanos;
+    private volatile boolean running;
+
+    public PipelineModeStats(PipelineMode mode, LatencyRecorder latencyRecorder) {
+        this(mode, latencyRecorder, true);
+    }
+
+    public PipelineModeStats(PipelineMode mode, LatencyRecorder latencyRecorder, boolean histogramEnabled) {
+        this.mode = mode;
+        this.latencyRecorder = latencyRecorder;
+        this.histogramEnabled = histogramEnabled;
+    }
+
+    public void start() {
+        completed.reset();
+        rejected.reset();
+        failed.reset();
+        totalLatencyNanos.reset();
+        maxLatencyNanos.reset();
+        startedAtNanos = System.nanoTime();
+        stoppedAtNanos = 0L;
+        running = true;
+    }
+
+    public void stop() {
+        stoppedAtNanos = System.nanoTime();
+        running = false;
+    }
+
+    public void recordCompleted(long intakeNanos) {
+        long latency = System.nanoTime() - intakeNanos;
+        completed.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+        latencyRecorder.record(latency);
+        if (histogramEnabled) {
+            endToEnd.record(latency);
+        }
+        StartupLatencyProbe probe = startupProbe;
+        if (probe != null) {
+            probe.record(latency);
+        }
+    }
+
+    // null removes the probe
+    public void startupProbe(StartupLatencyProbe probe) {
+        this.startupProbe = probe;
+    }
+
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    // Trades that have left the pipeline, whatever the outcome; cheaper than snapshot() for polling
+    public long processed() {
+        return completed.sum() + rejected.sum() + failed.sum();
+    }
+
+    public PipelineMode mode() {
+        return mode;
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public IntervalHistogram endToEnd() {
+        return endToEnd;
+    }
+
+    public PipelineStatsDto snapshot() {
+        long started = startedAtNanos;
+        long end = running || stoppedAtNanos == 0L ? System.nanoTime() : stoppedAtNanos;
+        long elapsedNanos = started == 0L ? 0L : end - started;
+        long done = completed.sum();
+
+        return PipelineStatsDto.builder()
+                .mode(mode.name())
+                .running(running)
+                .completed(done)
+                .rejected(rejected.sum())
+                .failed(failed.sum())
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .throughputPerSecond(elapsedNanos == 0L ? 0.0 : done * 1e9 / elapsedNanos)
+                .avgLatencyMicros(done == 0L ? 0.0 : totalLatencyNanos.sum() / 1e3 / done)
+                .maxLatencyMicros(maxLatencyNanos.get() / 1e3)
+                .build();
+    }
+}
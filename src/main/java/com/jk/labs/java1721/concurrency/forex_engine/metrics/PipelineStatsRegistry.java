@@ -0,0 +1,61 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class PipelineStatsRegistry {
+
+    private final Map<PipelineMode, PipelineModeStats> statsByMode = new EnumMap<>(PipelineMode.class);
+    private final Map<PipelineStage, StageMetrics> metricsByStage = new EnumMap<>(PipelineStage.class);
+
+    public PipelineStatsRegistry(LatencyRecorder latencyRecorder) {
+        this(latencyRecorder, new MetricsProperties());
+    }
+
+    @Autowired
+    public PipelineStatsRegistry(LatencyRecorder latencyRecorder, MetricsProperties metricsProperties) {
+        boolean enabled = metricsProperties.isEnabled();
+        for (PipelineMode mode : PipelineMode.values()) {
+            statsByMode.put(mode, new PipelineModeStats(mode, latencyRecorder, enabled));
+        }
+        for (PipelineStage stage : PipelineStage.values()) {
+            metricsByStage.put(stage, new StageMetrics(stage, enabled ? Math.max(1, metricsProperties.getSampleEvery()) : 0));
+        }
+    }
+
+    public PipelineModeStats stats(PipelineMode mode) {
+        return statsByMode.get(mode);
+    }
+
+    public StageMetrics stage(PipelineStage stage) {
+        return metricsByStage.get(stage);
+    }
+
+    public Collection<PipelineModeStats> modes() {
+        return statsByMode.values();
+    }
+
+    public Collection<StageMetrics> stages() {
+        return metricsByStage.values();
+    }
+
+    // Every mode records its completed trades into the probe as well; null removes it
+    public void startupProbe(StartupLatencyProbe probe) {
+        for (PipelineModeStats mode : statsByMode.values()) {
+            mode.startupProbe(probe);
+        }
+    }
+
+    public List<PipelineStatsDto> snapshot() {
+        return statsByMode.values().stream().map(PipelineModeStats::snapshot).toList();
+    }
+}
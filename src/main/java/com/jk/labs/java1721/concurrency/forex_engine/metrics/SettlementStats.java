@@ -0,0 +1,63 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.SettlementBatchDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.SettlementStatsDto;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Settled/failed counts per settlement micro-batch, plus running totals
+@Component
+public class SettlementStats {
+
+    private static final int RECENT_BATCHES = 50;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    // Bounded by hand: ConcurrentLinkedDeque.size() is O(n), so keep our own count
+    private final ConcurrentLinkedDeque<SettlementBatchDto> recent = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentCount = new AtomicInteger();
+
+    public void recordBatch(int settledCount, int failedCount, long durationNanos) {
+        batches.increment();
+        settled.add(settledCount);
+        failed.add(failedCount);
+        writeNanos.add(durationNanos);
+
+        recent.addFirst(SettlementBatchDto.builder()
+                .size(settledCount + failedCount)
+                .settled(settledCount)
+                .failed(failedCount)
+                .durationMicros(durationNanos / 1_000)
+                .completedAt(Instant.now())
+                .build());
+        if (recentCount.incrementAndGet() > RECENT_BATCHES && recent.pollLast() != null) {
+            recentCount.decrementAndGet();
+        }
+    }
+
+    public SettlementStatsDto snapshot() {
+        long batchCount = batches.sum();
+        List<SettlementBatchDto> recentBatches = new ArrayList<>(RECENT_BATCHES);
+        for (Iterator<SettlementBatchDto> it = recent.iterator(); it.hasNext() && recentBatches.size() < RECENT_BATCHES; ) {
+            recentBatches.add(it.next());
+        }
+        return SettlementStatsDto.builder()
+                .batches(batchCount)
+                .settled(settled.sum())
+                .failed(failed.sum())
+                .avgBatchSize(batchCount == 0 ? 0.0 : (double) (settled.sum() + failed.sum()) / batchCount)
+                .avgBatchWriteMicros(batchCount == 0 ? 0.0 : writeNanos.sum() / 1e3 / batchCount)
+                .recentBatches(recentBatches)
+                .build();
+    }
+}
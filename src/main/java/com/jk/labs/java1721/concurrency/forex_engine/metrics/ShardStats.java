@@ -0,0 +1,89 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Depth and lag of one shard of a sharded stage.
+
+    depth  - trades waiting in the shard's queue right now
+    lag    - how old a trade is (since intake) when the shard's worker picks it up; a shard that falls behind
+             shows a growing lag while the others stay flat
+    hotKey - most frequent shard key among the last SAMPLES keys sampled by the worker (every SAMPLE_EVERY-th
+             trade): the account (or pair) that overloads the shard
+
+recordProcessed() is only ever called by the shard's single worker thread, so the sample ring is written by one
+thread; snapshot() reads it racily, which is fine for a statistic made of longs.
+ */
+public class ShardStats {
+
+    private static final int SAMPLES = 256;
+    private static final int SAMPLE_EVERY = 16;
+
+    private final PipelineStage stage;
+    private final int shard;
+    private final TradeQueue<?> queue;
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAccumulator maxLagNanos = new LongAccumulator(Long::max, 0L);
+    private volatile long lastLagNanos;
+
+    private final long[] sampledKeys = new long[SAMPLES];
+    private long samplesTaken;
+    private int untilSample;
+
+    public ShardStats(PipelineStage stage, int shard, TradeQueue<?> queue) {
+        this.stage = stage;
+        this.shard = shard;
+        this.queue = queue;
+    }
+
+    public void recordEnqueued() {
+        enqueued.increment();
+    }
+
+    public void recordProcessed(long key, long intakeNanos) {
+        long lag = System.nanoTime() - intakeNanos;
+        processed.increment();
+        lastLagNanos = lag;
+        maxLagNanos.accumulate(lag);
+        if (--untilSample <= 0) {
+            untilSample = SAMPLE_EVERY;
+            sampledKeys[(int) (samplesTaken++ % SAMPLES)] = key;
+        }
+    }
+
+    public ShardStatsDto snapshot() {
+        int samples = (int) Math.min(samplesTaken, SAMPLES);
+        Map<Long, Integer> counts = new HashMap<>();
+        long hotKey = 0L;
+        int hotCount = 0;
+        for (int i = 0; i < samples; i++) {
+            int count = counts.merge(sampledKeys[i], 1, Integer::sum);
+            if (count > hotCount) {
+                hotCount = count;
+                hotKey = sampledKeys[i];
+            }
+        }
+
+        return ShardStatsDto.builder()
+                .stage(stage.name())
+                .shard(shard)
+                .depth(queue.size())
+                .capacity(queue.capacity())
+                .enqueued(enqueued.sum())
+                .processed(processed.sum())
+                .lastLagMicros(TimeUnit.NANOSECONDS.toMicros(lastLagNanos))
+                .maxLagMicros(TimeUnit.NANOSECONDS.toMicros(maxLagNanos.get()))
+                .hotKey(hotKey)
+                .hotKeyShare(samples == 0 ? 0.0 : (double) hotCount / samples)
+                .build();
+    }
+}
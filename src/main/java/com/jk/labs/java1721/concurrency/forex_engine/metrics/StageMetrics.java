@@ -0,0 +1,110 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Hot-path instrumentation of one pipeline stage.
+
+    processed    trades handled (LongAdder: every worker bumps it, none of them contend on one cache line)
+    failed       trades that failed in this stage
+    serviceTime  time per handle call, queue wait excluded; for a micro-batching stage one call is one batch
+    busy         sum of those times; busy / (interval × workers) is the stage's worker utilization
+                 handle() includes the put() into the next stage, so a worker held up by a full downstream queue
+                 counts as busy: the busiest stage with an empty outbound queue is the bottleneck
+
+Timing a call costs two System.nanoTime() calls, a histogram record and a LongAdder add: ~130 ns on a VM where
+nanoTime alone is ~40 ns, too much to pay four times per trade. So only a random 1 in forex.metrics.sample-every
+calls is timed (busy time is scaled back up); every call still counts in `processed`. Percentiles of a random
+sample are unbiased, they just need a few hundred samples per interval to mean much: a nearly idle stage shows
+sparse numbers. Utilization needs a worker count, so it is reported for the classic stages only; the
+virtual-thread pipeline records service times into the same stages with workers = 0.
+ */
+public class StageMetrics {
+
+    private final PipelineStage stage;
+    // 0: timing off (forex.metrics.enabled=false)
+    private final int sampleEvery;
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final IntervalHistogram serviceTime = new IntervalHistogram();
+    private volatile int workers;
+
+    // Only touched by roll()
+    private long busyAtLastRoll;
+    private volatile double utilization;
+
+    public StageMetrics(PipelineStage stage, int sampleEvery) {
+        this.stage = stage;
+        this.sampleEvery = Math.max(0, sampleEvery);
+    }
+
+    // Pass the result to recordHandled(); 0 when this call is not timed
+    public long startNanos() {
+        if (sampleEvery == 0 || (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0)) {
+            return 0L;
+        }
+        return System.nanoTime();
+    }
+
+    public void recordHandled(int trades, long startNanos) {
+        processed.add(trades);
+        if (startNanos == 0L) {
+            return;
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        busyNanos.add(elapsed * sampleEvery);
+        serviceTime.record(elapsed);
+    }
+
+    public void recordFailed() {
+        failed.increment();
+    }
+
+    // Classic stage workers currently running; 0 while the stage is stopped
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    // Closes the interval (single thread): service-time percentiles and utilization over the last intervalNanos
+    public void roll(long intervalNanos) {
+        serviceTime.roll();
+        long busy = busyNanos.sum();
+        int running = workers;
+        utilization = running == 0 || intervalNanos <= 0 ? 0.0
+                : Math.min(1.0, (double) (busy - busyAtLastRoll) / ((double) intervalNanos * running));
+        busyAtLastRoll = busy;
+    }
+
+    public PipelineStage stage() {
+        return stage;
+    }
+
+    public long processed() {
+        return processed.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    // Estimated from the sampled calls
+    public double busySeconds() {
+        return busyNanos.sum() / 1e9;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public double utilization() {
+        return utilization;
+    }
+
+    public IntervalHistogram.Snapshot serviceTime() {
+        return serviceTime.last();
+    }
+}
@@ -0,0 +1,33 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+End-to-end latencies of the first trades after a start, for WarmStart's time-to-first-trade and time-to-steady-p99.
+
+Installed into every PipelineModeStats (PipelineStatsRegistry.probe) until WarmStart has seen p99 settle, then
+removed again: from then on recordCompleted() pays one volatile read for it. The window is its own IntervalHistogram,
+rolled by WarmStart at forex.warm-start.steady-window, independent of the exporter's longer metrics interval.
+ */
+public class StartupLatencyProbe {
+
+    private final IntervalHistogram window = new IntervalHistogram();
+    // Wall clock of the first completed trade, 0 until there is one
+    private final AtomicLong firstCompletedAtMillis = new AtomicLong();
+
+    public void record(long latencyNanos) {
+        if (firstCompletedAtMillis.get() == 0L) {
+            firstCompletedAtMillis.compareAndSet(0L, System.currentTimeMillis());
+        }
+        window.record(latencyNanos);
+    }
+
+    // Closes the current window; called by a single thread
+    public IntervalHistogram.Snapshot roll() {
+        return window.roll();
+    }
+
+    public long firstCompletedAtMillis() {
+        return firstCompletedAtMillis.get();
+    }
+}
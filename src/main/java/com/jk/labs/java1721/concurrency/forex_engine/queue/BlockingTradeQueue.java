@@ -0,0 +1,89 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/*
+Baseline implementation: a bounded LinkedBlockingQueue.
+Kept selectable so every ring buffer number can be compared against what the engine used to do.
+ */
+public class BlockingTradeQueue<E> implements TradeQueue<E> {
+
+    private final BlockingQueue<E> delegate;
+    private final int capacity;
+
+    public BlockingTradeQueue(int capacity) {
+        this.capacity = capacity;
+        this.delegate = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+        delegate.put(element);
+    }
+
+    @Override
+    public boolean offer(E element) {
+        return delegate.offer(element);
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.offer(element, timeout, unit);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        return delegate.take();
+    }
+
+    @Override
+    public E poll() {
+        return delegate.poll();
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.poll(timeout, unit);
+    }
+
+    @Override
+    public int offerBatch(List<? extends E> elements, int from) {
+        int accepted = 0;
+        for (int i = from; i < elements.size(); i++) {
+            if (!delegate.offer(elements.get(i))) {
+                break;
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        return delegate.drainTo(target, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return delegate.remainingCapacity();
+    }
+
+    @Override
+    public QueueType type() {
+        return QueueType.LINKED_BLOCKING;
+    }
+}
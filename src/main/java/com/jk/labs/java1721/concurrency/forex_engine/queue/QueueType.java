@@ -0,0 +1,8 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+public enum QueueType {
+    // j.u.c. baseline: allocates a node per element and takes the put/take locks
+    LINKED_BLOCKING,
+    // Preallocated, cache-line padded, lock-free ring buffer
+    RING_BUFFER
+}
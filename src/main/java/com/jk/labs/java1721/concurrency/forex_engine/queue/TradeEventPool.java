@@ -0,0 +1,54 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Lock-free pool of TradeEvent instances; the free list is a RingBufferTradeQueue, so acquire/release are one CAS each
+from any thread.
+
+Sized to cover every event that can be in flight (sum of the stage queue capacities plus what workers hold).
+In steady state acquire() always finds a recycled event. If the pool runs dry it allocates instead of blocking,
+and counts it in `allocations` - a non-zero growth rate there means the pool is undersized.
+ */
+public class TradeEventPool {
+
+    private final RingBufferTradeQueue<TradeEvent> free;
+    private final LongAdder allocations = new LongAdder();
+
+    public TradeEventPool(int capacity) {
+        this.free = new RingBufferTradeQueue<>(capacity, WaitStrategy.BUSY_SPIN);
+        for (int i = 0; i < free.capacity(); i++) {
+            free.offer(new TradeEvent());
+        }
+    }
+
+    public TradeEvent acquire() {
+        TradeEvent event = free.poll();
+        if (event == null) {
+            allocations.increment();
+            return new TradeEvent();
+        }
+        return event;
+    }
+
+    // Returns the event for reuse; the caller must not touch it afterwards
+    public void release(TradeEvent event) {
+        event.reset();
+        // when full the event is simply left to the GC
+        free.offer(event);
+    }
+
+    public int available() {
+        return free.size();
+    }
+
+    public int capacity() {
+        return free.capacity();
+    }
+
+    public long allocations() {
+        return allocations.sum();
+    }
+}
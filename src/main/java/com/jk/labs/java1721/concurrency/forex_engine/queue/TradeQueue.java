@@ -0,0 +1,53 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Pluggable hand-off queue used between pipeline stages.
+
+It is deliberately a small subset of BlockingQueue so that a non-j.u.c. implementation
+(the preallocated ring buffer) can sit behind the same contract as the LinkedBlockingQueue baseline:
+
+    | Method                        | Behavior when queue full / empty          |
+    | ----------------------------- | ----------------------------------------- |
+    | put / take                    | Waits until space / an element available |
+    | offer / poll                  | Returns immediately (false / null)        |
+    | offer(timeout) / poll(timeout)| Waits up to timeout                       |
+    | offerBatch / drainTo          | Moves as many as possible in one claim    |
+ */
+public interface TradeQueue<E> {
+
+    void put(E element) throws InterruptedException;
+
+    boolean offer(E element);
+
+    boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException;
+
+    E take() throws InterruptedException;
+
+    E poll();
+
+    E poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    // Inserts elements starting at index `from`; returns how many were accepted (0 when full)
+    int offerBatch(List<? extends E> elements, int from);
+
+    // Removes up to maxElements available elements into the target; never waits
+    int drainTo(Collection<? super E> target, int maxElements);
+
+    int size();
+
+    int capacity();
+
+    default int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    QueueType type();
+}
@@ -0,0 +1,14 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+public final class TradeQueues {
+
+    private TradeQueues() {
+    }
+
+    public static <E> TradeQueue<E> create(QueueType type, int capacity, WaitStrategy waitStrategy) {
+        return switch (type) {
+            case LINKED_BLOCKING -> new BlockingTradeQueue<>(capacity);
+            case RING_BUFFER -> new RingBufferTradeQueue<>(capacity, waitStrategy);
+        };
+    }
+}
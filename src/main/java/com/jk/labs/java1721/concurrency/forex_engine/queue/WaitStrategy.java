@@ -0,0 +1,58 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+How a RingBufferTradeQueue caller waits while the ring is full (producer) or empty (consumer).
+
+    | Strategy  | Latency        | CPU cost while idle           | Use when                                  |
+    | --------- | -------------- | ----------------------------- | ----------------------------------------- |
+    | BUSY_SPIN | lowest         | burns a full core per waiter  | threads are pinned and cores are spare    |
+    | YIELD     | low            | high, but lets others run     | fewer waiters than cores                  |
+    | PARK      | ~park interval | near zero after a short spin  | default; shared boxes, many stage workers |
+
+idle(counter) is called once per failed attempt and returns the next counter value,
+so each strategy can escalate (spin → yield → park) without keeping state of its own.
+ */
+public enum WaitStrategy {
+
+    BUSY_SPIN {
+        @Override
+        public int idle(int counter) {
+            Thread.onSpinWait();
+            return counter + 1;
+        }
+    },
+
+    YIELD {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+
+    PARK {
+        @Override
+        public int idle(int counter) {
+            if (counter < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (counter < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            return counter + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long PARK_NANOS = 50_000L;
+
+    public abstract int idle(int counter);
+}
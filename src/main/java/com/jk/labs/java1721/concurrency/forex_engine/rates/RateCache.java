@@ -0,0 +1,258 @@
+package com.jk.labs.java1721.concurrency.forex_engine.rates;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.RateProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RateCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+FX rate cache used by the enrichment stage, keyed by currency pair code.
+
+🧩 Lookup (rate(pair))
+
+    age of cached rate            what the trade gets                    what happens in the background
+    ─────────────────────────────────────────────────────────────────────────────────────────────────────
+    < refresh-after               cached rate (hit)                      nothing
+    refresh-after .. max-stale    cached rate (stale hit)                async refresh of the pair
+    >= max-staleness / none       waits for a fresh rate (miss)          load of the pair
+
+    A hit is one array read and one System.nanoTime(): no lock, no allocation.
+    Staleness is bounded: a rate older than forex.rates.max-staleness is never handed out. If no fresh rate arrives
+    within forex.rates.load-timeout the lookup throws and the stage fails the trade.
+
+🧩 Refresh-ahead
+    Every refresh-after, the scheduler refreshes each pair that was looked up since its previous run, so pairs in
+    active use are reloaded before they age out and trades on them never see a miss. Pairs nobody trades are left
+    to expire. The stale-hit path above covers whatever the scheduler has not reached yet.
+
+🧩 Coalescing
+    At most one lookup per pair is in flight (loads[pair]). Concurrent misses and refreshes of the same pair all
+    join that CompletableFuture instead of hitting the rate source again, so a cold start with 8 enrichment
+    shards on EUR/USD costs one lookup, not eight.
+    The new entry is published before the in-flight slot is cleared, so whoever finds the slot empty also finds
+    the fresh rate.
+
+🧩 Warm start
+    forEachRate() hands the cached rates with their age to the warm-start snapshot; prime() puts them back after a
+    restart, aged by the downtime, so the first trades hit instead of waiting for the source. A primed pair counts as
+    looked up: refresh-ahead reloads it on its next run, and one too old to serve is not primed at all.
+ */
+@Component
+@Slf4j
+public class RateCache {
+
+    // Immutable: a refresh publishes a new Entry rather than mutating the old one, so readers need no lock
+    private record Entry(long rate, long fetchedAtNanos) {
+    }
+
+    private final RateSource rateSource;
+    private final RateProperties rateProperties;
+    private final long refreshAfterNanos;
+    private final long maxStalenessNanos;
+
+    private final AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(CurrencyPair.count());
+    private final AtomicReferenceArray<CompletableFuture<Entry>> loads = new AtomicReferenceArray<>(CurrencyPair.count());
+    // 1 = looked up since the last refresh-ahead run; only written on the 0 → 1 transition to keep hits write-free
+    private final AtomicIntegerArray accessed = new AtomicIntegerArray(CurrencyPair.count());
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0L);
+
+    private ExecutorService refreshExecutor;
+    private ScheduledExecutorService scheduler;
+
+    public RateCache(RateSource rateSource, RateProperties rateProperties) {
+        this.rateSource = rateSource;
+        this.rateProperties = rateProperties;
+        this.refreshAfterNanos = rateProperties.getRefreshAfter().toNanos();
+        this.maxStalenessNanos = rateProperties.getMaxStaleness().toNanos();
+        if (refreshAfterNanos >= maxStalenessNanos) {
+            throw new IllegalStateException("forex.rates.refresh-after must be shorter than forex.rates.max-staleness");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        refreshExecutor = Executors.newFixedThreadPool(rateProperties.getRefreshThreads(), new NamedThreadFactory("rate-refresh-"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("rate-refresh-ahead-"));
+        long periodNanos = refreshAfterNanos;
+        scheduler.scheduleWithFixedDelay(this::refreshAhead, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        refreshExecutor.shutdownNow();
+    }
+
+    // Rate of the pair in FixedPoint.RATE_SCALE, never older than forex.rates.max-staleness
+    public long rate(int currencyPair) {
+        if (accessed.get(currencyPair) == 0) {
+            accessed.set(currencyPair, 1);
+        }
+
+        Entry entry = entries.get(currencyPair);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.fetchedAtNanos();
+            if (age < refreshAfterNanos) {
+                hits.increment();
+                return entry.rate();
+            }
+            if (age < maxStalenessNanos) {
+                staleHits.increment();
+                load(currencyPair);
+                return entry.rate();
+            }
+        }
+
+        misses.increment();
+        return await(currencyPair, load(currencyPair)).rate();
+    }
+
+    // Every cached rate with its age in nanoseconds (warm-start snapshot)
+    public void forEachRate(RateConsumer consumer) {
+        long now = System.nanoTime();
+        for (int pair = 0; pair < entries.length(); pair++) {
+            Entry entry = entries.get(pair);
+            if (entry != null) {
+                consumer.accept(pair, entry.rate(), now - entry.fetchedAtNanos());
+            }
+        }
+    }
+
+    // Caches a rate fetched ageNanos ago (warm start); false if the pair already has one or the rate is too old
+    public boolean prime(int currencyPair, long rate, long ageNanos) {
+        if (!CurrencyPair.isValid(currencyPair) || ageNanos < 0 || ageNanos >= maxStalenessNanos) {
+            return false;
+        }
+        if (!entries.compareAndSet(currencyPair, null, new Entry(rate, System.nanoTime() - ageNanos))) {
+            return false;
+        }
+        accessed.set(currencyPair, 1);
+        return true;
+    }
+
+    public RateCacheStatsDto stats() {
+        long hitCount = hits.sum() + staleHits.sum();
+        long lookups = hitCount + misses.sum();
+        long loadsDone = loadCount.sum();
+        long now = System.nanoTime();
+        int cached = 0;
+        long oldestNanos = 0L;
+        for (int pair = 0; pair < entries.length(); pair++) {
+            Entry entry = entries.get(pair);
+            if (entry != null) {
+                cached++;
+                oldestNanos = Math.max(oldestNanos, now - entry.fetchedAtNanos());
+            }
+        }
+
+        return RateCacheStatsDto.builder()
+                .pairsCached(cached)
+                .hits(hits.sum())
+                .staleHits(staleHits.sum())
+                .misses(misses.sum())
+                .hitRatio(lookups == 0 ? 0.0 : (double) hitCount / lookups)
+                .coalesced(coalesced.sum())
+                .loads(loadsDone)
+                .loadFailures(loadFailures.sum())
+                .avgRefreshMicros(loadsDone == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(loadNanos.sum() / loadsDone))
+                .maxRefreshMicros(TimeUnit.NANOSECONDS.toMicros(maxLoadNanos.get()))
+                .oldestRateAgeMillis(TimeUnit.NANOSECONDS.toMillis(oldestNanos))
+                .refreshAfterMillis(rateProperties.getRefreshAfter().toMillis())
+                .maxStalenessMillis(rateProperties.getMaxStaleness().toMillis())
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(int currencyPair, long rate, long ageNanos);
+    }
+
+    // Starts a lookup of the pair unless one is already in flight; either way returns the in-flight one
+    private CompletableFuture<Entry> load(int currencyPair) {
+        while (true) {
+            CompletableFuture<Entry> inFlight = loads.get(currencyPair);
+            if (inFlight != null) {
+                coalesced.increment();
+                return inFlight;
+            }
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            if (loads.compareAndSet(currencyPair, null, created)) {
+                startLoad(currencyPair, created);
+                return created;
+            }
+        }
+    }
+
+    private void startLoad(int currencyPair, CompletableFuture<Entry> target) {
+        long start = System.nanoTime();
+        CompletableFuture
+                .supplyAsync(() -> rateSource.fetchRate(currencyPair), refreshExecutor)
+                .orTimeout(rateProperties.getLoadTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((rate, error) -> {
+                    long end = System.nanoTime();
+                    if (error == null) {
+                        Entry entry = new Entry(rate, end);
+                        entries.set(currencyPair, entry);
+                        loadCount.increment();
+                        loadNanos.add(end - start);
+                        maxLoadNanos.accumulate(end - start);
+                        loads.set(currencyPair, null);
+                        target.complete(entry);
+                    } else {
+                        loadFailures.increment();
+                        loads.set(currencyPair, null);
+                        log.warn("Rate lookup failed for {}", CurrencyPair.symbol(currencyPair), error);
+                        target.completeExceptionally(error);
+                    }
+                });
+    }
+
+    private Entry await(int currencyPair, CompletableFuture<Entry> load) {
+        try {
+            return load.get(rateProperties.getLoadTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + CurrencyPair.symbol(currencyPair) + " rate", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("No " + CurrencyPair.symbol(currencyPair) + " rate within "
+                    + rateProperties.getLoadTimeout(), e);
+        }
+    }
+
+    private void refreshAhead() {
+        try {
+            for (int pair = 0; pair < accessed.length(); pair++) {
+                if (accessed.get(pair) == 1) {
+                    accessed.set(pair, 0);
+                    load(pair);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Rate refresh-ahead run failed", e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.jk.labs.java1721.concurrency.forex_engine.rates;
+
+/*
+Where rates come from (market data feed, pricing service, ...). Implementations may block: RateCache only calls
+them from its refresh threads, never from a pipeline worker on a cache hit.
+To plug in a real source, register another RateSource bean as @Primary.
+ */
+public interface RateSource {
+
+    // Current rate of the pair (CurrencyPair code) in FixedPoint.RATE_SCALE; throws when no rate is available
+    long fetchRate(int currencyPair);
+}
@@ -0,0 +1,48 @@
+package com.jk.labs.java1721.concurrency.forex_engine.rates;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.RateProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Stand-in for a remote pricing service: realistic levels, a little jitter per lookup and a fixed round-trip time
+@Component
+@RequiredArgsConstructor
+public class SimulatedRateSource implements RateSource {
+
+    // Approximate value of one unit in USD, indexed by Currency ordinal: USD, EUR, GBP, JPY, CHF, AUD, CAD, NZD
+    private static final double[] USD_VALUE = {1.0, 1.08, 1.27, 0.0067, 1.12, 0.66, 0.73, 0.60};
+
+    // ±5 basis points per lookup
+    private static final double JITTER = 0.0005;
+
+    private final RateProperties rateProperties;
+
+    @Override
+    public long fetchRate(int currencyPair) {
+        sleep(rateProperties.getSimulatedLatency().toNanos());
+
+        Currency base = CurrencyPair.base(currencyPair);
+        Currency quote = CurrencyPair.quote(currencyPair);
+        double mid = USD_VALUE[base.ordinal()] / USD_VALUE[quote.ordinal()];
+        double jitter = 1.0 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return FixedPoint.toScaled(mid * jitter, FixedPoint.RATE_SCALE);
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching rate", e);
+        }
+    }
+}
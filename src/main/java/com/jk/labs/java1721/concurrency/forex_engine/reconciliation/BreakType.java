@@ -0,0 +1,15 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reconciliation;
+
+// What a reconciliation break is; see TradeReconciler
+public enum BreakType {
+    // Audited as SETTLED, but there is no trade row
+    MISSING_ROW,
+    // A trade row that no audit record accounts for
+    UNAUDITED_ROW,
+    // The same trade id audited more than once
+    DUPLICATE_AUDIT,
+    // Row and audit record disagree on the amount
+    AMOUNT_MISMATCH,
+    // An AccountLedger balance differs from the sum of the trades audited since startup
+    POSITION_MISMATCH
+}
@@ -0,0 +1,71 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reconciliation;
+
+/*
+Trade id ranges a reconciliation run is split into, in the order of the trade table's key.
+
+trade.trade_id is a VARCHAR holding the decimal id, so its index orders ids as strings: "10" < "100" < "11". A numeric
+range such as [100, 200) is no index range at all ("1000" sorts between "100" and "101"). The partitions are therefore
+string ranges on the first `digits` digits, each one a single index range scan:
+
+    digits = 3      partition 0      [      , "100")     1, 10, 0 and negative ids
+                    partition 1      ["100", "101")      100, 1000..1009, 10000..10099, ...
+                    ...
+                    partition 900    ["999",      )
+                    ───────────────────────────────
+                    9 * 10^(digits-1) + 1 partitions
+
+A journal record finds its partition arithmetically from the id, without formatting it:
+    id has at least `digits` digits    → its leading `digits` digits L        partition L - 10^(digits-1) + 1
+    id has fewer digits                → the id padded with zeros to P       partition P - 10^(digits-1)
+    (a shorter id sorts just before its zero-padded form: "5" lies between "499" and "500")
+This relies on the table comparing trade_id by character code, which is H2's default.
+ */
+public final class TradeIdPartitions {
+
+    private final long base;
+    private final int count;
+
+    public TradeIdPartitions(int digits) {
+        if (digits < 1 || digits > 6) {
+            throw new IllegalArgumentException("forex.reconciliation.prefix-digits must be between 1 and 6: " + digits);
+        }
+        long first = 1;
+        for (int d = 1; d < digits; d++) {
+            first *= 10;
+        }
+        this.base = first;
+        this.count = (int) (9 * base) + 1;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int partitionOf(long tradeId) {
+        if (tradeId <= 0) {
+            return 0;
+        }
+        if (tradeId < base) {
+            long padded = tradeId;
+            while (padded < base) {
+                padded *= 10;
+            }
+            return (int) (padded - base);
+        }
+        long lead = tradeId;
+        while (lead >= 10 * base) {
+            lead /= 10;
+        }
+        return (int) (lead - base + 1);
+    }
+
+    // Inclusive lower bound of the partition's trade_id range; null for the first partition
+    public String lowerBound(int partition) {
+        return partition == 0 ? null : Long.toString(base + partition - 1);
+    }
+
+    // Exclusive upper bound; null for the last partition
+    public String upperBound(int partition) {
+        return partition == count - 1 ? null : Long.toString(base + partition);
+    }
+}
@@ -0,0 +1,646 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reconciliation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReconciliationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationBreakDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationReportDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditJournal;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditRecord;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditRecordVisitor;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+End-of-day reconciliation (forex.reconciliation): every trade the audit journal recorded as SETTLED against the trade
+table, and the AccountLedger against the trades audited since startup. Runs on a ForkJoinPool of its own over the
+trade id partitions of TradeIdPartitions, and streams both sides instead of loading either.
+
+🧩 Phases
+    AUDIT_SCAN   one parallel pass over the journal (a RecursiveAction halving the record range down to chunk-records):
+                 per partition, the count and a fingerprint Σ mix(tradeId, amount) of the SETTLED records created in
+                 [from, to); per account and currency, the movements of everything audited since startup
+    TABLE_SCAN   one task per partition (the same halving, down to single partitions) streams the partition's rows
+                 and computes the same count and fingerprint. Equal: every row matches exactly one audit record (up to
+                 a 2^-64 collision). Different: the partition holds at least one break
+    DRILL_DOWN   mismatched partitions only, drill-down-partitions at a time: one more journal pass collects their
+                 audit records by trade id, then each partition's rows are streamed against them
+                     row without record          → UNAUDITED_ROW
+                     record without row          → MISSING_ROW
+                     record seen more than once  → DUPLICATE_AUDIT
+                     amounts differ              → AMOUNT_MISMATCH
+    POSITIONS    every ledger account against its opening balances plus the audited movements → POSITION_MISMATCH
+                 per currency
+
+A clean day costs one journal pass and one table pass, both spread over all cores; memory is two longs per partition
+per task, plus the audit records of at most drill-down-partitions partitions while breaks are itemised. Work stealing
+evens out partitions of different sizes. Every task checks the timeout as it goes: a run that cannot finish in time
+stops and reports TIMED_OUT with what it had.
+
+NETTED trades have no trade row (their instruction is in net_settlement): they are counted, not matched. The run is
+meant for a drained pipeline at the end of the day; trades in flight while it runs show up as breaks. The ledger is
+in memory: it starts empty, or from the balances a warm start restored (AccountLedger.openingBalances), so positions
+cover those plus the records appended since the journal was opened, whatever [from, to) is.
+ */
+@Component
+@Slf4j
+public class TradeReconciler {
+
+    private static final int CURRENCIES = Currency.count();
+    // Rows and records between two timeout checks
+    private static final int CHECK_MASK = 4095;
+
+    enum Phase { AUDIT_SCAN, TABLE_SCAN, DRILL_DOWN, POSITIONS, DONE }
+
+    private final ReconciliationProperties reconciliationProperties;
+    private final AuditJournal auditJournal;
+    private final TradeBatchRepository tradeBatchRepository;
+    private final AccountLedger accountLedger;
+    private final TradeIdPartitions partitions;
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(new NamedThreadFactory("reconciliation-"));
+
+    private volatile Run run;
+
+    public TradeReconciler(ReconciliationProperties reconciliationProperties, AuditJournal auditJournal,
+                           TradeBatchRepository tradeBatchRepository, AccountLedger accountLedger) {
+        this.reconciliationProperties = reconciliationProperties;
+        this.auditJournal = auditJournal;
+        this.tradeBatchRepository = tradeBatchRepository;
+        this.accountLedger = accountLedger;
+        this.partitions = new TradeIdPartitions(reconciliationProperties.getPrefixDigits());
+    }
+
+    // Starts a run in the background for trades created in [from, to); defaults are today (UTC) up to now
+    public synchronized ReconciliationReportDto start(Instant from, Instant to) {
+        Run next = newRun(from, to);
+        coordinator.execute(() -> execute(next));
+        return next.report();
+    }
+
+    // Same, on the calling thread: returns the final report
+    public ReconciliationReportDto reconcile(Instant from, Instant to) {
+        Run next;
+        synchronized (this) {
+            next = newRun(from, to);
+        }
+        execute(next);
+        return next.report();
+    }
+
+    // The latest run, live while it is running; null before the first one
+    public ReconciliationReportDto report() {
+        Run current = run;
+        return current == null ? null : current.report();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Run current = run;
+        if (current != null) {
+            current.cancelled = true;
+        }
+        coordinator.shutdownNow();
+    }
+
+    private Run newRun(Instant from, Instant to) {
+        if (run != null && run.status.equals("RUNNING")) {
+            throw new IllegalStateException("A reconciliation is already running");
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.truncatedTo(ChronoUnit.DAYS);
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        Run next = new Run(start, end);
+        run = next;
+        return next;
+    }
+
+    private void execute(Run run) {
+        ForkJoinPool pool = new ForkJoinPool(run.parallelism, TradeReconciler::newWorker, null, false);
+        log.info("Reconciliation started: trades created in [{}, {}), {} partitions, parallelism {}",
+                run.from, run.to, partitions.count(), run.parallelism);
+        try {
+            long firstRecord = auditJournal.firstIndex();
+            long endRecord = auditJournal.size();
+            run.auditRecords = endRecord - firstRecord;
+            pool.invoke(new JournalScan(run, firstRecord, endRecord, end -> new Totals(run, end)));
+            log.info("Reconciliation audit scan: {} records, {} settled, {} netted",
+                    run.auditRecordsScanned.sum(), run.auditedSettled.sum(), run.auditedNetted.sum());
+
+            run.phase = Phase.TABLE_SCAN;
+            pool.invoke(new TableScan(run, 0, partitions.count()));
+            List<Integer> mismatched = new ArrayList<>(run.mismatched);
+            mismatched.sort(Comparator.naturalOrder());
+            log.info("Reconciliation table scan: {} rows, {} of {} partitions mismatched",
+                    run.tradeRows.sum(), mismatched.size(), partitions.count());
+
+            run.phase = Phase.DRILL_DOWN;
+            int batch = Math.max(1, reconciliationProperties.getDrillDownPartitions());
+            for (int from = 0; from < mismatched.size(); from += batch) {
+                drillDown(pool, run, mismatched.subList(from, Math.min(mismatched.size(), from + batch)),
+                        firstRecord, endRecord);
+            }
+
+            run.phase = Phase.POSITIONS;
+            if (reconciliationProperties.isPositions()) {
+                reconcilePositions(run);
+            }
+            run.phase = Phase.DONE;
+            run.finish("COMPLETED", null);
+        } catch (RuntimeException e) {
+            if (run.status.equals("RUNNING")) {
+                log.error("Reconciliation failed", e);
+                run.finish("FAILED", e.getMessage());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        log.info("Reconciliation {} in {} ms: {} missing rows, {} unaudited rows, {} duplicate audits, "
+                        + "{} amount mismatches, {} position mismatches", run.status,
+                TimeUnit.NANOSECONDS.toMillis(run.endNanos - run.startNanos), run.count(BreakType.MISSING_ROW),
+                run.count(BreakType.UNAUDITED_ROW), run.count(BreakType.DUPLICATE_AUDIT),
+                run.count(BreakType.AMOUNT_MISMATCH), run.count(BreakType.POSITION_MISMATCH));
+    }
+
+    private void drillDown(ForkJoinPool pool, Run run, List<Integer> slice, long firstRecord, long endRecord) {
+        int[] slotOf = new int[partitions.count()];
+        Arrays.fill(slotOf, -1);
+        List<Map<Long, long[]>> audited = new ArrayList<>(slice.size());
+        for (int slot = 0; slot < slice.size(); slot++) {
+            slotOf[slice.get(slot)] = slot;
+            audited.add(new ConcurrentHashMap<>());
+        }
+        pool.invoke(new JournalScan(run, firstRecord, endRecord, end -> new Collect(run, end, slotOf, audited)));
+        pool.invoke(new DrillDown(run, slice, audited, 0, slice.size()));
+    }
+
+    private void reconcilePositions(Run run) {
+        Map<Long, long[]> expected = run.movements;
+        accountLedger.forEachAccount((accountId, balances) -> {
+            long[] moved = expected.remove(accountId);
+            long[] opening = accountLedger.openingBalances(accountId);
+            for (int c = 0; c < CURRENCIES; c++) {
+                long position = (opening == null ? 0L : opening[c]) + (moved == null ? 0L : moved[c]);
+                if (balances[c] != position) {
+                    run.positionBreak(accountId, c, position, balances[c]);
+                }
+            }
+        });
+        // audited movements of accounts the ledger has never seen
+        expected.forEach((accountId, moved) -> {
+            for (int c = 0; c < CURRENCIES; c++) {
+                if (moved[c] != 0L) {
+                    run.positionBreak(accountId, c, moved[c], 0L);
+                }
+            }
+        });
+    }
+
+    // Order-independent, so partial sums from any number of tasks add up to the same value
+    static long fingerprint(long tradeId, long amount) {
+        return mix(mix(tradeId) + amount);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("reconciliation-worker-" + worker.getPoolIndex());
+        worker.setDaemon(true);
+        return worker;
+    }
+
+    // State and counters of one run; report() may read them at any time
+    private final class Run {
+
+        final Instant from;
+        final Instant to;
+        final long fromMillis;
+        final long toMillis;
+        final Instant startedAt = Instant.now();
+        final long startNanos = System.nanoTime();
+        final long deadlineNanos;
+        final int parallelism;
+        final long positionsFrom = auditJournal.openIndex();
+
+        final AtomicLongArray auditCounts = new AtomicLongArray(partitions.count());
+        final AtomicLongArray auditPrints = new AtomicLongArray(partitions.count());
+        final Map<Long, long[]> movements = new ConcurrentHashMap<>();
+        final Queue<Integer> mismatched = new ConcurrentLinkedQueue<>();
+
+        final LongAdder auditRecordsScanned = new LongAdder();
+        final LongAdder auditedSettled = new LongAdder();
+        final LongAdder auditedNetted = new LongAdder();
+        final LongAdder tradeRows = new LongAdder();
+        final AtomicInteger partitionsScanned = new AtomicInteger();
+        final AtomicInteger drillDownDone = new AtomicInteger();
+
+        final LongAdder[] breakCounts = new LongAdder[BreakType.values().length];
+        final Queue<ReconciliationBreakDto> breaks = new ConcurrentLinkedQueue<>();
+        final AtomicInteger listed = new AtomicInteger();
+
+        volatile long auditRecords;
+        volatile Phase phase = Phase.AUDIT_SCAN;
+        volatile String status = "RUNNING";
+        volatile String error;
+        volatile long endNanos;
+        volatile boolean cancelled;
+
+        Run(Instant from, Instant to) {
+            this.from = from;
+            this.to = to;
+            this.fromMillis = from.toEpochMilli();
+            this.toMillis = to.toEpochMilli();
+            this.deadlineNanos = startNanos + reconciliationProperties.getTimeout().toNanos();
+            this.parallelism = reconciliationProperties.getParallelism() > 0
+                    ? reconciliationProperties.getParallelism() : Runtime.getRuntime().availableProcessors();
+            for (int i = 0; i < breakCounts.length; i++) {
+                breakCounts[i] = new LongAdder();
+            }
+        }
+
+        void checkDeadline() {
+            if (cancelled || System.nanoTime() - deadlineNanos > 0) {
+                synchronized (this) {
+                    if (status.equals("RUNNING")) {
+                        finish(cancelled ? "CANCELLED" : "TIMED_OUT",
+                                cancelled ? "Shut down while running" : "Still running after forex.reconciliation.timeout");
+                    }
+                }
+                throw new IllegalStateException(status);
+            }
+        }
+
+        synchronized void finish(String outcome, String message) {
+            if (status.equals("RUNNING")) {
+                status = outcome;
+                error = message;
+                endNanos = System.nanoTime();
+            }
+        }
+
+        boolean inWindow(long createdAtMillis) {
+            return createdAtMillis >= fromMillis && createdAtMillis < toMillis;
+        }
+
+        void tradeBreak(BreakType type, long tradeId, long auditRecords, Long expected, Long actual) {
+            record(type, () -> ReconciliationBreakDto.builder()
+                    .type(type.name())
+                    .tradeId(tradeId)
+                    .auditRecords((int) auditRecords)
+                    .expected(amount(expected))
+                    .actual(amount(actual))
+                    .build());
+        }
+
+        void positionBreak(long accountId, int currency, long expected, long actual) {
+            record(BreakType.POSITION_MISMATCH, () -> ReconciliationBreakDto.builder()
+                    .type(BreakType.POSITION_MISMATCH.name())
+                    .accountId(accountId)
+                    .currency(Currency.ofOrdinal(currency).name())
+                    .expected(amount(expected))
+                    .actual(amount(actual))
+                    .build());
+        }
+
+        long count(BreakType type) {
+            return breakCounts[type.ordinal()].sum();
+        }
+
+        ReconciliationReportDto report() {
+            long end = endNanos != 0L ? endNanos : System.nanoTime();
+            List<ReconciliationBreakDto> listedBreaks = new ArrayList<>(breaks);
+            listedBreaks.sort(Comparator.comparing(ReconciliationBreakDto::getType)
+                    .thenComparing(b -> b.getTradeId() != null ? b.getTradeId() : b.getAccountId()));
+            return ReconciliationReportDto.builder()
+                    .status(status)
+                    .phase(phase.name())
+                    .progressPercent(progressPercent())
+                    .from(from)
+                    .to(to)
+                    .startedAt(startedAt)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(end - startNanos))
+                    .parallelism(parallelism)
+                    .partitions(partitions.count())
+                    .auditRecords(auditRecords)
+                    .auditRecordsScanned(auditRecordsScanned.sum())
+                    .auditedSettled(auditedSettled.sum())
+                    .auditedNetted(auditedNetted.sum())
+                    .partitionsScanned(partitionsScanned.get())
+                    .tradeRows(tradeRows.sum())
+                    .mismatchedPartitions(mismatched.size())
+                    .drillDownPartitionsDone(drillDownDone.get())
+                    .missingRows(count(BreakType.MISSING_ROW))
+                    .unauditedRows(count(BreakType.UNAUDITED_ROW))
+                    .duplicateAudits(count(BreakType.DUPLICATE_AUDIT))
+                    .amountMismatches(count(BreakType.AMOUNT_MISMATCH))
+                    .positionMismatches(count(BreakType.POSITION_MISMATCH))
+                    .breaks(listedBreaks)
+                    .breaksTruncated(listed.get() > listedBreaks.size())
+                    .error(error)
+                    .build();
+        }
+
+        // Journal pass 40%, table pass 40%, drill-down 15%, positions 5%
+        private double progressPercent() {
+            return switch (phase) {
+                case AUDIT_SCAN -> 40.0 * auditRecordsScanned.sum() / Math.max(1L, auditRecords);
+                case TABLE_SCAN -> 40.0 + 40.0 * partitionsScanned.get() / partitions.count();
+                case DRILL_DOWN -> 80.0 + 15.0 * drillDownDone.get() / Math.max(1, mismatched.size());
+                case POSITIONS -> 95.0;
+                case DONE -> 100.0;
+            };
+        }
+
+        private void record(BreakType type, Supplier<ReconciliationBreakDto> details) {
+            breakCounts[type.ordinal()].increment();
+            if (listed.incrementAndGet() <= reconciliationProperties.getMaxBreaks()) {
+                breaks.add(details.get());
+            }
+        }
+
+        private static BigDecimal amount(Long scaled) {
+            return scaled == null ? null : FixedPoint.toBigDecimal(scaled, FixedPoint.AMOUNT_DECIMALS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkFactory {
+        JournalChunk create(long endRecord);
+    }
+
+    // Halves a journal record range down to chunk-records, then scans it with a fresh chunk
+    private final class JournalScan extends RecursiveAction {
+
+        private final Run run;
+        private final long from;
+        private final long to;
+        private final ChunkFactory chunks;
+
+        JournalScan(Run run, long from, long to, ChunkFactory chunks) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+            this.chunks = chunks;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > Math.max(1, reconciliationProperties.getChunkRecords())) {
+                long mid = (from + to) >>> 1;
+                invokeAll(new JournalScan(run, from, mid, chunks), new JournalScan(run, mid, to, chunks));
+                return;
+            }
+            JournalChunk chunk = chunks.create(to);
+            auditJournal.scan(from, chunk);
+            chunk.finish();
+        }
+    }
+
+    // Visits the records of one chunk; the record view is only valid during accept()
+    private abstract static class JournalChunk implements AuditRecordVisitor {
+
+        final Run run;
+        final long end;
+        long visited;
+
+        JournalChunk(Run run, long end) {
+            this.run = run;
+            this.end = end;
+        }
+
+        @Override
+        public final boolean visit(long index, AuditRecord record) {
+            if (index >= end) {
+                return false;
+            }
+            if ((++visited & CHECK_MASK) == 0) {
+                run.checkDeadline();
+            }
+            accept(index, record);
+            return true;
+        }
+
+        abstract void accept(long index, AuditRecord record);
+
+        abstract void finish();
+    }
+
+    // AUDIT_SCAN: per-partition counts and fingerprints, per-account movements; merged into the run once per chunk
+    private final class Totals extends JournalChunk {
+
+        private final long[] counts = new long[partitions.count()];
+        private final long[] prints = new long[partitions.count()];
+        private final Map<Long, long[]> movements = new HashMap<>();
+        private long settled;
+        private long netted;
+
+        Totals(Run run, long end) {
+            super(run, end);
+        }
+
+        @Override
+        void accept(long index, AuditRecord record) {
+            TradeStatus status = record.status();
+            if (status != TradeStatus.SETTLED && status != TradeStatus.NETTED) {
+                return;
+            }
+            if (index >= run.positionsFrom) {
+                long[] moved = movements.computeIfAbsent(record.accountId(), accountId -> new long[CURRENCIES]);
+                int pair = record.currencyPair();
+                long amount = record.amount();
+                moved[CurrencyPair.base(pair).ordinal()] -= amount;
+                moved[CurrencyPair.quote(pair).ordinal()] += FixedPoint.convert(amount, record.rate());
+            }
+            if (!run.inWindow(record.createdAtMillis())) {
+                return;
+            }
+            if (status == TradeStatus.NETTED) {
+                netted++;
+                return;
+            }
+            long tradeId = record.tradeId();
+            int partition = partitions.partitionOf(tradeId);
+            counts[partition]++;
+            prints[partition] += fingerprint(tradeId, record.amount());
+            settled++;
+        }
+
+        @Override
+        void finish() {
+            for (int partition = 0; partition < counts.length; partition++) {
+                if (counts[partition] != 0L) {
+                    run.auditCounts.getAndAdd(partition, counts[partition]);
+                    run.auditPrints.getAndAdd(partition, prints[partition]);
+                }
+            }
+            movements.forEach((accountId, moved) -> run.movements.merge(accountId, moved, (total, more) -> {
+                for (int c = 0; c < CURRENCIES; c++) {
+                    total[c] += more[c];
+                }
+                return total;
+            }));
+            run.auditedSettled.add(settled);
+            run.auditedNetted.add(netted);
+            run.auditRecordsScanned.add(visited);
+        }
+    }
+
+    // DRILL_DOWN: audit records of the partitions being itemised, by trade id: {records, amount}
+    private final class Collect extends JournalChunk {
+
+        private final int[] slotOf;
+        private final List<Map<Long, long[]>> audited;
+
+        Collect(Run run, long end, int[] slotOf, List<Map<Long, long[]>> audited) {
+            super(run, end);
+            this.slotOf = slotOf;
+            this.audited = audited;
+        }
+
+        @Override
+        void accept(long index, AuditRecord record) {
+            if (record.status() != TradeStatus.SETTLED || !run.inWindow(record.createdAtMillis())) {
+                return;
+            }
+            long tradeId = record.tradeId();
+            int slot = slotOf[partitions.partitionOf(tradeId)];
+            if (slot >= 0) {
+                audited.get(slot).merge(tradeId, new long[]{1L, record.amount()}, (seen, again) -> {
+                    seen[0]++;
+                    return seen;
+                });
+            }
+        }
+
+        @Override
+        void finish() {
+        }
+    }
+
+    // TABLE_SCAN: halves the partition range down to single partitions, each one streamed by one task
+    private final class TableScan extends RecursiveAction {
+
+        private final Run run;
+        private final int from;
+        private final int to;
+
+        TableScan(Run run, int from, int to) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TableScan(run, from, mid), new TableScan(run, mid, to));
+                return;
+            }
+            int partition = from;
+            long[] totals = new long[2];
+            tradeBatchRepository.scanRange(partitions.lowerBound(partition), partitions.upperBound(partition),
+                    run.from, run.to, reconciliationProperties.getFetchSize(), (tradeId, amount) -> {
+                        if ((++totals[0] & CHECK_MASK) == 0) {
+                            run.checkDeadline();
+                        }
+                        totals[1] += fingerprint(tradeId, amount);
+                    });
+            run.tradeRows.add(totals[0]);
+            if (totals[0] != run.auditCounts.get(partition) || totals[1] != run.auditPrints.get(partition)) {
+                run.mismatched.add(partition);
+            }
+            run.partitionsScanned.incrementAndGet();
+        }
+    }
+
+    // DRILL_DOWN: streams each mismatched partition's rows against its collected audit records
+    private final class DrillDown extends RecursiveAction {
+
+        private final Run run;
+        private final List<Integer> slice;
+        private final List<Map<Long, long[]>> audited;
+        private final int from;
+        private final int to;
+
+        DrillDown(Run run, List<Integer> slice, List<Map<Long, long[]>> audited, int from, int to) {
+            this.run = run;
+            this.slice = slice;
+            this.audited = audited;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new DrillDown(run, slice, audited, from, mid), new DrillDown(run, slice, audited, mid, to));
+                return;
+            }
+            int partition = slice.get(from);
+            Map<Long, long[]> records = audited.get(from);
+            long[] rows = new long[1];
+            tradeBatchRepository.scanRange(partitions.lowerBound(partition), partitions.upperBound(partition),
+                    run.from, run.to, reconciliationProperties.getFetchSize(), (tradeId, amount) -> {
+                        if ((++rows[0] & CHECK_MASK) == 0) {
+                            run.checkDeadline();
+                        }
+                        long[] record = records.remove(tradeId);
+                        if (record == null) {
+                            run.tradeBreak(BreakType.UNAUDITED_ROW, tradeId, 0L, null, amount);
+                            return;
+                        }
+                        if (record[0] > 1L) {
+                            run.tradeBreak(BreakType.DUPLICATE_AUDIT, tradeId, record[0], record[1], amount);
+                        }
+                        if (record[1] != amount) {
+                            run.tradeBreak(BreakType.AMOUNT_MISMATCH, tradeId, record[0], record[1], amount);
+                        }
+                    });
+            records.forEach((tradeId, record) -> {
+                run.tradeBreak(BreakType.MISSING_ROW, tradeId, record[0], record[1], null);
+                if (record[0] > 1L) {
+                    run.tradeBreak(BreakType.DUPLICATE_AUDIT, tradeId, record[0], record[1], null);
+                }
+            });
+            records.clear();
+            run.drillDownDone.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+Account and broker statuses read from the `account` and `broker` tables (the Account and Broker entities), the
+default ReferenceDataSource. ReferenceDataCache sits in front of it: one indexed SELECT per miss, one full scan of
+each table for the startup preload. A JPA write to either entity invalidates the cached status
+(ReferenceDataInvalidator), so the next lookup reads the new one from here.
+
+Trades carry numeric ids while the tables key on VARCHAR: rows whose id is not a number can never match a trade
+and are left out of the listings. A row without a status is not ACTIVE either way and is left out as well.
+Created after the EntityManagerFactory, which generates the tables the startup preload reads.
+ */
+@Component
+@ConditionalOnProperty(prefix = "forex.reference", name = "simulated", havingValue = "false", matchIfMissing = true)
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcReferenceDataSource implements ReferenceDataSource {
+
+    private static final String ACCOUNT_STATUS_SQL = "SELECT status FROM account WHERE account_id = ?";
+    private static final String ACCOUNT_STATUSES_SQL = "SELECT account_id, status FROM account WHERE status IS NOT NULL";
+    // the Broker entity maps its id onto an `account_id` column as well
+    private static final String BROKER_STATUS_SQL = "SELECT status FROM broker WHERE account_id = ?";
+    private static final String BROKER_STATUSES_SQL = "SELECT account_id, status FROM broker WHERE status IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public String accountStatus(long accountId) {
+        return status(ACCOUNT_STATUS_SQL, accountId);
+    }
+
+    @Override
+    public String brokerStatus(long brokerId) {
+        return status(BROKER_STATUS_SQL, brokerId);
+    }
+
+    @Override
+    public Map<Long, String> accountStatuses() {
+        return statuses(ACCOUNT_STATUSES_SQL);
+    }
+
+    @Override
+    public Map<Long, String> brokerStatuses() {
+        return statuses(BROKER_STATUSES_SQL);
+    }
+
+    private String status(String sql, long id) {
+        return jdbcTemplate.query(sql, rs -> rs.next() ? rs.getString(1) : null, Long.toString(id));
+    }
+
+    private Map<Long, String> statuses(String sql) {
+        Map<Long, String> statuses = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            String id = rs.getString(1);
+            try {
+                statuses.put(Long.parseLong(id.trim()), rs.getString(2));
+            } catch (NumberFormatException e) {
+                log.debug("Skipping non-numeric reference id {}", id);
+            }
+        });
+        return statuses;
+    }
+}
@@ -0,0 +1,390 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceTableStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/*
+Read-through cache of account and broker statuses in front of ReferenceDataSource, used by the enrichment stage.
+
+🧩 Layout (one Table per entity, nothing allocated per lookup)
+    slots  long[capacity], 8-way set associative: an id can only live in the 8 slots of its set (64 bytes)
+    entry  | id (55 bits) | referenced (1 bit) | status code (8 bits) |     0 = free slot
+    A whole entry is one long, read and written atomically, so readers need no lock and never see an id paired
+    with another id's status. Status strings are interned once into a small code table (code 0 = unknown id).
+    Footprint is 8 bytes per slot, fixed at startup: 65536 accounts cost 512 KB, where a HashMap<Long, Account>
+    of JPA entities would cost well over 100 bytes per account and grow with every new id.
+
+🧩 Lookup (accountStatus / brokerStatus)
+    hit             id found in its set → status (or null for a cached unknown id); no write unless the
+                    referenced bit was clear
+    miss            ReferenceDataSource lookup, then the result is cached, unknown ids included (negative caching):
+                    a trade storm on a mistyped account costs one lookup, not one per trade
+    ids <= 0 or >= 2^55 are not cacheable and go straight to the source
+
+🧩 Eviction (CLOCK within a set)
+    A full set evicts the first entry, from the set's hand onward, whose referenced bit is clear, clearing the bits
+    it passes over; entries looked up since the hand last passed survive. Preloaded entries start unreferenced.
+
+🧩 Preload and invalidation
+    At startup every account and broker the source can list is loaded in one bulk call each, so in steady state the
+    hot path never reaches the source. Nothing expires by age: a status change invalidates the entry instead
+    (ReferenceDataInvalidator on Account/Broker writes, or POST /reference/{accounts|brokers}/{id}/invalidate),
+    and the next lookup reads the new status through. A lookup racing with an invalidation re-checks the table's
+    generation after caching and drops its (possibly old) result, so an invalidation is never lost.
+
+🧩 Warm start
+    forEachAccount / forEachBroker hand the cached statuses to the warm-start snapshot (negative entries are left
+    out: an unknown id may exist by the time the snapshot is read). prime* puts them back after a restart, only into
+    free slots of the id's set: whatever the preload has just read from the source wins, so with preload on the
+    snapshot adds the ids the source cannot list, and with preload off it restores the whole working set.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCache {
+
+    private final ReferenceDataSource referenceDataSource;
+    private final ReferenceProperties referenceProperties;
+    private final Table accounts;
+    private final Table brokers;
+
+    public ReferenceDataCache(ReferenceDataSource referenceDataSource, ReferenceProperties referenceProperties) {
+        this.referenceDataSource = referenceDataSource;
+        this.referenceProperties = referenceProperties;
+        this.accounts = new Table("account", referenceProperties.getAccountCapacity(), referenceDataSource::accountStatus);
+        this.brokers = new Table("broker", referenceProperties.getBrokerCapacity(), referenceDataSource::brokerStatus);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (referenceProperties.isPreload()) {
+            accounts.preload(referenceDataSource::accountStatuses);
+            brokers.preload(referenceDataSource::brokerStatuses);
+        }
+    }
+
+    // Status of the account, or null if there is no such account
+    public String accountStatus(long accountId) {
+        return accounts.status(accountId);
+    }
+
+    // Status of the broker, or null if there is no such broker
+    public String brokerStatus(long brokerId) {
+        return brokers.status(brokerId);
+    }
+
+    // Drops the cached status; the next lookup reads it from the source
+    public void invalidateAccount(long accountId) {
+        accounts.invalidate(accountId);
+    }
+
+    public void invalidateBroker(long brokerId) {
+        brokers.invalidate(brokerId);
+    }
+
+    // Every cached known account and broker with its status (warm-start snapshot)
+    public void forEachAccount(StatusConsumer consumer) {
+        accounts.forEach(consumer);
+    }
+
+    public void forEachBroker(StatusConsumer consumer) {
+        brokers.forEach(consumer);
+    }
+
+    // Caches a status from a warm-start snapshot; false if the id is cached already or its set has no free slot
+    public boolean primeAccount(long accountId, String status) {
+        return accounts.prime(accountId, status);
+    }
+
+    public boolean primeBroker(long brokerId, String status) {
+        return brokers.prime(brokerId, status);
+    }
+
+    public ReferenceCacheStatsDto stats() {
+        return ReferenceCacheStatsDto.builder()
+                .accounts(accounts.stats())
+                .brokers(brokers.stats())
+                .build();
+    }
+
+    @FunctionalInterface
+    public interface StatusConsumer {
+        void accept(long id, String status);
+    }
+
+    private static final class Table {
+
+        private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+        private static final int WAYS = 8;
+        private static final int STATUS_BITS = 8;
+        private static final long STATUS_MASK = (1L << STATUS_BITS) - 1;
+        private static final long REFERENCED = 1L << STATUS_BITS;
+        private static final int ID_SHIFT = STATUS_BITS + 1;
+        private static final long MAX_ID = (1L << (Long.SIZE - ID_SHIFT)) - 1;
+        private static final int UNKNOWN = 0;
+
+        private final String name;
+        private final LongFunction<String> source;
+        private final long[] slots;
+        private final int setMask;
+        // CLOCK hand per set; racy updates only move the hand less far, which costs nothing but eviction order
+        private final byte[] hands;
+        // code → status; index 0 is the cached unknown id. Copy-on-write, statuses are few and rarely new
+        private volatile String[] statuses = {null};
+        // Bumped by every invalidation, so a lookup in flight can tell that its result may be out of date
+        private final AtomicLong generation = new AtomicLong();
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder uncacheable = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+        private final LongAccumulator maxLoadNanos = new LongAccumulator(Math::max, 0L);
+        private volatile long preloaded;
+        private volatile long preloadMillis;
+
+        Table(String name, int capacity, LongFunction<String> source) {
+            this.name = name;
+            this.source = source;
+            int sets = powerOfTwo(Math.max(1, (capacity + WAYS - 1) / WAYS));
+            this.slots = new long[sets * WAYS];
+            this.setMask = sets - 1;
+            this.hands = new byte[sets];
+        }
+
+        String status(long id) {
+            if (id <= 0 || id > MAX_ID) {
+                uncacheable.increment();
+                return source.apply(id);
+            }
+            int base = setOf(id);
+            for (int way = 0; way < WAYS; way++) {
+                long entry = (long) LONGS.getAcquire(slots, base + way);
+                if (entry >>> ID_SHIFT == id) {
+                    if ((entry & REFERENCED) == 0) {
+                        LONGS.compareAndSet(slots, base + way, entry, entry | REFERENCED);
+                    }
+                    int code = (int) (entry & STATUS_MASK);
+                    (code == UNKNOWN ? negativeHits : hits).increment();
+                    return statuses[code];
+                }
+            }
+            misses.increment();
+            return load(id);
+        }
+
+        void invalidate(long id) {
+            generation.incrementAndGet();
+            invalidations.increment();
+            if (id <= 0 || id > MAX_ID) {
+                return;
+            }
+            int base = setOf(id);
+            for (int way = 0; way < WAYS; way++) {
+                long entry = (long) LONGS.getAcquire(slots, base + way);
+                // a racing miss may have cached the id twice; clear every copy
+                if (entry >>> ID_SHIFT == id) {
+                    LONGS.compareAndSet(slots, base + way, entry, 0L);
+                }
+            }
+        }
+
+        void preload(Supplier<Map<Long, String>> listing) {
+            long start = System.nanoTime();
+            Map<Long, String> all = listing.get();
+            long loaded = 0;
+            for (Map.Entry<Long, String> e : all.entrySet()) {
+                long id = e.getKey();
+                int code = code(e.getValue());
+                if (id > 0 && id <= MAX_ID && code >= 0) {
+                    put(id, code);
+                    loaded++;
+                }
+            }
+            preloaded = loaded;
+            preloadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (loaded > slots.length) {
+                log.warn("Preloaded {} {}s into a cache of {}: raise forex.reference.{}-capacity",
+                        loaded, name, slots.length, name);
+            }
+            log.info("Reference cache: {} {}s preloaded in {} ms", loaded, name, preloadMillis);
+        }
+
+        void forEach(StatusConsumer consumer) {
+            String[] known = statuses;
+            for (int slot = 0; slot < slots.length; slot++) {
+                long entry = (long) LONGS.getAcquire(slots, slot);
+                int code = (int) (entry & STATUS_MASK);
+                if (entry != 0L && code != UNKNOWN && code < known.length) {
+                    consumer.accept(entry >>> ID_SHIFT, known[code]);
+                }
+            }
+        }
+
+        boolean prime(long id, String status) {
+            int code = code(status);
+            if (id <= 0 || id > MAX_ID || status == null || code < 0) {
+                return false;
+            }
+            int base = setOf(id);
+            for (int way = 0; way < WAYS; way++) {
+                if ((long) LONGS.getAcquire(slots, base + way) >>> ID_SHIFT == id) {
+                    return false;
+                }
+            }
+            // primed entries start unreferenced, like preloaded ones
+            for (int way = 0; way < WAYS; way++) {
+                if (LONGS.compareAndSet(slots, base + way, 0L, pack(id, code))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        ReferenceTableStatsDto stats() {
+            long entries = 0;
+            long negativeEntries = 0;
+            for (int slot = 0; slot < slots.length; slot++) {
+                long entry = (long) LONGS.getAcquire(slots, slot);
+                if (entry != 0L) {
+                    entries++;
+                    if ((entry & STATUS_MASK) == UNKNOWN) {
+                        negativeEntries++;
+                    }
+                }
+            }
+            long hitCount = hits.sum() + negativeHits.sum();
+            long lookups = hitCount + misses.sum();
+            long loads = misses.sum();
+            return ReferenceTableStatsDto.builder()
+                    .capacity(slots.length)
+                    .entries(entries)
+                    .negativeEntries(negativeEntries)
+                    .hits(hits.sum())
+                    .negativeHits(negativeHits.sum())
+                    .misses(misses.sum())
+                    .uncacheable(uncacheable.sum())
+                    .hitRatio(lookups == 0 ? 0.0 : (double) hitCount / lookups)
+                    .avgLoadMicros(loads == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(loadNanos.sum() / loads))
+                    .maxLoadMicros(TimeUnit.NANOSECONDS.toMicros(maxLoadNanos.get()))
+                    .evictions(evictions.sum())
+                    .invalidations(invalidations.sum())
+                    .preloaded(preloaded)
+                    .preloadMillis(preloadMillis)
+                    .footprintBytes((long) slots.length * Long.BYTES + hands.length)
+                    .build();
+        }
+
+        private String load(long id) {
+            long generationBefore = generation.get();
+            long start = System.nanoTime();
+            String status = source.apply(id);
+            long elapsed = System.nanoTime() - start;
+            loadNanos.add(elapsed);
+            maxLoadNanos.accumulate(elapsed);
+
+            int code = code(status);
+            if (code >= 0) {
+                int slot = put(id, code);
+                if (slot >= 0 && generation.get() != generationBefore) {
+                    long cached = pack(id, code);
+                    if (!LONGS.compareAndSet(slots, slot, cached, 0L)) {
+                        // a hit may have marked it referenced meanwhile
+                        LONGS.compareAndSet(slots, slot, cached | REFERENCED, 0L);
+                    }
+                }
+            }
+            return status;
+        }
+
+        // Caches id → code in its set; returns the slot, or -1 if racing writers left no room this time
+        private int put(long id, int code) {
+            long value = pack(id, code);
+            int base = setOf(id);
+            for (int way = 0; way < WAYS; way++) {
+                long entry = (long) LONGS.getAcquire(slots, base + way);
+                if (entry == 0L || entry >>> ID_SHIFT == id) {
+                    if (LONGS.compareAndSet(slots, base + way, entry, value)) {
+                        return base + way;
+                    }
+                }
+            }
+
+            int set = base / WAYS;
+            int hand = hands[set];
+            // two sweeps: the first may only clear referenced bits
+            for (int step = 0; step < 2 * WAYS; step++) {
+                int slot = base + ((hand + step) & (WAYS - 1));
+                long entry = (long) LONGS.getAcquire(slots, slot);
+                if ((entry & REFERENCED) != 0) {
+                    LONGS.compareAndSet(slots, slot, entry, entry & ~REFERENCED);
+                } else if (LONGS.compareAndSet(slots, slot, entry, value)) {
+                    hands[set] = (byte) ((hand + step + 1) & (WAYS - 1));
+                    if (entry != 0L) {
+                        evictions.increment();
+                    }
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        // Status code of a status, interning new ones; -1 when the code table is full (the status is not cached)
+        private int code(String status) {
+            if (status == null) {
+                return UNKNOWN;
+            }
+            String[] known = statuses;
+            for (int code = 1; code < known.length; code++) {
+                if (known[code].equals(status)) {
+                    return code;
+                }
+            }
+            synchronized (this) {
+                known = statuses;
+                for (int code = 1; code < known.length; code++) {
+                    if (known[code].equals(status)) {
+                        return code;
+                    }
+                }
+                if (known.length > STATUS_MASK) {
+                    return -1;
+                }
+                String[] grown = Arrays.copyOf(known, known.length + 1);
+                grown[known.length] = status;
+                statuses = grown;
+                return known.length;
+            }
+        }
+
+        private int setOf(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return ((int) (h ^ (h >>> 32)) & setMask) * WAYS;
+        }
+
+        private static long pack(long id, int code) {
+            return id << ID_SHIFT | code;
+        }
+
+        private static int powerOfTwo(int value) {
+            return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+        }
+    }
+}
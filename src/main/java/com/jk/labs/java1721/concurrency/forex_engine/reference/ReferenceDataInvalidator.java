@@ -0,0 +1,52 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Account;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Broker;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/*
+JPA entity listener on Account and Broker: any write to a row (status change, new row, deletion) drops the cached
+status, so ReferenceDataCache reads the new one through on the next trade. Hibernate obtains the listener from the
+Spring context, which is what lets it reach the cache. It does so while the EntityManagerFactory is being built,
+before the tables exist, so the cache (whose preload reads those tables) is only looked up on the first write.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataInvalidator {
+
+    private final ObjectProvider<ReferenceDataCache> referenceDataCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        if (entity instanceof Account account) {
+            Long id = parseId(account.getId());
+            if (id != null) {
+                referenceDataCache.getObject().invalidateAccount(id);
+            }
+        } else if (entity instanceof Broker broker) {
+            Long id = parseId(broker.getId());
+            if (id != null) {
+                referenceDataCache.getObject().invalidateBroker(id);
+            }
+        }
+    }
+
+    // Trades carry numeric ids; a non-numeric row can never be in the cache
+    private static Long parseId(String id) {
+        try {
+            return id == null ? null : Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring change of non-numeric reference id {}", id);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import java.util.Map;
+
+/*
+Where account and broker reference data comes from (the account/broker tables, a client master service, ...).
+Implementations may block; ReferenceDataCache calls them on a miss and once at startup to preload.
+JdbcReferenceDataSource (the account and broker tables) is the default, SimulatedReferenceDataSource replaces it
+with forex.reference.simulated=true. To plug in another source, register a ReferenceDataSource bean as @Primary.
+ */
+public interface ReferenceDataSource {
+
+    // The only status a trade may be enriched with
+    String ACTIVE = "ACTIVE";
+
+    // Status of the account (ACTIVE, SUSPENDED, ...), or null if there is no such account
+    String accountStatus(long accountId);
+
+    // Status of the broker, or null if there is no such broker
+    String brokerStatus(long brokerId);
+
+    // Every account with its status, for the bulk preload; empty when the source cannot list them
+    default Map<Long, String> accountStatuses() {
+        return Map.of();
+    }
+
+    // Every broker with its status, for the bulk preload; empty when the source cannot list them
+    default Map<Long, String> brokerStatuses() {
+        return Map.of();
+    }
+}
@@ -0,0 +1,68 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+Stand-in for the account/broker master data: every positive id is ACTIVE, after a fixed round-trip time.
+The bulk listings return ids 1..simulated-accounts / 1..simulated-brokers (the ids the load generator draws from).
+Only with forex.reference.simulated=true (load tests, benchmarks); otherwise JdbcReferenceDataSource reads the
+account and broker tables.
+ */
+@Component
+@ConditionalOnProperty(prefix = "forex.reference", name = "simulated", havingValue = "true")
+@RequiredArgsConstructor
+public class SimulatedReferenceDataSource implements ReferenceDataSource {
+
+    private final ReferenceProperties referenceProperties;
+
+    @Override
+    public String accountStatus(long accountId) {
+        sleep(referenceProperties.getSimulatedLatency().toNanos());
+        return accountId > 0 ? ACTIVE : null;
+    }
+
+    @Override
+    public String brokerStatus(long brokerId) {
+        sleep(referenceProperties.getSimulatedLatency().toNanos());
+        return brokerId > 0 ? ACTIVE : null;
+    }
+
+    @Override
+    public Map<Long, String> accountStatuses() {
+        return allActive(referenceProperties.getSimulatedAccounts());
+    }
+
+    @Override
+    public Map<Long, String> brokerStatuses() {
+        return allActive(referenceProperties.getSimulatedBrokers());
+    }
+
+    // One round trip for the whole listing, as a bulk query would be
+    private Map<Long, String> allActive(int count) {
+        sleep(referenceProperties.getSimulatedLatency().toNanos());
+        Map<Long, String> statuses = new HashMap<>(Math.max(16, count * 2));
+        for (long id = 1; id <= count; id++) {
+            statuses.put(id, ACTIVE);
+        }
+        return statuses;
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching reference data", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jk.labs.java1721.concurrency.forex_engine.repository;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.AccountBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Ledger checkpoints: one JDBC batch of upserts into account_balance per checkpoint, in one transaction
+@Repository
+@RequiredArgsConstructor
+public class AccountBalanceRepository {
+
+    private static final String UPSERT_SQL = """
+            MERGE INTO account_balance b
+            USING (VALUES (CAST(? AS VARCHAR(50)), CAST(? AS VARCHAR(3)), CAST(? AS NUMERIC(19, 4)), CAST(? AS TIMESTAMP)))
+                AS s (account_id, currency, balance, updated_dt)
+            ON b.account_id = s.account_id AND b.currency = s.currency
+            WHEN MATCHED THEN UPDATE SET balance = s.balance, updated_dt = s.updated_dt
+            WHEN NOT MATCHED THEN INSERT (account_id, currency, balance, updated_dt)
+                VALUES (s.account_id, s.currency, s.balance, s.updated_dt)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public void upsertBatch(List<AccountBalance> balances) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(UPSERT_SQL, balances, balances.size(), (ps, balance) -> {
+                    ps.setString(1, balance.getAccountId());
+                    ps.setString(2, balance.getCurrency());
+                    ps.setBigDecimal(3, balance.getBalance());
+                    ps.setTimestamp(4, Timestamp.from(balance.getTimestamp()));
+                }));
+    }
+
+    public List<AccountBalance> findByAccountId(String accountId) {
+        return jdbcTemplate.query(
+                "SELECT account_id, currency, balance, updated_dt FROM account_balance WHERE account_id = ?",
+                (rs, row) -> AccountBalance.builder()
+                        .accountId(rs.getString(1))
+                        .currency(rs.getString(2))
+                        .balance(rs.getBigDecimal(3))
+                        .timestamp(rs.getTimestamp(4).toInstant())
+                        .build(),
+                accountId);
+    }
+}
@@ -0,0 +1,173 @@
+package com.jk.labs.java1721.concurrency.forex_engine.repository;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NetSettlementDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.NetInstruction;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+Batched writes of net instructions into `net_settlement` (schema generated from the NetSettlement entity), same
+approach as TradeBatchRepository: one JDBC batch and one commit per settlement micro-batch, row-by-row retry if
+the batch fails. One row per instruction carries the ids of all its trades (packed longs), so the audit trail
+from instruction to trades costs no extra writes.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class NetSettlementRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO net_settlement (instruction_id, account_id, from_currency, to_currency, amount, quote_amount,
+                                        rate, no_of_units, trade_count, min_trade_id, max_trade_id, last_sequence,
+                                        trade_ids, window_opened_dt, created_dt)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private static final String SELECT_SQL = """
+            SELECT instruction_id, account_id, from_currency, to_currency, amount, quote_amount, rate, no_of_units,
+                   trade_count, trade_ids, window_opened_dt, created_dt
+            FROM net_settlement""";
+
+    private static final RowMapper<NetSettlementDto> ROW_MAPPER = (rs, row) -> NetSettlementDto.builder()
+            .instructionId(rs.getLong(1))
+            .accountId(Long.parseLong(rs.getString(2)))
+            .fromCurrency(rs.getString(3))
+            .toCurrency(rs.getString(4))
+            .amount(rs.getBigDecimal(5))
+            .quoteAmount(rs.getBigDecimal(6))
+            .rate(rs.getBigDecimal(7))
+            .units(rs.getLong(8))
+            .tradeCount(rs.getInt(9))
+            .tradeIds(unpack(rs.getBytes(10)))
+            .windowOpened(rs.getTimestamp(11).toInstant())
+            .created(rs.getTimestamp(12).toInstant())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Returns one flag per instruction (same order): true when the row was written
+    public boolean[] insertBatch(List<NetInstruction> instructions) {
+        boolean[] written = new boolean[instructions.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, instructions, instructions.size(), NetSettlementRepository::bind));
+            Arrays.fill(written, true);
+        } catch (DataAccessException batchFailure) {
+            log.warn("Batch insert of {} net instructions failed, retrying row by row: {}",
+                    instructions.size(), batchFailure.getMessage());
+            for (int i = 0; i < instructions.size(); i++) {
+                written[i] = insertOne(instructions.get(i));
+            }
+        }
+        return written;
+    }
+
+    public boolean insertOne(NetInstruction instruction) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, instruction));
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Insert of net instruction {} failed: {}", instruction.getTradeId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // Null when there is no such instruction
+    public NetSettlementDto find(long instructionId) {
+        List<NetSettlementDto> rows = jdbcTemplate.query(SELECT_SQL + " WHERE instruction_id = ?", ROW_MAPPER, instructionId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // The instruction that settled the trade, or null; account and pair come from the trade's audit record
+    public NetSettlementDto findByTrade(long tradeId, long accountId, int currencyPair) {
+        List<NetSettlementDto> candidates = jdbcTemplate.query(SELECT_SQL + """
+                         WHERE account_id = ? AND from_currency = ? AND to_currency = ?
+                           AND min_trade_id <= ? AND max_trade_id >= ?""",
+                ROW_MAPPER, Long.toString(accountId), CurrencyPair.base(currencyPair).name(),
+                CurrencyPair.quote(currencyPair).name(), tradeId, tradeId);
+        for (NetSettlementDto candidate : candidates) {
+            if (candidate.getTradeIds().contains(tradeId)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Highest instruction id written so far (0 if none): the netting stage hands out ids above it
+    public long maxInstructionId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(instruction_id) FROM net_settlement", Long.class);
+        return max == null ? 0L : max;
+    }
+
+    // Highest id of a netted trade (0 if none); netted trades have no row in `trade`
+    public long maxNettedTradeId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(max_trade_id) FROM net_settlement", Long.class);
+        return max == null ? 0L : max;
+    }
+
+    // Ids of every trade netted by an instruction holding a WAL sequence above `sequence`: WAL replay skips them
+    public Set<Long> nettedTradeIdsAfter(long sequence) {
+        Set<Long> tradeIds = new HashSet<>();
+        jdbcTemplate.query("SELECT trade_ids FROM net_settlement WHERE last_sequence > ?",
+                (RowCallbackHandler) rs -> tradeIds.addAll(unpack(rs.getBytes(1))), sequence);
+        return tradeIds;
+    }
+
+    private static void bind(PreparedStatement ps, NetInstruction instruction) throws SQLException {
+        int pair = instruction.getCurrencyPair();
+        ps.setLong(1, instruction.getTradeId());
+        ps.setString(2, Long.toString(instruction.getAccountId()));
+        ps.setString(3, CurrencyPair.base(pair).name());
+        ps.setString(4, CurrencyPair.quote(pair).name());
+        ps.setBigDecimal(5, FixedPoint.toBigDecimal(instruction.getAmount(), FixedPoint.AMOUNT_DECIMALS));
+        ps.setBigDecimal(6, FixedPoint.toBigDecimal(instruction.getQuoteAmount(), FixedPoint.AMOUNT_DECIMALS));
+        ps.setBigDecimal(7, FixedPoint.toBigDecimal(instruction.getRate(), FixedPoint.RATE_DECIMALS));
+        ps.setLong(8, instruction.getTotalUnits());
+        ps.setInt(9, instruction.tradeCount());
+        ps.setLong(10, instruction.getMinTradeId());
+        ps.setLong(11, instruction.getMaxTradeId());
+        ps.setLong(12, instruction.getLastSequence());
+        ps.setBytes(13, pack(instruction.getTrades()));
+        ps.setTimestamp(14, new Timestamp(instruction.getWindowOpenedMillis()));
+        ps.setTimestamp(15, new Timestamp(instruction.getCreatedAtMillis()));
+    }
+
+    private static byte[] pack(List<TradeEvent> trades) {
+        ByteBuffer packed = ByteBuffer.allocate(trades.size() * Long.BYTES);
+        for (TradeEvent trade : trades) {
+            packed.putLong(trade.getTradeId());
+        }
+        return packed.array();
+    }
+
+    private static List<Long> unpack(byte[] packed) {
+        if (packed == null) {
+            return List.of();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        List<Long> tradeIds = new ArrayList<>(packed.length / Long.BYTES);
+        while (buffer.remaining() >= Long.BYTES) {
+            tradeIds.add(buffer.getLong());
+        }
+        return tradeIds;
+    }
+}
@@ -0,0 +1,146 @@
+package com.jk.labs.java1721.concurrency.forex_engine.repository;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+Batched writes into the `trade` table (schema generated from the Trade entity).
+
+Why not a Spring Data repository with saveAll()?
+    Trade ids are assigned by the producer, so save() cannot tell a new entity from a detached one:
+    it calls merge(), which issues a SELECT per row before the INSERT. Together with one flush per entity that caps
+    settlement at a few thousand trades per second.
+
+What we do instead:
+    - One PreparedStatement, one addBatch() per trade, one executeBatch() and one commit per micro-batch.
+    - Ids are bound explicitly; no SELECT, no sequence round-trip.
+    - All rows of a batch are the same INSERT, which is what hibernate.order_inserts would achieve for JPA writes.
+    - Binding is the persistence boundary: this is where the primitive TradeEvent fields become the entity's
+      column types (String ids, currency codes, BigDecimal amounts); nothing upstream pays for that conversion.
+    - If the batch fails (e.g. a duplicate id), it is rolled back and retried row by row so that one bad trade
+      only fails itself.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class TradeBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO trade (trade_id, account_id, broker_id, from_currency, to_currency,
+                               amount, no_of_units, rate, created_dt, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Returns one flag per trade (same order): true when the row was written
+    public boolean[] insertBatch(List<TradeEvent> trades) {
+        boolean[] written = new boolean[trades.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, trades, trades.size(), TradeBatchRepository::bind));
+            Arrays.fill(written, true);
+        } catch (DataAccessException batchFailure) {
+            log.warn("Batch insert of {} trades failed, retrying row by row: {}", trades.size(), batchFailure.getMessage());
+            for (int i = 0; i < trades.size(); i++) {
+                written[i] = insertOne(trades.get(i));
+            }
+        }
+        return written;
+    }
+
+    public boolean insertOne(TradeEvent trade) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, trade));
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Insert of trade {} failed: {}", trade.getTradeId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // The subset of `tradeIds` that already has a row: WAL replay skips trades that settled before the restart
+    public Set<Long> existingTradeIds(List<Long> tradeIds) {
+        if (tradeIds.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT trade_id FROM trade WHERE trade_id IN (" + "?,".repeat(tradeIds.size() - 1) + "?)";
+        Object[] ids = tradeIds.stream().map(id -> Long.toString(id)).toArray();
+        return new HashSet<>(jdbcTemplate.query(sql, (rs, row) -> Long.parseLong(rs.getString(1)), ids));
+    }
+
+    /*
+    Highest trade id with a row, 0 if none: after a restart the producer continues above it. trade_id is a VARCHAR,
+    so MAX over the column would compare strings ("9" > "10"); the ids are cast instead, which reads the whole table
+    once (startup only).
+     */
+    public long maxTradeId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(CAST(trade_id AS BIGINT)) FROM trade", Long.class);
+        return max == null ? 0L : max;
+    }
+
+    /*
+    Reconciliation: streams trade_id and amount of the rows created in [createdFrom, createdTo) whose trade_id, as
+    stored (a string), lies in [fromId, toId); a null bound is open. One index range scan on the key, read with a
+    forward-only cursor `fetchSize` rows at a time, so no range is ever held in memory.
+     */
+    public void scanRange(String fromId, String toId, Instant createdFrom, Instant createdTo, int fetchSize,
+                          TradeRowHandler handler) {
+        String sql = "SELECT trade_id, amount FROM trade WHERE created_dt >= ? AND created_dt < ?"
+                + (fromId != null ? " AND trade_id >= ?" : "")
+                + (toId != null ? " AND trade_id < ?" : "");
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            int parameter = 1;
+            ps.setTimestamp(parameter++, Timestamp.from(createdFrom));
+            ps.setTimestamp(parameter++, Timestamp.from(createdTo));
+            if (fromId != null) {
+                ps.setString(parameter++, fromId);
+            }
+            if (toId != null) {
+                ps.setString(parameter, toId);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.row(Long.parseLong(rs.getString(1)),
+                FixedPoint.toScaled(rs.getBigDecimal(2), FixedPoint.AMOUNT_DECIMALS)));
+    }
+
+    @FunctionalInterface
+    public interface TradeRowHandler {
+        // amount in FixedPoint.AMOUNT_SCALE
+        void row(long tradeId, long amount);
+    }
+
+    private static void bind(PreparedStatement ps, TradeEvent trade) throws SQLException {
+        int pair = trade.getCurrencyPair();
+        ps.setString(1, Long.toString(trade.getTradeId()));
+        ps.setString(2, Long.toString(trade.getAccountId()));
+        ps.setString(3, Long.toString(trade.getBrokerId()));
+        ps.setString(4, CurrencyPair.base(pair).name());
+        ps.setString(5, CurrencyPair.quote(pair).name());
+        ps.setBigDecimal(6, FixedPoint.toBigDecimal(trade.getAmount(), FixedPoint.AMOUNT_DECIMALS));
+        ps.setInt(7, trade.getUnits());
+        ps.setBigDecimal(8, FixedPoint.toBigDecimal(trade.getRate(), FixedPoint.RATE_DECIMALS));
+        ps.setTimestamp(9, new Timestamp(trade.getCreatedAtMillis()));
+        ps.setString(10, trade.getStatus() != null ? trade.getStatus().name() : null);
+    }
+}
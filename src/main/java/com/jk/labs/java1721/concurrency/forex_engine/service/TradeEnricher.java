@@ -1,7 +1,18 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
 public interface TradeEnricher {
     void start();
 
     void stop();
+
+    // Looks up the rate below and stamps it on the trade
+    void enrich(TradeEvent trade);
+
+    /*
+    The lookup enrich() is made of. It may block and throws when the trade cannot be enriched; it only reads its
+    argument, so the structured pipeline can run it under a deadline in its own scope.
+     */
+    long lookupRate(int currencyPair);
 }
@@ -0,0 +1,15 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
+public interface TradeNetter {
+    void start();
+
+    void stop();
+
+    // Folds the enriched trade into the current window; it is settled when its net instruction is
+    void net(TradeEvent trade);
+
+    NettingStatsDto stats();
+}
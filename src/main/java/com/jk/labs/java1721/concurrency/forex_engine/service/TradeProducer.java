@@ -1,7 +1,15 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
 public interface TradeProducer {
     void start();
 
     void stop();
+
+    // Next trade from the event pool with a fresh id; the caller hands it to the queue or releases it
+    TradeEvent nextTrade();
+
+    // WAL recovery: new ids continue after the highest id journaled before the restart
+    void skipTradeIdsTo(long tradeId);
 }
@@ -1,9 +1,128 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AccountBalancesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AutoscaleStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkIngestResultDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.GatewayStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.JournalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LedgerStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LoadStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NetSettlementDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PairAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RateCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationReportDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.SettlementStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WarmStartStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+
+import com.jk.labs.java1721.concurrency.forex_engine.load.LoadProfile;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
 public interface TradeQueueService {
     void startClassicBlockingQueuePipeline();
 
     void stopClassicBlockingQueuePipeline();
 
     void startVirtualThreadPipeline();
+
+    void stopVirtualThreadPipeline();
+
+    void startStructuredConcurrencyPipeline();
+
+    void stopStructuredConcurrencyPipeline();
+
+    List<PipelineStatsDto> pipelineStats();
+
+    SettlementStatsDto settlementStats();
+
+    List<ShardStatsDto> shardStats();
+
+    // Per-stage workers, lag and utilization as the autoscaler last saw them, and its recent resize decisions
+    AutoscaleStatsDto autoscaleStats();
+
+    // Null for an account the ledger has never seen
+    AccountBalancesDto accountBalances(long accountId);
+
+    LedgerStatsDto ledgerStats();
+
+    RateCacheStatsDto rateStats();
+
+    ReferenceCacheStatsDto referenceStats();
+
+    // Drops the cached status so the next trade reads it from the reference source
+    void invalidateAccount(long accountId);
+
+    void invalidateBroker(long brokerId);
+
+    // Null if the trade is not in the audit journal
+    Trade auditedTrade(long tradeId);
+
+    JournalStatsDto journalStats();
+
+    // Audit records against the trade table for trades created in [from, to), in the background; null bounds default
+    // to today (UTC) so far. IllegalStateException while a run is going
+    ReconciliationReportDto startReconciliation(Instant from, Instant to);
+
+    // Progress of the running reconciliation, or the result of the last one; null if none has run
+    ReconciliationReportDto reconciliationReport();
+
+    NettingStatsDto nettingStats();
+
+    // Null if there is no such instruction
+    NetSettlementDto netInstruction(long instructionId);
+
+    // Null if the trade is not audited or was not netted
+    NetSettlementDto netInstructionForTrade(long tradeId);
+
+    List<PairAnalyticsDto> pairAnalytics();
+
+    // Null for an unknown currency pair
+    PairAnalyticsDto pairAnalytics(String base, String quote);
+
+    GatewayStatsDto gatewayStats();
+
+    WalStatsDto walStats();
+
+    WarmStartStatsDto warmStartStats();
+
+    // Writes a warm-start snapshot now and returns the stats with it
+    WarmStartStatsDto warmStartSnapshot();
+
+    AdmissionStatsDto admissionStats();
+
+    // Newest first
+    List<Trade> deadLetters(int limit);
+
+    ValidationRulesDto validationRules();
+
+    // Compiles and swaps in a new rule set while the pipeline runs; IllegalArgumentException if it does not compile
+    ValidationRulesDto updateValidationRules(ValidationRulesDto rules);
+
+    ValidationStatsDto validationStats();
+
+    // Newest first
+    List<RejectedTradeDto> validationRejects(int limit);
+
+    // Streams an NDJSON or JSON-array body of trades into the running pipeline, see BulkTradeIngestor
+    BulkIngestResultDto ingestTrades(InputStream body, int batchSize);
+
+    // Null parameters fall back to forex.load.*
+    void startLoad(Integer rate, Integer threads, LoadProfile profile, Duration duration);
+
+    void stopLoad();
+
+    LoadStatsDto loadStats();
 }
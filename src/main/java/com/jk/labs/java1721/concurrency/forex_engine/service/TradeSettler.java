@@ -1,7 +1,11 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
 public interface TradeSettler {
     void start();
 
     void stop();
+
+    void settle(TradeEvent trade);
 }
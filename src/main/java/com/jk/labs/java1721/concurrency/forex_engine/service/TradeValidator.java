@@ -1,7 +1,12 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service;
 
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+
 public interface TradeValidator {
     void start();
 
     void stop();
+
+    // Returns false when the trade must not continue down the pipeline
+    boolean validate(TradeEvent trade);
 }
@@ -0,0 +1,255 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.PerTaskExecutorFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.StageMetrics;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+Base of the thread-per-trade pipelines: instead of one worker pool per stage connected by queues, every trade gets
+its own thread that runs validate → enrich → settle → audit. Subclasses decide how the enrichment step runs, and
+may fetch what validation and enrichment read ahead of both (prefetch).
+
+    dispatcher thread ── take() from intake queue ── acquire permit ── submit(trade) ──▶ thread per trade
+                                                                                           validate → enrich → settle → audit
+                                                                                           release permit
+
+Why the Semaphore:
+    A thread-per-task executor has no queue and no thread cap, so a burst of trades would start a burst of threads
+    and, downstream, a burst of DB connections. The semaphore caps in-flight trades (max-in-flight of the mode);
+    when all permits are taken the dispatcher blocks, the intake queue fills up, and the producer's put() blocks -
+    the same backpressure chain as the classic pipeline.
+
+Graceful drain on stop():
+    1. running = false → the dispatcher keeps going until the intake queue is empty, then exits.
+       If it is still dispatching after drain-timeout it is interrupted and waited for: the trade it has taken but
+       not started yet is failed (counted, not lost silently) and the rest stay in the intake queue.
+    2. executor.shutdown() + awaitTermination(drain-timeout) → in-flight trades complete. The executor is only shut
+       down once the dispatcher has exited, so no trade is ever rejected by it.
+    3. Only if the timeout expires are the remaining trades interrupted with shutdownNow().
+ */
+@Slf4j
+public abstract class AbstractPerTradePipeline {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final PipelineMode mode;
+    private final String name;
+    protected final TradeQueueManager tradeQueueManager;
+    protected final TradeValidator tradeValidator;
+    protected final TradeEnricher tradeEnricher;
+    protected final TradeSettler tradeSettler;
+    protected final TradeAuditor tradeAuditor;
+    protected final PerTaskExecutorFactory perTaskExecutorFactory;
+    protected final PipelineStatsRegistry pipelineStatsRegistry;
+    protected final PipelineProperties pipelineProperties;
+    protected final TradeEventPool tradeEventPool;
+
+    private volatile boolean running;
+    private ExecutorService tradeExecutor;
+    private Semaphore inFlightPermits;
+    private Thread dispatcher;
+    protected PipelineModeStats stats;
+    private StageMetrics validationMetrics;
+    private StageMetrics enrichmentMetrics;
+    private StageMetrics settlementMetrics;
+    private StageMetrics auditMetrics;
+
+    protected AbstractPerTradePipeline(PipelineMode mode,
+                                       String name,
+                                       TradeQueueManager tradeQueueManager,
+                                       TradeValidator tradeValidator,
+                                       TradeEnricher tradeEnricher,
+                                       TradeSettler tradeSettler,
+                                       TradeAuditor tradeAuditor,
+                                       PerTaskExecutorFactory perTaskExecutorFactory,
+                                       PipelineStatsRegistry pipelineStatsRegistry,
+                                       PipelineProperties pipelineProperties,
+                                       TradeEventPool tradeEventPool) {
+        this.mode = mode;
+        this.name = name;
+        this.tradeQueueManager = tradeQueueManager;
+        this.tradeValidator = tradeValidator;
+        this.tradeEnricher = tradeEnricher;
+        this.tradeSettler = tradeSettler;
+        this.tradeAuditor = tradeAuditor;
+        this.perTaskExecutorFactory = perTaskExecutorFactory;
+        this.pipelineStatsRegistry = pipelineStatsRegistry;
+        this.pipelineProperties = pipelineProperties;
+        this.tradeEventPool = tradeEventPool;
+    }
+
+    // Semaphore permits of this mode
+    protected abstract int maxInFlight();
+
+    // Thread name prefix of the per-trade threads
+    protected abstract String threadNamePrefix();
+
+    // The enrichment step; the trade must be ENRICHED when it returns
+    protected abstract void enrich(TradeEvent trade) throws Exception;
+
+    // Runs before validation, timed with it; nothing by default, the validation rules then load cache misses themselves
+    protected void prefetch(TradeEvent trade) throws Exception {
+    }
+
+    // Called from start() before the dispatcher starts, and from stop() once every trade has finished
+    protected void onStart() {
+    }
+
+    protected void onStop() {
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        stats = pipelineStatsRegistry.stats(mode);
+        stats.start();
+        validationMetrics = pipelineStatsRegistry.stage(PipelineStage.VALIDATION);
+        enrichmentMetrics = pipelineStatsRegistry.stage(PipelineStage.ENRICHMENT);
+        settlementMetrics = pipelineStatsRegistry.stage(PipelineStage.SETTLEMENT);
+        auditMetrics = pipelineStatsRegistry.stage(PipelineStage.AUDIT);
+        inFlightPermits = new Semaphore(maxInFlight());
+        tradeExecutor = perTaskExecutorFactory.newPerTaskExecutor(threadNamePrefix());
+        onStart();
+        running = true;
+
+        dispatcher = new Thread(this::dispatchLoop, threadNamePrefix() + "dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        log.info("{} started (virtual={}, maxInFlight={})", name, perTaskExecutorFactory.isVirtual(), maxInFlight());
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        log.info("STARTED {} draining", name);
+        running = false;
+        long drainMillis = pipelineProperties.getDrainTimeout().toMillis();
+        try {
+            dispatcher.join(drainMillis);
+            if (dispatcher.isAlive()) {
+                log.warn("Drain timeout expired with {} trade(s) still queued, stopping the dispatcher",
+                        tradeQueueManager.getTradeQueue().size());
+                dispatcher.interrupt();
+                dispatcher.join();
+            }
+            tradeExecutor.shutdown();
+            if (!tradeExecutor.awaitTermination(drainMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Drain timeout expired, interrupting in-flight trades");
+                tradeExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dispatcher.interrupt();
+            tradeExecutor.shutdownNow();
+        } finally {
+            onStop();
+            stats.stop();
+            dispatcher = null;
+            tradeExecutor = null;
+        }
+        log.info("COMPLETED {} drained: {}", name, stats.snapshot());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void dispatchLoop() {
+        TradeQueue<TradeEvent> intake = tradeQueueManager.getTradeQueue();
+        TradeEvent trade = null;
+        try {
+            while (running || !intake.isEmpty()) {
+                trade = intake.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (trade == null) {
+                    continue;
+                }
+                inFlightPermits.acquire();
+                TradeEvent dispatched = trade;
+                trade = null;
+                try {
+                    tradeExecutor.execute(() -> processTrade(dispatched));
+                } catch (RuntimeException e) {
+                    inFlightPermits.release();
+                    log.error("Failed to dispatch trade {}", dispatched.getTradeId(), e);
+                    failUndispatched(dispatched);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // stop() gave up waiting for a permit: the trade already taken off the intake queue never started
+            if (trade != null) {
+                log.warn("Trade {} not dispatched before the drain timeout", trade.getTradeId());
+                failUndispatched(trade);
+            }
+        }
+    }
+
+    private void failUndispatched(TradeEvent trade) {
+        trade.setStatus(TradeStatus.FAILED);
+        stats.recordFailed();
+        tradeQueueManager.markSettled(trade);
+        tradeEventPool.release(trade);
+    }
+
+    private void processTrade(TradeEvent trade) {
+        try {
+            // each step is timed (sampled) into the same per-stage metrics as the classic stages
+            long start = validationMetrics.startNanos();
+            prefetch(trade);
+            boolean valid = tradeValidator.validate(trade);
+            validationMetrics.recordHandled(1, start);
+            if (!valid) {
+                stats.recordRejected();
+                return;
+            }
+            start = enrichmentMetrics.startNanos();
+            enrich(trade);
+            enrichmentMetrics.recordHandled(1, start);
+            start = settlementMetrics.startNanos();
+            tradeSettler.settle(trade);
+            settlementMetrics.recordHandled(1, start);
+            start = auditMetrics.startNanos();
+            tradeAuditor.audit(trade);
+            auditMetrics.recordHandled(1, start);
+            stats.recordCompleted(trade.getIntakeNanos());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            trade.setStatus(TradeStatus.FAILED);
+            stats.recordFailed();
+            logFailure(trade, e);
+            tradeQueueManager.markSettled(trade);
+        } finally {
+            tradeEventPool.release(trade);
+            inFlightPermits.release();
+        }
+    }
+
+    protected void logFailure(TradeEvent trade, Exception e) {
+        log.warn("Trade {} failed in {}", trade.getTradeId(), name, e);
+    }
+}
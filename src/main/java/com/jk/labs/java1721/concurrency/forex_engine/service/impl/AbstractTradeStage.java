@@ -0,0 +1,419 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.ShardStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.StageMetrics;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+One stage of the classic pipeline: N workers on a dedicated executor, all take()-ing from the stage's own
+bounded inbound queue and put()-ing what they produce into the next stage's inbound queue.
+
+    inbound queue ──take()──▶ worker 1..N ──handle(trade)──put()──▶ next stage inbound queue
+
+Shutdown (poison pill + latch):
+    stop() puts one POISON_PILL per worker into the inbound queue. Pills queue up behind the backlog, so every
+    worker first finishes the trades ahead of its pill, then exits and counts down the latch.
+    stop() returns once the latch reaches zero: at that point this stage has forwarded everything it accepted,
+    and the next stage can be stopped the same way. Stopping stages in pipeline order drains the whole pipeline.
+    If the latch does not reach zero within forex.pipeline.drain-timeout, the workers are interrupted.
+
+Sharding (forex.pipeline.<stage>.shards > 1):
+    One worker per shard, each bound to its own shard queue: worker i is the single consumer of shard i, so trades
+    with the same shard key are handled strictly in arrival order. stop() puts one pill into every shard queue.
+
+Micro-batching (forex.pipeline.<stage>.batch-size > 1):
+    A worker blocks for the first trade, then keeps draining the inbound queue until the batch is full or
+    forex.pipeline.<stage>.linger has elapsed, and hands the whole batch to handleBatch(). Under load batches fill
+    immediately (throughput); when traffic is light a trade waits at most `linger` (latency bound).
+    A BatchCursor tracks how many trades of the batch have been forwarded or released: if handleBatch() throws,
+    only the trades past it are failed, never one the next stage or the pool already owns.
+
+Resizing (forex.pipeline.<stage>.min-workers / max-workers, driven by StageAutoscaler):
+    An unsharded stage runs on a ThreadPoolExecutor whose core size follows the worker target. resize() raises the
+    target and starts the extra worker loops at once; lowering it lets surplus workers retire after their current
+    trade or batch (a CAS on the packed target/running count, so exactly the surplus retires). stop() freezes the
+    count with the same CAS and puts one pill per worker still running. Sharded stages keep one worker per shard.
+
+Metrics:
+    Every handle()/handleBatch() call is timed into the stage's StageMetrics (service time, busy time for worker
+    utilization); the time a worker spends blocked in take() is not, so utilization near 1.0 means the stage, not
+    its input, is the bottleneck.
+ */
+@Slf4j
+public abstract class AbstractTradeStage {
+
+    private final PipelineStage stage;
+    private final TradeQueueManager tradeQueueManager;
+    private final PipelineProperties pipelineProperties;
+    private final PipelineStatsRegistry pipelineStatsRegistry;
+    private final TradeEventPool tradeEventPool;
+    private final StageMetrics stageMetrics;
+
+    private volatile boolean running;
+    private ThreadPoolExecutor workers;
+    private volatile CountDownLatch workersStopped;
+    // (worker target << 32) | worker loops running; see resize() and retireIfSurplus()
+    private final AtomicLong workerState = new AtomicLong();
+    private volatile int minWorkers;
+    private volatile int maxWorkers;
+    private volatile boolean sharded;
+
+    protected AbstractTradeStage(PipelineStage stage,
+                                 TradeQueueManager tradeQueueManager,
+                                 PipelineProperties pipelineProperties,
+                                 PipelineStatsRegistry pipelineStatsRegistry,
+                                 TradeEventPool tradeEventPool) {
+        this.stage = stage;
+        this.tradeQueueManager = tradeQueueManager;
+        this.pipelineProperties = pipelineProperties;
+        this.pipelineStatsRegistry = pipelineStatsRegistry;
+        this.tradeEventPool = tradeEventPool;
+        this.stageMetrics = pipelineStatsRegistry.stage(stage);
+    }
+
+    // Processes one trade taken from the inbound queue; implementations forward() it to the next stage
+    protected abstract void handle(TradeEvent trade) throws InterruptedException;
+
+    /*
+    Processes a micro-batch; override when the stage can do better than one trade at a time (e.g. JDBC batching).
+    Trades leave the stage in batch order: once batch.get(i) has been forwarded or released, call
+    cursor.handedOff(i + 1). An override may reorder the list in place before it hands anything off.
+     */
+    protected void handleBatch(List<TradeEvent> batch, BatchCursor cursor) throws InterruptedException {
+        for (int i = 0; i < batch.size(); i++) {
+            handleSafely(batch.get(i));
+            cursor.handedOff(i + 1);
+        }
+    }
+
+    // One per worker: trades [0, handedOff) of its current batch have left the stage
+    protected static final class BatchCursor {
+
+        private int handedOff;
+
+        public void handedOff(int count) {
+            handedOff = count;
+        }
+
+        int handedOff() {
+            return handedOff;
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        int shards = tradeQueueManager.shardCount(stage);
+        PipelineProperties.Stage settings = pipelineProperties.stage(stage);
+        sharded = shards > 1;
+        int workerCount = sharded ? shards : settings.getWorkers();
+        minWorkers = sharded ? workerCount : Math.max(1, Math.min(settings.getMinWorkers(), workerCount));
+        maxWorkers = sharded ? workerCount : Math.max(workerCount, settings.getMaxWorkers());
+        // twice the bound: room for retiring workers whose loops have not returned yet
+        workers = new ThreadPoolExecutor(workerCount, 2 * maxWorkers, 30, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new NamedThreadFactory(stage.name().toLowerCase() + (sharded ? "-shard-" : "-worker-")));
+        workerState.set(workerState(workerCount, workerCount));
+        running = true;
+        stageMetrics.setWorkers(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            int worker = i;
+            workers.execute(() -> workerLoop(worker));
+        }
+        log.info("{} stage started with {} workers{}", stage, workerCount,
+                sharded ? " (one per shard)" : maxWorkers > minWorkers ? " (" + minWorkers + ".." + maxWorkers + ")" : "");
+    }
+
+    /*
+    Sets the number of workers within [min-workers, max-workers] and returns the new target; a stopped or sharded
+    stage keeps its size. Growing starts the extra workers right away, shrinking takes effect as surplus workers
+    finish what they are handling.
+     */
+    public synchronized int resize(int target) {
+        if (!running || sharded) {
+            return targetWorkers();
+        }
+        int clamped = Math.max(minWorkers, Math.min(maxWorkers, target));
+        long current;
+        int added;
+        do {
+            current = workerState.get();
+            int loops = (int) current;
+            added = Math.max(0, clamped - loops);
+            if (workerTarget(current) == clamped && added == 0) {
+                return clamped;
+            }
+        } while (!workerState.compareAndSet(current, workerState(clamped, (int) current + added)));
+
+        workers.setCorePoolSize(clamped);
+        for (int i = 0; i < added; i++) {
+            workers.execute(() -> workerLoop(0));
+        }
+        stageMetrics.setWorkers(clamped);
+        return clamped;
+    }
+
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        log.info("STARTED {} stage stopping", stage);
+        running = false;
+        // no worker retires from here on: every loop still running takes exactly one pill
+        int workerCount = (int) workerState.getAndUpdate(state -> workerState(Integer.MAX_VALUE, (int) state));
+        workersStopped = new CountDownLatch(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                inboundQueue(i).put(TradeQueueManager.POISON_PILL);
+            }
+            if (!workersStopped.await(pipelineProperties.getDrainTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("{} stage did not drain within {}, interrupting workers", stage, pipelineProperties.getDrainTimeout());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        } finally {
+            workers.shutdown();
+            workers = null;
+            workerState.set(0L);
+            stageMetrics.setWorkers(0);
+        }
+        log.info("COMPLETED {} stage stopped", stage);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public PipelineStage stage() {
+        return stage;
+    }
+
+    // Running, unsharded and allowed more than one size: StageAutoscaler may resize() it
+    public boolean isScalable() {
+        return running && !sharded && maxWorkers > minWorkers;
+    }
+
+    // Workers the stage is sized for; 0 while stopped
+    public int targetWorkers() {
+        return running ? workerTarget(workerState.get()) : 0;
+    }
+
+    public int minWorkers() {
+        return minWorkers;
+    }
+
+    public int maxWorkers() {
+        return maxWorkers;
+    }
+
+    // Trades waiting in the stage's inbound queue(s)
+    public int queueDepth() {
+        int depth = 0;
+        for (int shard = 0; shard < tradeQueueManager.shardCount(stage); shard++) {
+            depth += tradeQueueManager.inboundQueue(stage, shard).size();
+        }
+        return depth;
+    }
+
+    protected void forward(PipelineStage next, TradeEvent trade) throws InterruptedException {
+        tradeQueueManager.route(next, trade);
+    }
+
+    // The event leaves the pipeline here (completed, rejected or failed): recycle it
+    protected void release(TradeEvent trade) {
+        tradeEventPool.release(trade);
+    }
+
+    // See TradeQueueManager.markSettled; marking twice is harmless
+    protected void markSettled(TradeEvent trade) {
+        tradeQueueManager.markSettled(trade);
+    }
+
+    // A trade that failed in this stage, counted for the pipeline mode and for the stage
+    protected void recordFailed() {
+        classicStats().recordFailed();
+        stageMetrics.recordFailed();
+    }
+
+    protected PipelineModeStats classicStats() {
+        return pipelineStatsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE);
+    }
+
+    // Worker i consumes shard i of a sharded stage; all workers share shard 0 otherwise
+    private TradeQueue<TradeEvent> inboundQueue(int worker) {
+        return tradeQueueManager.inboundQueue(stage, sharded ? worker : 0);
+    }
+
+    private void workerLoop(int worker) {
+        TradeQueue<TradeEvent> inbound = inboundQueue(worker);
+        ShardStats shardStats = sharded ? tradeQueueManager.shardStats(stage, worker) : null;
+        PipelineProperties.Stage settings = pipelineProperties.stage(stage);
+        boolean retired = false;
+        try {
+            if (settings.getBatchSize() > 1) {
+                retired = batchLoop(inbound, shardStats, settings.getBatchSize(), settings.getLinger().toNanos());
+            } else {
+                retired = singleLoop(inbound, shardStats);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!retired) {
+                workersStopped.countDown();
+            }
+        }
+    }
+
+    // Returns true when the worker retired after a resize(), false when it took its pill
+    private boolean singleLoop(TradeQueue<TradeEvent> inbound, ShardStats shardStats) throws InterruptedException {
+        while (true) {
+            TradeEvent trade = inbound.take();
+            if (trade == TradeQueueManager.POISON_PILL) {
+                return false;
+            }
+            if (shardStats != null) {
+                recordProcessed(shardStats, trade);
+            }
+            long start = stageMetrics.startNanos();
+            handleSafely(trade);
+            stageMetrics.recordHandled(1, start);
+            if (retireIfSurplus()) {
+                return true;
+            }
+        }
+    }
+
+    private boolean batchLoop(TradeQueue<TradeEvent> inbound, ShardStats shardStats,
+                              int batchSize, long lingerNanos) throws InterruptedException {
+        List<TradeEvent> batch = new ArrayList<>(batchSize);
+        BatchCursor cursor = new BatchCursor();
+        while (true) {
+            batch.add(inbound.take());
+            boolean pillSeen = isPoisonPill(batch, 0);
+            long deadline = System.nanoTime() + lingerNanos;
+            while (!pillSeen && batch.size() < batchSize) {
+                int from = batch.size();
+                if (inbound.drainTo(batch, batchSize - from) == 0) {
+                    long remaining = deadline - System.nanoTime();
+                    TradeEvent trade = remaining > 0 ? inbound.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (trade == null) {
+                        break;
+                    }
+                    batch.add(trade);
+                }
+                pillSeen = isPoisonPill(batch, from);
+            }
+
+            int pills = 0;
+            if (pillSeen) {
+                int before = batch.size();
+                batch.removeIf(trade -> trade == TradeQueueManager.POISON_PILL);
+                pills = before - batch.size();
+            }
+            if (!batch.isEmpty()) {
+                if (shardStats != null) {
+                    for (TradeEvent trade : batch) {
+                        recordProcessed(shardStats, trade);
+                    }
+                }
+                long start = stageMetrics.startNanos();
+                cursor.handedOff(0);
+                try {
+                    handleBatch(batch, cursor);
+                } catch (RuntimeException e) {
+                    // the ones before the cursor are in the next stage's queue or back in the pool already
+                    for (int i = cursor.handedOff(); i < batch.size(); i++) {
+                        markFailed(batch.get(i), e);
+                    }
+                }
+                stageMetrics.recordHandled(batch.size(), start);
+                batch.clear();
+            }
+            if (pills > 0) {
+                // drainTo may have grabbed pills meant for other workers: hand them back
+                for (int i = 1; i < pills; i++) {
+                    inbound.put(TradeQueueManager.POISON_PILL);
+                }
+                return false;
+            }
+            if (retireIfSurplus()) {
+                return true;
+            }
+        }
+    }
+
+    // One volatile read per trade or batch; the CAS only runs after a resize() below the running count
+    private boolean retireIfSurplus() {
+        while (true) {
+            long current = workerState.get();
+            int loops = (int) current;
+            if (loops <= workerTarget(current)) {
+                return false;
+            }
+            if (workerState.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static long workerState(int target, int loops) {
+        return ((long) target << 32) | loops;
+    }
+
+    private static int workerTarget(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private void recordProcessed(ShardStats shardStats, TradeEvent trade) {
+        shardStats.recordProcessed(pipelineProperties.getShardKey().key(trade), trade.getIntakeNanos());
+    }
+
+    // Identity check: the pill is a dedicated instance
+    private static boolean isPoisonPill(List<TradeEvent> batch, int from) {
+        for (int i = from; i < batch.size(); i++) {
+            if (batch.get(i) == TradeQueueManager.POISON_PILL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void handleSafely(TradeEvent trade) throws InterruptedException {
+        try {
+            handle(trade);
+        } catch (RuntimeException e) {
+            markFailed(trade, e);
+        }
+    }
+
+    protected void markFailed(TradeEvent trade, Exception cause) {
+        trade.setStatus(TradeStatus.FAILED);
+        recordFailed();
+        log.warn("{} stage failed for trade {}", stage, trade.getTradeId(), cause);
+        markSettled(trade);
+        release(trade);
+    }
+}
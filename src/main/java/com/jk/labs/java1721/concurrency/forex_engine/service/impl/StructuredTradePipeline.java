@@ -0,0 +1,159 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.PerTaskExecutorFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.ShutdownOnFailureScope;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+Structured-concurrency pipeline: one thread per trade like the virtual-thread pipeline, but the trade's lookups
+run concurrently in a scope with a deadline instead of one after the other.
+
+    trade thread ── open scope ─┬─ fork: account status (ReferenceDataCache) ─┬─ joinUntil(deadline) ── validate
+                                ├─ fork: broker status  (ReferenceDataCache) ─┤      ── enrich ── settle ── audit
+                                └─ fork: rate           (RateCache)          ─┘
+
+Account and broker statuses stay validation rules (ValidationEngine reads ReferenceDataCache): the forks only load
+them into the cache, so an inactive account is still a reject with a reason code, not a failed fork, and the
+rules find both statuses cached. In the other modes the rules load two misses one after the other and the rate
+is looked up after them; here a trade waits for the slowest of the three lookups only. An invalid pair has no rate
+to look up and is not forked; validation rejects it.
+
+🧩 Scope rules (ShutdownOnFailureScope, the StructuredTaskScope.ShutdownOnFailure contract)
+    | event                          | what happens                                                          |
+    |--------------------------------|-----------------------------------------------------------------------|
+    | every lookup succeeds          | the trade is validated; if valid, the rate is stamped and it goes on  |
+    | a lookup throws                | the other lookups are interrupted; the trade fails with the cause     |
+    | the deadline passes            | the lookups still running are interrupted; the trade fails            |
+    The deadline (forex.pipeline.structured.deadline) starts when the scope opens; misses are counted in
+    deadlinesExceeded(). The scope runs in prefetch(), so its time is part of the validation stage metrics.
+    No lookup outlives its trade: the scope only closes once every fork has stopped, so the pooled event can be
+    released right after.
+
+A blocked lookup (a pair past max-staleness waiting on RateSource, a slow reference read) then costs at most the
+deadline, at the price of three thread starts per trade. With the java21 profile those are virtual threads; on
+Java 17 they come from a cached platform pool, which is only reasonable with a modest
+forex.pipeline.structured.max-in-flight.
+ */
+@Component
+@Slf4j
+public class StructuredTradePipeline extends AbstractPerTradePipeline {
+
+    private final ReferenceDataCache referenceDataCache;
+    private final LongAdder deadlinesExceeded = new LongAdder();
+
+    private ExecutorService lookupExecutor;
+    private long deadlineNanos;
+
+    public StructuredTradePipeline(TradeQueueManager tradeQueueManager,
+                                   TradeValidator tradeValidator,
+                                   TradeEnricher tradeEnricher,
+                                   TradeSettler tradeSettler,
+                                   TradeAuditor tradeAuditor,
+                                   PerTaskExecutorFactory perTaskExecutorFactory,
+                                   PipelineStatsRegistry pipelineStatsRegistry,
+                                   PipelineProperties pipelineProperties,
+                                   TradeEventPool tradeEventPool,
+                                   ReferenceDataCache referenceDataCache) {
+        super(PipelineMode.STRUCTURED_CONCURRENCY, "Structured concurrency pipeline", tradeQueueManager,
+                tradeValidator, tradeEnricher, tradeSettler, tradeAuditor, perTaskExecutorFactory,
+                pipelineStatsRegistry, pipelineProperties, tradeEventPool);
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    // Trades failed because their lookups did not finish within the deadline
+    public long deadlinesExceeded() {
+        return deadlinesExceeded.sum();
+    }
+
+    @Override
+    protected int maxInFlight() {
+        return pipelineProperties.getStructured().getMaxInFlight();
+    }
+
+    @Override
+    protected String threadNamePrefix() {
+        return "sc-trade-";
+    }
+
+    @Override
+    protected void onStart() {
+        deadlineNanos = pipelineProperties.getStructured().getDeadline().toNanos();
+        lookupExecutor = perTaskExecutorFactory.newPerTaskExecutor("sc-lookup-");
+    }
+
+    @Override
+    protected void onStop() {
+        // every scope has closed by now, so nothing is left running in here
+        lookupExecutor.shutdownNow();
+        lookupExecutor = null;
+        log.info("Structured concurrency pipeline: {} trade(s) missed the lookup deadline so far",
+                deadlinesExceeded.sum());
+    }
+
+    @Override
+    protected void prefetch(TradeEvent trade) throws InterruptedException, ExecutionException, TimeoutException {
+        // forks capture plain values, never the pooled event
+        long accountId = trade.getAccountId();
+        long brokerId = trade.getBrokerId();
+        int currencyPair = trade.getCurrencyPair();
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(lookupExecutor)) {
+            // missing ids are validation rejects and are not looked up, as in CompiledRuleSet
+            if (accountId > 0) {
+                scope.fork(() -> referenceDataCache.accountStatus(accountId));
+            }
+            if (brokerId > 0) {
+                scope.fork(() -> referenceDataCache.brokerStatus(brokerId));
+            }
+            Supplier<Long> rate = CurrencyPair.isValid(currencyPair)
+                    ? scope.fork(() -> tradeEnricher.lookupRate(currencyPair))
+                    : null;
+            try {
+                scope.joinUntil(System.nanoTime() + deadlineNanos);
+            } catch (TimeoutException e) {
+                deadlinesExceeded.increment();
+                throw e;
+            }
+            scope.throwIfFailed();
+            if (rate != null) {
+                trade.setRate(rate.get());
+            }
+        }
+    }
+
+    @Override
+    protected void enrich(TradeEvent trade) {
+        // the rate was stamped by prefetch(); a trade with an invalid pair was rejected before it got here
+        trade.setStatus(TradeStatus.ENRICHED);
+    }
+
+    @Override
+    protected void logFailure(TradeEvent trade, Exception e) {
+        // a missed deadline or a failed lookup is an outcome, not a bug: no stack trace for those
+        if (e instanceof TimeoutException || e instanceof ExecutionException) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.warn("Trade {} failed its lookups: {}", trade.getTradeId(), cause.toString());
+        } else {
+            super.logFailure(trade, e);
+        }
+    }
+}
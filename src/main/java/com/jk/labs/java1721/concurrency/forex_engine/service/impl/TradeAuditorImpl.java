@@ -1,17 +1,71 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.analytics.TradeAnalytics;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvents;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditJournal;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
-public class TradeAuditorImpl implements TradeAuditor {
-    @Override
-    public void start() {
+@Slf4j
+public class TradeAuditorImpl extends AbstractTradeStage implements TradeAuditor {
+
+    private final AuditJournal auditJournal;
+    private final TradeAnalytics tradeAnalytics;
+
+    public TradeAuditorImpl(TradeQueueManager tradeQueueManager,
+                            PipelineProperties pipelineProperties,
+                            PipelineStatsRegistry pipelineStatsRegistry,
+                            TradeEventPool tradeEventPool,
+                            AuditJournal auditJournal,
+                            TradeAnalytics tradeAnalytics) {
+        super(PipelineStage.AUDIT, tradeQueueManager, pipelineProperties, pipelineStatsRegistry, tradeEventPool);
+        this.auditJournal = auditJournal;
+        this.tradeAnalytics = tradeAnalytics;
+    }
 
+    // Last stage: nothing to forward, the trade has completed the classic pipeline
+    @Override
+    protected void handle(TradeEvent trade) {
+        audit(trade);
+        classicStats().recordCompleted(trade.getIntakeNanos());
+        release(trade);
     }
 
+    // One commitBatch() for the whole micro-batch: a single fsync under FsyncPolicy.BATCH
     @Override
-    public void stop() {
+    protected void handleBatch(List<TradeEvent> batch, BatchCursor cursor) {
+        for (TradeEvent trade : batch) {
+            auditJournal.append(trade);
+            tradeAnalytics.record(trade);
+        }
+        auditJournal.commitBatch();
+        for (int i = 0; i < batch.size(); i++) {
+            TradeEvent trade = batch.get(i);
+            classicStats().recordCompleted(trade.getIntakeNanos());
+            release(trade);
+            cursor.handedOff(i + 1);
+        }
+    }
 
+    // Also the virtual-thread pipeline's entry point, where every trade is a batch of one
+    @Override
+    public void audit(TradeEvent trade) {
+        auditJournal.append(trade);
+        auditJournal.commitBatch();
+        tradeAnalytics.record(trade);
+        // audit boundary: the entity view is only materialised when somebody is going to read it
+        if (log.isDebugEnabled()) {
+            log.debug("Audited trade: {}", TradeEvents.toEntity(trade));
+        }
     }
 }
@@ -1,17 +1,50 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.config.NettingProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.rates.RateCache;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
 import org.springframework.stereotype.Service;
 
 @Service
-public class TradeEnricherImpl implements TradeEnricher {
-    @Override
-    public void start() {
+public class TradeEnricherImpl extends AbstractTradeStage implements TradeEnricher {
+
+    private final RateCache rateCache;
+    private final NettingProperties nettingProperties;
 
+    public TradeEnricherImpl(TradeQueueManager tradeQueueManager,
+                             PipelineProperties pipelineProperties,
+                             PipelineStatsRegistry pipelineStatsRegistry,
+                             TradeEventPool tradeEventPool,
+                             RateCache rateCache,
+                             NettingProperties nettingProperties) {
+        super(PipelineStage.ENRICHMENT, tradeQueueManager, pipelineProperties, pipelineStatsRegistry, tradeEventPool);
+        this.rateCache = rateCache;
+        this.nettingProperties = nettingProperties;
     }
 
     @Override
-    public void stop() {
+    protected void handle(TradeEvent trade) throws InterruptedException {
+        enrich(trade);
+        forward(nettingProperties.isEnabled() ? PipelineStage.NETTING : PipelineStage.SETTLEMENT, trade);
+    }
 
+    @Override
+    public void enrich(TradeEvent trade) {
+        // account and broker statuses are validation rules (ValidationEngine), checked before a trade gets here
+        trade.setRate(lookupRate(trade.getCurrencyPair()));
+        trade.setStatus(TradeStatus.ENRICHED);
+    }
+
+    @Override
+    public long lookupRate(int currencyPair) {
+        // Cache hit on the hot path; blocks only when the pair has no rate younger than forex.rates.max-staleness
+        return rateCache.rate(currencyPair);
     }
 }
@@ -0,0 +1,238 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.NettingProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.NetInstruction;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.NetSettlementRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeNetter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Netting stage (forex.netting.enabled): sits between enrichment and settlement and turns every trade of one account
+and currency pair within a tumbling window into a single net settlement instruction.
+
+    enrichers ──▶ [NETTING] ──▶ window: ConcurrentHashMap<Key(accountId, pair), NetInstruction>
+                                    │ closes after forex.netting.window or at max-trades trades
+                                    └──▶ one NetInstruction per key ──▶ [SETTLEMENT] ──▶ one net_settlement row
+                                                                                     └──▶ each trade ──▶ [AUDIT]
+
+🧩 Window hand-over
+    Workers fold trades into the current Window; a window is closed by the worker that fills it to max-trades or
+    by the ticker once it is `window` old, whichever comes first. Closing swaps in a fresh window with one CAS
+    (only one closer wins), marks the old one closed and waits for the workers still folding into it:
+        worker   writers++ → closed? (writers--, retry on the new window) : fold → writers--
+        closer   swap → closed = true → wait until writers == 0 → emit
+    Both sides write one flag and then read the other's, so a trade either lands in the old window before it is
+    emitted or in the new one - never in neither.
+
+🧩 Traceability
+    Instruction ids come from one counter, seeded on start() from MAX(instruction_id) of net_settlement, so they
+    never repeat across restarts (unlike intake sequences, which start over when the WAL is off).
+    A NetInstruction keeps its trades. Settlement writes the instruction with the ids of all its trades and then
+    hands every trade to audit with status NETTED, so the journal still has one record per trade and each one can
+    be followed to its instruction (GET /netting/trades/{tradeId}).
+
+Trades are held until their window closes: the window bounds end-to-end latency from below, and max-trades bounds
+how many pooled events sit outside the queues. stop() flushes the last window after the workers drain and the
+ticker has finished any window it was closing, so stopping stages in pipeline order still settles everything
+accepted.
+ */
+@Service
+@Slf4j
+public class TradeNetterImpl extends AbstractTradeStage implements TradeNetter {
+
+    // One position per account and pair; a record rather than bits packed into a long, so no two keys can collide
+    private record Key(long accountId, int currencyPair) {
+    }
+
+    private static final class Window {
+        final ConcurrentHashMap<Key, NetInstruction> positions = new ConcurrentHashMap<>();
+        final AtomicInteger trades = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+        final long openedNanos = System.nanoTime();
+        final long openedMillis = System.currentTimeMillis();
+        volatile boolean closed;
+    }
+
+    private final NettingProperties nettingProperties;
+    private final NetSettlementRepository netSettlementRepository;
+    private final AtomicLong lastInstructionId = new AtomicLong();
+    private final AtomicReference<Window> current = new AtomicReference<>(new Window());
+    private ScheduledExecutorService ticker;
+
+    private final LongAdder windowsClosed = new LongAdder();
+    private final LongAdder windowsClosedByCount = new LongAdder();
+    private final LongAdder tradesNetted = new LongAdder();
+    private final LongAdder instructionsEmitted = new LongAdder();
+    private final LongAdder failedTrades = new LongAdder();
+
+    public TradeNetterImpl(TradeQueueManager tradeQueueManager,
+                           PipelineProperties pipelineProperties,
+                           PipelineStatsRegistry pipelineStatsRegistry,
+                           TradeEventPool tradeEventPool,
+                           NettingProperties nettingProperties,
+                           NetSettlementRepository netSettlementRepository) {
+        super(PipelineStage.NETTING, tradeQueueManager, pipelineProperties, pipelineStatsRegistry, tradeEventPool);
+        this.nettingProperties = nettingProperties;
+        this.netSettlementRepository = netSettlementRepository;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        // resume above every id written so far, by this run or an earlier one
+        lastInstructionId.accumulateAndGet(netSettlementRepository.maxInstructionId(), Math::max);
+        super.start();
+        long windowNanos = nettingProperties.getWindow().toNanos();
+        // a window is closed at most a quarter of its length late
+        long tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), windowNanos / 4);
+        ticker = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("netting-ticker-"));
+        ticker.scheduleWithFixedDelay(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!isRunning()) {
+            return;
+        }
+        super.stop();
+        // no shutdownNow(): a tick inside close() may be forwarding a window it has already swapped out, and an
+        // interrupt would leave that window's trades unsettled and never released
+        ticker.shutdown();
+        try {
+            long waitMillis = nettingProperties.getWindow().toMillis() + 1_000;
+            while (!ticker.awaitTermination(waitMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Netting ticker still forwarding a closed window after {} ms, waiting for it", waitMillis);
+            }
+            // workers have drained into the window: settle what it holds before settlement is stopped
+            close(current.get(), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void handle(TradeEvent trade) throws InterruptedException {
+        Window window = fold(trade);
+        if (window != null && window.trades.get() >= nettingProperties.getMaxTrades()) {
+            close(window, true);
+        }
+    }
+
+    @Override
+    public void net(TradeEvent trade) {
+        fold(trade);
+    }
+
+    @Override
+    public NettingStatsDto stats() {
+        long trades = tradesNetted.sum();
+        long instructions = instructionsEmitted.sum();
+        Window window = current.get();
+        return NettingStatsDto.builder()
+                .enabled(nettingProperties.isEnabled())
+                .windowMillis(nettingProperties.getWindow().toMillis())
+                .maxTrades(nettingProperties.getMaxTrades())
+                .windowsClosed(windowsClosed.sum())
+                .windowsClosedByCount(windowsClosedByCount.sum())
+                .tradesNetted(trades)
+                .instructionsEmitted(instructions)
+                .compressionRatio(instructions == 0 ? 0.0 : (double) trades / instructions)
+                .failedTrades(failedTrades.sum())
+                .openTrades(window.trades.get())
+                .openPositions(window.positions.size())
+                .build();
+    }
+
+    // The window the trade went into, or null if it could not be netted (failed and released)
+    private Window fold(TradeEvent trade) {
+        while (true) {
+            Window window = current.get();
+            window.writers.incrementAndGet();
+            try {
+                if (window.closed) {
+                    continue;
+                }
+                NetInstruction position = window.positions.computeIfAbsent(
+                        new Key(trade.getAccountId(), trade.getCurrencyPair()),
+                        key -> new NetInstruction(trade.getAccountId(), trade.getCurrencyPair(), window.openedMillis));
+                try {
+                    synchronized (position) {
+                        position.add(trade);
+                    }
+                } catch (ArithmeticException e) {
+                    failedTrades.increment();
+                    markFailed(trade, e);
+                    return null;
+                }
+                window.trades.incrementAndGet();
+                return window;
+            } finally {
+                window.writers.decrementAndGet();
+            }
+        }
+    }
+
+    private void tick() {
+        try {
+            Window window = current.get();
+            if (window.trades.get() > 0
+                    && System.nanoTime() - window.openedNanos >= nettingProperties.getWindow().toNanos()) {
+                close(window, false);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Netting window close failed", e);
+        }
+    }
+
+    private void close(Window window, boolean byCount) throws InterruptedException {
+        if (!current.compareAndSet(window, new Window())) {
+            // somebody else closed it
+            return;
+        }
+        window.closed = true;
+        while (window.writers.get() != 0) {
+            Thread.onSpinWait();
+        }
+        if (window.positions.isEmpty()) {
+            return;
+        }
+
+        windowsClosed.increment();
+        if (byCount) {
+            windowsClosedByCount.increment();
+        }
+        long now = System.currentTimeMillis();
+        for (NetInstruction instruction : window.positions.values()) {
+            if (instruction.tradeCount() == 0) {
+                // its only trade overflowed and was failed
+                continue;
+            }
+            instruction.seal(lastInstructionId.incrementAndGet(), now);
+            tradesNetted.add(instruction.tradeCount());
+            instructionsEmitted.increment();
+            forward(PipelineStage.SETTLEMENT, instruction);
+        }
+    }
+}
@@ -1,23 +1,39 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
 import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
-import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeProducer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 @SuppressWarnings("CommentedOutCode")
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class TradeProducerImpl implements TradeProducer {
 
+    private static final int USD_EUR = CurrencyPair.code(Currency.USD, Currency.EUR);
+    private static final int ACCOUNTS = 1000;
+    private static final int BROKERS = 50;
+
+    private final TradeQueueManager tradeQueueManager;
+    private final TradeEventPool tradeEventPool;
+    private final AtomicLong tradeIds = new AtomicLong();
+
     // private ExecutorService executorService;
     private ScheduledExecutorService scheduledExecutorService;
     private ScheduledFuture<?> tradeProducerTask;
@@ -153,18 +169,7 @@ public class TradeProducerImpl implements TradeProducer {
             return;
         }
 
-        Random random = new Random();
-
-        Trade trade = new Trade();
-        trade.setId(UUID.randomUUID().toString());
-        trade.setAccountId(UUID.randomUUID().toString());
-        trade.setBrokerId(UUID.randomUUID().toString());
-        trade.setFromCurrency("USD");
-        trade.setToCurrency("EUR");
-        trade.setRate(BigDecimal.valueOf(random.nextDouble()));
-        trade.setStatus("NEW");
-        trade.setNoOfUnits(random.nextInt(1000));
-        trade.setAmount(BigDecimal.valueOf(random.nextDouble() * 10000));
+        TradeEvent trade = nextTrade();
 
         /*
         method call will block (halt) if the queue is full.
@@ -194,8 +199,44 @@ public class TradeProducerImpl implements TradeProducer {
 
           It resumes automatically once a consumer calls take() and frees space.
          */
-        TradeQueueManager.addTrade(trade);
+        // read before the hand-off: once queued, the event belongs to the pipeline and may already be recycled
+        long tradeId = trade.getTradeId();
+        Admission admission = tradeQueueManager.addTrade(IntakePath.PRODUCER, trade, System.nanoTime());
+        if (!admission.isAccepted()) {
+            // forex.admission.producer.policy turned it away: the event is still ours
+            tradeEventPool.release(trade);
+            log.warn("Trade {} not admitted: {}", tradeId, admission);
+            return;
+        }
+
+        log.info("Produced trade: {}", tradeId);
+    }
 
-        log.info("Produced trade: {}", trade.getId());
+    @Override
+    public TradeEvent nextTrade() {
+        /*
+        Allocation-free trade construction:
+            - ThreadLocalRandom instead of `new Random()` per trade (no allocation, no shared seed CAS).
+            - Ids come from an AtomicLong instead of UUID.randomUUID() (which allocates a UUID, its String and
+              goes through SecureRandom).
+            - The TradeEvent itself is recycled from the pool; amounts and rates are fixed-point longs.
+         */
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        TradeEvent trade = tradeEventPool.acquire();
+        trade.setTradeId(tradeIds.incrementAndGet());
+        trade.setAccountId(1 + random.nextInt(ACCOUNTS));
+        trade.setBrokerId(1 + random.nextInt(BROKERS));
+        trade.setCurrencyPair(USD_EUR);
+        trade.setStatus(TradeStatus.NEW);
+        trade.setUnits(random.nextInt(1000));
+        trade.setAmount(FixedPoint.toScaled(random.nextDouble() * 10000, FixedPoint.AMOUNT_SCALE));
+        trade.setCreatedAtMillis(System.currentTimeMillis());
+        return trade;
+    }
+
+    @Override
+    public void skipTradeIdsTo(long tradeId) {
+        tradeIds.accumulateAndGet(tradeId, Math::max);
     }
 }
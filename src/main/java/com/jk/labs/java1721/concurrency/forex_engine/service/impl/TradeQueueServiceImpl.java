@@ -1,59 +1,427 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.analytics.TradeAnalytics;
+import com.jk.labs.java1721.concurrency.forex_engine.autoscale.StageAutoscaler;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LoadProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.NettingProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AccountBalancesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AutoscaleStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkIngestResultDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.GatewayStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.JournalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LedgerStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.LoadStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NetSettlementDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PairAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RateCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationReportDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.SettlementStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WarmStartStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.AccountBalance;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
 import com.jk.labs.java1721.concurrency.forex_engine.core.model.Trade;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvents;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.gateway.TradeGateway;
+import com.jk.labs.java1721.concurrency.forex_engine.ingest.BulkTradeIngestor;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditJournal;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.LedgerCheckpointer;
+import com.jk.labs.java1721.concurrency.forex_engine.load.LoadGenerator;
+import com.jk.labs.java1721.concurrency.forex_engine.load.LoadProfile;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.SettlementStats;
+import com.jk.labs.java1721.concurrency.forex_engine.rates.RateCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reconciliation.TradeReconciler;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.AccountBalanceRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.NetSettlementRepository;
 import com.jk.labs.java1721.concurrency.forex_engine.service.*;
+import com.jk.labs.java1721.concurrency.forex_engine.validation.ValidationEngine;
+import com.jk.labs.java1721.concurrency.forex_engine.wal.WalRecovery;
+import com.jk.labs.java1721.concurrency.forex_engine.warmstart.WarmStart;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TradeQueueServiceImpl implements TradeQueueService {
 
-    private static final int QUEUE_CAPACITY = 10000;
-
-    public static final BlockingQueue<Trade> tradeQueue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
-
     private final TradeProducer tradeProducer;
     private final TradeValidator tradeValidator;
     private final TradeEnricher tradeEnricher;
+    private final TradeNetter tradeNetter;
     private final TradeSettler tradeSettler;
     private final TradeAuditor tradeAuditor;
+    private final VirtualThreadTradePipeline virtualThreadTradePipeline;
+    private final StructuredTradePipeline structuredTradePipeline;
+    private final PipelineStatsRegistry pipelineStatsRegistry;
+    private final SettlementStats settlementStats;
+    private final LoadGenerator loadGenerator;
+    private final LoadProperties loadProperties;
+    private final TradeQueueManager tradeQueueManager;
+    private final AccountLedger accountLedger;
+    private final LedgerCheckpointer ledgerCheckpointer;
+    private final AccountBalanceRepository accountBalanceRepository;
+    private final RateCache rateCache;
+    private final ReferenceDataCache referenceDataCache;
+    private final AuditJournal auditJournal;
+    private final WalRecovery walRecovery;
+    private final BulkTradeIngestor bulkTradeIngestor;
+    private final ValidationEngine validationEngine;
+    private final NettingProperties nettingProperties;
+    private final NetSettlementRepository netSettlementRepository;
+    private final TradeAnalytics tradeAnalytics;
+    private final TradeGateway tradeGateway;
+    private final TradeReconciler tradeReconciler;
+    private final StageAutoscaler stageAutoscaler;
+    private final WarmStart warmStart;
+
+    // All modes consume the same intake queue, so only one may run at a time
+    private final AtomicReference<PipelineMode> activeMode = new AtomicReference<>();
 
     @Override
     public void startClassicBlockingQueuePipeline() {
         log.info("Starting classic blocking queue pipeline...");
+        if (!activate(PipelineMode.CLASSIC_BLOCKING_QUEUE)) {
+            return;
+        }
+        pipelineStatsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).start();
 
         tradeProducer.start();
         tradeValidator.start();
         tradeEnricher.start();
+        if (nettingProperties.isEnabled()) {
+            tradeNetter.start();
+        }
         tradeSettler.start();
         tradeAuditor.start();
+        walRecovery.replayPending();
 
         log.info("Completed classic blocking queue pipeline...");
     }
 
     @Override
     public void stopClassicBlockingQueuePipeline() {
+        if (activeMode.get() != PipelineMode.CLASSIC_BLOCKING_QUEUE) {
+            log.info("Classic blocking queue pipeline is not running");
+            return;
+        }
         log.info("Started Stopping classic blocking queue pipeline...");
 
+        // Upstream first: each stop() returns once that stage has drained into the next one
+        loadGenerator.stop();
         tradeProducer.stop();
         tradeValidator.stop();
         tradeEnricher.stop();
+        tradeNetter.stop();
         tradeSettler.stop();
         tradeAuditor.stop();
 
+        pipelineStatsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).stop();
+        activeMode.set(null);
         log.info("Completed Stopping classic blocking queue pipeline...");
     }
 
     @Override
     public void startVirtualThreadPipeline() {
         log.info("Starting virtual thread pipeline...");
+        if (!activate(PipelineMode.VIRTUAL_THREADS)) {
+            return;
+        }
+
+        virtualThreadTradePipeline.start();
+        tradeProducer.start();
+        walRecovery.replayPending();
 
         log.info("Completed virtual thread pipeline...");
     }
+
+    @Override
+    public void stopVirtualThreadPipeline() {
+        if (activeMode.get() != PipelineMode.VIRTUAL_THREADS) {
+            log.info("Virtual thread pipeline is not running");
+            return;
+        }
+        log.info("Started Stopping virtual thread pipeline...");
+
+        // Producers first so the pipeline can drain what is already queued
+        loadGenerator.stop();
+        tradeProducer.stop();
+        virtualThreadTradePipeline.stop();
+
+        activeMode.set(null);
+        log.info("Completed Stopping virtual thread pipeline...");
+    }
+
+    @Override
+    public void startStructuredConcurrencyPipeline() {
+        log.info("Starting structured concurrency pipeline...");
+        if (!activate(PipelineMode.STRUCTURED_CONCURRENCY)) {
+            return;
+        }
+
+        structuredTradePipeline.start();
+        tradeProducer.start();
+        walRecovery.replayPending();
+
+        log.info("Completed structured concurrency pipeline...");
+    }
+
+    @Override
+    public void stopStructuredConcurrencyPipeline() {
+        if (activeMode.get() != PipelineMode.STRUCTURED_CONCURRENCY) {
+            log.info("Structured concurrency pipeline is not running");
+            return;
+        }
+        log.info("Started Stopping structured concurrency pipeline...");
+
+        loadGenerator.stop();
+        tradeProducer.stop();
+        structuredTradePipeline.stop();
+
+        activeMode.set(null);
+        log.info("Completed Stopping structured concurrency pipeline...");
+    }
+
+    @Override
+    public List<PipelineStatsDto> pipelineStats() {
+        return pipelineStatsRegistry.snapshot();
+    }
+
+    @Override
+    public SettlementStatsDto settlementStats() {
+        return settlementStats.snapshot();
+    }
+
+    @Override
+    public List<ShardStatsDto> shardStats() {
+        return tradeQueueManager.shardStatsSnapshot();
+    }
+
+    @Override
+    public AutoscaleStatsDto autoscaleStats() {
+        return stageAutoscaler.stats();
+    }
+
+    @Override
+    public AccountBalancesDto accountBalances(long accountId) {
+        long[] balances = accountLedger.snapshot(accountId);
+        if (balances == null) {
+            return null;
+        }
+        Map<String, BigDecimal> live = new TreeMap<>();
+        for (Currency currency : Currency.values()) {
+            if (balances[currency.ordinal()] != 0L) {
+                live.put(currency.name(), FixedPoint.toBigDecimal(balances[currency.ordinal()], FixedPoint.AMOUNT_DECIMALS));
+            }
+        }
+        Map<String, BigDecimal> checkpointed = new TreeMap<>();
+        for (AccountBalance balance : accountBalanceRepository.findByAccountId(Long.toString(accountId))) {
+            checkpointed.put(balance.getCurrency(), balance.getBalance());
+        }
+        return AccountBalancesDto.builder()
+                .accountId(Long.toString(accountId))
+                .balances(live)
+                .checkpointed(checkpointed)
+                .build();
+    }
+
+    @Override
+    public LedgerStatsDto ledgerStats() {
+        LedgerStatsDto stats = accountLedger.stats();
+        stats.setCheckpoints(ledgerCheckpointer.checkpoints());
+        stats.setLastCheckpointRows(ledgerCheckpointer.lastCheckpointRows());
+        stats.setLastCheckpointMicros(ledgerCheckpointer.lastCheckpointMicros());
+        return stats;
+    }
+
+    @Override
+    public RateCacheStatsDto rateStats() {
+        return rateCache.stats();
+    }
+
+    @Override
+    public ReferenceCacheStatsDto referenceStats() {
+        return referenceDataCache.stats();
+    }
+
+    @Override
+    public void invalidateAccount(long accountId) {
+        referenceDataCache.invalidateAccount(accountId);
+    }
+
+    @Override
+    public void invalidateBroker(long brokerId) {
+        referenceDataCache.invalidateBroker(brokerId);
+    }
+
+    @Override
+    public Trade auditedTrade(long tradeId) {
+        TradeEvent event = new TradeEvent();
+        return auditJournal.find(tradeId, event) ? TradeEvents.toEntity(event) : null;
+    }
+
+    @Override
+    public JournalStatsDto journalStats() {
+        return auditJournal.stats();
+    }
+
+    @Override
+    public ReconciliationReportDto startReconciliation(Instant from, Instant to) {
+        return tradeReconciler.start(from, to);
+    }
+
+    @Override
+    public ReconciliationReportDto reconciliationReport() {
+        return tradeReconciler.report();
+    }
+
+    @Override
+    public NettingStatsDto nettingStats() {
+        return tradeNetter.stats();
+    }
+
+    @Override
+    public NetSettlementDto netInstruction(long instructionId) {
+        return netSettlementRepository.find(instructionId);
+    }
+
+    @Override
+    public NetSettlementDto netInstructionForTrade(long tradeId) {
+        // the audit record has the account and pair that narrow the search to a handful of rows
+        TradeEvent event = new TradeEvent();
+        if (!auditJournal.find(tradeId, event) || event.getStatus() != TradeStatus.NETTED) {
+            return null;
+        }
+        return netSettlementRepository.findByTrade(tradeId, event.getAccountId(), event.getCurrencyPair());
+    }
+
+    @Override
+    public List<PairAnalyticsDto> pairAnalytics() {
+        return tradeAnalytics.pairs();
+    }
+
+    @Override
+    public PairAnalyticsDto pairAnalytics(String base, String quote) {
+        int pair = CurrencyPair.code(base, quote);
+        return CurrencyPair.isValid(pair) ? tradeAnalytics.snapshot(pair) : null;
+    }
+
+    @Override
+    public GatewayStatsDto gatewayStats() {
+        return tradeGateway.stats();
+    }
+
+    @Override
+    public WalStatsDto walStats() {
+        return walRecovery.stats();
+    }
+
+    @Override
+    public WarmStartStatsDto warmStartStats() {
+        return warmStart.stats();
+    }
+
+    @Override
+    public WarmStartStatsDto warmStartSnapshot() {
+        warmStart.snapshot();
+        return warmStart.stats();
+    }
+
+    @Override
+    public AdmissionStatsDto admissionStats() {
+        return tradeQueueManager.admissionStats();
+    }
+
+    @Override
+    public List<Trade> deadLetters(int limit) {
+        return tradeQueueManager.getAdmissionControl().getDeadLetters().latest(limit).stream()
+                .map(TradeEvents::toEntity)
+                .toList();
+    }
+
+    @Override
+    public ValidationRulesDto validationRules() {
+        return validationEngine.rules();
+    }
+
+    @Override
+    public ValidationRulesDto updateValidationRules(ValidationRulesDto rules) {
+        return validationEngine.update(rules);
+    }
+
+    @Override
+    public ValidationStatsDto validationStats() {
+        return validationEngine.stats();
+    }
+
+    @Override
+    public List<RejectedTradeDto> validationRejects(int limit) {
+        return validationEngine.rejects(limit);
+    }
+
+    @Override
+    public BulkIngestResultDto ingestTrades(InputStream body, int batchSize) {
+        if (activeMode.get() == null) {
+            throw new IllegalStateException("No pipeline is running; start one before ingesting trades");
+        }
+        return bulkTradeIngestor.ingest(body, batchSize);
+    }
+
+    @Override
+    public void startLoad(Integer rate, Integer threads, LoadProfile profile, Duration duration) {
+        if (activeMode.get() == null) {
+            throw new IllegalStateException("No pipeline is running; start one before generating load");
+        }
+        loadGenerator.start(loadProperties.withOverrides(rate, threads, profile, duration));
+    }
+
+    @Override
+    public void stopLoad() {
+        loadGenerator.stop();
+    }
+
+    @Override
+    public LoadStatsDto loadStats() {
+        return loadGenerator.snapshot();
+    }
+
+    // Returns false when the requested mode is already running
+    private boolean activate(PipelineMode mode) {
+        PipelineMode current = activeMode.compareAndExchange(null, mode);
+        if (current == null) {
+            return true;
+        }
+        if (current == mode) {
+            log.info("{} pipeline is already running", mode);
+            return false;
+        }
+        throw new IllegalStateException(current + " pipeline is running; stop it before starting " + mode);
+    }
 }
@@ -1,17 +1,211 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.NetInstruction;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.SettlementStats;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.NetSettlementRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Settlement persists trades into the `trade` table.
+
+Classic pipeline: runs in micro-batch mode (forex.pipeline.settlement.batch-size / linger), so each batch is a
+single JDBC batch insert and a single commit - see TradeBatchRepository.
+Virtual-thread pipeline: settle() writes the one trade its virtual thread carries; the thread unmounts while
+waiting on the database.
+
+Once a trade is written, both legs are posted to the in-memory AccountLedger: the account is debited the amount in
+the base currency and credited amount * rate in the quote currency. The ledger is lock-free, so this adds no
+blocking to either pipeline; balances reach account_balance through its write-behind checkpoints.
+
+With netting on (forex.netting.enabled) the classic pipeline also hands settlement NetInstructions - see
+TradeNetterImpl. An instruction is one net_settlement row and one ledger posting for all of its trades; the trades
+themselves are not written to `trade`, they go on to audit as NETTED (or FAILED with their instruction).
+ */
 @Service
-public class TradeSettlerImpl implements TradeSettler {
+@Slf4j
+public class TradeSettlerImpl extends AbstractTradeStage implements TradeSettler {
+
+    private final TradeBatchRepository tradeBatchRepository;
+    private final SettlementStats settlementStats;
+    private final AccountLedger accountLedger;
+    private final NetSettlementRepository netSettlementRepository;
+
+    public TradeSettlerImpl(TradeQueueManager tradeQueueManager,
+                            PipelineProperties pipelineProperties,
+                            PipelineStatsRegistry pipelineStatsRegistry,
+                            TradeEventPool tradeEventPool,
+                            TradeBatchRepository tradeBatchRepository,
+                            SettlementStats settlementStats,
+                            AccountLedger accountLedger,
+                            NetSettlementRepository netSettlementRepository) {
+        super(PipelineStage.SETTLEMENT, tradeQueueManager, pipelineProperties, pipelineStatsRegistry, tradeEventPool);
+        this.tradeBatchRepository = tradeBatchRepository;
+        this.settlementStats = settlementStats;
+        this.accountLedger = accountLedger;
+        this.netSettlementRepository = netSettlementRepository;
+    }
+
+    @Override
+    protected void handle(TradeEvent trade) throws InterruptedException {
+        if (trade instanceof NetInstruction instruction) {
+            settleNetted(List.of(instruction));
+            return;
+        }
+        settle(trade);
+        forward(PipelineStage.AUDIT, trade);
+    }
+
+    @Override
+    protected void handleBatch(List<TradeEvent> batch, BatchCursor cursor) throws InterruptedException {
+        // instructions go first, so the cursor has passed all of them before the first trade is handed off
+        int instructions = moveInstructionsToFront(batch);
+        if (instructions > 0) {
+            List<NetInstruction> netted = new ArrayList<>(instructions);
+            for (int i = 0; i < instructions; i++) {
+                netted.add((NetInstruction) batch.get(i));
+            }
+            settleNetted(netted);
+            cursor.handedOff(instructions);
+            if (instructions == batch.size()) {
+                return;
+            }
+        }
+        List<TradeEvent> trades = instructions == 0 ? batch : batch.subList(instructions, batch.size());
+
+        for (TradeEvent trade : trades) {
+            trade.setStatus(TradeStatus.SETTLED);
+        }
+
+        long start = System.nanoTime();
+        boolean[] written = tradeBatchRepository.insertBatch(trades);
+        long duration = System.nanoTime() - start;
+
+        // nothing below throws: from here on every trade's outcome is decided on its own
+        int settled = 0;
+        for (int i = 0; i < trades.size(); i++) {
+            TradeEvent trade = trades.get(i);
+            if (written[i]) {
+                settled++;
+                postSafely(trade);
+                markSettled(trade);
+                forward(PipelineStage.AUDIT, trade);
+            } else {
+                trade.setStatus(TradeStatus.FAILED);
+                recordFailed();
+                markSettled(trade);
+                release(trade);
+            }
+            cursor.handedOff(instructions + i + 1);
+        }
+        settlementStats.recordBatch(settled, trades.size() - settled, duration);
+    }
+
     @Override
-    public void start() {
+    public void settle(TradeEvent trade) {
+        trade.setStatus(TradeStatus.SETTLED);
 
+        long start = System.nanoTime();
+        boolean written = tradeBatchRepository.insertOne(trade);
+        settlementStats.recordBatch(written ? 1 : 0, written ? 0 : 1, System.nanoTime() - start);
+
+        if (!written) {
+            trade.setStatus(TradeStatus.FAILED);
+            throw new IllegalStateException("Settlement failed for trade " + trade.getTradeId());
+        }
+        postSafely(trade);
+        markSettled(trade);
     }
 
+    // An instruction is never pooled: failing it fails its trades
     @Override
-    public void stop() {
+    protected void markFailed(TradeEvent trade, Exception cause) {
+        if (trade instanceof NetInstruction instruction) {
+            for (TradeEvent netted : instruction.getTrades()) {
+                super.markFailed(netted, cause);
+            }
+            return;
+        }
+        super.markFailed(trade, cause);
+    }
+
+    // One row and one ledger posting per instruction; its trades share its outcome
+    private void settleNetted(List<NetInstruction> instructions) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean[] written = netSettlementRepository.insertBatch(instructions);
+        long duration = System.nanoTime() - start;
+
+        int settled = 0;
+        int failed = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            NetInstruction instruction = instructions.get(i);
+            if (written[i]) {
+                try {
+                    post(instruction.getAccountId(), instruction.getCurrencyPair(),
+                            instruction.getAmount(), instruction.getQuoteAmount());
+                } catch (IllegalStateException e) {
+                    log.error("Net instruction for account {} settled but not posted to the ledger: {}",
+                            instruction.getAccountId(), e.getMessage());
+                }
+            }
+            for (TradeEvent trade : instruction.getTrades()) {
+                if (written[i]) {
+                    settled++;
+                    trade.setStatus(TradeStatus.NETTED);
+                    markSettled(trade);
+                    forward(PipelineStage.AUDIT, trade);
+                } else {
+                    failed++;
+                    trade.setStatus(TradeStatus.FAILED);
+                    recordFailed();
+                    markSettled(trade);
+                    release(trade);
+                }
+            }
+        }
+        settlementStats.recordBatch(settled, failed, duration);
+    }
+
+    /*
+    The row is committed by now, so the trade is settled whatever happens here: a posting the ledger refuses (it is
+    full) is logged and the trade goes on to audit. Reconciliation reports the account's position as a break.
+     */
+    private void postSafely(TradeEvent trade) {
+        try {
+            post(trade.getAccountId(), trade.getCurrencyPair(),
+                    trade.getAmount(), FixedPoint.convert(trade.getAmount(), trade.getRate()));
+        } catch (IllegalStateException e) {
+            log.error("Trade {} settled but not posted to the ledger: {}", trade.getTradeId(), e.getMessage());
+        }
+    }
+
+    // Stable: trades keep their order behind the instructions
+    private static int moveInstructionsToFront(List<TradeEvent> batch) {
+        int instructions = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) instanceof NetInstruction) {
+                batch.add(instructions++, batch.remove(i));
+            }
+        }
+        return instructions;
+    }
 
+    private void post(long accountId, int pair, long baseAmount, long quoteAmount) {
+        accountLedger.post(accountId, CurrencyPair.base(pair), baseAmount, CurrencyPair.quote(pair), quoteAmount);
     }
 }
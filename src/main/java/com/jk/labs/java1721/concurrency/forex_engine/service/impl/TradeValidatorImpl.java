@@ -1,17 +1,69 @@
 package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
 
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
 import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import com.jk.labs.java1721.concurrency.forex_engine.validation.ValidationEngine;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
+/*
+Validation stage: the rules themselves live in ValidationEngine (compiled, hot-swappable). With
+forex.pipeline.validation.batch-size > 1 the stage validates whole micro-batches and then forwards the survivors in
+arrival order; rejected trades leave the pipeline here, their reason codes kept in the engine's reject queue.
+ */
 @Service
-public class TradeValidatorImpl implements TradeValidator {
-    @Override
-    public void start() {
+public class TradeValidatorImpl extends AbstractTradeStage implements TradeValidator {
+
+    private final ValidationEngine validationEngine;
+
+    public TradeValidatorImpl(TradeQueueManager tradeQueueManager,
+                              PipelineProperties pipelineProperties,
+                              PipelineStatsRegistry pipelineStatsRegistry,
+                              TradeEventPool tradeEventPool,
+                              ValidationEngine validationEngine) {
+        super(PipelineStage.VALIDATION, tradeQueueManager, pipelineProperties, pipelineStatsRegistry, tradeEventPool);
+        this.validationEngine = validationEngine;
+    }
 
+    @Override
+    protected void handle(TradeEvent trade) throws InterruptedException {
+        if (validate(trade)) {
+            forward(PipelineStage.ENRICHMENT, trade);
+        } else {
+            classicStats().recordRejected();
+            release(trade);
+        }
     }
 
     @Override
-    public void stop() {
+    protected void handleBatch(List<TradeEvent> batch, BatchCursor cursor) throws InterruptedException {
+        validationEngine.validateBatch(batch);
+        for (int i = 0; i < batch.size(); i++) {
+            TradeEvent trade = batch.get(i);
+            if (trade.getStatus() == TradeStatus.VALIDATED) {
+                forward(PipelineStage.ENRICHMENT, trade);
+            } else {
+                markSettled(trade);
+                classicStats().recordRejected();
+                release(trade);
+            }
+            cursor.handedOff(i + 1);
+        }
+    }
 
+    @Override
+    public boolean validate(TradeEvent trade) {
+        boolean valid = validationEngine.validate(trade);
+        if (!valid) {
+            markSettled(trade);
+        }
+        return valid;
     }
 }
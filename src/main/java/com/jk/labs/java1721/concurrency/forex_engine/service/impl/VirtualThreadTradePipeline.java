@@ -0,0 +1,52 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.PerTaskExecutorFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import org.springframework.stereotype.Component;
+
+/*
+Virtual-thread pipeline: one (virtual) thread per trade running validate → enrich → settle → audit sequentially,
+see AbstractPerTradePipeline. Enrichment runs its lookups one after the other on the trade's own thread.
+In-flight trades are capped by forex.pipeline.virtual-threads.max-in-flight.
+ */
+@Component
+public class VirtualThreadTradePipeline extends AbstractPerTradePipeline {
+
+    public VirtualThreadTradePipeline(TradeQueueManager tradeQueueManager,
+                                      TradeValidator tradeValidator,
+                                      TradeEnricher tradeEnricher,
+                                      TradeSettler tradeSettler,
+                                      TradeAuditor tradeAuditor,
+                                      PerTaskExecutorFactory perTaskExecutorFactory,
+                                      PipelineStatsRegistry pipelineStatsRegistry,
+                                      PipelineProperties pipelineProperties,
+                                      TradeEventPool tradeEventPool) {
+        super(PipelineMode.VIRTUAL_THREADS, "Virtual thread pipeline", tradeQueueManager, tradeValidator,
+                tradeEnricher, tradeSettler, tradeAuditor, perTaskExecutorFactory, pipelineStatsRegistry,
+                pipelineProperties, tradeEventPool);
+    }
+
+    @Override
+    protected int maxInFlight() {
+        return pipelineProperties.getVirtualThreads().getMaxInFlight();
+    }
+
+    @Override
+    protected String threadNamePrefix() {
+        return "trade-worker-";
+    }
+
+    @Override
+    protected void enrich(TradeEvent trade) {
+        tradeEnricher.enrich(trade);
+    }
+}
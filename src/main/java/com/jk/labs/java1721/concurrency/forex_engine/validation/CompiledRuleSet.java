@@ -0,0 +1,195 @@
+package com.jk.labs.java1721.concurrency.forex_engine.validation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+A validation rule set compiled once into flat arrays and scalars, so checking a trade is a fixed sequence of
+compares with no reflection, no lookup by name and no allocation.
+
+🧩 What each rule compiles to
+    | rule                  | compiled form                                  | check                                  |
+    |-----------------------|------------------------------------------------|----------------------------------------|
+    | ids present           | -                                              | id <= 0                                |
+    | pair valid/supported  | int[64]: failure bits per pair code            | one array load (bounds-checked)        |
+    | amount                | max in AMOUNT_SCALE, Long.MAX_VALUE = no limit | amount <= 0, amount > max              |
+    | units in [min, max]   | min and max - min                              | one unsigned compare                   |
+    | account/broker block  | sorted long[]                                  | binarySearch, skipped when empty       |
+    | account/broker active | ReferenceDataCache (null: rule off)            | one cache probe per id, ids > 0 only   |
+
+check() evaluates every rule and ORs the failure bits together (`|`, not `||`) instead of stopping at the first
+failure: the cost is the same for valid and invalid trades, and most terms compile to conditional moves rather
+than branches. Valid trades, the common case, never leave the straight path. The active-status rule is the one
+that reads shared state: a cache hit in steady state, a ReferenceDataSource round trip for an id never seen before.
+
+Instances are immutable, so ValidationEngine can swap a whole rule set with one reference write.
+ */
+public final class CompiledRuleSet {
+
+    private static final int MISSING_TRADE_ID = RejectReason.MISSING_TRADE_ID.bit();
+    private static final int MISSING_ACCOUNT = RejectReason.MISSING_ACCOUNT.bit();
+    private static final int MISSING_BROKER = RejectReason.MISSING_BROKER.bit();
+    private static final int INVALID_PAIR = RejectReason.INVALID_PAIR.bit();
+    private static final int UNSUPPORTED_PAIR = RejectReason.UNSUPPORTED_PAIR.bit();
+    private static final int NON_POSITIVE_AMOUNT = RejectReason.NON_POSITIVE_AMOUNT.bit();
+    private static final int AMOUNT_LIMIT = RejectReason.AMOUNT_LIMIT.bit();
+    private static final int UNITS_OUT_OF_RANGE = RejectReason.UNITS_OUT_OF_RANGE.bit();
+    private static final int ACCOUNT_BLOCKED = RejectReason.ACCOUNT_BLOCKED.bit();
+    private static final int BROKER_BLOCKED = RejectReason.BROKER_BLOCKED.bit();
+    private static final int ACCOUNT_INACTIVE = RejectReason.ACCOUNT_INACTIVE.bit();
+    private static final int BROKER_INACTIVE = RejectReason.BROKER_INACTIVE.bit();
+
+    private final long version;
+    private final ValidationRulesDto rules;
+    private final int[] pairFailures;
+    private final long maxAmount;
+    private final int minUnits;
+    private final int unitsSpan;
+    private final long[] blockedAccounts;
+    private final long[] blockedBrokers;
+    private final ReferenceDataCache referenceData;
+
+    private CompiledRuleSet(long version, ValidationRulesDto rules, int[] pairFailures, long maxAmount,
+                            int minUnits, int unitsSpan, long[] blockedAccounts, long[] blockedBrokers,
+                            ReferenceDataCache referenceData) {
+        this.version = version;
+        this.rules = rules;
+        this.pairFailures = pairFailures;
+        this.maxAmount = maxAmount;
+        this.minUnits = minUnits;
+        this.unitsSpan = unitsSpan;
+        this.blockedAccounts = blockedAccounts;
+        this.blockedBrokers = blockedBrokers;
+        this.referenceData = referenceData;
+    }
+
+    public static CompiledRuleSet compile(ValidationRulesDto rules, long version) {
+        return compile(rules, version, null);
+    }
+
+    /*
+    Throws IllegalArgumentException when the rule set is inconsistent; nothing is swapped in that case.
+    With a ReferenceDataCache, accounts and brokers that are unknown or not ACTIVE are rejected as well.
+     */
+    public static CompiledRuleSet compile(ValidationRulesDto rules, long version, ReferenceDataCache referenceData) {
+        if (rules.getMinUnits() > rules.getMaxUnits()) {
+            throw new IllegalArgumentException("minUnits " + rules.getMinUnits() + " exceeds maxUnits " + rules.getMaxUnits());
+        }
+        if (rules.getMaxAmount() != null && rules.getMaxAmount().signum() <= 0) {
+            throw new IllegalArgumentException("maxAmount must be positive: " + rules.getMaxAmount());
+        }
+
+        int[] pairFailures = compilePairs(rules.getSupportedPairs());
+        long maxAmount = rules.getMaxAmount() == null ? Long.MAX_VALUE : toAmount(rules.getMaxAmount());
+        long[] blockedAccounts = sorted(rules.getBlockedAccounts());
+        long[] blockedBrokers = sorted(rules.getBlockedBrokers());
+
+        ValidationRulesDto compiled = ValidationRulesDto.builder()
+                .version(version)
+                .supportedPairs(rules.getSupportedPairs() == null ? List.of() : List.copyOf(rules.getSupportedPairs()))
+                .minUnits(rules.getMinUnits())
+                .maxUnits(rules.getMaxUnits())
+                .maxAmount(rules.getMaxAmount())
+                .blockedAccounts(Arrays.stream(blockedAccounts).boxed().toList())
+                .blockedBrokers(Arrays.stream(blockedBrokers).boxed().toList())
+                .build();
+        return new CompiledRuleSet(version, compiled, pairFailures, maxAmount, rules.getMinUnits(),
+                rules.getMaxUnits() - rules.getMinUnits(), blockedAccounts, blockedBrokers, referenceData);
+    }
+
+    // Failure bits (RejectReason.bit()) of the trade; 0 when it passes every rule
+    public int check(TradeEvent trade) {
+        int pair = trade.getCurrencyPair();
+        long amount = trade.getAmount();
+        int failures = (trade.getTradeId() <= 0 ? MISSING_TRADE_ID : 0)
+                | (trade.getAccountId() <= 0 ? MISSING_ACCOUNT : 0)
+                | (trade.getBrokerId() <= 0 ? MISSING_BROKER : 0)
+                | (Integer.compareUnsigned(pair, pairFailures.length) < 0 ? pairFailures[pair] : INVALID_PAIR)
+                | (amount <= 0 ? NON_POSITIVE_AMOUNT : 0)
+                | (amount > maxAmount ? AMOUNT_LIMIT : 0)
+                // units < min wraps around to a large unsigned value, so one compare covers both bounds
+                | (Integer.compareUnsigned(trade.getUnits() - minUnits, unitsSpan) > 0 ? UNITS_OUT_OF_RANGE : 0);
+        if (blockedAccounts.length > 0 && Arrays.binarySearch(blockedAccounts, trade.getAccountId()) >= 0) {
+            failures |= ACCOUNT_BLOCKED;
+        }
+        if (blockedBrokers.length > 0 && Arrays.binarySearch(blockedBrokers, trade.getBrokerId()) >= 0) {
+            failures |= BROKER_BLOCKED;
+        }
+        if (referenceData != null) {
+            failures |= inactive(trade.getAccountId(), trade.getBrokerId());
+        }
+        return failures;
+    }
+
+    // Missing ids are MISSING_ACCOUNT / MISSING_BROKER already and are not looked up
+    private int inactive(long accountId, long brokerId) {
+        int failures = 0;
+        if (accountId > 0 && !ReferenceDataSource.ACTIVE.equals(referenceData.accountStatus(accountId))) {
+            failures |= ACCOUNT_INACTIVE;
+        }
+        if (brokerId > 0 && !ReferenceDataSource.ACTIVE.equals(referenceData.brokerStatus(brokerId))) {
+            failures |= BROKER_INACTIVE;
+        }
+        return failures;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // The rule set as configured, normalized (sorted block lists) and stamped with its version
+    public ValidationRulesDto rules() {
+        return rules;
+    }
+
+    // Per pair code: INVALID_PAIR for base == quote, UNSUPPORTED_PAIR for pairs outside a non-empty allow list
+    private static int[] compilePairs(List<String> supportedPairs) {
+        boolean allowAll = supportedPairs == null || supportedPairs.isEmpty();
+        int[] failures = new int[CurrencyPair.count()];
+        Arrays.fill(failures, allowAll ? 0 : UNSUPPORTED_PAIR);
+        if (!allowAll) {
+            for (String symbol : supportedPairs) {
+                failures[parsePair(symbol)] = 0;
+            }
+        }
+        for (int code = 0; code < failures.length; code++) {
+            if (CurrencyPair.base(code) == CurrencyPair.quote(code)) {
+                failures[code] = INVALID_PAIR;
+            }
+        }
+        return failures;
+    }
+
+    private static int parsePair(String symbol) {
+        String[] currencies = symbol == null ? new String[0] : symbol.trim().split("/");
+        int code = currencies.length == 2 ? CurrencyPair.code(currencies[0].trim(), currencies[1].trim()) : CurrencyPair.INVALID;
+        if (code == CurrencyPair.INVALID || CurrencyPair.base(code) == CurrencyPair.quote(code)) {
+            throw new IllegalArgumentException("Not a supported currency pair: " + symbol);
+        }
+        return code;
+    }
+
+    private static long toAmount(BigDecimal amount) {
+        try {
+            return FixedPoint.toScaled(amount, FixedPoint.AMOUNT_DECIMALS);
+        } catch (ArithmeticException e) {
+            // beyond the fixed-point range: no trade amount can exceed it
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long[] sorted(List<Long> ids) {
+        if (ids == null) {
+            return new long[0];
+        }
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+}
@@ -0,0 +1,73 @@
+package com.jk.labs.java1721.concurrency.forex_engine.validation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvents;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Trades rejected by validation, newest `capacity` kept with their reason codes for /validation/rejects. Same ring as
+DeadLetterStore: entries are copies, so the stage releases the pooled event as usual, and slots are overwritten
+once the ring wraps. Only rejects are written here, never valid trades, so a plain lock is cheap enough.
+ */
+public class RejectQueue {
+
+    private final TradeEvent[] trades;
+    private final int[] failures;
+    private final long[] versions;
+    private long written;
+
+    public RejectQueue(int capacity) {
+        this.trades = new TradeEvent[Math.max(1, capacity)];
+        this.failures = new int[trades.length];
+        this.versions = new long[trades.length];
+    }
+
+    public synchronized void add(TradeEvent trade, int failures, long rulesVersion) {
+        int slot = (int) (written++ % trades.length);
+        if (trades[slot] == null) {
+            trades[slot] = new TradeEvent();
+        }
+        trades[slot].copyFrom(trade);
+        this.failures[slot] = failures;
+        versions[slot] = rulesVersion;
+    }
+
+    // Newest first
+    public synchronized List<RejectedTradeDto> latest(int limit) {
+        int count = (int) Math.min(Math.min(limit, written), trades.length);
+        List<RejectedTradeDto> latest = new ArrayList<>(count);
+        for (long i = written - 1; i >= written - count; i--) {
+            int slot = (int) (i % trades.length);
+            latest.add(RejectedTradeDto.builder()
+                    .trade(TradeEvents.toEntity(trades[slot]))
+                    .reasons(reasons(failures[slot]))
+                    .rulesVersion(versions[slot])
+                    .build());
+        }
+        return latest;
+    }
+
+    // Trades rejected since startup, including those the ring no longer holds
+    public synchronized long total() {
+        return written;
+    }
+
+    public synchronized long size() {
+        return Math.min(written, trades.length);
+    }
+
+    public int capacity() {
+        return trades.length;
+    }
+
+    private static List<String> reasons(int failures) {
+        List<String> reasons = new ArrayList<>(Integer.bitCount(failures));
+        for (int remaining = failures; remaining != 0; remaining &= remaining - 1) {
+            reasons.add(RejectReason.first(remaining).name());
+        }
+        return reasons;
+    }
+}
@@ -0,0 +1,38 @@
+package com.jk.labs.java1721.concurrency.forex_engine.validation;
+
+/*
+Reason codes of the validation rules, in evaluation order: when a trade breaks several rules, the first one listed
+here is reported. At most 32 (CompiledRuleSet keeps one bit per reason in an int).
+ */
+public enum RejectReason {
+    // tradeId, accountId or brokerId missing (<= 0)
+    MISSING_TRADE_ID,
+    MISSING_ACCOUNT,
+    MISSING_BROKER,
+    // Not a currency pair at all: unknown code or base == quote
+    INVALID_PAIR,
+    // A valid pair outside forex.validation.supported-pairs
+    UNSUPPORTED_PAIR,
+    NON_POSITIVE_AMOUNT,
+    // Above forex.validation.max-amount
+    AMOUNT_LIMIT,
+    // Outside [min-units, max-units]
+    UNITS_OUT_OF_RANGE,
+    // On the compliance block lists
+    ACCOUNT_BLOCKED,
+    BROKER_BLOCKED,
+    // Unknown to the reference data, or known but not ACTIVE (ReferenceDataCache)
+    ACCOUNT_INACTIVE,
+    BROKER_INACTIVE;
+
+    private static final RejectReason[] VALUES = values();
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    // The first reason of a non-zero CompiledRuleSet.check() result
+    public static RejectReason first(int failures) {
+        return VALUES[Integer.numberOfTrailingZeros(failures)];
+    }
+}
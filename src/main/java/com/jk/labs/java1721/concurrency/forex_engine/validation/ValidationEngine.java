@@ -0,0 +1,195 @@
+package com.jk.labs.java1721.concurrency.forex_engine.validation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/*
+Runs the compiled validation rules (CompiledRuleSet) for both pipelines and keeps the rejects.
+
+🧩 Batches (validateBatch, the classic validation stage's micro-batch)
+    | batch size            | where the rules run                                                      |
+    |-----------------------|--------------------------------------------------------------------------|
+    | < parallel-threshold  | on the stage worker, one trade after the other                           |
+    | >= parallel-threshold | split across the engine's own ForkJoinPool (IntStream.range().parallel() |
+    |                       | submitted to it), forex.validation.parallelism threads                   |
+    Not the common pool: a reference cache miss blocks its thread on ReferenceDataSource, and parallel streams,
+    CompletableFuture defaults and everything else in the JVM would wait behind it. In parallel, each check only
+    stamps VALIDATED / REJECTED and keeps its failure bits in a per-batch int[]; rejects are then recorded from
+    those bits in batch order on the calling thread, so the reject queue sees no contention from pool threads and
+    no trade is checked twice. Sequential batches record each reject as they go and allocate nothing. A check costs nanoseconds, so forking only pays for itself on batches of thousands:
+    measure with ValidationBenchmark before lowering the threshold.
+
+🧩 Hot swap (update)
+    A new rule set is compiled off to the side and published with one AtomicReference write. A batch reads the
+    reference once, so every trade of a batch is checked against the same version and the pipeline never pauses:
+    batches already running finish on the old rules, the next batch picks up the new ones. A rule set that does
+    not compile is refused (IllegalArgumentException) and the old one stays in force.
+
+🧩 Reference data
+    Every rule set is compiled against the ReferenceDataCache, so an unknown or inactive account or broker is a
+    reject (ACCOUNT_INACTIVE / BROKER_INACTIVE) like any other rule, not an exception further down the pipeline.
+    Without a cache (null, e.g. in tests) the rule is off.
+ */
+@Component
+@Slf4j
+public class ValidationEngine {
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final ValidationProperties validationProperties;
+    private final ReferenceDataCache referenceDataCache;
+    private final RejectQueue rejectQueue;
+    private final ForkJoinPool pool;
+    private final AtomicReference<CompiledRuleSet> current = new AtomicReference<>();
+    private volatile long rulesUpdatedAtMillis;
+
+    private final LongAdder validated = new LongAdder();
+    private final LongAdder[] rejectsByReason = new LongAdder[REASONS.length];
+    private final LongAdder parallelBatches = new LongAdder();
+    private final LongAdder sequentialBatches = new LongAdder();
+
+    public ValidationEngine(ValidationProperties validationProperties, ReferenceDataCache referenceDataCache) {
+        this.validationProperties = validationProperties;
+        this.referenceDataCache = referenceDataCache;
+        this.rejectQueue = new RejectQueue(validationProperties.getRejectQueueCapacity());
+        int parallelism = validationProperties.getParallelism() > 0
+                ? validationProperties.getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        // workers are only started by the first parallel batch
+        this.pool = new ForkJoinPool(parallelism, ValidationEngine::newWorker, null, false);
+        for (int i = 0; i < rejectsByReason.length; i++) {
+            rejectsByReason[i] = new LongAdder();
+        }
+        // a broken startup rule set fails the context instead of running unvalidated
+        current.set(CompiledRuleSet.compile(validationProperties.toRules(), 1, referenceDataCache));
+        rulesUpdatedAtMillis = System.currentTimeMillis();
+    }
+
+    // Stamps VALIDATED or REJECTED on the trade; true when it may continue
+    public boolean validate(TradeEvent trade) {
+        CompiledRuleSet rules = current.get();
+        int failures = rules.check(trade);
+        if (failures == 0) {
+            trade.setStatus(TradeStatus.VALIDATED);
+            validated.increment();
+            return true;
+        }
+        trade.setStatus(TradeStatus.REJECTED);
+        recordReject(trade, failures, rules.version());
+        return false;
+    }
+
+    // Stamps VALIDATED or REJECTED on every trade of the batch, all against the same rule set version
+    public void validateBatch(List<TradeEvent> batch) {
+        CompiledRuleSet rules = current.get();
+        int size = batch.size();
+        int accepted = 0;
+        if (size < validationProperties.getParallelThreshold()) {
+            sequentialBatches.increment();
+            for (int i = 0; i < size; i++) {
+                TradeEvent trade = batch.get(i);
+                int failures = stamp(rules, trade);
+                if (failures == 0) {
+                    accepted++;
+                } else {
+                    recordReject(trade, failures, rules.version());
+                }
+            }
+            validated.add(accepted);
+            return;
+        }
+
+        parallelBatches.increment();
+        int[] failures = new int[size];
+        // a parallel stream started from inside a ForkJoinPool task runs in that pool
+        pool.submit(() -> IntStream.range(0, size).parallel()
+                .forEach(i -> failures[i] = stamp(rules, batch.get(i)))).join();
+        for (int i = 0; i < size; i++) {
+            if (failures[i] == 0) {
+                accepted++;
+            } else {
+                recordReject(batch.get(i), failures[i], rules.version());
+            }
+        }
+        validated.add(accepted);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    // Compiles and publishes a new rule set; returns it with its version
+    public synchronized ValidationRulesDto update(ValidationRulesDto rules) {
+        CompiledRuleSet compiled = CompiledRuleSet.compile(rules, current.get().version() + 1, referenceDataCache);
+        current.set(compiled);
+        rulesUpdatedAtMillis = System.currentTimeMillis();
+        log.info("Validation rules v{} in force: {}", compiled.version(), compiled.rules());
+        return compiled.rules();
+    }
+
+    public ValidationRulesDto rules() {
+        return current.get().rules();
+    }
+
+    public List<RejectedTradeDto> rejects(int limit) {
+        return rejectQueue.latest(limit);
+    }
+
+    public ValidationStatsDto stats() {
+        Map<String, Long> byReason = new LinkedHashMap<>();
+        for (RejectReason reason : REASONS) {
+            byReason.put(reason.name(), rejectsByReason[reason.ordinal()].sum());
+        }
+        return ValidationStatsDto.builder()
+                .rulesVersion(current.get().version())
+                .rulesUpdatedAtMillis(rulesUpdatedAtMillis)
+                .validated(validated.sum())
+                .rejected(rejectQueue.total())
+                .rejectsByReason(byReason)
+                .parallelBatches(parallelBatches.sum())
+                .sequentialBatches(sequentialBatches.sum())
+                .parallelThreshold(validationProperties.getParallelThreshold())
+                .rejectQueueSize(rejectQueue.size())
+                .rejectQueueCapacity(rejectQueue.capacity())
+                .build();
+    }
+
+    // Returns the failure bits (0 = valid)
+    private static int stamp(CompiledRuleSet rules, TradeEvent trade) {
+        int failures = rules.check(trade);
+        trade.setStatus(failures == 0 ? TradeStatus.VALIDATED : TradeStatus.REJECTED);
+        return failures;
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("validation-worker-" + worker.getPoolIndex());
+        worker.setDaemon(true);
+        return worker;
+    }
+
+    private void recordReject(TradeEvent trade, int failures, long version) {
+        for (int remaining = failures; remaining != 0; remaining &= remaining - 1) {
+            rejectsByReason[Integer.numberOfTrailingZeros(remaining)].increment();
+        }
+        rejectQueue.add(trade, failures, version);
+    }
+}
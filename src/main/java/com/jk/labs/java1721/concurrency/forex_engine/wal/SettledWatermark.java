@@ -0,0 +1,71 @@
+package com.jk.labs.java1721.concurrency.forex_engine.wal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+Highest intake sequence W such that every trade with sequence <= W is settled, or out of the pipeline for good
+(rejected, failed). Only the WAL tail after W needs replaying after a restart.
+
+Trades settle out of order (shards, several workers, batches), so settled sequences are first recorded in a ring:
+
+    markSettled(s):  ring[s & mask] = s                          any thread, lock-free
+    advance():       while ring[(W + 1) & mask] == W + 1: W++    checkpointer thread only
+
+A slot holds the sequence itself rather than a flag, so no slot ever needs clearing: a slot is "settled for W + 1"
+only while it holds exactly W + 1. The ring must be larger than the spread of unsettled sequences - everything
+in flight between intake and settlement - otherwise two of them share a slot and the watermark stalls (it never
+skips a trade, it just stops advancing). TradeQueueManager sizes it from the queue capacities.
+ */
+public class SettledWatermark {
+
+    private volatile AtomicLongArray settled;
+    private volatile long watermark;
+
+    public SettledWatermark(int window) {
+        allocate(window);
+    }
+
+    public void markSettled(long sequence) {
+        if (sequence <= 0) {
+            return; // not journaled (poison pill, pool-fresh event)
+        }
+        AtomicLongArray ring = settled;
+        int slot = (int) (sequence & (ring.length() - 1));
+        // max, not set: a late duplicate mark can never overwrite the mark of a newer sequence in the same slot
+        if (ring.get(slot) < sequence) {
+            ring.accumulateAndGet(slot, sequence, Math::max);
+        }
+    }
+
+    // Single caller: moves the watermark over every contiguous settled sequence and returns it
+    public long advance() {
+        AtomicLongArray ring = settled;
+        int mask = ring.length() - 1;
+        long next = watermark + 1;
+        while (ring.get((int) (next & mask)) == next) {
+            next++;
+        }
+        watermark = next - 1;
+        return watermark;
+    }
+
+    public long watermark() {
+        return watermark;
+    }
+
+    public int window() {
+        return settled.length();
+    }
+
+    // Recovery, before any pipeline runs: restart from a checkpointed watermark, with room for the replayed tail
+    public void reset(long watermark, int window) {
+        if (window > settled.length()) {
+            allocate(window);
+        }
+        this.watermark = watermark;
+    }
+
+    private void allocate(int window) {
+        settled = new AtomicLongArray(Integer.highestOneBit(Math.max(2, window - 1)) << 1);
+    }
+}
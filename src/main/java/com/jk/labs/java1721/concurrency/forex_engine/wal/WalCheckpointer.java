@@ -0,0 +1,136 @@
+package com.jk.labs.java1721.concurrency.forex_engine.wal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.WalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Settlement checkpoint of the WAL: every forex.wal.checkpoint-interval the settled watermark is advanced and, if it
+moved, written to <forex.wal.directory>/settled.checkpoint (temp file + fsync + atomic rename, so the file always
+holds a complete value). WAL segments that lie entirely at or below the watermark are deleted.
+Started by WalRecovery once the watermark has been restored, never before: a checkpoint taken from the fresh
+(zero) watermark would be worthless.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WalCheckpointer {
+
+    private static final String CHECKPOINT_FILE = "settled.checkpoint";
+
+    private final TradeQueueManager tradeQueueManager;
+    private final WriteAheadLog writeAheadLog;
+    private final WalProperties walProperties;
+
+    private ScheduledExecutorService scheduler;
+    private volatile long checkpointedSequence;
+    private volatile long checkpoints;
+    private volatile long deletedSegments;
+
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        long intervalMillis = walProperties.getCheckpointInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("wal-checkpoint-"));
+        scheduler.scheduleWithFixedDelay(this::checkpointSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpointSafe();
+    }
+
+    // Last persisted watermark; 0 if there is none yet
+    public long readCheckpoint() {
+        Path file = checkpointFile();
+        try {
+            if (!Files.exists(file)) {
+                return 0L;
+            }
+            checkpointedSequence = ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+            return checkpointedSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read WAL checkpoint " + file, e);
+        }
+    }
+
+    // Returns the persisted watermark
+    public synchronized long checkpoint() {
+        long watermark = tradeQueueManager.getSettledWatermark().advance();
+        if (watermark <= checkpointedSequence) {
+            return checkpointedSequence;
+        }
+
+        Path file = checkpointFile();
+        Path temp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, watermark));
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write WAL checkpoint " + temp, e);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write WAL checkpoint " + file, e);
+        }
+        checkpointedSequence = watermark;
+        checkpoints++;
+
+        // sequence s is record s - 1: records below index `watermark` are all settled
+        deletedSegments += writeAheadLog.deleteSegmentsBefore(watermark);
+        return watermark;
+    }
+
+    public long checkpointedSequence() {
+        return checkpointedSequence;
+    }
+
+    public long checkpoints() {
+        return checkpoints;
+    }
+
+    public long deletedSegments() {
+        return deletedSegments;
+    }
+
+    private void checkpointSafe() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.error("WAL checkpoint failed", e);
+        }
+    }
+
+    private Path checkpointFile() {
+        return Paths.get(walProperties.getDirectory()).resolve(CHECKPOINT_FILE);
+    }
+}
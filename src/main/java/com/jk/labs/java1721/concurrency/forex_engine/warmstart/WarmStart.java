@@ -0,0 +1,561 @@
+package com.jk.labs.java1721.concurrency.forex_engine.warmstart;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.TradeDeduplicator;
+import com.jk.labs.java1721.concurrency.forex_engine.analytics.TradeAnalytics;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AnalyticsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.WarmStartProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WarmStartStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.NamedThreadFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.gateway.TradeFrame;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.IntervalHistogram;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.StartupLatencyProbe;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueues;
+import com.jk.labs.java1721.concurrency.forex_engine.rates.RateCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataSource;
+import com.jk.labs.java1721.concurrency.forex_engine.validation.ValidationEngine;
+import com.jk.labs.java1721.concurrency.forex_engine.wal.WriteAheadLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+Warm start (forex.warm-start): after a deploy the engine should serve its first trades at steady-state latency, not
+after seconds of cache misses and interpreted code.
+
+🧩 Snapshot (every `interval`, and once more at shutdown)
+    The hot in-memory state goes into one binary file (WarmStartSnapshot): cached rates with their age, cached
+    account and broker statuses, the ledger balances and the duplicate filter. Nothing here stops the pipeline;
+    each part is copied the way its own readers copy it (optimistic ledger reads, opaque filter reads).
+    The ledger is only exact if nothing was in flight while it was copied: settled watermark = WAL end before the
+    copy, and the WAL did not grow during it. The snapshot records whether it was (LEDGER_EXACT).
+
+🧩 Startup (start(), a @PostConstruct: before the gateway listens - it @DependsOn this - and before the web server
+    takes requests)
+    1. restore   the snapshot is mapped and each section primed into its component:
+                     rates       aged by the downtime; too old for forex.rates.max-staleness → left out
+                     statuses    into free slots only: whatever the preload just read from the source wins
+                     ledger      only if LEDGER_EXACT and the WAL still ends where the snapshot says, i.e. no trade
+                                 was admitted after it: the balances are then exactly those of every trade in the WAL.
+                                 Otherwise the ledger starts empty, as it does without a warm start
+                     dedup       the filters, aged by the downtime; ids journaled to the WAL after the snapshot are
+                                 recorded on top, so a resend of anything admitted before the restart is caught
+       A snapshot older than `max-age`, or one that cannot be read, is ignored: the engine starts cold.
+    2. warm-up   `warmup-trades` synthetic trades go through the hot code of every stage so the JIT compiles it
+                 before real trades arrive: frame decode, duplicate check, queue hand-off, validation, rate and
+                 reference lookups, fixed-point conversion, ledger posting and analytics. Only the rate and reference
+                 caches are the real ones (read-only lookups of entries they already hold; their hit counters
+                 include the warm-up). Everything that keeps state is a scratch instance, so nothing is journaled,
+                 settled, posted or counted as a trade. The database insert and the journal append are not warmed.
+    3. measure   a StartupLatencyProbe records every completed trade until p99 is steady, reporting
+                     time to first trade      JVM start → first trade out of any pipeline
+                     time to steady p99       JVM start → start of the first of `steady-windows` consecutive
+                                              windows whose p99s are within `steady-tolerance` of each other
+       Both are logged when reached and on GET /warm-start/stats.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WarmStart {
+
+    // Scratch ledger and reference working set of the warm-up
+    private static final int WARMUP_ACCOUNTS = 1_024;
+
+    private final WarmStartProperties warmStartProperties;
+    private final RateCache rateCache;
+    private final ReferenceDataCache referenceDataCache;
+    private final AccountLedger accountLedger;
+    private final TradeQueueManager tradeQueueManager;
+    private final WriteAheadLog writeAheadLog;
+    private final PipelineStatsRegistry pipelineStatsRegistry;
+    private final ValidationProperties validationProperties;
+    private final AnalyticsProperties analyticsProperties;
+    private final TradeQueueProperties tradeQueueProperties;
+
+    private final StartupLatencyProbe probe = new StartupLatencyProbe();
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean restored;
+    private volatile long restoredSnapshotAgeMillis;
+    private volatile long restoredSnapshotBytes;
+    private volatile long restoreMillis;
+    private volatile int ratesRestored;
+    private volatile int accountsRestored;
+    private volatile int brokersRestored;
+    private volatile int ledgerAccountsRestored;
+    private volatile String ledgerSkipped;
+    private volatile boolean dedupRestored;
+    private volatile long dedupWalRecords;
+    private volatile int warmupTrades;
+    private volatile long warmupMillis;
+    private volatile long readyMillis;
+
+    // Only touched by the scheduler thread (measure), published through the volatiles below
+    private final Deque<long[]> steadyRun = new ArrayDeque<>();
+    private long windowStartMillis;
+    private volatile boolean measuring;
+    private volatile long timeToFirstTradeMillis = -1L;
+    private volatile long timeToSteadyP99Millis = -1L;
+    private volatile long firstWindowP99Nanos = -1L;
+    private volatile long steadyP99Nanos = -1L;
+
+    private volatile long snapshotsWritten;
+    private volatile long snapshotFailures;
+    private volatile long lastSnapshotBytes;
+    private volatile long lastSnapshotMillis;
+    private volatile boolean lastSnapshotLedgerExact;
+
+    @PostConstruct
+    public void start() {
+        if (!warmStartProperties.isEnabled()) {
+            return;
+        }
+        restoreSafe();
+        warmUp();
+        readyMillis = System.currentTimeMillis() - jvmStartMillis;
+
+        windowStartMillis = System.currentTimeMillis();
+        measuring = true;
+        pipelineStatsRegistry.startupProbe(probe);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("warm-start-"));
+        long intervalMillis = warmStartProperties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotSafe, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        long windowMillis = warmStartProperties.getSteadyWindow().toMillis();
+        scheduler.scheduleAtFixedRate(this::measureSafe, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+
+        log.info("Warm start: ready {} ms after JVM start (snapshot {}, warm-up of {} trades in {} ms)",
+                readyMillis, restored ? "restored in " + restoreMillis + " ms" : "not restored",
+                warmupTrades, warmupMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stopMeasuring();
+        // last one, so the next start finds the state as it was at shutdown
+        snapshotSafe();
+    }
+
+    // Writes a snapshot now; returns its size in bytes
+    public synchronized long snapshot() {
+        long start = System.nanoTime();
+        Path file = snapshotFile();
+        long walEnd = writeAheadLog.size();
+        boolean ledgerExact;
+        long bytes;
+        try (WarmStartSnapshot.Writer writer = new WarmStartSnapshot.Writer(file, System.currentTimeMillis(), walEnd)) {
+            writer.begin(WarmStartSnapshot.Section.RATES);
+            rateCache.forEachRate((pair, rate, ageNanos) -> {
+                writer.writeInt(pair);
+                writer.writeLong(rate);
+                writer.writeLong(ageNanos);
+            });
+            writer.end();
+
+            writer.begin(WarmStartSnapshot.Section.ACCOUNTS);
+            referenceDataCache.forEachAccount((id, status) -> {
+                writer.writeLong(id);
+                writer.writeString(status);
+            });
+            writer.end();
+            writer.begin(WarmStartSnapshot.Section.BROKERS);
+            referenceDataCache.forEachBroker((id, status) -> {
+                writer.writeLong(id);
+                writer.writeString(status);
+            });
+            writer.end();
+
+            boolean settledBefore = tradeQueueManager.getSettledWatermark().watermark() == walEnd;
+            writer.begin(WarmStartSnapshot.Section.LEDGER);
+            accountLedger.forEachAccount((accountId, balances) -> {
+                writer.writeLong(accountId);
+                for (long balance : balances) {
+                    writer.writeLong(balance);
+                }
+            });
+            writer.end();
+            ledgerExact = settledBefore && writeAheadLog.size() == walEnd;
+
+            TradeDeduplicator deduplicator = tradeQueueManager.getAdmissionControl().getDeduplicator();
+            if (deduplicator != null) {
+                writer.begin(WarmStartSnapshot.Section.DEDUP);
+                deduplicator.writeSnapshot(writer.out());
+                writer.end();
+            }
+            bytes = writer.commit(ledgerExact ? WarmStartSnapshot.LEDGER_EXACT : 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write warm-start snapshot " + file, e);
+        }
+        snapshotsWritten++;
+        lastSnapshotBytes = bytes;
+        lastSnapshotLedgerExact = ledgerExact;
+        lastSnapshotMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("Warm-start snapshot: {} bytes in {} ms, ledger {}", bytes, lastSnapshotMillis,
+                ledgerExact ? "exact" : "in flight");
+        return bytes;
+    }
+
+    public WarmStartStatsDto stats() {
+        return WarmStartStatsDto.builder()
+                .enabled(warmStartProperties.isEnabled())
+                .file(snapshotFile().toString())
+                .restored(restored)
+                .restoredSnapshotAgeMillis(restoredSnapshotAgeMillis)
+                .restoredSnapshotBytes(restoredSnapshotBytes)
+                .restoreMillis(restoreMillis)
+                .ratesRestored(ratesRestored)
+                .accountsRestored(accountsRestored)
+                .brokersRestored(brokersRestored)
+                .ledgerAccountsRestored(ledgerAccountsRestored)
+                .ledgerSkipped(ledgerSkipped)
+                .dedupRestored(dedupRestored)
+                .dedupWalRecords(dedupWalRecords)
+                .warmupTrades(warmupTrades)
+                .warmupMillis(warmupMillis)
+                .readyMillis(readyMillis)
+                .timeToFirstTradeMillis(timeToFirstTradeMillis)
+                .timeToSteadyP99Millis(timeToSteadyP99Millis)
+                .firstWindowP99Micros(micros(firstWindowP99Nanos))
+                .steadyP99Micros(micros(steadyP99Nanos))
+                .measuring(measuring)
+                .snapshotsWritten(snapshotsWritten)
+                .snapshotFailures(snapshotFailures)
+                .lastSnapshotBytes(lastSnapshotBytes)
+                .lastSnapshotMillis(lastSnapshotMillis)
+                .lastSnapshotLedgerExact(lastSnapshotLedgerExact)
+                .build();
+    }
+
+    // Restores the snapshot into the components; package-private for tests, start() calls it before any traffic
+    void restore() throws IOException {
+        Path file = snapshotFile();
+        if (!Files.exists(file)) {
+            log.info("Warm start: no snapshot at {}, starting cold", file);
+            return;
+        }
+        long start = System.nanoTime();
+        WarmStartSnapshot.Image image = WarmStartSnapshot.read(file);
+        long ageMillis = Math.max(0L, System.currentTimeMillis() - image.createdAtMillis());
+        if (ageMillis > warmStartProperties.getMaxAge().toMillis()) {
+            log.warn("Warm start: snapshot {} is {} s old (max-age {}), starting cold",
+                    file, TimeUnit.MILLISECONDS.toSeconds(ageMillis), warmStartProperties.getMaxAge());
+            return;
+        }
+        if (!image.corrupt().isEmpty()) {
+            log.warn("Warm start: sections {} of {} failed their checksum and are skipped", image.corrupt(), file);
+        }
+        long ageNanos = TimeUnit.MILLISECONDS.toNanos(ageMillis);
+
+        ByteBuffer rates = image.section(WarmStartSnapshot.Section.RATES);
+        if (rates != null) {
+            int primed = 0;
+            while (rates.hasRemaining()) {
+                int pair = rates.getInt();
+                long rate = rates.getLong();
+                long rateAgeNanos = rates.getLong();
+                if (rateCache.prime(pair, rate, rateAgeNanos + ageNanos)) {
+                    primed++;
+                }
+            }
+            ratesRestored = primed;
+        }
+
+        ByteBuffer accounts = image.section(WarmStartSnapshot.Section.ACCOUNTS);
+        if (accounts != null) {
+            int primed = 0;
+            while (accounts.hasRemaining()) {
+                long id = accounts.getLong();
+                if (referenceDataCache.primeAccount(id, WarmStartSnapshot.readString(accounts))) {
+                    primed++;
+                }
+            }
+            accountsRestored = primed;
+        }
+        ByteBuffer brokers = image.section(WarmStartSnapshot.Section.BROKERS);
+        if (brokers != null) {
+            int primed = 0;
+            while (brokers.hasRemaining()) {
+                long id = brokers.getLong();
+                if (referenceDataCache.primeBroker(id, WarmStartSnapshot.readString(brokers))) {
+                    primed++;
+                }
+            }
+            brokersRestored = primed;
+        }
+
+        ByteBuffer ledger = image.section(WarmStartSnapshot.Section.LEDGER);
+        if (ledger != null) {
+            String skipped = ledgerSkipReason(image);
+            if (skipped == null) {
+                long[] balances = new long[Currency.count()];
+                int restoredAccounts = 0;
+                while (ledger.hasRemaining()) {
+                    long accountId = ledger.getLong();
+                    for (int c = 0; c < balances.length; c++) {
+                        balances[c] = ledger.getLong();
+                    }
+                    if (accountLedger.restore(accountId, balances)) {
+                        restoredAccounts++;
+                    }
+                }
+                ledgerAccountsRestored = restoredAccounts;
+            } else {
+                ledgerSkipped = skipped;
+                log.warn("Warm start: ledger not restored, {}", skipped);
+            }
+        }
+
+        TradeDeduplicator deduplicator = tradeQueueManager.getAdmissionControl().getDeduplicator();
+        ByteBuffer dedup = image.section(WarmStartSnapshot.Section.DEDUP);
+        if (deduplicator != null && dedup != null) {
+            dedupRestored = deduplicator.restoreSnapshot(dedup, ageNanos);
+            if (dedupRestored) {
+                long from = Math.max(image.walEnd(), writeAheadLog.firstIndex());
+                if (from < writeAheadLog.size()) {
+                    dedupWalRecords = writeAheadLog.scan(from, (index, record) -> {
+                        deduplicator.record(record.tradeId());
+                        return true;
+                    });
+                }
+            } else {
+                log.warn("Warm start: duplicate filter not restored, forex.admission.dedup settings changed since the snapshot");
+            }
+        }
+
+        restored = true;
+        restoredSnapshotAgeMillis = ageMillis;
+        restoredSnapshotBytes = image.bytes();
+        restoreMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Warm start: {} s old snapshot restored in {} ms: {} rates, {} accounts, {} brokers, "
+                        + "{} ledger accounts, duplicate filter {} (+{} WAL records)",
+                TimeUnit.MILLISECONDS.toSeconds(ageMillis), restoreMillis, ratesRestored, accountsRestored,
+                brokersRestored, ledgerAccountsRestored, dedupRestored ? "restored" : "empty", dedupWalRecords);
+    }
+
+    // Closes one measuring window; package-private so tests can drive it, the scheduler calls it every steady-window
+    void measure(long nowMillis) {
+        if (!measuring) {
+            return;
+        }
+        long startMillis = windowStartMillis;
+        windowStartMillis = nowMillis;
+        IntervalHistogram.Snapshot window = probe.roll();
+
+        long firstTrade = probe.firstCompletedAtMillis();
+        if (firstTrade != 0L && timeToFirstTradeMillis < 0L) {
+            timeToFirstTradeMillis = firstTrade - jvmStartMillis;
+            log.info("Warm start: first trade out of the pipeline {} ms after JVM start ({} ms after ready)",
+                    timeToFirstTradeMillis, timeToFirstTradeMillis - readyMillis);
+        }
+
+        if (window.count() >= warmStartProperties.getMinWindowTrades()) {
+            if (firstWindowP99Nanos < 0L) {
+                firstWindowP99Nanos = window.p99Nanos();
+            }
+            steadyRun.addLast(new long[]{startMillis, window.p99Nanos()});
+            if (steadyRun.size() > warmStartProperties.getSteadyWindows()) {
+                steadyRun.removeFirst();
+            }
+            if (steadyRun.size() == warmStartProperties.getSteadyWindows() && isSteady()) {
+                steadyP99Nanos = steadyRun.stream().mapToLong(w -> w[1]).max().orElse(0L);
+                timeToSteadyP99Millis = steadyRun.getFirst()[0] - jvmStartMillis;
+                stopMeasuring();
+                log.info("Warm start: p99 steady at {} us from {} ms after JVM start (first window p99 {} us)",
+                        micros(steadyP99Nanos), timeToSteadyP99Millis, micros(firstWindowP99Nanos));
+                return;
+            }
+        } else {
+            // too few trades to trust a p99: the run starts over
+            steadyRun.clear();
+        }
+
+        if (nowMillis - jvmStartMillis >= warmStartProperties.getSteadyTimeout().toMillis()) {
+            stopMeasuring();
+            log.warn("Warm start: p99 not steady {} after JVM start, no longer measuring", warmStartProperties.getSteadyTimeout());
+        }
+    }
+
+    private boolean isSteady() {
+        long min = Long.MAX_VALUE;
+        long max = 0L;
+        for (long[] window : steadyRun) {
+            min = Math.min(min, window[1]);
+            max = Math.max(max, window[1]);
+        }
+        return max <= min * (1.0 + warmStartProperties.getSteadyTolerance());
+    }
+
+    private void stopMeasuring() {
+        measuring = false;
+        pipelineStatsRegistry.startupProbe(null);
+    }
+
+    private String ledgerSkipReason(WarmStartSnapshot.Image image) {
+        if (!image.ledgerExact()) {
+            return "trades were in flight when the snapshot was taken";
+        }
+        long walEnd = writeAheadLog.size();
+        if (walEnd != image.walEnd()) {
+            return "the WAL ends at " + walEnd + " records, the snapshot at " + image.walEnd();
+        }
+        if (accountLedger.accounts() > 0) {
+            return "the ledger is not empty";
+        }
+        return null;
+    }
+
+    /*
+    Runs synthetic trades through the hot code of every stage. The caches are only read, for entries they already
+    hold; everything with state of its own is a scratch instance thrown away afterwards.
+     */
+    void warmUp() {
+        int trades = warmStartProperties.getWarmupTrades();
+        if (trades <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        int[] cachedPairs = cachedPairs();
+        int[] pairs = cachedPairs.length > 0 ? cachedPairs : new int[]{CurrencyPair.code(Currency.EUR, Currency.USD)};
+        long[] accounts = activeIds(true);
+        long[] brokers = activeIds(false);
+
+        // only with ids the cache holds: the warm-up must not reach the reference data source
+        ValidationEngine validationEngine = new ValidationEngine(validationProperties,
+                accounts.length > 0 && brokers.length > 0 ? referenceDataCache : null);
+        TradeAnalytics tradeAnalytics = new TradeAnalytics(analyticsProperties);
+        LedgerProperties ledgerProperties = new LedgerProperties();
+        ledgerProperties.setMaxAccounts(WARMUP_ACCOUNTS);
+        AccountLedger ledger = new AccountLedger(ledgerProperties);
+        AdmissionProperties.Dedup dedup = new AdmissionProperties.Dedup();
+        dedup.setExpectedTrades(trades);
+        dedup.setRecentCapacity(WARMUP_ACCOUNTS);
+        TradeDeduplicator deduplicator = new TradeDeduplicator(dedup);
+        TradeQueue<TradeEvent> queue = TradeQueues.create(tradeQueueProperties.getType(), WARMUP_ACCOUNTS,
+                tradeQueueProperties.getWaitStrategy());
+
+        ByteBuffer frame = ByteBuffer.allocate(TradeFrame.FRAME_SIZE);
+        TradeEvent trade = new TradeEvent();
+        long createdAtMillis = System.currentTimeMillis();
+        for (int i = 0; i < trades; i++) {
+            int pair = pairs[i % pairs.length];
+            long accountId = accounts.length > 0 ? accounts[i % accounts.length] : 1 + i % WARMUP_ACCOUNTS;
+            long brokerId = brokers.length > 0 ? brokers[i % brokers.length] : 1 + i % 16;
+            frame.clear();
+            TradeFrame.encode(frame, i + 1L, accountId, brokerId, pair, (1 + i % 1_000) * FixedPoint.AMOUNT_SCALE,
+                    1 + i % 100, createdAtMillis);
+            if (!TradeFrame.decode(frame, 0, trade) || deduplicator.claim(trade.getTradeId())) {
+                continue;
+            }
+            queue.offer(trade);
+            TradeEvent handedOff = queue.poll();
+            if (handedOff == null || !validationEngine.validate(handedOff)) {
+                continue;
+            }
+
+            long rate = cachedPairs.length > 0 ? rateCache.rate(pair) : FixedPoint.RATE_SCALE;
+            handedOff.setRate(rate);
+            ledger.post(1 + accountId % WARMUP_ACCOUNTS, CurrencyPair.base(pair), handedOff.getAmount(),
+                    CurrencyPair.quote(pair), FixedPoint.convert(handedOff.getAmount(), rate));
+            tradeAnalytics.record(handedOff);
+        }
+        warmupTrades = trades;
+        warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("Warm-up: {} trades in {} ms", trades, warmupMillis);
+    }
+
+    // Pairs with a cached rate; without any the warm-up skips the rate lookup rather than fetch rates nobody traded
+    private int[] cachedPairs() {
+        int[] pairs = new int[CurrencyPair.count()];
+        int[] count = {0};
+        rateCache.forEachRate((pair, rate, ageNanos) -> pairs[count[0]++] = pair);
+        return Arrays.copyOf(pairs, count[0]);
+    }
+
+    private long[] activeIds(boolean accounts) {
+        long[] ids = new long[WARMUP_ACCOUNTS];
+        int[] count = {0};
+        ReferenceDataCache.StatusConsumer collect = (id, status) -> {
+            if (count[0] < ids.length && ReferenceDataSource.ACTIVE.equals(status)) {
+                ids[count[0]++] = id;
+            }
+        };
+        if (accounts) {
+            referenceDataCache.forEachAccount(collect);
+        } else {
+            referenceDataCache.forEachBroker(collect);
+        }
+        return Arrays.copyOf(ids, count[0]);
+    }
+
+    private void restoreSafe() {
+        try {
+            restore();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Warm start: snapshot {} could not be restored, starting cold: {}", snapshotFile(), e.toString());
+        }
+    }
+
+    private void snapshotSafe() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            snapshotFailures++;
+            log.warn("Warm-start snapshot failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void measureSafe() {
+        try {
+            measure(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            log.error("Warm-start latency measurement failed", e);
+        }
+    }
+
+    private Path snapshotFile() {
+        return Paths.get(warmStartProperties.getFile());
+    }
+
+    private static long micros(long nanos) {
+        return nanos < 0L ? -1L : TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
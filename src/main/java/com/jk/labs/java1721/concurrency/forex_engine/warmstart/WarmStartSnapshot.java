@@ -0,0 +1,248 @@
+package com.jk.labs.java1721.concurrency.forex_engine.warmstart;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.CRC32C;
+
+/*
+File format of the warm-start snapshot: a fixed header, then tagged sections.
+
+    | magic "FXWS" | version | created at (epoch ms) | WAL end | flags | padding |      32 bytes
+    | tag | payload length | CRC32C of the payload | payload ...                  |      16 bytes + payload, per section
+
+    WAL end   WriteAheadLog.size() when the snapshot was started: the duplicate filter is caught up from there
+    flags     LEDGER_EXACT: every journaled trade was settled while the ledger was copied, so the ledger section
+              holds exactly the balances of the first `WAL end` trades
+
+🧩 Writing (Writer)
+    Sections are streamed through one buffered DataOutputStream straight into <file>.tmp; a section's header is
+    written in place once its length and checksum are known, so no section is ever held in memory whole (the
+    duplicate filter alone is tens of MB). The file is forced and renamed over the previous snapshot, as
+    WalCheckpointer does with its checkpoint, so a reader only ever finds a complete file.
+
+🧩 Reading (read)
+    The whole file is mapped read-only and every section is a slice of that mapping: the restore reads straight from
+    the page cache, without copying the file into heap buffers first. A section that fails its checksum is dropped on
+    its own; the header and the other sections are still used. Unknown tags are skipped.
+ */
+final class WarmStartSnapshot {
+
+    static final int MAGIC = 0x46585753;
+    static final int VERSION = 1;
+    static final int LEDGER_EXACT = 1;
+
+    private static final int HEADER_BYTES = 32;
+    private static final int SECTION_HEADER_BYTES = 16;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    // Tag on disk = ordinal + 1: only ever append here
+    enum Section {
+        RATES, ACCOUNTS, BROKERS, LEDGER, DEDUP;
+
+        int tag() {
+            return ordinal() + 1;
+        }
+    }
+
+    private WarmStartSnapshot() {
+    }
+
+    record Image(long createdAtMillis, long walEnd, int flags, long bytes, Map<Section, ByteBuffer> sections,
+                 List<Section> corrupt) {
+
+        boolean ledgerExact() {
+            return (flags & LEDGER_EXACT) != 0;
+        }
+
+        // The section's payload, positioned at its start; null if the snapshot has none (or it was corrupt)
+        ByteBuffer section(Section section) {
+            ByteBuffer payload = sections.get(section);
+            return payload == null ? null : payload.duplicate();
+        }
+    }
+
+    static Image read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a warm-start snapshot (" + size + " bytes): " + file);
+            }
+            // the mapping outlives the channel
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+                throw new IOException("Not a version " + VERSION + " warm-start snapshot: " + file);
+            }
+            long createdAtMillis = map.getLong(8);
+            long walEnd = map.getLong(16);
+            int flags = map.getInt(24);
+
+            Map<Section, ByteBuffer> sections = new EnumMap<>(Section.class);
+            List<Section> corrupt = new ArrayList<>();
+            Section[] known = Section.values();
+            CRC32C crc = new CRC32C();
+            int position = HEADER_BYTES;
+            while (position + SECTION_HEADER_BYTES <= size) {
+                int tag = map.getInt(position);
+                long length = map.getLong(position + 4);
+                int checksum = map.getInt(position + 12);
+                position += SECTION_HEADER_BYTES;
+                if (length < 0 || length > size - position) {
+                    throw new IOException("Truncated warm-start snapshot: " + file);
+                }
+                ByteBuffer payload = map.slice(position, (int) length);
+                position += (int) length;
+                if (tag < 1 || tag > known.length) {
+                    continue;
+                }
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() == checksum) {
+                    sections.put(known[tag - 1], payload);
+                } else {
+                    corrupt.add(known[tag - 1]);
+                }
+            }
+            return new Image(createdAtMillis, walEnd, flags, size, sections, corrupt);
+        }
+    }
+
+    // Short length + UTF-8, as Writer.writeString puts it
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+    One snapshot being written. begin(section) … write* … end() per section, then commit(flags); close() without a
+    commit deletes the temp file. Single-threaded. The write methods throw UncheckedIOException so they can be called
+    from the components' forEach callbacks; out() is the same stream as a DataOutput.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final CRC32C crc = new CRC32C();
+        private final DataOutputStream out;
+        private final long createdAtMillis;
+        private final long walEnd;
+
+        private Section section;
+        private long sectionStart;
+        private boolean committed;
+
+        Writer(Path file, long createdAtMillis, long walEnd) throws IOException {
+            this.file = file;
+            this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.createdAtMillis = createdAtMillis;
+            this.walEnd = walEnd;
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_BYTES));
+        }
+
+        void begin(Section section) throws IOException {
+            out.flush();
+            this.section = section;
+            sectionStart = channel.position();
+            channel.write(ByteBuffer.allocate(SECTION_HEADER_BYTES));
+            crc.reset();
+        }
+
+        void end() throws IOException {
+            out.flush();
+            long length = channel.position() - sectionStart - SECTION_HEADER_BYTES;
+            ByteBuffer header = ByteBuffer.allocate(SECTION_HEADER_BYTES)
+                    .putInt(section.tag())
+                    .putLong(length)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            channel.write(header, sectionStart);
+            section = null;
+        }
+
+        DataOutput out() {
+            return out;
+        }
+
+        void writeInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            try {
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Returns the size of the snapshot
+        long commit(int flags) throws IOException {
+            out.flush();
+            long size = channel.position();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(createdAtMillis)
+                    .putLong(walEnd)
+                    .putInt(flags)
+                    .putInt(0)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
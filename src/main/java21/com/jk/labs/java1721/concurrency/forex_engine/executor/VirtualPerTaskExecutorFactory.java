@@ -0,0 +1,30 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Only compiled by the java21 Maven profile. Being @Primary, it replaces PlatformPerTaskExecutorFactory wherever
+a PerTaskExecutorFactory is injected.
+
+Virtual threads unmount from their carrier while blocked on I/O or a j.u.c. lock, so a per-trade thread that
+waits on enrichment/settlement I/O does not hold a platform thread. Avoid `synchronized` around blocking calls in
+the stages: on Java 21 that pins the carrier.
+ */
+@Component
+@Primary
+public class VirtualPerTaskExecutorFactory implements PerTaskExecutorFactory {
+
+    @Override
+    public ExecutorService newPerTaskExecutor(String threadNamePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+}
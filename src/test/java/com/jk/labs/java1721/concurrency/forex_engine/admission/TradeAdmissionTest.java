@@ -0,0 +1,166 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AdmissionStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.IntakeStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeAdmissionTest {
+
+    private static final int INTAKE_CAPACITY = 4;
+
+    @Test
+    public void testDropDeadLettersNewestAndTimeoutGivesUp() {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        admissionProperties.setProducer(new AdmissionProperties.Intake(OverloadPolicy.DROP));
+        admissionProperties.getLoadGenerator().setPolicy(OverloadPolicy.TIMEOUT);
+        admissionProperties.getLoadGenerator().setOfferTimeout(Duration.ofMillis(20));
+        TradeQueueManager tradeQueueManager = tradeQueueManager(admissionProperties);
+
+        for (int i = 1; i <= INTAKE_CAPACITY; i++) {
+            assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(i)));
+        }
+        assertEquals(Admission.DEAD_LETTERED, tradeQueueManager.addTrade(trade(5)));
+        assertEquals(Admission.DEAD_LETTERED, tradeQueueManager.addTrade(trade(6)));
+
+        long start = System.nanoTime();
+        assertEquals(Admission.TIMED_OUT,
+                tradeQueueManager.addTrade(IntakePath.LOAD_GENERATOR, trade(7), System.nanoTime()));
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+
+        List<TradeEvent> deadLetters = tradeQueueManager.getAdmissionControl().getDeadLetters().latest(10);
+        assertEquals(List.of(6L, 5L), deadLetters.stream().map(TradeEvent::getTradeId).toList());
+
+        AdmissionStatsDto stats = tradeQueueManager.admissionStats();
+        assertEquals(INTAKE_CAPACITY, stats.getIntakeQueueDepth());
+        assertEquals(2, stats.getDeadLetters());
+        IntakeStatsDto producer = intake(stats, IntakePath.PRODUCER);
+        assertEquals(6, producer.getSubmitted());
+        assertEquals(4, producer.getAccepted());
+        assertEquals(2, producer.getDeadLettered());
+        IntakeStatsDto loadGenerator = intake(stats, IntakePath.LOAD_GENERATOR);
+        assertEquals(1, loadGenerator.getTimedOut());
+        assertTrue(loadGenerator.getMaxWaitMicros() >= 20_000);
+    }
+
+    @Test
+    public void testRateLimitAllowsBurstThenSustainedRate() {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        AdmissionProperties.Intake producer = new AdmissionProperties.Intake(OverloadPolicy.RATE_LIMIT);
+        producer.setRate(1);
+        producer.setBurst(3);
+        admissionProperties.setProducer(producer);
+        TradeQueueManager tradeQueueManager = tradeQueueManager(admissionProperties);
+
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(1)));
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(2)));
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(3)));
+        assertEquals(Admission.RATE_LIMITED, tradeQueueManager.addTrade(trade(4)));
+
+        // a full bucket of 50, then 1000/s: never more than the rate allows, even on a busy single CPU
+        TokenBucket bucket = new TokenBucket(1_000, 50);
+        int admitted = 0;
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofMillis(200).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (bucket.tryAcquire()) {
+                admitted++;
+            }
+        }
+        long allowed = 50 + (System.nanoTime() - start) / Duration.ofMillis(1).toNanos() + 1;
+        assertTrue(admitted <= allowed, "admitted " + admitted + " of " + allowed);
+        assertTrue(admitted >= 150, "admitted " + admitted);
+    }
+
+    @Test
+    public void testAdaptiveLimitBacksOffOnSlowOutcomesAndProbesWhenFast() throws InterruptedException {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        AdmissionProperties.Adaptive adaptive = admissionProperties.getAdaptive();
+        adaptive.setEnabled(true);
+        adaptive.setInitialLimit(2);
+        adaptive.setMinLimit(1);
+        adaptive.setIncrease(1);
+        adaptive.setTargetLatency(Duration.ofMillis(5));
+        adaptive.setWindow(Duration.ZERO);
+        admissionProperties.setProducer(new AdmissionProperties.Intake(OverloadPolicy.DROP));
+        TradeQueueManager tradeQueueManager = tradeQueueManager(admissionProperties);
+        AimdLimiter limiter = tradeQueueManager.getAdmissionControl().getLimiter();
+
+        TradeEvent first = trade(1);
+        TradeEvent second = trade(2);
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(IntakePath.PRODUCER, first, System.nanoTime()));
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(IntakePath.PRODUCER, second, System.nanoTime()));
+        // room in the queue, but no permit left
+        assertEquals(Admission.DEAD_LETTERED, tradeQueueManager.addTrade(trade(3)));
+        assertEquals(2, limiter.inFlight());
+
+        // a fast outcome with the limit fully used: additive increase; settling twice returns one permit
+        tradeQueueManager.markSettled(first);
+        tradeQueueManager.markSettled(first);
+        assertEquals(1, limiter.inFlight());
+        assertEquals(3, limiter.limit());
+
+        // an outcome far above target: multiplicative decrease
+        second.setAdmissionPermitNanos(System.nanoTime() - Duration.ofMillis(50).toNanos());
+        Thread.sleep(1);
+        tradeQueueManager.markSettled(second);
+        assertEquals(0, limiter.inFlight());
+        assertEquals(2, limiter.limit());
+        assertEquals(1, limiter.decreases());
+        assertTrue(tradeQueueManager.admissionStats().isAdaptive());
+
+        // the intake queue still holds both events; only their permits were returned
+        assertEquals(2, tradeQueueManager.inboundQueue(PipelineStage.VALIDATION).size());
+    }
+
+    @Test
+    public void testResentTradeIsRejectedUnlessItWasTurnedAway() {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        admissionProperties.setProducer(new AdmissionProperties.Intake(OverloadPolicy.DROP));
+        TradeQueueManager tradeQueueManager = tradeQueueManager(admissionProperties);
+
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(1)));
+        assertEquals(Admission.DUPLICATE, tradeQueueManager.addTrade(trade(1)));
+        for (int i = 2; i <= INTAKE_CAPACITY; i++) {
+            assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(i)));
+        }
+        // dropped on a full intake: the broker's resend must get in once there is room
+        assertEquals(Admission.DEAD_LETTERED, tradeQueueManager.addTrade(trade(5)));
+        tradeQueueManager.inboundQueue(PipelineStage.VALIDATION).poll();
+        assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade(5)));
+        assertEquals(Admission.DUPLICATE, tradeQueueManager.addTrade(trade(5)));
+
+        AdmissionStatsDto stats = tradeQueueManager.admissionStats();
+        assertEquals(2, intake(stats, IntakePath.PRODUCER).getDuplicates());
+        assertEquals(2, stats.getDedup().getDuplicates());
+        assertEquals(1, stats.getDedup().getReleased());
+        assertEquals(INTAKE_CAPACITY, stats.getIntakeQueueDepth());
+    }
+
+    private static TradeQueueManager tradeQueueManager(AdmissionProperties admissionProperties) {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setValidation(new PipelineProperties.Stage(1, INTAKE_CAPACITY));
+        return new TradeQueueManager(new TradeQueueProperties(), pipelineProperties, null, admissionProperties);
+    }
+
+    private static IntakeStatsDto intake(AdmissionStatsDto stats, IntakePath path) {
+        return stats.getIntakes().stream().filter(intake -> intake.getPath().equals(path.name())).findFirst().orElseThrow();
+    }
+
+    private static TradeEvent trade(long id) {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(id);
+        trade.setAccountId(id);
+        return trade;
+    }
+}
@@ -0,0 +1,112 @@
+package com.jk.labs.java1721.concurrency.forex_engine.admission;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.DedupStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeDeduplicatorTest {
+
+    @Test
+    public void testResendIsCaughtWithinTheWindowAndForgottenAfterIt() {
+        AtomicLong clock = new AtomicLong();
+        TradeDeduplicator deduplicator = new TradeDeduplicator(dedup(10_000, 16_384), clock::get);
+
+        for (long id = 1; id <= 1_000; id++) {
+            assertFalse(deduplicator.claim(id));
+        }
+        clock.addAndGet(Duration.ofSeconds(7).toNanos());
+        for (long id = 1; id <= 1_000; id++) {
+            assertTrue(deduplicator.claim(id), "id " + id);
+        }
+        assertEquals(1_000, deduplicator.duplicates());
+
+        // every generation has rotated out since: the ids are new again
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertFalse(deduplicator.claim(1));
+        assertTrue(deduplicator.claim(1));
+        // 3 rotations by 7s, then the 5 of a full window
+        assertEquals(8, deduplicator.stats().getRotations());
+    }
+
+    @Test
+    public void testLongIdleGapClearsTheFiltersOnceThenRotatesOnSchedule() {
+        AtomicLong clock = new AtomicLong();
+        TradeDeduplicator deduplicator = new TradeDeduplicator(dedup(10_000, 16_384), clock::get);
+        assertFalse(deduplicator.claim(1));
+
+        clock.addAndGet(Duration.ofHours(1).toNanos());
+        assertFalse(deduplicator.claim(1));
+        assertEquals(5, deduplicator.stats().getRotations());
+        // the next claims must not find the deadline an hour behind and wipe the filters again
+        for (long id = 2; id <= 100; id++) {
+            assertFalse(deduplicator.claim(id));
+        }
+        assertTrue(deduplicator.claim(1));
+        assertEquals(5, deduplicator.stats().getRotations());
+
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        assertTrue(deduplicator.claim(1));
+        assertEquals(6, deduplicator.stats().getRotations());
+    }
+
+    @Test
+    public void testReleasedIdIsAcceptedAgain() {
+        TradeDeduplicator deduplicator = new TradeDeduplicator(dedup(10_000, 4_096), () -> 0L);
+
+        assertFalse(deduplicator.claim(42));
+        deduplicator.release(42);
+        // still in the Bloom filter, but the recent-id table no longer confirms it
+        assertFalse(deduplicator.claim(42));
+        assertTrue(deduplicator.claim(42));
+
+        deduplicator.record(43);
+        assertTrue(deduplicator.claim(43));
+
+        DedupStatsDto stats = deduplicator.stats();
+        assertEquals(1, stats.getReleased());
+        assertEquals(1, stats.getUnconfirmed());
+        assertEquals(2, stats.getDuplicates());
+    }
+
+    @Test
+    public void testFalsePositivesStayNearTheConfiguredRateInBoundedMemory() {
+        AdmissionProperties.Dedup settings = dedup(100_000, 1_024);
+        TradeDeduplicator deduplicator = new TradeDeduplicator(settings, () -> 0L);
+
+        // one generation filled to its expected load, then a few fresh ids (every claim also inserts)
+        for (long id = 1; id <= 20_000; id++) {
+            deduplicator.claim(id);
+        }
+        long falsePositives = 0;
+        for (long id = 1_000_001; id <= 1_002_000; id++) {
+            if (deduplicator.claim(id)) {
+                falsePositives++;
+            }
+        }
+        DedupStatsDto stats = deduplicator.stats();
+        // a false positive is only a duplicate if the small recent-id table confirms it: never, for fresh ids
+        assertEquals(0, falsePositives);
+        assertEquals(0, stats.getDuplicates());
+        // 1% over 5 generations: one full generation alone is ~0.2%
+        assertTrue(stats.getObservedFalsePositiveRate() < 0.01, "observed " + stats.getObservedFalsePositiveRate());
+        assertTrue(stats.getEstimatedFalsePositiveRate() < 0.02, "estimated " + stats.getEstimatedFalsePositiveRate());
+        // ~160 KB of filters for 100k ids plus 8 KB of recent ids, however many ids go through
+        assertTrue(stats.getMemoryBytes() < 200_000, "memory " + stats.getMemoryBytes());
+        assertEquals(1_024, stats.getRecentCapacity());
+    }
+
+    private static AdmissionProperties.Dedup dedup(long expectedTrades, int recentCapacity) {
+        AdmissionProperties.Dedup settings = new AdmissionProperties.Dedup();
+        settings.setWindow(Duration.ofSeconds(10));
+        settings.setGenerations(5);
+        settings.setExpectedTrades(expectedTrades);
+        settings.setFalsePositiveRate(0.01);
+        settings.setRecentCapacity(recentCapacity);
+        return settings;
+    }
+}
@@ -0,0 +1,110 @@
+package com.jk.labs.java1721.concurrency.forex_engine.analytics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AnalyticsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PairAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WindowAnalyticsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeAnalyticsTest {
+
+    private static final int USD_EUR = CurrencyPair.code(Currency.USD, Currency.EUR);
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    public void testVwapIsVolumeWeightedOverTheWindow() {
+        AtomicLong clock = new AtomicLong(1_000 * MILLI);
+        TradeAnalytics analytics = new TradeAnalytics(properties(), clock::get);
+
+        analytics.record(trade(USD_EUR, 100, "1.10"));
+        analytics.record(trade(USD_EUR, 300, "1.20"));
+        clock.addAndGet(500 * MILLI);
+
+        WindowAnalyticsDto second = analytics.snapshot(USD_EUR).getWindows().get(0);
+        assertEquals(2, second.getTrades());
+        assertEquals(0, new BigDecimal("400").compareTo(second.getVolume()));
+        assertEquals(0, new BigDecimal("470").compareTo(second.getQuoteVolume()));
+        // (100 * 1.10 + 300 * 1.20) / 400
+        assertEquals(0, new BigDecimal("1.175").compareTo(second.getVwap()));
+        assertEquals(2.0, second.getTradesPerSecond());
+    }
+
+    @Test
+    public void testTradesSlideOutOfShorterWindowsFirst() {
+        AtomicLong clock = new AtomicLong();
+        TradeAnalytics analytics = new TradeAnalytics(properties(), clock::get);
+
+        analytics.record(trade(USD_EUR, 100, "1.10"));
+        clock.addAndGet(2_000 * MILLI);
+        analytics.record(trade(USD_EUR, 100, "1.30"));
+
+        List<WindowAnalyticsDto> windows = analytics.snapshot(USD_EUR).getWindows();
+        assertEquals(1, windows.get(0).getTrades());
+        assertEquals(0, new BigDecimal("1.30").compareTo(windows.get(0).getVwap()));
+        assertEquals(2, windows.get(1).getTrades());
+        assertEquals(0, new BigDecimal("1.20").compareTo(windows.get(1).getVwap()));
+
+        // the ring wraps: a bucket reused a minute later starts from zero
+        clock.addAndGet(Duration.ofMinutes(1).toNanos());
+        analytics.record(trade(USD_EUR, 100, "1.50"));
+        windows = analytics.snapshot(USD_EUR).getWindows();
+        assertEquals(1, windows.get(1).getTrades());
+        assertEquals(0, new BigDecimal("1.50").compareTo(windows.get(1).getVwap()));
+
+        List<PairAnalyticsDto> pairs = analytics.pairs();
+        assertEquals(1, pairs.size());
+        assertEquals("USD/EUR", pairs.get(0).getPair());
+        assertNull(analytics.snapshot(CurrencyPair.code(Currency.GBP, Currency.JPY)).getWindows().get(1).getVwap());
+    }
+
+    @Test
+    public void testConcurrentWritersLoseNothing() throws InterruptedException {
+        TradeAnalytics analytics = new TradeAnalytics(new AnalyticsProperties());
+        int writers = 4;
+        int perWriter = 50_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            Thread thread = new Thread(() -> {
+                TradeEvent trade = trade(USD_EUR, 1, "1.00");
+                for (int i = 0; i < perWriter; i++) {
+                    analytics.record(trade);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the 5m window cannot have slid during the test
+        WindowAnalyticsDto fiveMinutes = analytics.snapshot(USD_EUR).getWindows().get(2);
+        assertEquals((long) writers * perWriter, fiveMinutes.getTrades());
+        assertEquals(0, BigDecimal.valueOf((long) writers * perWriter).compareTo(fiveMinutes.getVolume()));
+    }
+
+    private static AnalyticsProperties properties() {
+        AnalyticsProperties analyticsProperties = new AnalyticsProperties();
+        analyticsProperties.setBuckets(10);
+        return analyticsProperties;
+    }
+
+    private static TradeEvent trade(int pair, long amount, String rate) {
+        TradeEvent trade = new TradeEvent();
+        trade.setCurrencyPair(pair);
+        trade.setAmount(amount * FixedPoint.AMOUNT_SCALE);
+        trade.setRate(FixedPoint.toScaled(new BigDecimal(rate), FixedPoint.RATE_DECIMALS));
+        return trade;
+    }
+}
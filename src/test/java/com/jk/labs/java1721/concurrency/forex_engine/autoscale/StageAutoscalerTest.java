@@ -0,0 +1,151 @@
+package com.jk.labs.java1721.concurrency.forex_engine.autoscale;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.AutoscaleStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ScalingDecisionDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.service.impl.AbstractTradeStage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StageAutoscalerTest {
+
+    private final PipelineProperties pipelineProperties = new PipelineProperties();
+    private final MetricsProperties metricsProperties = new MetricsProperties();
+    private PipelineStatsRegistry statsRegistry;
+    private TradeQueueManager tradeQueueManager;
+
+    @Test
+    public void testLaggingStageGrowsAndShrinksBackWhenIdle() throws InterruptedException {
+        PipelineProperties.Autoscale autoscale = pipelineProperties.getAutoscale();
+        autoscale.setMaxTotalWorkers(8);
+        autoscale.setScaleDownIntervals(2);
+        pipelineProperties.setAudit(stage(1, 1, 5));
+        SlowStage audit = new SlowStage(PipelineStage.AUDIT);
+        StageAutoscaler autoscaler = autoscaler(audit);
+
+        audit.start();
+        for (int i = 0; i < 3_000; i++) {
+            tradeQueueManager.inboundQueue(PipelineStage.AUDIT).put(new TradeEvent());
+        }
+        int peak = 1;
+        for (int i = 0; i < 40 && audit.queueDepth() > 0; i++) {
+            Thread.sleep(100);
+            autoscaler.tick(System.nanoTime());
+            peak = Math.max(peak, audit.targetWorkers());
+        }
+        // two workers per decision, one decision every two lagging intervals
+        assertEquals(5, peak);
+
+        for (int i = 0; i < 20 && audit.targetWorkers() > 1; i++) {
+            Thread.sleep(50);
+            autoscaler.tick(System.nanoTime());
+        }
+        assertEquals(1, audit.targetWorkers());
+        audit.stop();
+        // workers came and went while the backlog drained: every trade handled exactly once
+        assertEquals(3_000, audit.handled.sum());
+
+        AutoscaleStatsDto stats = autoscaler.stats();
+        List<ScalingDecisionDto> decisions = stats.getDecisions();
+        assertEquals(4, decisions.size());
+        assertEquals(3, decisions.get(0).getFromWorkers());
+        assertEquals(1, decisions.get(0).getToWorkers());
+        assertEquals(1, decisions.get(3).getFromWorkers());
+        assertEquals(3, decisions.get(3).getToWorkers());
+        assertTrue(decisions.get(3).getReason().startsWith("lag "), decisions.get(3).getReason());
+        assertEquals(2, stats.getStages().get(0).getScaleUps());
+        assertEquals(2, stats.getStages().get(0).getScaleDowns());
+    }
+
+    @Test
+    public void testIdleStageGivesWorkersToLaggingStageWithinTheBudget() throws InterruptedException {
+        PipelineProperties.Autoscale autoscale = pipelineProperties.getAutoscale();
+        autoscale.setMaxTotalWorkers(4);
+        // the netting stage never shrinks on its own here: only the budget moves its workers
+        autoscale.setScaleDownIntervals(1_000);
+        pipelineProperties.setNetting(stage(3, 1, 4));
+        pipelineProperties.setAudit(stage(1, 1, 4));
+        SlowStage netting = new SlowStage(PipelineStage.NETTING);
+        SlowStage audit = new SlowStage(PipelineStage.AUDIT);
+        StageAutoscaler autoscaler = autoscaler(netting, audit);
+
+        netting.start();
+        audit.start();
+        for (int i = 0; i < 2_000; i++) {
+            tradeQueueManager.inboundQueue(PipelineStage.AUDIT).put(new TradeEvent());
+        }
+        for (int i = 0; i < 10 && audit.targetWorkers() < 3; i++) {
+            Thread.sleep(100);
+            autoscaler.tick(System.nanoTime());
+        }
+        assertEquals(3, audit.targetWorkers());
+        assertEquals(1, netting.targetWorkers());
+        AutoscaleStatsDto stats = autoscaler.stats();
+        assertEquals(4, stats.getTotalWorkers());
+        assertTrue(stats.getDecisions().stream().anyMatch(decision -> decision.getStage().equals("NETTING")
+                && decision.getReason().contains("moved to AUDIT")), stats.getDecisions().toString());
+
+        netting.stop();
+        audit.stop();
+        assertEquals(2_000, audit.handled.sum());
+    }
+
+    private StageAutoscaler autoscaler(AbstractTradeStage... stages) {
+        pipelineProperties.getAutoscale().setScaleUpIntervals(2);
+        pipelineProperties.getAutoscale().setCooldown(Duration.ZERO);
+        pipelineProperties.getAutoscale().setMaxStep(2);
+        return new StageAutoscaler(pipelineProperties, metricsProperties, statsRegistry, List.of(stages));
+    }
+
+    private static PipelineProperties.Stage stage(int workers, int minWorkers, int maxWorkers) {
+        PipelineProperties.Stage stage = new PipelineProperties.Stage(workers, 10_000);
+        stage.setMinWorkers(minWorkers);
+        stage.setMaxWorkers(maxWorkers);
+        return stage;
+    }
+
+    // ~1ms per trade; the queue manager and registry are created on first use, after the stage settings are set
+    private final class SlowStage extends AbstractTradeStage {
+
+        final LongAdder handled = new LongAdder();
+
+        SlowStage(PipelineStage stage) {
+            super(stage, queueManager(), pipelineProperties, registry(), queueManager().tradeEventPool());
+        }
+
+        @Override
+        protected void handle(TradeEvent trade) {
+            LockSupport.parkNanos(1_000_000L);
+            handled.increment();
+        }
+    }
+
+    private TradeQueueManager queueManager() {
+        if (tradeQueueManager == null) {
+            tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        }
+        return tradeQueueManager;
+    }
+
+    private PipelineStatsRegistry registry() {
+        if (statsRegistry == null) {
+            // time every call: utilization and service rate from every trade
+            metricsProperties.setSampleEvery(1);
+            statsRegistry = new PipelineStatsRegistry(new LatencyRecorder(), metricsProperties);
+        }
+        return statsRegistry;
+    }
+}
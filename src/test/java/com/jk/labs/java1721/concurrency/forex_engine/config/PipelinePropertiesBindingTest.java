@@ -0,0 +1,52 @@
+package com.jk.labs.java1721.concurrency.forex_engine.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.BindHandler;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.handler.NoUnboundElementsBindHandler;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Binds forex.pipeline the way ignoreUnknownFields = false makes Spring bind it at startup
+public class PipelinePropertiesBindingTest {
+
+    @Test
+    public void testApplicationYmlBindsEveryStageSetting() throws IOException {
+        // the main one: src/test/resources has an empty application.yml that shadows it on the classpath
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application.yml", new FileSystemResource("src/main/resources/application.yml"));
+        PipelineProperties properties = bind(new Binder(ConfigurationPropertySources.from(sources)));
+
+        // one journal commit per audit batch, not per trade
+        assertEquals(256, properties.getAudit().getBatchSize());
+        assertEquals(Duration.ofMillis(2), properties.getAudit().getLinger());
+        assertEquals(4, properties.getAudit().getMaxWorkers());
+        assertEquals(500, properties.getSettlement().getBatchSize());
+        assertEquals(2, properties.getAutoscale().getMaxStep());
+    }
+
+    @Test
+    public void testMisplacedStageSettingFailsTheBinding() {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of(
+                "forex.pipeline.audit.workers", "1",
+                "forex.pipeline.autoscale.batch-size", "256")));
+        assertThrows(BindException.class, () -> bind(binder));
+    }
+
+    private static PipelineProperties bind(Binder binder) {
+        return binder.bind("forex.pipeline", Bindable.of(PipelineProperties.class),
+                new NoUnboundElementsBindHandler(BindHandler.DEFAULT)).get();
+    }
+}
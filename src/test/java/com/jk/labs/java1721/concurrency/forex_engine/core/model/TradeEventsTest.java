@@ -0,0 +1,59 @@
+package com.jk.labs.java1721.concurrency.forex_engine.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeEventsTest {
+
+    @Test
+    public void testEntityRoundTrip() {
+        Trade trade = Trade.builder()
+                .id("42")
+                .accountId("7")
+                .brokerId("3")
+                .fromCurrency("GBP")
+                .toCurrency("JPY")
+                .amount(new BigDecimal("1234.5678"))
+                .noOfUnits(10)
+                .rate(new BigDecimal("187.12345678"))
+                .timestamp(Instant.ofEpochMilli(1_700_000_000_000L))
+                .build();
+
+        TradeEvent event = TradeEvents.fromEntity(trade, new TradeEvent());
+        assertEquals(42L, event.getTradeId());
+        assertEquals(CurrencyPair.code(Currency.GBP, Currency.JPY), event.getCurrencyPair());
+        assertEquals(12_345_678L, event.getAmount());
+        assertEquals(18_712_345_678L, event.getRate());
+
+        Trade back = TradeEvents.toEntity(event);
+        assertEquals("42", back.getId());
+        assertEquals("GBP", back.getFromCurrency());
+        assertEquals("JPY", back.getToCurrency());
+        assertEquals(0, trade.getAmount().compareTo(back.getAmount()));
+        assertEquals(0, trade.getRate().compareTo(back.getRate()));
+        assertEquals(trade.getTimestamp(), back.getTimestamp());
+    }
+
+    @Test
+    public void testRejectsWhatCannotBeEncoded() {
+        Trade uuidId = Trade.builder().id("not-a-number").accountId("1").brokerId("1")
+                .fromCurrency("USD").toCurrency("EUR").build();
+        Trade unknownCurrency = Trade.builder().id("1").accountId("1").brokerId("1")
+                .fromCurrency("USD").toCurrency("XYZ").build();
+
+        assertThrows(IllegalArgumentException.class, () -> TradeEvents.fromEntity(uuidId, new TradeEvent()));
+        assertThrows(IllegalArgumentException.class, () -> TradeEvents.fromEntity(unknownCurrency, new TradeEvent()));
+    }
+
+    @Test
+    public void testConvertBeyondSixtyFourBits() {
+        long amount = FixedPoint.toScaled(new BigDecimal("50000000"), FixedPoint.AMOUNT_DECIMALS);
+        long rate = FixedPoint.toScaled(new BigDecimal("150.5"), FixedPoint.RATE_DECIMALS);
+        assertEquals(FixedPoint.toScaled(new BigDecimal("7525000000"), FixedPoint.AMOUNT_DECIMALS),
+                FixedPoint.convert(amount, rate));
+    }
+}
@@ -0,0 +1,109 @@
+package com.jk.labs.java1721.concurrency.forex_engine.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShutdownOnFailureScopeTest {
+
+    private static final long LOOKUP_MILLIS = 200;
+
+    private final ExecutorService executor = new PlatformPerTaskExecutorFactory().newPerTaskExecutor("scope-test-");
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testForksRunConcurrently() throws Exception {
+        long start = System.nanoTime();
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+            Supplier<Long> rate = scope.fork(() -> lookup(42L));
+            Supplier<Long> account = scope.fork(() -> lookup(7L));
+            Supplier<Long> broker = scope.fork(() -> lookup(3L));
+            scope.joinUntil(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+            scope.throwIfFailed();
+
+            assertEquals(42L, rate.get());
+            assertEquals(7L, account.get());
+            assertEquals(3L, broker.get());
+        }
+        // the slowest lookup, not the sum of three
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < 3 * LOOKUP_MILLIS, "elapsed " + elapsedMillis + "ms");
+    }
+
+    @Test
+    public void testFirstFailureInterruptsTheOtherForks() throws Exception {
+        AtomicBoolean siblingInterrupted = new AtomicBoolean();
+        Supplier<Long> slow;
+        long start = System.nanoTime();
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+            slow = scope.fork(() -> {
+                try {
+                    TimeUnit.SECONDS.sleep(30);
+                } catch (InterruptedException e) {
+                    siblingInterrupted.set(true);
+                    throw e;
+                }
+                return 1L;
+            });
+            scope.fork(() -> {
+                throw new IllegalStateException("Account 7 is SUSPENDED");
+            });
+            scope.joinUntil(System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, scope::throwIfFailed);
+            // the interrupted sibling's InterruptedException does not replace the cause
+            assertEquals("Account 7 is SUSPENDED", failure.getCause().getMessage());
+        }
+        // close() has waited for the sibling to stop
+        assertTrue(siblingInterrupted.get());
+        assertThrows(IllegalStateException.class, slow::get);
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+    }
+
+    @Test
+    public void testDeadlineInterruptsSlowForks() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(2);
+        try (ShutdownOnFailureScope scope = new ShutdownOnFailureScope(executor)) {
+            Supplier<Long> fast = scope.fork(() -> 1L);
+            for (int i = 0; i < 2; i++) {
+                scope.fork(() -> {
+                    try {
+                        TimeUnit.SECONDS.sleep(30);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return 2L;
+                });
+            }
+
+            long start = System.nanoTime();
+            assertThrows(TimeoutException.class,
+                    () -> scope.joinUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LOOKUP_MILLIS)));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(LOOKUP_MILLIS));
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            // a shut-down scope neither reports the interrupted forks as failures nor accepts new ones
+            scope.throwIfFailed();
+            assertEquals(1L, fast.get());
+            assertThrows(IllegalStateException.class, () -> scope.fork(() -> 3L));
+        }
+    }
+
+    private static long lookup(long value) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(LOOKUP_MILLIS);
+        return value;
+    }
+}
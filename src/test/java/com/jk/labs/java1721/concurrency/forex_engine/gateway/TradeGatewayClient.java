@@ -0,0 +1,155 @@
+package com.jk.labs.java1721.concurrency.forex_engine.gateway;
+
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Loopback client for TradeGateway: one blocking connection, a sender thread streaming frames `batch` at a time
+(one write per batch) and the calling thread reading acks until every frame is answered.
+
+Not a JUnit test. Start the engine with forex.gateway.enabled=true (and a pipeline running), then:
+    mvn -B test-compile exec:java -Dexec.classpathScope=test \
+        -Dexec.mainClass=com.jk.labs.java1721.concurrency.forex_engine.gateway.TradeGatewayClient \
+        -Dexec.args="localhost 9100 4 1000000 256"
+    args: host port connections trades-per-connection frames-per-write
+ */
+public class TradeGatewayClient implements Closeable {
+
+    public record Result(long sent, long accepted, long rejected, long invalid, long elapsedNanos) {
+
+        public double tradesPerSecond() {
+            return elapsedNanos > 0 ? sent * 1e9 / elapsedNanos : 0.0;
+        }
+    }
+
+    private static final int USD_EUR = CurrencyPair.code(Currency.USD, Currency.EUR);
+
+    private final SocketChannel channel;
+    // Kept between readAcks calls: acks beyond the count asked for stay in it for the next call
+    private final ByteBuffer acks = ByteBuffer.allocateDirect(TradeFrame.ACK_SIZE * 4096);
+
+    public TradeGatewayClient(String host, int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    // Sends `trades` frames with ids firstTradeId.. and waits for all their acks
+    public Result run(long firstTradeId, int trades, int batch) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Thread sender = new Thread(() -> send(firstTradeId, trades, batch), "gateway-client-sender");
+        sender.setDaemon(true);
+        sender.start();
+        Result result = readAcks(trades);
+        sender.join();
+        return new Result(result.sent(), result.accepted(), result.rejected(), result.invalid(), System.nanoTime() - start);
+    }
+
+    // Blocks until `count` acks have arrived; sent is the number of acks read
+    public Result readAcks(int count) throws IOException {
+        long start = System.nanoTime();
+        long[] codes = new long[3];
+        long received = 0;
+        while (received < count) {
+            if (channel.read(acks) < 0) {
+                throw new EOFException("Gateway closed the connection after " + received + " acks");
+            }
+            acks.flip();
+            while (received < count && acks.remaining() >= TradeFrame.ACK_SIZE) {
+                acks.getLong();
+                int code = acks.getInt();
+                codes[code == TradeFrame.ACCEPTED ? 0 : code == TradeFrame.INVALID ? 2 : 1]++;
+                received++;
+            }
+            acks.compact();
+        }
+        return new Result(count, codes[0], codes[1], codes[2], System.nanoTime() - start);
+    }
+
+    // Raw bytes, e.g. a deliberately broken frame
+    public void write(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void send(long firstTradeId, int trades, int batch) {
+        ByteBuffer frames = ByteBuffer.allocateDirect(TradeFrame.FRAME_SIZE * batch);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            for (int i = 0; i < trades; i++) {
+                TradeFrame.encode(frames, firstTradeId + i, 1 + random.nextInt(1000), 1 + random.nextInt(50), USD_EUR,
+                        (1 + random.nextInt(1_000_000)) * FixedPoint.AMOUNT_SCALE, 1 + random.nextInt(100), 0L);
+                if (!frames.hasRemaining()) {
+                    frames.flip();
+                    write(frames);
+                    frames.clear();
+                }
+            }
+            frames.flip();
+            write(frames);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9100;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int trades = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+        int batch = args.length > 4 ? Integer.parseInt(args[4]) : 256;
+
+        List<Thread> threads = new ArrayList<>();
+        List<Result> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            long firstTradeId = 1_000_000_000L * (c + 1);
+            Thread thread = new Thread(() -> {
+                try (TradeGatewayClient client = new TradeGatewayClient(host, port)) {
+                    Result result = client.run(firstTradeId, trades, batch);
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "gateway-client-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long sent = 0, accepted = 0, rejected = 0, invalid = 0;
+        for (Result result : results) {
+            sent += result.sent();
+            accepted += result.accepted();
+            rejected += result.rejected();
+            invalid += result.invalid();
+        }
+        System.out.printf("%d connections, %,d frames in %,d ms: %,.0f trades/s (accepted %,d, rejected %,d, invalid %,d)%n",
+                connections, sent, elapsed / 1_000_000, sent * 1e9 / elapsed, accepted, rejected, invalid);
+    }
+}
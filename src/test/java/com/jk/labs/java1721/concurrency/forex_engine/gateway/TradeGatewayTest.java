@@ -0,0 +1,112 @@
+package com.jk.labs.java1721.concurrency.forex_engine.gateway;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.config.GatewayProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.GatewayStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeGatewayTest {
+
+    @Test
+    public void testAckCodesArePinnedToTheProtocolNotToTheEnum() {
+        assertEquals(0, TradeFrame.ackCode(Admission.ACCEPTED));
+        assertEquals(1, TradeFrame.ackCode(Admission.TIMED_OUT));
+        assertEquals(2, TradeFrame.ackCode(Admission.DEAD_LETTERED));
+        assertEquals(3, TradeFrame.ackCode(Admission.RATE_LIMITED));
+        assertEquals(4, TradeFrame.ackCode(Admission.INTERRUPTED));
+        assertEquals(5, TradeFrame.ackCode(Admission.DUPLICATE));
+        Set<Integer> codes = new HashSet<>(List.of(TradeFrame.INVALID));
+        for (Admission admission : Admission.values()) {
+            assertTrue(codes.add(TradeFrame.ackCode(admission)), admission + " shares its ack code");
+        }
+    }
+
+    @Test
+    public void testFramesFromManyConnectionsReachTheIntake() throws Exception {
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), new PipelineProperties());
+        TradeGateway gateway = start(tradeQueueManager);
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TradeGatewayClient.Result>> results = new ArrayList<>();
+            for (int c = 0; c < 4; c++) {
+                long firstTradeId = 1 + c * 1_000L;
+                results.add(clients.submit(() -> {
+                    try (TradeGatewayClient client = new TradeGatewayClient("localhost", gateway.port())) {
+                        return client.run(firstTradeId, 1_000, 64);
+                    }
+                }));
+            }
+            for (Future<TradeGatewayClient.Result> result : results) {
+                assertEquals(1_000, result.get().accepted());
+            }
+        } finally {
+            clients.shutdown();
+            gateway.stop();
+        }
+
+        assertEquals(4_000, tradeQueueManager.inboundQueue(PipelineStage.VALIDATION).size());
+        TradeEvent first = tradeQueueManager.inboundQueue(PipelineStage.VALIDATION).poll();
+        assertEquals(CurrencyPair.code(Currency.USD, Currency.EUR), first.getCurrencyPair());
+        assertTrue(first.getAmount() > 0);
+        GatewayStatsDto stats = gateway.stats();
+        assertEquals(4, stats.getConnectionsAccepted());
+        assertEquals(4_000, stats.getFrames());
+        assertEquals(4_000, stats.getAccepted());
+        // acks go out per read, not per frame
+        assertTrue(stats.getAckWrites() < 4_000, "ack writes: " + stats.getAckWrites());
+    }
+
+    @Test
+    public void testFullIntakeAndBadFramesAreAckedNotQueued() throws Exception {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setValidation(new PipelineProperties.Stage(1, 100));
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        TradeGateway gateway = start(tradeQueueManager);
+        try (TradeGatewayClient client = new TradeGatewayClient("localhost", gateway.port())) {
+            TradeGatewayClient.Result result = client.run(1, 500, 50);
+            assertEquals(100, result.accepted());
+            assertEquals(400, result.rejected());
+
+            // unknown currency
+            ByteBuffer frame = ByteBuffer.allocate(TradeFrame.FRAME_SIZE);
+            TradeFrame.encode(frame, 9_999, 1, 1, CurrencyPair.code(Currency.USD, Currency.EUR), 10_000, 1, 0L);
+            frame.put(28, (byte) 'X');
+            frame.flip();
+            client.write(frame);
+            assertEquals(1, client.readAcks(1).invalid());
+        } finally {
+            gateway.stop();
+        }
+
+        assertEquals(100, tradeQueueManager.inboundQueue(PipelineStage.VALIDATION).size());
+        assertEquals(1, gateway.stats().getInvalid());
+        assertEquals(400, tradeQueueManager.admissionStats().getDeadLetters());
+    }
+
+    private static TradeGateway start(TradeQueueManager tradeQueueManager) {
+        GatewayProperties gatewayProperties = new GatewayProperties();
+        gatewayProperties.setPort(0);
+        gatewayProperties.setBindAddress("localhost");
+        TradeGateway gateway = new TradeGateway(gatewayProperties, tradeQueueManager, tradeQueueManager.tradeEventPool());
+        gateway.start();
+        return gateway;
+    }
+}
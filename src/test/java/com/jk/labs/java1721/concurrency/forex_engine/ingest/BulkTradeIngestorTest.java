@@ -0,0 +1,173 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jk.labs.java1721.concurrency.forex_engine.admission.OverloadPolicy;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkBatchDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.BulkIngestResultDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkTradeIngestorTest {
+
+    private static final int TRADES = 100_000;
+    private static final int INTAKE_CAPACITY = 1_024;
+
+    @Test
+    public void testNdjsonBodyStreamsThroughASmallIntake() throws InterruptedException {
+        TradeQueueManager tradeQueueManager = tradeQueueManager(new AdmissionProperties());
+        TradeEventPool pool = new TradeEventPool(INTAKE_CAPACITY * 2);
+        BulkTradeIngestor ingestor = new BulkTradeIngestor(tradeQueueManager, pool, new ObjectMapper());
+
+        // the consumer drains the intake like the validation stage would, checking every trade on the way
+        AtomicLong drained = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        Thread consumer = new Thread(() -> {
+            TradeQueue<TradeEvent> intake = tradeQueueManager.inboundQueue(PipelineStage.VALIDATION);
+            int usdJpy = CurrencyPair.code(Currency.USD, Currency.JPY);
+            try {
+                while (drained.get() < TRADES) {
+                    TradeEvent trade = intake.poll(5, TimeUnit.SECONDS);
+                    if (trade == null) {
+                        return;
+                    }
+                    long id = drained.incrementAndGet();
+                    if (trade.getTradeId() != id || trade.getAccountId() != id % 100
+                            || trade.getCurrencyPair() != usdJpy || trade.getAmount() != id * 10_000L + 2_500L) {
+                        mismatches.incrementAndGet();
+                    }
+                    tradeQueueManager.markSettled(trade);
+                    pool.release(trade);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        consumer.start();
+
+        // the body is generated line by line while it is read, like a socket would deliver it
+        BulkIngestResultDto result = ingestor.ingest(ndjson(TRADES), 1_000);
+        consumer.join(TimeUnit.SECONDS.toMillis(30));
+
+        assertEquals(IngestOutcome.COMPLETE.name(), result.getOutcome());
+        assertEquals(TRADES, result.getRecords());
+        assertEquals(TRADES, result.getAccepted());
+        assertEquals(0, result.getInvalid());
+        assertEquals(TRADES / 1_000, result.getBatches().size());
+        BulkBatchDto last = result.getBatches().get(result.getBatches().size() - 1);
+        assertEquals(TRADES - 999, last.getFirstRecord());
+        assertEquals(1_000, last.getAccepted());
+        assertEquals(TRADES, drained.get());
+        assertEquals(0, mismatches.get());
+        // every event went back to the pool: the intake never needed more than its own capacity
+        assertEquals(0, pool.allocations());
+    }
+
+    @Test
+    public void testJsonArrayCountsInvalidRecordsAndStopsAtBrokenJson() {
+        TradeQueueManager tradeQueueManager = tradeQueueManager(new AdmissionProperties());
+        TradeEventPool pool = new TradeEventPool(64);
+        BulkTradeIngestor ingestor = new BulkTradeIngestor(tradeQueueManager, pool, new ObjectMapper());
+
+        String body = """
+                [
+                  {"id": "1", "accountId": 7, "brokerId": "3", "fromCurrency": "GBP", "toCurrency": "USD",
+                   "amount": 1234.5678, "noOfUnits": 10, "timestamp": "2024-01-02T03:04:05Z", "status": "ignored"},
+                  {"id": "abc", "accountId": 7, "brokerId": 3, "fromCurrency": "GBP", "toCurrency": "USD"},
+                  {"id": 3, "accountId": 7, "brokerId": 3, "fromCurrency": "GBP", "toCurrency": "XXX"},
+                  42,
+                  {"tradeId": 5, "accountId": 7, "brokerId": 3, "fromCurrency": "EUR", "toCurrency": "CHF",
+                   "amount": "99.5", "rate": null, "extra": {"nested": [1, 2]}},
+                  {"id": 6, "accountId": 7, "brokerId": 3, "fromCurrency": "EUR", "toCurrency": "CHF"},
+                  {"id": 7, "accountId":
+                """;
+        BulkIngestResultDto result = ingestor.ingest(stream(body), 2);
+
+        assertEquals(IngestOutcome.MALFORMED.name(), result.getOutcome());
+        assertNotNull(result.getError());
+        assertEquals(6, result.getRecords());
+        assertEquals(3, result.getAccepted());
+        assertEquals(3, result.getInvalid());
+        assertEquals(3, result.getBatches().size());
+        assertEquals("record 2: id: must be numeric: 'abc'", result.getBatches().get(0).getFirstError());
+        assertTrue(result.getBatches().get(1).getFirstError().startsWith("record 3: toCurrency"));
+
+        TradeQueue<TradeEvent> intake = tradeQueueManager.inboundQueue(PipelineStage.VALIDATION);
+        TradeEvent first = intake.poll();
+        assertEquals(1L, first.getTradeId());
+        assertEquals(CurrencyPair.code(Currency.GBP, Currency.USD), first.getCurrencyPair());
+        assertEquals(12_345_678L, first.getAmount());
+        assertEquals(10, first.getUnits());
+        assertEquals(1_704_164_645_000L, first.getCreatedAtMillis());
+        TradeEvent fifth = intake.poll();
+        assertEquals(5L, fifth.getTradeId());
+        assertEquals(995_000L, fifth.getAmount());
+        assertEquals(6L, intake.poll().getTradeId());
+        assertNull(intake.poll());
+    }
+
+    @Test
+    public void testStalledPipelineEndsTheRequest() {
+        AdmissionProperties admissionProperties = new AdmissionProperties();
+        admissionProperties.setBulkIngest(new AdmissionProperties.Intake(OverloadPolicy.TIMEOUT,
+                Duration.ofMillis(20), 10_000, 1_000));
+        TradeQueueManager tradeQueueManager = tradeQueueManager(admissionProperties);
+        TradeEventPool pool = new TradeEventPool(INTAKE_CAPACITY * 2);
+        BulkTradeIngestor ingestor = new BulkTradeIngestor(tradeQueueManager, pool, new ObjectMapper());
+
+        // nobody consumes: the intake fills up and the next trade times out
+        BulkIngestResultDto result = ingestor.ingest(ndjson(TRADES), 1_000);
+        assertEquals(IngestOutcome.INTAKE_STALLED.name(), result.getOutcome());
+        assertEquals(INTAKE_CAPACITY, result.getAccepted());
+        assertEquals(1, result.getRejected());
+        assertEquals(INTAKE_CAPACITY + 1, result.getRecords());
+    }
+
+    private static TradeQueueManager tradeQueueManager(AdmissionProperties admissionProperties) {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setValidation(new PipelineProperties.Stage(1, INTAKE_CAPACITY));
+        return new TradeQueueManager(new TradeQueueProperties(), pipelineProperties, null, admissionProperties);
+    }
+
+    private static InputStream ndjson(int trades) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next <= trades;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int id = next++;
+                return stream("{\"id\":\"" + id + "\",\"accountId\":\"" + (id % 100) + "\",\"brokerId\":\"4\","
+                        + "\"fromCurrency\":\"USD\",\"toCurrency\":\"JPY\",\"amount\":" + id + ".25,"
+                        + "\"noOfUnits\":1}\n");
+            }
+        });
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,162 @@
+package com.jk.labs.java1721.concurrency.forex_engine.journal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.JournalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuditJournalTest {
+
+    // 100 records per segment
+    private static final DataSize SEGMENT_SIZE = DataSize.ofBytes(100L * AuditRecord.SIZE);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppendRollsSegmentsAndReplaysInOrder() throws IOException {
+        AuditJournal journal = open(FsyncPolicy.BATCH);
+        for (int i = 1; i <= 250; i++) {
+            journal.append(trade(i));
+        }
+        journal.commitBatch();
+
+        long[] expected = {1};
+        long visited = journal.scan(0, (index, record) -> {
+            assertEquals(expected[0]++, record.tradeId());
+            assertEquals(expected[0] - 2, index);
+            return true;
+        });
+        assertEquals(250, visited);
+        assertEquals(50, journal.scan(200, (index, record) -> true));
+        assertEquals(3, journal.stats().getSegments());
+        assertEquals(3, segmentFiles().size());
+        assertTrue(journal.stats().getFsyncs() > 0);
+        journal.close();
+    }
+
+    @Test
+    public void testFindByTradeIdThroughSparseIndex() {
+        AuditJournal journal = open(FsyncPolicy.NEVER);
+        // slightly out of order, as with several audit workers
+        for (int i = 1; i <= 500; i += 2) {
+            journal.append(trade(i + 1));
+            journal.append(trade(i));
+        }
+
+        TradeEvent found = new TradeEvent();
+        assertTrue(journal.find(377, found));
+        assertEquals(377, found.getTradeId());
+        assertEquals(377 % 50, found.getAccountId());
+        assertEquals(CurrencyPair.code(Currency.EUR, Currency.USD), found.getCurrencyPair());
+        assertEquals(TradeStatus.SETTLED, found.getStatus());
+        assertFalse(journal.find(9_999, found));
+        journal.close();
+    }
+
+    @Test
+    public void testReopenKeepsIntactRecordsAfterATornOne() throws IOException {
+        AuditJournal journal = open(FsyncPolicy.PERIODIC);
+        for (int i = 1; i <= 150; i++) {
+            journal.append(trade(i));
+        }
+        journal.close();
+
+        // tear record 140: fields changed after the commit word was written
+        Path last = segmentFiles().get(1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            ByteBuffer amount = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, 42L);
+            channel.write(amount, 39L * AuditRecord.SIZE + 24);
+        }
+
+        AuditJournal reopened = open(FsyncPolicy.PERIODIC);
+        assertEquals(150, reopened.size());
+        assertTrue(reopened.find(100, new TradeEvent()));
+        assertFalse(reopened.find(140, new TradeEvent()));
+        assertTrue(reopened.find(145, new TradeEvent()));
+
+        assertEquals(150, reopened.append(trade(1_000)));
+        assertEquals(150, reopened.scan(0, (index, record) -> true));
+        reopened.close();
+    }
+
+    @Test
+    public void testHoleInTheMiddleOfASegmentIsSkippedNotTruncated() throws IOException {
+        AuditJournal journal = open(FsyncPolicy.BATCH);
+        for (int i = 1; i <= 180; i++) {
+            journal.append(trade(i));
+        }
+        journal.commitBatch();
+        journal.close();
+
+        // record 121 was claimed but never written when the process died; 122..180 committed after it
+        Path second = segmentFiles().get(1);
+        try (FileChannel channel = FileChannel.open(second, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(AuditRecord.SIZE), 20L * AuditRecord.SIZE);
+        }
+
+        AuditJournal reopened = open(FsyncPolicy.BATCH);
+        assertEquals(180, reopened.size());
+        assertFalse(reopened.find(121, new TradeEvent()));
+        assertTrue(reopened.find(180, new TradeEvent()));
+
+        long[] previous = {109};
+        assertEquals(69, reopened.scan(110, (index, record) -> {
+            assertEquals(index + 1, record.tradeId());
+            assertTrue(index > previous[0]);
+            previous[0] = index;
+            return true;
+        }));
+        // the hole's slot is not reused; a write in flight after the reopen still ends a scan
+        assertEquals(180, reopened.append(trade(181)));
+        assertEquals(70, reopened.scan(110, (index, record) -> true));
+        reopened.close();
+    }
+
+    private AuditJournal open(FsyncPolicy fsyncPolicy) {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDirectory(directory.toString());
+        journalProperties.setSegmentSize(SEGMENT_SIZE);
+        journalProperties.setIndexInterval(16);
+        journalProperties.setFsyncPolicy(fsyncPolicy);
+        AuditJournal journal = new AuditJournal(journalProperties);
+        journal.open();
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static TradeEvent trade(long id) {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(id);
+        trade.setAccountId(id % 50);
+        trade.setBrokerId(7);
+        trade.setCurrencyPair(CurrencyPair.code(Currency.EUR, Currency.USD));
+        trade.setAmount(1_000_000L * id);
+        trade.setRate(108_000_000L);
+        trade.setUnits(10);
+        trade.setCreatedAtMillis(1_700_000_000_000L + id);
+        trade.setStatus(TradeStatus.SETTLED);
+        return trade;
+    }
+}
@@ -0,0 +1,99 @@
+package com.jk.labs.java1721.concurrency.forex_engine.ledger;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountLedgerTest {
+
+    @Test
+    public void testConcurrentPostsLoseNothing() throws Exception {
+        AccountLedger ledger = new AccountLedger(new LedgerProperties());
+        int threads = 4;
+        int posts = 100_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < posts; i++) {
+                    ledger.post(1 + i % 10, Currency.USD, 100, Currency.EUR, 90);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        assertEquals(10, ledger.accounts());
+        for (long account = 1; account <= 10; account++) {
+            assertEquals(-100L * threads * posts / 10, ledger.balance(account, Currency.USD));
+            assertEquals(90L * threads * posts / 10, ledger.balance(account, Currency.EUR));
+        }
+        assertEquals((long) threads * posts, ledger.stats().getUpdates());
+    }
+
+    @Test
+    public void testSnapshotSeesBothLegsOrNeither() throws Exception {
+        AccountLedger ledger = new AccountLedger(new LedgerProperties());
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> {
+            while (running.get()) {
+                ledger.post(7, Currency.GBP, 5, Currency.JPY, 5);
+            }
+        });
+        Future<?> reader = executor.submit(() -> {
+            for (int i = 0; i < 50_000; i++) {
+                long[] balances = ledger.snapshot(7);
+                if (balances != null) {
+                    assertEquals(0L, balances[Currency.GBP.ordinal()] + balances[Currency.JPY.ordinal()]);
+                }
+            }
+            return null;
+        });
+        reader.get(30, TimeUnit.SECONDS);
+        running.set(false);
+        writer.get(5, TimeUnit.SECONDS);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDrainDirtyHandsOutChangedCurrenciesOnce() {
+        AccountLedger ledger = new AccountLedger(new LedgerProperties());
+        ledger.post(3, Currency.USD, 10, Currency.CHF, 9);
+        ledger.adjust(4, Currency.AUD, 50);
+
+        List<long[]> drained = new ArrayList<>();
+        assertEquals(2, ledger.drainDirty((account, changed, balances) -> drained.add(new long[]{account, changed})));
+        assertTrue(drained.stream().anyMatch(d -> d[0] == 3
+                && d[1] == ((1L << Currency.USD.ordinal()) | (1L << Currency.CHF.ordinal()))));
+        assertEquals(0, ledger.drainDirty((account, changed, balances) -> fail("nothing changed")));
+    }
+
+    @Test
+    public void testFullLedgerRejectsNewAccounts() {
+        LedgerProperties properties = new LedgerProperties();
+        properties.setMaxAccounts(4);
+        AccountLedger ledger = new AccountLedger(properties);
+        for (long account = 1; account <= 4; account++) {
+            ledger.adjust(account, Currency.USD, 1);
+        }
+        ledger.adjust(2, Currency.USD, 1);
+        assertThrows(IllegalStateException.class, () -> ledger.adjust(5, Currency.USD, 1));
+        assertNull(ledger.snapshot(5));
+    }
+}
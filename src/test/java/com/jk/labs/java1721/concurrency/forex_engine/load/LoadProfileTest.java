@@ -0,0 +1,54 @@
+package com.jk.labs.java1721.concurrency.forex_engine.load;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.LoadProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadProfileTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testRampClimbsThenHolds() {
+        LoadProperties settings = new LoadProperties();
+        settings.setRate(10_000);
+        settings.getRamp().setStartRate(1_000);
+        settings.getRamp().setDuration(Duration.ofSeconds(10));
+
+        assertEquals(1_000.0, LoadProfile.RAMP.rateAt(settings, 0L), 1e-9);
+        assertEquals(5_500.0, LoadProfile.RAMP.rateAt(settings, 5 * SECOND), 1e-9);
+        assertEquals(10_000.0, LoadProfile.RAMP.rateAt(settings, 30 * SECOND), 1e-9);
+    }
+
+    @Test
+    public void testBurstSpikesAtTheStartOfEachPeriod() {
+        LoadProperties settings = new LoadProperties();
+        settings.setRate(1_000);
+
+        assertEquals(5_000.0, LoadProfile.BURST.rateAt(settings, SECOND / 2), 1e-9);
+        assertEquals(1_000.0, LoadProfile.BURST.rateAt(settings, 5 * SECOND), 1e-9);
+        assertEquals(5_000.0, LoadProfile.BURST.rateAt(settings, 20 * SECOND + 1), 1e-9);
+    }
+
+    @Test
+    public void testZipfFavoursLowRanks() {
+        ZipfSampler uniform = new ZipfSampler(10, 0.0);
+        ZipfSampler skewed = new ZipfSampler(10, 1.0);
+        int[] uniformCounts = new int[10];
+        int[] skewedCounts = new int[10];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            uniformCounts[uniform.sample(random)]++;
+            skewedCounts[skewed.sample(random)]++;
+        }
+
+        // uniform: ~10% each; zipf(1) over 10 keys: rank 0 ~34%, rank 9 ~3.4%
+        assertTrue(uniformCounts[0] > 9_000 && uniformCounts[0] < 11_000);
+        assertTrue(skewedCounts[0] > 30_000);
+        assertTrue(skewedCounts[9] < 5_000);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jk.labs.java1721.concurrency.forex_engine.metrics;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.IntakePath;
+import com.jk.labs.java1721.concurrency.forex_engine.autoscale.StageAutoscaler;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.MetricsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineMetricsExporterTest {
+
+    @Test
+    public void testStageAndPipelineMetricsAreExportedPerInterval() {
+        MetricsProperties metricsProperties = new MetricsProperties();
+        metricsProperties.setLogSummary(false);
+        // time every call so the numbers below are exact
+        metricsProperties.setSampleEvery(1);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder(), metricsProperties);
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), new PipelineProperties(),
+                null, new AdmissionProperties());
+        PipelineMetricsExporter exporter = new PipelineMetricsExporter(statsRegistry, tradeQueueManager,
+                new TradeEventPool(16), metricsProperties,
+                new StageAutoscaler(new PipelineProperties(), metricsProperties, statsRegistry, List.of()));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        exporter.bindTo(registry);
+
+        // one validation worker busy for ~1ms per trade, 10 trades; 3 trades through the whole pipeline
+        StageMetrics validation = statsRegistry.stage(PipelineStage.VALIDATION);
+        validation.setWorkers(1);
+        for (int i = 0; i < 10; i++) {
+            validation.recordHandled(1, System.nanoTime() - Duration.ofMillis(1).toNanos());
+        }
+        validation.recordFailed();
+        PipelineModeStats classic = statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE);
+        for (int i = 0; i < 3; i++) {
+            classic.recordCompleted(System.nanoTime() - Duration.ofMillis(5).toNanos());
+        }
+        tradeQueueManager.addTrade(IntakePath.PRODUCER, trade(), System.nanoTime());
+
+        // percentiles only move when an interval closes
+        assertEquals(0.0, registry.get("forex.stage.service.time").tags("stage", "VALIDATION", "quantile", "0.99")
+                .gauge().value());
+        exporter.roll();
+
+        assertEquals(10.0, registry.get("forex.stage.trades").tag("stage", "VALIDATION").functionCounter().count());
+        assertEquals(1.0, registry.get("forex.stage.failed").tag("stage", "VALIDATION").functionCounter().count());
+        double p99 = registry.get("forex.stage.service.time").tags("stage", "VALIDATION", "quantile", "0.99")
+                .gauge().value();
+        assertTrue(p99 >= 0.00099 && p99 < 1.0, "p99 " + p99);
+        double utilization = registry.get("forex.stage.utilization").tag("stage", "VALIDATION").gauge().value();
+        assertTrue(utilization > 0.0 && utilization <= 1.0, "utilization " + utilization);
+        assertEquals(0.0, registry.get("forex.stage.utilization").tag("stage", "AUDIT").gauge().value());
+
+        assertEquals(3.0, registry.get("forex.pipeline.trades")
+                .tags("mode", "CLASSIC_BLOCKING_QUEUE", "outcome", "completed").functionCounter().count());
+        double latency = registry.get("forex.pipeline.latency")
+                .tags("mode", "CLASSIC_BLOCKING_QUEUE", "quantile", "0.5").gauge().value();
+        assertTrue(latency >= 0.00495, "latency " + latency);
+
+        assertEquals(1.0, registry.get("forex.queue.depth").tags("stage", "VALIDATION", "shard", "0").gauge().value());
+        assertEquals(1.0, registry.get("forex.intake.admissions").tags("path", "PRODUCER", "outcome", "ACCEPTED")
+                .functionCounter().count());
+
+        // an idle interval reads as zero rather than repeating the last one
+        exporter.roll();
+        assertEquals(0.0, registry.get("forex.stage.service.time").tags("stage", "VALIDATION", "quantile", "0.99")
+                .gauge().value());
+    }
+
+    private static TradeEvent trade() {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(1);
+        trade.setAccountId(1);
+        return trade;
+    }
+}
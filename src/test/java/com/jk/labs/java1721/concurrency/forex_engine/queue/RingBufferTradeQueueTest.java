@@ -0,0 +1,99 @@
+package com.jk.labs.java1721.concurrency.forex_engine.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferTradeQueueTest {
+
+    @Test
+    public void testCapacityRoundedToPowerOfTwo() {
+        assertEquals(16384, new RingBufferTradeQueue<>(10000, WaitStrategy.PARK).capacity());
+        assertEquals(8, new RingBufferTradeQueue<>(8, WaitStrategy.PARK).capacity());
+    }
+
+    @Test
+    public void testFifoAndBounds() throws InterruptedException {
+        TradeQueue<Integer> queue = new RingBufferTradeQueue<>(4, WaitStrategy.BUSY_SPIN);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(99));
+        assertFalse(queue.offer(99, 1, TimeUnit.MILLISECONDS));
+        assertEquals(4, queue.size());
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testBatchClaimAndDrain() {
+        TradeQueue<Integer> queue = new RingBufferTradeQueue<>(8, WaitStrategy.YIELD);
+        List<Integer> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            batch.add(i);
+        }
+        assertEquals(8, queue.offerBatch(batch, 0));
+        assertEquals(0, queue.offerBatch(batch, 8));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(5, queue.drainTo(drained, 5));
+        assertEquals(2, queue.offerBatch(batch, 8));
+        assertEquals(5, queue.drainTo(drained, 100));
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), drained);
+    }
+
+    @Test
+    public void testConcurrentHandOffLosesNothing() throws Exception {
+        int producers = 2;
+        int consumers = 3;
+        int perProducer = 50_000;
+        TradeQueue<Integer> queue = new RingBufferTradeQueue<>(1024, WaitStrategy.PARK);
+        ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicInteger remaining = new AtomicInteger(producers * perProducer);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.put(base + i);
+                }
+                return null;
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            futures.add(executor.submit(() -> {
+                while (remaining.get() > 0) {
+                    Integer value = queue.poll(10, TimeUnit.MILLISECONDS);
+                    if (value != null) {
+                        assertNull(seen.put(value, Boolean.TRUE), "duplicate " + value);
+                        remaining.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        assertEquals(producers * perProducer, seen.size());
+        assertTrue(queue.isEmpty());
+    }
+}
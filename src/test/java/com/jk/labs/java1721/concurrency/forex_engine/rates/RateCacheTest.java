@@ -0,0 +1,126 @@
+package com.jk.labs.java1721.concurrency.forex_engine.rates;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.RateProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RateCacheStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateCacheTest {
+
+    private static final int EUR_USD = CurrencyPair.code(Currency.EUR, Currency.USD);
+
+    @Test
+    public void testConcurrentMissesShareOneLookup() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        RateCache rateCache = start(pair -> {
+            fetches.incrementAndGet();
+            await(release);
+            return 108_000_000L;
+        }, Duration.ofSeconds(10), Duration.ofSeconds(20));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> rateCache.rate(EUR_USD)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Long> lookup : lookups) {
+                assertEquals(108_000_000L, lookup.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+            rateCache.stop();
+        }
+
+        assertEquals(1, fetches.get());
+        assertEquals(108_000_000L, rateCache.rate(EUR_USD));
+        RateCacheStatsDto stats = rateCache.stats();
+        assertEquals(8, stats.getMisses());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getLoads());
+    }
+
+    @Test
+    public void testStaleRateIsServedWhileRefreshing() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        RateCache rateCache = start(pair -> {
+            if (fetches.incrementAndGet() == 1) {
+                return 100L;
+            }
+            await(release);
+            return 200L;
+        }, Duration.ofMillis(50), Duration.ofSeconds(10));
+        try {
+            assertEquals(100L, rateCache.rate(EUR_USD));
+            Thread.sleep(80);
+
+            // past refresh-after but within max-staleness: the old rate while the refresh is in flight
+            assertEquals(100L, rateCache.rate(EUR_USD));
+            assertEquals(100L, rateCache.rate(EUR_USD));
+            release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (rateCache.rate(EUR_USD) != 200L && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(200L, rateCache.rate(EUR_USD));
+            assertTrue(rateCache.stats().getStaleHits() >= 2);
+            assertEquals(1, rateCache.stats().getMisses());
+        } finally {
+            release.countDown();
+            rateCache.stop();
+        }
+    }
+
+    @Test
+    public void testNoRateOlderThanMaxStaleness() throws Exception {
+        AtomicInteger fetches = new AtomicInteger();
+        RateCache rateCache = start(pair -> {
+            if (fetches.incrementAndGet() > 1) {
+                throw new IllegalStateException("source down");
+            }
+            return 100L;
+        }, Duration.ofMillis(20), Duration.ofMillis(60));
+        try {
+            assertEquals(100L, rateCache.rate(EUR_USD));
+            Thread.sleep(100);
+            assertThrows(IllegalStateException.class, () -> rateCache.rate(EUR_USD));
+            assertTrue(rateCache.stats().getLoadFailures() >= 1);
+        } finally {
+            rateCache.stop();
+        }
+    }
+
+    private static RateCache start(RateSource rateSource, Duration refreshAfter, Duration maxStaleness) {
+        RateProperties rateProperties = new RateProperties();
+        rateProperties.setRefreshAfter(refreshAfter);
+        rateProperties.setMaxStaleness(maxStaleness);
+        RateCache rateCache = new RateCache(rateSource, rateProperties);
+        rateCache.start();
+        return rateCache;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reconciliation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.JournalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReconciliationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationBreakDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReconciliationReportDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditJournal;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.FsyncPolicy;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeReconcilerTest {
+
+    private static final int EUR_USD = CurrencyPair.code(Currency.EUR, Currency.USD);
+    private static final long CREATED = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testChecksumsFindEveryKindOfBreak() {
+        TradeBatchRepository repository = repository("reconciliation");
+        AuditJournal journal = journal();
+        AccountLedger ledger = new AccountLedger(new LedgerProperties());
+
+        // ids of every length, so the trades fall into many partitions
+        List<TradeEvent> rows = new ArrayList<>();
+        for (long i = 1; i <= 2_000; i++) {
+            TradeEvent trade = trade(i * 104_729L, i * 10_000L, TradeStatus.SETTLED);
+            audit(journal, ledger, trade);
+            rows.add(trade);
+        }
+        // settled and audited, but the row never made it
+        audit(journal, ledger, trade(77, 5_000_000L, TradeStatus.SETTLED));
+        // a row nobody audited
+        rows.add(trade(3_141_592_653L, 1_000_000L, TradeStatus.SETTLED));
+        // audited twice
+        TradeEvent twice = trade(55_555, 2_000_000L, TradeStatus.SETTLED);
+        audit(journal, ledger, twice);
+        audit(journal, ledger, twice);
+        rows.add(twice);
+        // the row's amount differs from the audited one
+        audit(journal, ledger, trade(999_999_999L, 3_000_000L, TradeStatus.SETTLED));
+        rows.add(trade(999_999_999L, 3_000_001L, TradeStatus.SETTLED));
+        // netted: no row of its own
+        audit(journal, ledger, trade(4_242, 4_000_000L, TradeStatus.NETTED));
+        // created before the window: not matched, but still part of the positions
+        TradeEvent yesterday = trade(8_888, 6_000_000L, TradeStatus.SETTLED);
+        yesterday.setCreatedAtMillis(CREATED - 86_400_000L);
+        audit(journal, ledger, yesterday);
+        // a ledger movement no trade explains
+        ledger.adjust(7, Currency.USD, 1L);
+        journal.commitBatch();
+        repository.insertBatch(rows);
+
+        TradeReconciler reconciler = new TradeReconciler(properties(), journal, repository, ledger);
+        ReconciliationReportDto report = reconciler.reconcile(Instant.ofEpochMilli(CREATED - 1_000L),
+                Instant.ofEpochMilli(CREATED + 1_000L));
+
+        assertEquals("COMPLETED", report.getStatus(), report.getError());
+        assertEquals(100.0, report.getProgressPercent());
+        assertEquals(2_006, report.getAuditRecordsScanned());
+        assertEquals(2_004, report.getAuditedSettled());
+        assertEquals(1, report.getAuditedNetted());
+        assertEquals(2_003, report.getTradeRows());
+        assertEquals(91, report.getPartitionsScanned());
+        // only the partitions holding a break were itemised
+        assertEquals(4, report.getMismatchedPartitions());
+        assertEquals(4, report.getDrillDownPartitionsDone());
+
+        assertEquals(1, report.getMissingRows());
+        assertEquals(1, report.getUnauditedRows());
+        assertEquals(1, report.getDuplicateAudits());
+        assertEquals(1, report.getAmountMismatches());
+        assertEquals(1, report.getPositionMismatches());
+        assertFalse(report.isBreaksTruncated());
+
+        List<ReconciliationBreakDto> breaks = report.getBreaks();
+        assertEquals(5, breaks.size());
+        ReconciliationBreakDto amount = find(breaks, BreakType.AMOUNT_MISMATCH);
+        assertEquals(999_999_999L, amount.getTradeId());
+        assertEquals(0, amount.getExpected().compareTo(FixedPoint.toBigDecimal(3_000_000L, FixedPoint.AMOUNT_DECIMALS)));
+        assertEquals(0, amount.getActual().compareTo(FixedPoint.toBigDecimal(3_000_001L, FixedPoint.AMOUNT_DECIMALS)));
+        assertEquals(77L, find(breaks, BreakType.MISSING_ROW).getTradeId());
+        assertEquals(3_141_592_653L, find(breaks, BreakType.UNAUDITED_ROW).getTradeId());
+        assertEquals(2, find(breaks, BreakType.DUPLICATE_AUDIT).getAuditRecords());
+        ReconciliationBreakDto position = find(breaks, BreakType.POSITION_MISMATCH);
+        assertEquals(7L, position.getAccountId());
+        assertEquals("USD", position.getCurrency());
+        assertSame(report.getStatus(), reconciler.report().getStatus());
+        journal.close();
+    }
+
+    @Test
+    public void testBalancesRestoredByAWarmStartAreTheOpeningPosition() {
+        TradeBatchRepository repository = repository("reconciliation_restored");
+        AuditJournal journal = journal();
+        AccountLedger ledger = new AccountLedger(new LedgerProperties());
+        // before any trade: accounts 1..50 come back with yesterday's balances
+        long[] opening = new long[Currency.count()];
+        for (long accountId = 1; accountId <= 50; accountId++) {
+            opening[Currency.EUR.ordinal()] = -accountId * 1_000_000L;
+            opening[Currency.USD.ordinal()] = accountId * 1_080_000L;
+            assertTrue(ledger.restore(accountId, opening));
+        }
+
+        List<TradeEvent> rows = new ArrayList<>();
+        for (long i = 1; i <= 500; i++) {
+            TradeEvent trade = trade(i, i * 10_000L, TradeStatus.SETTLED);
+            audit(journal, ledger, trade);
+            rows.add(trade);
+        }
+        ledger.adjust(9, Currency.EUR, 1L);
+        journal.commitBatch();
+        repository.insertBatch(rows);
+
+        ReconciliationReportDto report = new TradeReconciler(properties(), journal, repository, ledger)
+                .reconcile(Instant.ofEpochMilli(CREATED - 1_000L), Instant.ofEpochMilli(CREATED + 1_000L));
+        assertEquals("COMPLETED", report.getStatus(), report.getError());
+        // only the unexplained adjustment, not every restored account
+        assertEquals(1, report.getPositionMismatches());
+        ReconciliationBreakDto position = find(report.getBreaks(), BreakType.POSITION_MISMATCH);
+        assertEquals(9L, position.getAccountId());
+        assertEquals("EUR", position.getCurrency());
+        journal.close();
+    }
+
+    @Test
+    public void testPartitionsFollowTheStringOrderOfTradeIds() {
+        TradeIdPartitions partitions = new TradeIdPartitions(3);
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long id = switch (i % 3) {
+                case 0 -> random.nextInt(10_000);
+                case 1 -> random.nextLong(1L << 40);
+                default -> random.nextLong(Long.MAX_VALUE);
+            };
+            int partition = partitions.partitionOf(id);
+            String key = Long.toString(id);
+            String lower = partitions.lowerBound(partition);
+            String upper = partitions.upperBound(partition);
+            assertTrue(lower == null || key.compareTo(lower) >= 0, key + " below " + lower);
+            assertTrue(upper == null || key.compareTo(upper) < 0, key + " not below " + upper);
+        }
+        assertEquals(901, partitions.count());
+        assertNull(partitions.lowerBound(0));
+        assertNull(partitions.upperBound(900));
+    }
+
+    private static ReconciliationBreakDto find(List<ReconciliationBreakDto> breaks, BreakType type) {
+        return breaks.stream().filter(b -> b.getType().equals(type.name())).findFirst().orElseThrow();
+    }
+
+    // The pipeline's audit stage appends after settlement has posted to the ledger
+    private static void audit(AuditJournal journal, AccountLedger ledger, TradeEvent trade) {
+        journal.append(trade);
+        ledger.post(trade.getAccountId(), Currency.EUR, trade.getAmount(), Currency.USD,
+                FixedPoint.convert(trade.getAmount(), trade.getRate()));
+    }
+
+    private static TradeEvent trade(long id, long amount, TradeStatus status) {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(id);
+        trade.setAccountId(1 + id % 50);
+        trade.setBrokerId(7);
+        trade.setCurrencyPair(EUR_USD);
+        trade.setAmount(amount);
+        trade.setRate(108_000_000L);
+        trade.setUnits(10);
+        trade.setCreatedAtMillis(CREATED);
+        trade.setStatus(status);
+        return trade;
+    }
+
+    private static ReconciliationProperties properties() {
+        ReconciliationProperties properties = new ReconciliationProperties();
+        properties.setParallelism(4);
+        properties.setPrefixDigits(2);
+        properties.setChunkRecords(64);
+        properties.setFetchSize(100);
+        properties.setDrillDownPartitions(3);
+        return properties;
+    }
+
+    private AuditJournal journal() {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDirectory(directory.toString());
+        journalProperties.setFsyncPolicy(FsyncPolicy.NEVER);
+        AuditJournal journal = new AuditJournal(journalProperties);
+        journal.open();
+        return journal;
+    }
+
+    private static TradeBatchRepository repository(String database) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE trade (trade_id VARCHAR(50) PRIMARY KEY, account_id VARCHAR(50), broker_id VARCHAR(50) NOT NULL,
+                                    from_currency VARCHAR(50), to_currency VARCHAR(50), amount NUMERIC(19, 8),
+                                    no_of_units INT, rate NUMERIC(19, 8), created_dt TIMESTAMP(6), status VARCHAR(50))""");
+        return new TradeBatchRepository(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+}
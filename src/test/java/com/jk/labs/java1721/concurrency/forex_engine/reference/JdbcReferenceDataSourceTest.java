@@ -0,0 +1,40 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcReferenceDataSourceTest {
+
+    @Test
+    public void testStatusChangeInTheTableReachesTheCacheAfterInvalidation() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:reference_data;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE account (account_id VARCHAR(50) PRIMARY KEY, status VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE broker (account_id VARCHAR(50) PRIMARY KEY, status VARCHAR(50))");
+        jdbcTemplate.update("INSERT INTO account VALUES ('7', 'ACTIVE'), ('8', 'SUSPENDED'), ('desk-a', 'ACTIVE'), ('9', NULL)");
+        jdbcTemplate.update("INSERT INTO broker VALUES ('3', 'ACTIVE')");
+        JdbcReferenceDataSource source = new JdbcReferenceDataSource(jdbcTemplate);
+
+        // non-numeric ids and rows without a status never match a trade
+        assertEquals(Map.of(7L, ReferenceDataSource.ACTIVE, 8L, "SUSPENDED"), source.accountStatuses());
+        assertEquals(Map.of(3L, ReferenceDataSource.ACTIVE), source.brokerStatuses());
+        assertNull(source.accountStatus(42));
+        assertEquals(ReferenceDataSource.ACTIVE, source.brokerStatus(3));
+
+        ReferenceDataCache cache = new ReferenceDataCache(source, new ReferenceProperties());
+        cache.start();
+        assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(7));
+
+        // what ReferenceDataInvalidator does after a JPA write to the row
+        jdbcTemplate.update("UPDATE account SET status = 'SUSPENDED' WHERE account_id = '7'");
+        assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(7));
+        cache.invalidateAccount(7);
+        assertEquals("SUSPENDED", cache.accountStatus(7));
+    }
+}
@@ -0,0 +1,109 @@
+package com.jk.labs.java1721.concurrency.forex_engine.reference;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ReferenceTableStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataCacheTest {
+
+    @Test
+    public void testPreloadedIdsNeverReachTheSource() {
+        CountingSource source = new CountingSource();
+        for (long id = 1; id <= 100; id++) {
+            source.accounts.put(id, ReferenceDataSource.ACTIVE);
+        }
+        ReferenceDataCache cache = start(source, 1024);
+
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 100; id++) {
+                assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(id));
+            }
+        }
+
+        assertEquals(0, source.lookups.get());
+        ReferenceTableStatsDto stats = cache.stats().getAccounts();
+        assertEquals(100, stats.getPreloaded());
+        assertEquals(300, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(1.0, stats.getHitRatio());
+        assertEquals(1024L * Long.BYTES + 1024 / 8, stats.getFootprintBytes());
+    }
+
+    @Test
+    public void testUnknownIdsAreCachedAndInvalidationReadsThrough() {
+        CountingSource source = new CountingSource();
+        ReferenceDataCache cache = start(source, 1024);
+
+        assertNull(cache.accountStatus(42));
+        assertNull(cache.accountStatus(42));
+        assertEquals(1, source.lookups.get());
+        assertEquals(1, cache.stats().getAccounts().getNegativeHits());
+
+        // the account is created, then suspended
+        source.accounts.put(42L, ReferenceDataSource.ACTIVE);
+        cache.invalidateAccount(42);
+        assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(42));
+        source.accounts.put(42L, "SUSPENDED");
+        assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(42));
+        cache.invalidateAccount(42);
+        assertEquals("SUSPENDED", cache.accountStatus(42));
+
+        assertEquals(3, source.lookups.get());
+        assertEquals(2, cache.stats().getAccounts().getInvalidations());
+    }
+
+    @Test
+    public void testCacheStaysWithinCapacity() {
+        CountingSource source = new CountingSource();
+        for (long id = 1; id <= 10_000; id++) {
+            source.accounts.put(id, ReferenceDataSource.ACTIVE);
+        }
+        ReferenceDataCache cache = start(source, 256);
+
+        for (long id = 1; id <= 10_000; id++) {
+            assertEquals(ReferenceDataSource.ACTIVE, cache.accountStatus(id));
+        }
+
+        ReferenceTableStatsDto stats = cache.stats().getAccounts();
+        assertEquals(256, stats.getCapacity());
+        assertTrue(stats.getEntries() <= 256);
+        assertTrue(stats.getEvictions() > 0);
+    }
+
+    private static ReferenceDataCache start(ReferenceDataSource source, int capacity) {
+        ReferenceProperties referenceProperties = new ReferenceProperties();
+        referenceProperties.setAccountCapacity(capacity);
+        ReferenceDataCache cache = new ReferenceDataCache(source, referenceProperties);
+        cache.start();
+        return cache;
+    }
+
+    private static class CountingSource implements ReferenceDataSource {
+
+        final Map<Long, String> accounts = new ConcurrentHashMap<>();
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public String accountStatus(long accountId) {
+            lookups.incrementAndGet();
+            return accounts.get(accountId);
+        }
+
+        @Override
+        public String brokerStatus(long brokerId) {
+            lookups.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public Map<Long, String> accountStatuses() {
+            return Map.copyOf(accounts);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.analytics.TradeAnalytics;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AnalyticsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.JournalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.NettingProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.RateProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.NettingStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ShardStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.NetInstruction;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.AuditJournal;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.SettlementStats;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.QueueType;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.rates.RateCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.SimulatedReferenceDataSource;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.NetSettlementRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.validation.ValidationEngine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClassicPipelineDrainTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    public void testStopInStageOrderDrainsEveryAcceptedTrade() {
+        TradeQueueProperties queueProperties = new TradeQueueProperties();
+        queueProperties.setType(QueueType.RING_BUFFER);
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setEnrichment(new PipelineProperties.Stage(3, 64));
+
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(queueProperties, pipelineProperties);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        TradeEventPool pool = tradeQueueManager.tradeEventPool();
+        SettlementStats settlementStats = new SettlementStats();
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        when(tradeBatchRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            boolean[] written = new boolean[invocation.<List<?>>getArgument(0).size()];
+            Arrays.fill(written, true);
+            return written;
+        });
+        RateCache rateCache = fixedRateCache();
+        AuditJournal auditJournal = auditJournal();
+        List<AbstractTradeStage> stages = List.of(
+                new TradeValidatorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        new ValidationEngine(new ValidationProperties(), referenceDataCache())),
+                new TradeEnricherImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, rateCache,
+                        new NettingProperties()),
+                new TradeSettlerImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        tradeBatchRepository, settlementStats, new AccountLedger(new LedgerProperties()),
+                        mock(NetSettlementRepository.class)),
+                new TradeAuditorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, auditJournal,
+                        new TradeAnalytics(new AnalyticsProperties())));
+
+        statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).start();
+        stages.forEach(AbstractTradeStage::start);
+        for (int i = 0; i < 5_000; i++) {
+            tradeQueueManager.addTrade(trade(pool.acquire(), i + 1, i % 100 == 0 ? 0 : 10));
+        }
+        stages.forEach(AbstractTradeStage::stop);
+        rateCache.stop();
+        auditJournal.close();
+
+        PipelineStatsDto stats = statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).snapshot();
+        assertEquals(4_950, stats.getCompleted());
+        assertEquals(50, stats.getRejected());
+        assertEquals(4_950, settlementStats.snapshot().getSettled());
+        assertEquals(4_950, auditJournal.size());
+        for (PipelineStage stage : PipelineStage.values()) {
+            assertTrue(tradeQueueManager.inboundQueue(stage).isEmpty(), stage + " queue not drained");
+        }
+        // every event came back to the pool and none had to be allocated
+        assertEquals(pool.capacity(), pool.available());
+        assertEquals(0, pool.allocations());
+    }
+
+    @Test
+    public void testShardedStagesKeepPerAccountOrder() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setValidation(new PipelineProperties.Stage(1, 256));
+        pipelineProperties.getEnrichment().setShards(3);
+        pipelineProperties.getSettlement().setShards(2);
+
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        TradeEventPool pool = tradeQueueManager.tradeEventPool();
+        Map<Long, List<Long>> settledByAccount = new ConcurrentHashMap<>();
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        when(tradeBatchRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<TradeEvent> batch = invocation.getArgument(0);
+            for (TradeEvent event : batch) {
+                settledByAccount.computeIfAbsent(event.getAccountId(), account -> new CopyOnWriteArrayList<>())
+                        .add(event.getTradeId());
+            }
+            boolean[] written = new boolean[batch.size()];
+            Arrays.fill(written, true);
+            return written;
+        });
+        RateCache rateCache = fixedRateCache();
+        AuditJournal auditJournal = auditJournal();
+        List<AbstractTradeStage> stages = List.of(
+                new TradeValidatorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        new ValidationEngine(new ValidationProperties(), referenceDataCache())),
+                new TradeEnricherImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, rateCache,
+                        new NettingProperties()),
+                new TradeSettlerImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        tradeBatchRepository, new SettlementStats(), new AccountLedger(new LedgerProperties()),
+                        mock(NetSettlementRepository.class)),
+                new TradeAuditorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, auditJournal,
+                        new TradeAnalytics(new AnalyticsProperties())));
+
+        stages.forEach(AbstractTradeStage::start);
+        for (int i = 0; i < 5_000; i++) {
+            TradeEvent event = trade(pool.acquire(), i + 1, 10);
+            event.setAccountId(1 + i % 7);
+            tradeQueueManager.addTrade(event);
+        }
+        stages.forEach(AbstractTradeStage::stop);
+        rateCache.stop();
+        auditJournal.close();
+
+        assertEquals(7, settledByAccount.size());
+        for (List<Long> ids : settledByAccount.values()) {
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(ids.get(i - 1) < ids.get(i), "per-account order broken: " + ids);
+            }
+        }
+        assertEquals(5_000, tradeQueueManager.shardStatsSnapshot().stream()
+                .filter(shard -> shard.getStage().equals(PipelineStage.SETTLEMENT.name()))
+                .mapToLong(ShardStatsDto::getProcessed)
+                .sum());
+    }
+
+    @Test
+    public void testNettingSettlesOneInstructionPerAccountAndPair() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setNetting(new PipelineProperties.Stage(3, 1024));
+        NettingProperties nettingProperties = new NettingProperties();
+        nettingProperties.setEnabled(true);
+        nettingProperties.setMaxTrades(1_000);
+
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        TradeEventPool pool = tradeQueueManager.tradeEventPool();
+        SettlementStats settlementStats = new SettlementStats();
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        List<long[]> instructions = new CopyOnWriteArrayList<>();
+        NetSettlementRepository netSettlementRepository = mock(NetSettlementRepository.class);
+        // instructions from an earlier run are already in net_settlement
+        when(netSettlementRepository.maxInstructionId()).thenReturn(41L);
+        when(netSettlementRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<NetInstruction> batch = invocation.getArgument(0);
+            for (NetInstruction instruction : batch) {
+                instructions.add(new long[]{instruction.getAccountId(), instruction.tradeCount(), instruction.getAmount(),
+                        instruction.getTradeId()});
+            }
+            boolean[] written = new boolean[batch.size()];
+            Arrays.fill(written, true);
+            return written;
+        });
+        RateCache rateCache = fixedRateCache();
+        AuditJournal auditJournal = auditJournal();
+        TradeNetterImpl netter = new TradeNetterImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                nettingProperties, netSettlementRepository);
+        List<AbstractTradeStage> stages = List.of(
+                new TradeValidatorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        new ValidationEngine(new ValidationProperties(), referenceDataCache())),
+                new TradeEnricherImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, rateCache,
+                        nettingProperties),
+                netter,
+                new TradeSettlerImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        tradeBatchRepository, settlementStats, new AccountLedger(new LedgerProperties()),
+                        netSettlementRepository),
+                new TradeAuditorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, auditJournal,
+                        new TradeAnalytics(new AnalyticsProperties())));
+
+        statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).start();
+        stages.forEach(AbstractTradeStage::start);
+        for (int i = 0; i < 5_000; i++) {
+            TradeEvent event = trade(pool.acquire(), i + 1, 10);
+            // accounts n and n + 2^56 share their low 56 bits: a key packing the account id into a long merges them
+            event.setAccountId(1 + i % 7 + (i % 2 == 0 ? 0 : 1L << 56));
+            tradeQueueManager.addTrade(event);
+        }
+        stages.forEach(AbstractTradeStage::stop);
+        rateCache.stop();
+        auditJournal.close();
+
+        verify(tradeBatchRepository, never()).insertBatch(anyList());
+        assertEquals(5_000, instructions.stream().mapToLong(instruction -> instruction[1]).sum());
+        assertEquals(5_000 * 100_000L, instructions.stream().mapToLong(instruction -> instruction[2]).sum());
+        assertEquals(14, instructions.stream().mapToLong(instruction -> instruction[0]).distinct().count());
+        assertEquals(instructions.size(), instructions.stream().mapToLong(instruction -> instruction[3]).distinct().count());
+        assertTrue(instructions.stream().allMatch(instruction -> instruction[3] > 41));
+        NettingStatsDto nettingStats = netter.stats();
+        assertEquals(5_000, nettingStats.getTradesNetted());
+        assertEquals(instructions.size(), nettingStats.getInstructionsEmitted());
+        assertTrue(nettingStats.getCompressionRatio() > 1.0);
+        assertEquals(0, nettingStats.getOpenTrades());
+        // every trade is still audited on its own
+        assertEquals(5_000, settlementStats.snapshot().getSettled());
+        assertEquals(5_000, auditJournal.size());
+        assertEquals(5_000, statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).snapshot().getCompleted());
+        assertEquals(pool.capacity(), pool.available());
+    }
+
+    @Test
+    public void testFullLedgerMidBatchNeitherFailsNorReleasesSettledTrades() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        TradeEventPool pool = tradeQueueManager.tradeEventPool();
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        when(tradeBatchRepository.insertBatch(anyList())).thenAnswer(invocation -> {
+            boolean[] written = new boolean[invocation.<List<?>>getArgument(0).size()];
+            Arrays.fill(written, true);
+            return written;
+        });
+        // room for two of the four accounts: every batch hits a full ledger part-way through
+        LedgerProperties ledgerProperties = new LedgerProperties();
+        ledgerProperties.setMaxAccounts(2);
+        RateCache rateCache = fixedRateCache();
+        AuditJournal auditJournal = auditJournal();
+        List<AbstractTradeStage> stages = List.of(
+                new TradeValidatorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        new ValidationEngine(new ValidationProperties(), referenceDataCache())),
+                new TradeEnricherImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, rateCache,
+                        new NettingProperties()),
+                new TradeSettlerImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool,
+                        tradeBatchRepository, new SettlementStats(), new AccountLedger(ledgerProperties),
+                        mock(NetSettlementRepository.class)),
+                new TradeAuditorImpl(tradeQueueManager, pipelineProperties, statsRegistry, pool, auditJournal,
+                        new TradeAnalytics(new AnalyticsProperties())));
+
+        statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).start();
+        stages.forEach(AbstractTradeStage::start);
+        for (int i = 0; i < 1_000; i++) {
+            TradeEvent event = trade(pool.acquire(), i + 1, 10);
+            event.setAccountId(1 + i % 4);
+            tradeQueueManager.addTrade(event);
+        }
+        stages.forEach(AbstractTradeStage::stop);
+        rateCache.stop();
+        auditJournal.close();
+
+        // the rows are committed: every trade is settled and audited, the postings that did not fit are logged
+        PipelineStatsDto stats = statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).snapshot();
+        assertEquals(1_000, stats.getCompleted());
+        assertEquals(0, stats.getFailed());
+        assertEquals(1_000, auditJournal.size());
+        // released exactly once each
+        assertEquals(pool.capacity(), pool.available());
+    }
+
+    @Test
+    public void testBatchFailureOnlyFailsTradesNotHandedOffYet() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setAudit(new PipelineProperties.Stage(1, 64, 10, Duration.ofSeconds(1)));
+        TradeQueueManager tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+        PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        TradeEventPool pool = tradeQueueManager.tradeEventPool();
+        List<Long> released = new CopyOnWriteArrayList<>();
+        // releases the first four trades of its batch, then fails
+        AbstractTradeStage stage = new AbstractTradeStage(PipelineStage.AUDIT, tradeQueueManager, pipelineProperties,
+                statsRegistry, pool) {
+            @Override
+            protected void handle(TradeEvent trade) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected void handleBatch(List<TradeEvent> batch, BatchCursor cursor) {
+                for (int i = 0; i < 4; i++) {
+                    released.add(batch.get(i).getTradeId());
+                    release(batch.get(i));
+                    cursor.handedOff(i + 1);
+                }
+                throw new IllegalStateException("journal unavailable");
+            }
+        };
+
+        int available = pool.available();
+        for (int i = 0; i < 10; i++) {
+            tradeQueueManager.inboundQueue(PipelineStage.AUDIT).offer(trade(pool.acquire(), i + 1, 10));
+        }
+        stage.start();
+        stage.stop();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), released);
+        assertEquals(6, statsRegistry.stage(PipelineStage.AUDIT).failed());
+        assertEquals(available, pool.available());
+    }
+
+    private static RateCache fixedRateCache() {
+        RateCache rateCache = new RateCache(pair -> FixedPoint.RATE_SCALE, new RateProperties());
+        rateCache.start();
+        return rateCache;
+    }
+
+    private static ReferenceDataCache referenceDataCache() {
+        ReferenceProperties referenceProperties = new ReferenceProperties();
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(
+                new SimulatedReferenceDataSource(referenceProperties), referenceProperties);
+        referenceDataCache.start();
+        return referenceDataCache;
+    }
+
+    private AuditJournal auditJournal() {
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDirectory(journalDirectory.toString());
+        journalProperties.setSegmentSize(DataSize.ofKilobytes(64));
+        AuditJournal auditJournal = new AuditJournal(journalProperties);
+        auditJournal.open();
+        return auditJournal;
+    }
+
+    private static TradeEvent trade(TradeEvent event, long id, int units) {
+        event.setTradeId(id);
+        event.setAccountId(1);
+        event.setBrokerId(1);
+        event.setCurrencyPair(CurrencyPair.code(Currency.USD, Currency.EUR));
+        event.setAmount(100_000);
+        event.setUnits(units);
+        return event;
+    }
+}
@@ -0,0 +1,144 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.PlatformPerTaskExecutorFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataSource;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StructuredTradePipelineTest {
+
+    private static final long RATE = 1_085_000L;
+
+    @Test
+    public void testAccountBrokerAndRateLookupsRunSideBySide() {
+        // every lookup waits for the other two: run one after the other, the first would time out and throw
+        CountDownLatch allStarted = new CountDownLatch(3);
+        ReferenceDataSource source = mock(ReferenceDataSource.class);
+        when(source.accountStatus(anyLong())).thenAnswer(invocation -> meet(allStarted, ReferenceDataSource.ACTIVE));
+        when(source.brokerStatus(anyLong())).thenAnswer(invocation -> meet(allStarted, ReferenceDataSource.ACTIVE));
+        TradeEnricher tradeEnricher = mock(TradeEnricher.class);
+        when(tradeEnricher.lookupRate(anyInt())).thenAnswer(invocation -> meet(allStarted, RATE));
+        Fixture fixture = new Fixture(source, tradeEnricher);
+
+        fixture.pipeline.start();
+        fixture.addTrade();
+        fixture.pipeline.stop();
+
+        PipelineStatsDto stats = fixture.stats();
+        assertEquals(1, stats.getCompleted());
+        assertEquals(0, stats.getFailed());
+        assertEquals(0, fixture.pipeline.deadlinesExceeded());
+        // validation reads the statuses the forks have just cached
+        assertEquals(1, fixture.referenceDataCache.stats().getAccounts().getMisses());
+        assertEquals(RATE, fixture.settledRate[0]);
+    }
+
+    @Test
+    public void testALookupPastTheDeadlineFailsTheTrade() {
+        ReferenceDataSource source = mock(ReferenceDataSource.class);
+        when(source.accountStatus(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return ReferenceDataSource.ACTIVE;
+        });
+        when(source.brokerStatus(anyLong())).thenReturn(ReferenceDataSource.ACTIVE);
+        TradeEnricher tradeEnricher = mock(TradeEnricher.class);
+        when(tradeEnricher.lookupRate(anyInt())).thenReturn(RATE);
+        Fixture fixture = new Fixture(source, tradeEnricher);
+
+        fixture.pipeline.start();
+        fixture.addTrade();
+        fixture.pipeline.stop();
+
+        PipelineStatsDto stats = fixture.stats();
+        assertEquals(0, stats.getCompleted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, fixture.pipeline.deadlinesExceeded());
+        assertEquals(fixture.pool.capacity(), fixture.pool.available());
+    }
+
+    private static <T> T meet(CountDownLatch allStarted, T result) throws InterruptedException {
+        allStarted.countDown();
+        if (!allStarted.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("lookups ran one after the other");
+        }
+        return result;
+    }
+
+    private static final class Fixture {
+
+        final TradeQueueManager tradeQueueManager;
+        final TradeEventPool pool;
+        final ReferenceDataCache referenceDataCache;
+        final PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        final StructuredTradePipeline pipeline;
+        final long[] settledRate = new long[1];
+
+        Fixture(ReferenceDataSource source, TradeEnricher tradeEnricher) {
+            PipelineProperties pipelineProperties = new PipelineProperties();
+            pipelineProperties.getStructured().setDeadline(Duration.ofMillis(100));
+            tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+            pool = tradeQueueManager.tradeEventPool();
+            ReferenceProperties referenceProperties = new ReferenceProperties();
+            referenceProperties.setPreload(false);
+            referenceDataCache = new ReferenceDataCache(source, referenceProperties);
+            // stands in for ValidationEngine's status rules, which read the same cache
+            TradeValidator tradeValidator = mock(TradeValidator.class);
+            when(tradeValidator.validate(any())).thenAnswer(invocation -> {
+                TradeEvent trade = invocation.getArgument(0);
+                return ReferenceDataSource.ACTIVE.equals(referenceDataCache.accountStatus(trade.getAccountId()))
+                        && ReferenceDataSource.ACTIVE.equals(referenceDataCache.brokerStatus(trade.getBrokerId()));
+            });
+            TradeSettler tradeSettler = mock(TradeSettler.class);
+            doAnswer(invocation -> {
+                settledRate[0] = invocation.<TradeEvent>getArgument(0).getRate();
+                return null;
+            }).when(tradeSettler).settle(any());
+            pipeline = new StructuredTradePipeline(tradeQueueManager, tradeValidator, tradeEnricher, tradeSettler,
+                    mock(TradeAuditor.class), new PlatformPerTaskExecutorFactory(), statsRegistry,
+                    pipelineProperties, pool, referenceDataCache);
+        }
+
+        void addTrade() {
+            TradeEvent trade = pool.acquire();
+            trade.setTradeId(1);
+            trade.setAccountId(7);
+            trade.setBrokerId(3);
+            trade.setCurrencyPair(CurrencyPair.code(Currency.EUR, Currency.USD));
+            trade.setAmount(100_000);
+            trade.setUnits(10);
+            tradeQueueManager.addTrade(trade);
+        }
+
+        PipelineStatsDto stats() {
+            return statsRegistry.stats(PipelineMode.STRUCTURED_CONCURRENCY).snapshot();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.jk.labs.java1721.concurrency.forex_engine.service.impl;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.PipelineStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.executor.PlatformPerTaskExecutorFactory;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeEventPool;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeAuditor;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeEnricher;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeSettler;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeValidator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+Runs on the per-task executor of the Java 17 build (a cached platform pool); under -Pjava21 the same pipeline gets
+virtual threads from VirtualPerTaskExecutorFactory, the drain logic is the same.
+ */
+public class VirtualThreadPipelineDrainTest {
+
+    @Test
+    public void testStopDrainsEveryQueuedTradeWhileTheDispatcherWaitsForPermits() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.getVirtualThreads().setMaxInFlight(2);
+        Fixture fixture = new Fixture(pipelineProperties, 1);
+
+        fixture.pipeline.start();
+        fixture.addTrades(300);
+        fixture.pipeline.stop();
+
+        PipelineStatsDto stats = fixture.stats();
+        assertEquals(300, stats.getCompleted());
+        assertEquals(0, stats.getFailed());
+        assertTrue(fixture.tradeQueueManager.getTradeQueue().isEmpty());
+        assertEquals(fixture.pool.capacity(), fixture.pool.available());
+    }
+
+    @Test
+    public void testDrainTimeoutLeavesUndispatchedTradesQueuedInsteadOfRejectingThem() {
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.getVirtualThreads().setMaxInFlight(1);
+        pipelineProperties.setDrainTimeout(Duration.ofMillis(200));
+        Fixture fixture = new Fixture(pipelineProperties, 50);
+
+        fixture.pipeline.start();
+        fixture.addTrades(100);
+        fixture.pipeline.stop();
+
+        // the dispatcher was still waiting for a permit: at most the trade it held and the one in flight fail,
+        // everything else is either done or still queued for the next start, none is rejected by the executor
+        PipelineStatsDto stats = fixture.stats();
+        int queued = fixture.tradeQueueManager.getTradeQueue().size();
+        assertTrue(stats.getFailed() <= 2, stats.getFailed() + " trades failed");
+        assertTrue(queued > 0, "the drain timeout should have left trades queued");
+        assertEquals(100, stats.getCompleted() + stats.getFailed() + queued);
+        assertEquals(fixture.pool.capacity(), fixture.pool.available() + queued);
+    }
+
+    private static final class Fixture {
+
+        final TradeQueueManager tradeQueueManager;
+        final TradeEventPool pool;
+        final PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        final VirtualThreadTradePipeline pipeline;
+
+        Fixture(PipelineProperties pipelineProperties, long settleMillis) {
+            tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), pipelineProperties);
+            pool = tradeQueueManager.tradeEventPool();
+            TradeValidator tradeValidator = mock(TradeValidator.class);
+            when(tradeValidator.validate(any())).thenReturn(true);
+            TradeSettler tradeSettler = mock(TradeSettler.class);
+            doAnswer(invocation -> {
+                Thread.sleep(settleMillis);
+                return null;
+            }).when(tradeSettler).settle(any());
+            pipeline = new VirtualThreadTradePipeline(tradeQueueManager, tradeValidator, mock(TradeEnricher.class),
+                    tradeSettler, mock(TradeAuditor.class), new PlatformPerTaskExecutorFactory(), statsRegistry,
+                    pipelineProperties, pool);
+        }
+
+        void addTrades(int count) {
+            for (int i = 0; i < count; i++) {
+                TradeEvent trade = pool.acquire();
+                trade.setTradeId(i + 1);
+                trade.setAccountId(1 + i % 10);
+                trade.setBrokerId(1);
+                trade.setCurrencyPair(CurrencyPair.code(Currency.USD, Currency.EUR));
+                trade.setAmount(100_000);
+                trade.setUnits(10);
+                tradeQueueManager.addTrade(trade);
+            }
+        }
+
+        PipelineStatsDto stats() {
+            return statsRegistry.stats(PipelineMode.VIRTUAL_THREADS).snapshot();
+        }
+    }
+}
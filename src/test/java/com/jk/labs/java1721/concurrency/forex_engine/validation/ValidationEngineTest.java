@@ -0,0 +1,198 @@
+package com.jk.labs.java1721.concurrency.forex_engine.validation;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.RejectedTradeDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationRulesDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.ValidationStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.FixedPoint;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidationEngineTest {
+
+    private static final int EUR_USD = CurrencyPair.code(Currency.EUR, Currency.USD);
+    private static final int GBP_USD = CurrencyPair.code(Currency.GBP, Currency.USD);
+
+    @Test
+    public void testReasonCodes() {
+        ValidationProperties properties = new ValidationProperties();
+        properties.setSupportedPairs(List.of("EUR/USD"));
+        properties.setMaxUnits(500);
+        properties.setMaxAmount(new BigDecimal("1000"));
+        properties.setBlockedAccounts(List.of(13L, 7L));
+        ValidationEngine engine = new ValidationEngine(properties, null);
+
+        assertTrue(engine.validate(trade(1, 1, EUR_USD, 1000, 500)));
+        assertRejected(engine, trade(0, 1, EUR_USD, 10, 10), RejectReason.MISSING_TRADE_ID);
+        assertRejected(engine, trade(1, 1, CurrencyPair.INVALID, 10, 10), RejectReason.INVALID_PAIR);
+        assertRejected(engine, trade(1, 1, CurrencyPair.code(Currency.USD, Currency.USD), 10, 10), RejectReason.INVALID_PAIR);
+        assertRejected(engine, trade(1, 1, GBP_USD, 10, 10), RejectReason.UNSUPPORTED_PAIR);
+        assertRejected(engine, trade(1, 1, EUR_USD, 0, 10), RejectReason.NON_POSITIVE_AMOUNT);
+        assertRejected(engine, trade(1, 1, EUR_USD, 1000.0001, 10), RejectReason.AMOUNT_LIMIT);
+        assertRejected(engine, trade(1, 1, EUR_USD, 10, 0), RejectReason.UNITS_OUT_OF_RANGE);
+        assertRejected(engine, trade(1, 1, EUR_USD, 10, 501), RejectReason.UNITS_OUT_OF_RANGE);
+        assertRejected(engine, trade(1, 1, EUR_USD, 10, Integer.MIN_VALUE), RejectReason.UNITS_OUT_OF_RANGE);
+        assertRejected(engine, trade(1, 7, EUR_USD, 10, 10), RejectReason.ACCOUNT_BLOCKED);
+
+        // every broken rule is reported, the first in evaluation order leads
+        engine.validate(trade(0, 13, GBP_USD, -5, 10));
+        RejectedTradeDto reject = engine.rejects(1).get(0);
+        assertEquals(List.of("MISSING_TRADE_ID", "UNSUPPORTED_PAIR", "NON_POSITIVE_AMOUNT", "ACCOUNT_BLOCKED"), reject.getReasons());
+        assertEquals(1, reject.getRulesVersion());
+
+        ValidationStatsDto stats = engine.stats();
+        assertEquals(1, stats.getValidated());
+        assertEquals(11, stats.getRejected());
+        assertEquals(3, stats.getRejectsByReason().get("UNITS_OUT_OF_RANGE"));
+        assertEquals(2, stats.getRejectsByReason().get("ACCOUNT_BLOCKED"));
+    }
+
+    @Test
+    public void testInactiveAccountOrBrokerIsARejectNotAnException() {
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(new ReferenceDataSource() {
+            @Override
+            public String accountStatus(long accountId) {
+                return accountId == 2 ? "SUSPENDED" : accountId == 3 ? null : ReferenceDataSource.ACTIVE;
+            }
+
+            @Override
+            public String brokerStatus(long brokerId) {
+                return brokerId == 1 ? ReferenceDataSource.ACTIVE : "CLOSED";
+            }
+        }, new ReferenceProperties());
+        ValidationEngine engine = new ValidationEngine(new ValidationProperties(), referenceDataCache);
+
+        assertTrue(engine.validate(trade(1, 1, EUR_USD, 10, 10)));
+        assertRejected(engine, trade(1, 2, EUR_USD, 10, 10), RejectReason.ACCOUNT_INACTIVE);
+        assertRejected(engine, trade(1, 3, EUR_USD, 10, 10), RejectReason.ACCOUNT_INACTIVE);
+        TradeEvent closedBroker = trade(1, 1, EUR_USD, 10, 10);
+        closedBroker.setBrokerId(9);
+        assertRejected(engine, closedBroker, RejectReason.BROKER_INACTIVE);
+        // a missing id is reported as missing, not looked up
+        assertRejected(engine, trade(1, 0, EUR_USD, 10, 10), RejectReason.MISSING_ACCOUNT);
+        assertEquals(List.of("MISSING_ACCOUNT"), engine.rejects(1).get(0).getReasons());
+        assertEquals(2, engine.stats().getRejectsByReason().get("ACCOUNT_INACTIVE"));
+    }
+
+    @Test
+    public void testHotSwap() {
+        ValidationEngine engine = new ValidationEngine(new ValidationProperties(), null);
+        TradeEvent gbp = trade(1, 1, GBP_USD, 10, 10);
+        assertTrue(engine.validate(gbp));
+
+        ValidationRulesDto updated = engine.update(ValidationRulesDto.builder()
+                .supportedPairs(List.of("EUR/USD")).minUnits(1).maxUnits(100).build());
+        assertEquals(2, updated.getVersion());
+        assertFalse(engine.validate(gbp));
+        assertEquals(TradeStatus.REJECTED, gbp.getStatus());
+        assertEquals(2, engine.rejects(1).get(0).getRulesVersion());
+
+        // a rule set that does not compile is refused and the old one stays in force
+        assertThrows(IllegalArgumentException.class, () -> engine.update(ValidationRulesDto.builder()
+                .supportedPairs(List.of("EUR/XYZ")).minUnits(1).maxUnits(100).build()));
+        assertThrows(IllegalArgumentException.class, () -> engine.update(ValidationRulesDto.builder()
+                .minUnits(10).maxUnits(1).build()));
+        assertEquals(2, engine.rules().getVersion());
+        assertTrue(engine.validate(trade(1, 1, EUR_USD, 10, 100)));
+    }
+
+    @Test
+    public void testParallelBatchMatchesSequential() {
+        ValidationProperties parallel = new ValidationProperties();
+        parallel.setParallelThreshold(64);
+        parallel.setMaxUnits(900);
+        ValidationProperties sequential = new ValidationProperties();
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        sequential.setMaxUnits(900);
+
+        List<TradeEvent> first = new ArrayList<>();
+        List<TradeEvent> second = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            first.add(trade(i, 1 + i % 50, i % CurrencyPair.count(), i % 7, i % 1000));
+            second.add(trade(i, 1 + i % 50, i % CurrencyPair.count(), i % 7, i % 1000));
+        }
+        ValidationEngine parallelEngine = new ValidationEngine(parallel, null);
+        ValidationEngine sequentialEngine = new ValidationEngine(sequential, null);
+        parallelEngine.validateBatch(first);
+        sequentialEngine.validateBatch(second);
+
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(second.get(i).getStatus(), first.get(i).getStatus(), "trade " + i);
+        }
+        ValidationStatsDto parallelStats = parallelEngine.stats();
+        ValidationStatsDto sequentialStats = sequentialEngine.stats();
+        assertEquals(1, parallelStats.getParallelBatches());
+        assertEquals(1, sequentialStats.getSequentialBatches());
+        assertEquals(sequentialStats.getValidated(), parallelStats.getValidated());
+        assertEquals(sequentialStats.getRejectsByReason(), parallelStats.getRejectsByReason());
+        assertTrue(parallelStats.getRejected() > 0 && parallelStats.getValidated() > 0);
+        // rejects are recorded in batch order
+        assertEquals("9999", parallelEngine.rejects(1).get(0).getTrade().getId());
+    }
+
+    @Test
+    public void testParallelBatchesNeverRunOnTheCommonPool() {
+        // every account is a cache miss, looked up on whichever thread checks the trade
+        Set<String> lookupThreads = ConcurrentHashMap.newKeySet();
+        ReferenceDataSource source = new ReferenceDataSource() {
+            @Override
+            public String accountStatus(long accountId) {
+                lookupThreads.add(Thread.currentThread().getName());
+                return ReferenceDataSource.ACTIVE;
+            }
+
+            @Override
+            public String brokerStatus(long brokerId) {
+                return ReferenceDataSource.ACTIVE;
+            }
+        };
+        ReferenceProperties referenceProperties = new ReferenceProperties();
+        referenceProperties.setPreload(false);
+        ValidationProperties properties = new ValidationProperties();
+        properties.setParallelThreshold(64);
+        properties.setParallelism(2);
+        ValidationEngine engine = new ValidationEngine(properties, new ReferenceDataCache(source, referenceProperties));
+
+        List<TradeEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 4_096; i++) {
+            batch.add(trade(i + 1, i + 1, EUR_USD, 10, 10));
+        }
+        engine.validateBatch(batch);
+        engine.stop();
+
+        assertEquals(4_096, engine.stats().getValidated());
+        assertFalse(lookupThreads.isEmpty());
+        assertTrue(lookupThreads.stream().allMatch(name -> name.startsWith("validation-worker-")), lookupThreads.toString());
+    }
+
+    private static void assertRejected(ValidationEngine engine, TradeEvent trade, RejectReason reason) {
+        assertFalse(engine.validate(trade));
+        assertEquals(TradeStatus.REJECTED, trade.getStatus());
+        assertEquals(reason.name(), engine.rejects(1).get(0).getReasons().get(0));
+    }
+
+    private static TradeEvent trade(long tradeId, long accountId, int pair, double amount, int units) {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(tradeId);
+        trade.setAccountId(accountId);
+        trade.setBrokerId(1);
+        trade.setCurrencyPair(pair);
+        trade.setAmount(FixedPoint.toScaled(amount, FixedPoint.AMOUNT_SCALE));
+        trade.setUnits(units);
+        return trade;
+    }
+}
@@ -0,0 +1,278 @@
+package com.jk.labs.java1721.concurrency.forex_engine.wal;
+
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineStage;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.WalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WalStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.journal.FsyncPolicy;
+import com.jk.labs.java1721.concurrency.forex_engine.queue.TradeQueue;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.NetSettlementRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.repository.TradeBatchRepository;
+import com.jk.labs.java1721.concurrency.forex_engine.service.TradeProducer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WalRecoveryTest {
+
+    private static final int TRADES = 1_000_000;
+    private static final int CHECKPOINTED = 998_000;
+    private static final int SETTLED_AFTER_CHECKPOINT = 1_500;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWatermarkOnlyAdvancesOverContiguousSettledSequences() {
+        SettledWatermark watermark = new SettledWatermark(8);
+        watermark.markSettled(2);
+        watermark.markSettled(3);
+        watermark.markSettled(5);
+        assertEquals(0, watermark.advance());
+
+        watermark.markSettled(1);
+        assertEquals(3, watermark.advance());
+
+        // 12 shares a slot with 4 in an 8-slot ring (window too small): the watermark stalls, it never skips 4
+        watermark.markSettled(12);
+        assertEquals(3, watermark.advance());
+
+        watermark.reset(100, 64);
+        assertEquals(64, watermark.window());
+        watermark.markSettled(101);
+        assertEquals(101, watermark.advance());
+    }
+
+    @Test
+    public void testRestartReplaysOnlyTheUnsettledTail() throws InterruptedException {
+        // before the crash: 1M trades journaled, settled out of order up to CHECKPOINTED and checkpointed
+        WriteAheadLog writeAheadLog = openWal();
+        TradeQueueManager tradeQueueManager = tradeQueueManager(writeAheadLog);
+        WalCheckpointer checkpointer = new WalCheckpointer(tradeQueueManager, writeAheadLog, walProperties());
+        TradeEvent trade = new TradeEvent();
+        for (int i = 1; i <= TRADES; i++) {
+            assertEquals(i, writeAheadLog.journal(trade(trade, i)));
+        }
+        for (int block = 0; block < CHECKPOINTED; block += 1_000) {
+            for (int i = 1_000; i >= 1; i--) {
+                tradeQueueManager.markSettled(block + i);
+            }
+            checkpointer.checkpoint();
+        }
+        assertEquals(CHECKPOINTED, checkpointer.checkpointedSequence());
+        assertTrue(checkpointer.deletedSegments() > 0);
+        writeAheadLog.close();
+
+        // restart: the first trades of the tail reached the trade table before the crash, the checkpoint did not
+        WriteAheadLog reopened = openWal();
+        TradeQueueManager restarted = tradeQueueManager(reopened);
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        when(tradeBatchRepository.existingTradeIds(anyList())).thenAnswer(invocation -> {
+            Set<Long> existing = new HashSet<>();
+            for (Long tradeId : invocation.<List<Long>>getArgument(0)) {
+                if (tradeId <= CHECKPOINTED + SETTLED_AFTER_CHECKPOINT) {
+                    existing.add(tradeId);
+                }
+            }
+            return existing;
+        });
+        TradeProducer tradeProducer = mock(TradeProducer.class);
+        WalCheckpointer restartedCheckpointer = new WalCheckpointer(restarted, reopened, walProperties());
+        WalRecovery recovery = new WalRecovery(reopened, restartedCheckpointer, restarted, restarted.tradeEventPool(),
+                tradeBatchRepository, mock(NetSettlementRepository.class), tradeProducer, walProperties());
+
+        recovery.recover();
+        WalStatsDto stats = recovery.stats();
+        assertEquals(TRADES - CHECKPOINTED, stats.getUnsettledTail());
+        assertTrue(stats.getRecoveredRecords() < TRADES, "settled segments should have been deleted");
+        assertTrue(stats.getRecoveryMillis() < 10_000, "recovery took " + stats.getRecoveryMillis() + " ms");
+        assertEquals(CHECKPOINTED, stats.getSettledWatermark());
+        verify(tradeProducer).skipTradeIdsTo(TRADES);
+
+        recovery.replayPending();
+        TradeQueue<TradeEvent> intake = restarted.inboundQueue(PipelineStage.VALIDATION);
+        long expected = CHECKPOINTED + SETTLED_AFTER_CHECKPOINT + 1;
+        while (expected <= TRADES) {
+            TradeEvent replayed = intake.poll(5, TimeUnit.SECONDS);
+            assertNotNull(replayed, "replay stalled before sequence " + expected);
+            assertEquals(expected, replayed.getSequence());
+            assertEquals(expected, replayed.getTradeId());
+            assertEquals(expected % 50, replayed.getAccountId());
+            restarted.markSettled(replayed.getSequence());
+            expected++;
+        }
+        recovery.awaitReplay(5, TimeUnit.SECONDS);
+        stats = recovery.stats();
+        assertEquals(TRADES - CHECKPOINTED - SETTLED_AFTER_CHECKPOINT, stats.getReplayed());
+        assertEquals(SETTLED_AFTER_CHECKPOINT, stats.getReplaySkippedSettled());
+        assertEquals(0, stats.getReplayPending());
+
+        // replayed and skipped trades both count as settled: the next checkpoint covers the whole log
+        assertEquals(TRADES, restartedCheckpointer.checkpoint());
+        restartedCheckpointer.stop();
+        reopened.close();
+    }
+
+    @Test
+    public void testTradeIdsResumeAboveSettledTradesWhoseSegmentsWereDeleted() {
+        WriteAheadLog writeAheadLog = openWal();
+        TradeEvent trade = new TradeEvent();
+        for (int i = 1; i <= 10; i++) {
+            writeAheadLog.journal(trade(trade, i));
+        }
+        // ids up to 5000 (table) and 7000 (netted) settled in segments the checkpointer has deleted since
+        TradeBatchRepository tradeBatchRepository = mock(TradeBatchRepository.class);
+        when(tradeBatchRepository.maxTradeId()).thenReturn(5_000L);
+        NetSettlementRepository netSettlementRepository = mock(NetSettlementRepository.class);
+        when(netSettlementRepository.maxNettedTradeId()).thenReturn(7_000L);
+        TradeProducer tradeProducer = mock(TradeProducer.class);
+        TradeQueueManager tradeQueueManager = tradeQueueManager(writeAheadLog);
+        WalCheckpointer checkpointer = new WalCheckpointer(tradeQueueManager, writeAheadLog, walProperties());
+        WalRecovery recovery = new WalRecovery(writeAheadLog, checkpointer, tradeQueueManager,
+                tradeQueueManager.tradeEventPool(), tradeBatchRepository, netSettlementRepository, tradeProducer,
+                walProperties());
+
+        recovery.recover();
+
+        verify(tradeProducer).skipTradeIdsTo(7_000L);
+        checkpointer.stop();
+        writeAheadLog.close();
+    }
+
+    @Test
+    public void testHoleInTheTailIsNotReplayedAndDoesNotHoldTheWatermark() throws Exception {
+        WriteAheadLog writeAheadLog = openWal();
+        TradeEvent trade = new TradeEvent();
+        for (int i = 1; i <= 10; i++) {
+            writeAheadLog.journal(trade(trade, i));
+        }
+        writeAheadLog.close();
+        // sequence 5 was claimed but not yet written at the crash; 6..10 were committed and acknowledged
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(path -> path.toString().endsWith(".journal")).findFirst().orElseThrow();
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(64), 4L * 64);
+            }
+        }
+
+        WriteAheadLog reopened = openWal();
+        assertEquals(10, reopened.size());
+        TradeQueueManager restarted = tradeQueueManager(reopened);
+        WalCheckpointer checkpointer = new WalCheckpointer(restarted, reopened, walProperties());
+        WalRecovery recovery = new WalRecovery(reopened, checkpointer, restarted, restarted.tradeEventPool(),
+                mock(TradeBatchRepository.class), mock(NetSettlementRepository.class), mock(TradeProducer.class),
+                walProperties());
+        recovery.recover();
+        recovery.replayPending();
+
+        TradeQueue<TradeEvent> intake = restarted.inboundQueue(PipelineStage.VALIDATION);
+        for (long expected : new long[]{1, 2, 3, 4, 6, 7, 8, 9, 10}) {
+            TradeEvent replayed = intake.poll(5, TimeUnit.SECONDS);
+            assertNotNull(replayed, "replay stalled before sequence " + expected);
+            assertEquals(expected, replayed.getSequence());
+            restarted.markSettled(replayed.getSequence());
+        }
+        recovery.awaitReplay(5, TimeUnit.SECONDS);
+        assertEquals(9, recovery.stats().getReplayed());
+        assertEquals(0, recovery.stats().getReplayPending());
+        assertEquals(10, checkpointer.checkpoint());
+        checkpointer.stop();
+        reopened.close();
+    }
+
+    @Test
+    public void testBatchPolicyGroupCommitsConcurrentProducers() throws InterruptedException {
+        WalProperties walProperties = walProperties();
+        walProperties.setFsyncPolicy(FsyncPolicy.BATCH);
+        WriteAheadLog writeAheadLog = new WriteAheadLog(walProperties);
+        writeAheadLog.open();
+        int producers = 16;
+        int perProducer = 2_000;
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                TradeEvent trade = new TradeEvent();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 1; i <= perProducer; i++) {
+                    sequences.add(writeAheadLog.journal(trade(trade, (long) producer * perProducer + i)));
+                }
+            });
+            threads[p].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+
+        int total = producers * perProducer;
+        assertEquals(total, sequences.size());
+        assertEquals(total, writeAheadLog.scan(0, (index, record) -> true));
+        long fsyncs = writeAheadLog.stats().getFsyncs();
+        assertTrue(fsyncs > 0 && fsyncs < total, fsyncs + " fsyncs for " + total + " concurrent appends");
+        writeAheadLog.close();
+    }
+
+    private WriteAheadLog openWal() {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(walProperties());
+        writeAheadLog.open();
+        return writeAheadLog;
+    }
+
+    private WalProperties walProperties() {
+        WalProperties walProperties = new WalProperties();
+        walProperties.setDirectory(directory.toString());
+        walProperties.setSegmentSize(DataSize.ofMegabytes(8));
+        return walProperties;
+    }
+
+    private static TradeQueueManager tradeQueueManager(WriteAheadLog writeAheadLog) {
+        return new TradeQueueManager(new TradeQueueProperties(), new PipelineProperties(), writeAheadLog,
+                new AdmissionProperties());
+    }
+
+    private static TradeEvent trade(TradeEvent trade, long id) {
+        trade.setTradeId(id);
+        trade.setAccountId(id % 50);
+        trade.setBrokerId(3);
+        trade.setCurrencyPair(CurrencyPair.code(Currency.USD, Currency.EUR));
+        trade.setAmount(10_000L * id);
+        trade.setUnits(5);
+        trade.setCreatedAtMillis(1_700_000_000_000L + id);
+        trade.setStatus(TradeStatus.NEW);
+        return trade;
+    }
+}
@@ -0,0 +1,254 @@
+package com.jk.labs.java1721.concurrency.forex_engine.warmstart;
+
+import com.jk.labs.java1721.concurrency.forex_engine.admission.Admission;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AdmissionProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.AnalyticsProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.LedgerProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.PipelineProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.RateProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ReferenceProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueManager;
+import com.jk.labs.java1721.concurrency.forex_engine.config.TradeQueueProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.ValidationProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.WalProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.config.WarmStartProperties;
+import com.jk.labs.java1721.concurrency.forex_engine.core.dto.WarmStartStatsDto;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.Currency;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.CurrencyPair;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeEvent;
+import com.jk.labs.java1721.concurrency.forex_engine.core.model.TradeStatus;
+import com.jk.labs.java1721.concurrency.forex_engine.ledger.AccountLedger;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.LatencyRecorder;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineMode;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineModeStats;
+import com.jk.labs.java1721.concurrency.forex_engine.metrics.PipelineStatsRegistry;
+import com.jk.labs.java1721.concurrency.forex_engine.rates.RateCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataCache;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.ReferenceDataSource;
+import com.jk.labs.java1721.concurrency.forex_engine.reference.SimulatedReferenceDataSource;
+import com.jk.labs.java1721.concurrency.forex_engine.wal.WriteAheadLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmStartTest {
+
+    private static final int EUR_USD = CurrencyPair.code(Currency.EUR, Currency.USD);
+    private static final int GBP_JPY = CurrencyPair.code(Currency.GBP, Currency.JPY);
+    private static final int TRADES = 200;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final List<Runnable> cleanup = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        cleanup.forEach(Runnable::run);
+    }
+
+    @Test
+    public void testCleanRestartGetsBackCachesLedgerAndDuplicateFilter() throws IOException {
+        Engine before = new Engine(true);
+        before.rateCache.rate(EUR_USD);
+        before.rateCache.rate(GBP_JPY);
+        before.admit(1, TRADES);
+        before.settleAll();
+        assertTrue(before.warmStart.snapshot() > 0);
+        assertEquals(2, fetches.get());
+        assertTrue(before.warmStart.stats().isLastSnapshotLedgerExact());
+        long[] balances = before.ledger.snapshot(7);
+        before.close();
+
+        // preload off: the reference statuses can only come from the snapshot
+        fetches.set(0);
+        Engine after = new Engine(false);
+        after.warmStart.restore();
+        WarmStartStatsDto stats = after.warmStart.stats();
+        assertTrue(stats.isRestored());
+        assertEquals(2, stats.getRatesRestored());
+        assertEquals(20, stats.getAccountsRestored());
+        assertEquals(3, stats.getBrokersRestored());
+        assertEquals(50, stats.getLedgerAccountsRestored());
+        assertNull(stats.getLedgerSkipped());
+        assertTrue(stats.isDedupRestored());
+        assertEquals(0, stats.getDedupWalRecords());
+
+        assertEquals(108_000_000L, after.rateCache.rate(EUR_USD));
+        assertEquals(0, fetches.get());
+        assertEquals(ReferenceDataSource.ACTIVE, after.referenceDataCache.accountStatus(7));
+        assertEquals(1, after.referenceDataCache.stats().getAccounts().getHits());
+        assertEquals(0, after.referenceDataCache.stats().getAccounts().getMisses());
+        assertArrayEquals(balances, after.ledger.snapshot(7));
+        // a broker resending after the redeploy
+        assertEquals(Admission.DUPLICATE, after.tradeQueueManager.addTrade(trade(TRADES / 2)));
+        assertEquals(Admission.ACCEPTED, after.tradeQueueManager.addTrade(trade(TRADES + 1)));
+
+        // the warm-up leaves no trace in the real ledger or the pipeline stats
+        after.warmStart.warmUp();
+        assertEquals(2_000, after.warmStart.stats().getWarmupTrades());
+        assertEquals(50, after.ledger.accounts());
+        assertArrayEquals(balances, after.ledger.snapshot(7));
+        assertEquals(0, after.statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE).completed());
+        after.close();
+    }
+
+    @Test
+    public void testSnapshotWithTradesInFlightKeepsTheLedgerOutAndCatchesUpFromTheWal() throws IOException {
+        Engine before = new Engine(true);
+        before.admit(1, TRADES);
+        // the last ten are still in the pipeline when the snapshot is taken
+        before.settle(TRADES - 10);
+        before.warmStart.snapshot();
+        assertFalse(before.warmStart.stats().isLastSnapshotLedgerExact());
+        // admitted after the snapshot, before the crash
+        before.admit(TRADES + 1, 5);
+        before.close();
+
+        Engine after = new Engine(true);
+        after.warmStart.restore();
+        WarmStartStatsDto stats = after.warmStart.stats();
+        assertEquals(0, stats.getLedgerAccountsRestored());
+        assertEquals("trades were in flight when the snapshot was taken", stats.getLedgerSkipped());
+        assertEquals(0, after.ledger.accounts());
+        // statuses the preload already read win over the snapshot's
+        assertEquals(0, stats.getAccountsRestored());
+        assertTrue(stats.isDedupRestored());
+        assertEquals(5, stats.getDedupWalRecords());
+        assertEquals(Admission.DUPLICATE, after.tradeQueueManager.addTrade(trade(3)));
+        assertEquals(Admission.DUPLICATE, after.tradeQueueManager.addTrade(trade(TRADES + 3)));
+        after.close();
+    }
+
+    @Test
+    public void testTimeToSteadyP99IsTheStartOfTheFirstSteadyRun() {
+        Engine engine = new Engine(true);
+        engine.properties.setWarmupTrades(100);
+        engine.warmStart.start();
+        cleanup.add(engine.warmStart::stop);
+        cleanup.add(engine::close);
+        PipelineModeStats classic = engine.statsRegistry.stats(PipelineMode.CLASSIC_BLOCKING_QUEUE);
+
+        long now = System.currentTimeMillis();
+        // cold: p99 falls window after window, then holds
+        long[] p99Micros = {50_000, 20_000, 5_000, 1_000, 1_050, 980, 1_000};
+        for (int window = 0; window < p99Micros.length; window++) {
+            for (int i = 0; i < 200; i++) {
+                classic.recordCompleted(System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(p99Micros[window]));
+            }
+            engine.warmStart.measure(now + 1_000L * (window + 1));
+        }
+
+        WarmStartStatsDto stats = engine.warmStart.stats();
+        assertFalse(stats.isMeasuring());
+        assertTrue(stats.getTimeToFirstTradeMillis() >= stats.getReadyMillis());
+        // windows 3, 4 and 5 (0-based) are the first three within 25% of each other; window 3 opened at now + 3s
+        long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+        assertEquals(now + 3_000L - jvmStartMillis, stats.getTimeToSteadyP99Millis());
+        assertTrue(stats.getFirstWindowP99Micros() > 40_000, "first window p99 " + stats.getFirstWindowP99Micros());
+        assertTrue(stats.getSteadyP99Micros() < 1_200, "steady p99 " + stats.getSteadyP99Micros());
+    }
+
+    private static TradeEvent trade(long id) {
+        TradeEvent trade = new TradeEvent();
+        trade.setTradeId(id);
+        trade.setAccountId(1 + id % 50);
+        trade.setBrokerId(1 + id % 3);
+        trade.setCurrencyPair(EUR_USD);
+        trade.setAmount(10_000L * id);
+        trade.setRate(108_000_000L);
+        trade.setUnits(5);
+        trade.setCreatedAtMillis(1_700_000_000_000L + id);
+        trade.setStatus(TradeStatus.NEW);
+        return trade;
+    }
+
+    // The components a warm start touches, on the test's directory
+    private final class Engine {
+
+        final WarmStartProperties properties = new WarmStartProperties();
+        final WriteAheadLog writeAheadLog;
+        final TradeQueueManager tradeQueueManager;
+        final RateCache rateCache;
+        final ReferenceDataCache referenceDataCache;
+        final AccountLedger ledger = new AccountLedger(new LedgerProperties());
+        final PipelineStatsRegistry statsRegistry = new PipelineStatsRegistry(new LatencyRecorder());
+        final WarmStart warmStart;
+        final List<TradeEvent> admitted = new ArrayList<>();
+
+        Engine(boolean preload) {
+            WalProperties walProperties = new WalProperties();
+            walProperties.setDirectory(directory.resolve("wal").toString());
+            walProperties.setSegmentSize(DataSize.ofMegabytes(1));
+            writeAheadLog = new WriteAheadLog(walProperties);
+            writeAheadLog.open();
+
+            AdmissionProperties admissionProperties = new AdmissionProperties();
+            admissionProperties.getDedup().setExpectedTrades(10_000);
+            admissionProperties.getDedup().setRecentCapacity(4_096);
+            tradeQueueManager = new TradeQueueManager(new TradeQueueProperties(), new PipelineProperties(),
+                    writeAheadLog, admissionProperties);
+
+            rateCache = new RateCache(pair -> {
+                fetches.incrementAndGet();
+                return 108_000_000L;
+            }, new RateProperties());
+            rateCache.start();
+            cleanup.add(rateCache::stop);
+
+            ReferenceProperties referenceProperties = new ReferenceProperties();
+            referenceProperties.setPreload(preload);
+            referenceProperties.setSimulatedAccounts(20);
+            referenceProperties.setSimulatedBrokers(3);
+            referenceDataCache = new ReferenceDataCache(new SimulatedReferenceDataSource(referenceProperties),
+                    referenceProperties);
+            referenceDataCache.start();
+
+            properties.setFile(directory.resolve("warm-start.snapshot").toString());
+            properties.setInterval(Duration.ofHours(1));
+            properties.setSteadyWindow(Duration.ofHours(1));
+            properties.setWarmupTrades(2_000);
+            warmStart = new WarmStart(properties, rateCache, referenceDataCache, ledger, tradeQueueManager,
+                    writeAheadLog, statsRegistry, new ValidationProperties(), new AnalyticsProperties(),
+                    new TradeQueueProperties());
+        }
+
+        void admit(long firstId, int count) {
+            for (long id = firstId; id < firstId + count; id++) {
+                TradeEvent trade = trade(id);
+                assertEquals(Admission.ACCEPTED, tradeQueueManager.addTrade(trade));
+                admitted.add(trade);
+            }
+        }
+
+        // The first `count` admitted trades settle: posted to the ledger, then marked settled
+        void settle(int count) {
+            for (TradeEvent trade : admitted.subList(0, count)) {
+                ledger.post(trade.getAccountId(), Currency.EUR, trade.getAmount(), Currency.USD, trade.getAmount());
+                tradeQueueManager.markSettled(trade);
+            }
+            tradeQueueManager.getSettledWatermark().advance();
+        }
+
+        void settleAll() {
+            settle(admitted.size());
+        }
+
+        void close() {
+            writeAheadLog.close();
+        }
+    }
+}